@@ -1,25 +1,44 @@
 package com.djrapitops.nmplayer;
 
+import com.djrapitops.nmplayer.control.ControlProtocol;
+import com.djrapitops.nmplayer.control.ControlServer;
+import com.djrapitops.nmplayer.control.HeadlessPlayer;
+import com.djrapitops.nmplayer.functionality.MusicPlayer;
+import com.djrapitops.nmplayer.functionality.PlayerCommands;
 import com.djrapitops.nmplayer.ui.UserInterface;
 
+import java.util.Arrays;
+
 /**
  * This is the Main class of the NetMusicPlayer.
  *
  * <p>
  * This class is used to start the logic of the Music Player, and to launch the
  * user interface.
+ * <p>
+ * With the --headless argument the player is started without the user
+ * interface and without JavaFX, see HeadlessPlayer. With the
+ * --control-port=port argument the player can also be controlled through a
+ * ControlServer while the user interface is open.
  *
  * @author Rsl1122
  */
 public class NMPlayer {
 
+    private static final String HEADLESS_ARGUMENT = "--headless";
+
     /**
      * Main method.
      *
      * @param args the command line arguments
      */
     public static void main(String[] args) {
-        UserInterface.start(args);
+        if (Arrays.asList(args).contains(HEADLESS_ARGUMENT)) {
+            HeadlessPlayer.start(args);
+        } else {
+            ControlServer.open(new ControlProtocol(PlayerCommands.getInstance(), MusicPlayer.getInstance()), args, -1);
+            UserInterface.start(args);
+        }
     }
 
 }
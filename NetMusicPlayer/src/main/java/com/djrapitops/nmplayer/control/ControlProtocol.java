@@ -0,0 +1,218 @@
+package com.djrapitops.nmplayer.control;
+
+import com.djrapitops.nmplayer.fileutils.ErrorManager;
+import com.djrapitops.nmplayer.functionality.MusicPlayer;
+import com.djrapitops.nmplayer.functionality.PlayerCommands;
+import com.djrapitops.nmplayer.functionality.PlayerState;
+import com.djrapitops.nmplayer.functionality.Track;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.UnaryOperator;
+
+/**
+ * This class runs the text commands used to control the player without the
+ * JavaFX window.
+ * <p>
+ * A command is one line, the name of the command and its argument separated
+ * by a space, for example "volume 0.5" or "search arrival". The reply is one
+ * or more lines, the last of which starts with OK or ERR. Search results are
+ * sent on lines that start with "- " before the last line.
+ * <p>
+ * Commands that change the player are given to PlayerCommands and the reply
+ * is sent without waiting for them to run, so the calling thread never waits
+ * for the player thread. The status reply is the state PlayerCommands
+ * published last.
+ * <p>
+ * search and enqueue look for tracks in the playlist, which can take a while
+ * if the SearchIndex of the playlist has to be built, so they are run one at
+ * a time on a search thread. The track found by enqueue is queued when it has
+ * been found.
+ *
+ * @author Rsl1122
+ * @see PlayerCommands
+ */
+public class ControlProtocol {
+
+    public static final String OK = "OK";
+    public static final String ERROR = "ERR";
+    public static final String QUIT = "quit";
+
+    private static final int SEARCH_RESULTS = 20;
+    private static final String HELP = "Commands: play, pause, toggle, stop, next, previous, seek <0-1>, "
+            + "volume <0-1|+change|-change>, playlist <name>, search <text>, enqueue <text>, status, help, quit";
+
+    private static final ExecutorService SEARCHER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "NMPlayer Search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final PlayerCommands commands;
+    private final MusicPlayer player;
+
+    /**
+     * Creates a new ControlProtocol.
+     *
+     * @param commands PlayerCommands the commands are given to.
+     * @param player   MusicPlayer of the PlayerCommands.
+     */
+    public ControlProtocol(PlayerCommands commands, MusicPlayer player) {
+        this.commands = commands;
+        this.player = player;
+    }
+
+    /**
+     * Runs a command and waits for the reply.
+     * <p>
+     * quit is not run, the caller decides what it ends.
+     *
+     * @param line Command line, without the line separator.
+     * @return the reply, lines separated by '\n' and without a separator at
+     * the end.
+     * @see #submit(String)
+     */
+    public String execute(String line) {
+        return submit(line).join();
+    }
+
+    /**
+     * Runs a command without waiting for the search thread.
+     * <p>
+     * quit is not run, the caller decides what it ends.
+     *
+     * @param line Command line, without the line separator.
+     * @return CompletableFuture of the reply, completed already unless the
+     * command searches the playlist.
+     */
+    public CompletableFuture<String> submit(String line) {
+        String command = line.trim();
+        String argument = "";
+        int space = command.indexOf(' ');
+        if (space != -1) {
+            argument = command.substring(space + 1).trim();
+            command = command.substring(0, space);
+        }
+        switch (command.toLowerCase(Locale.ROOT)) {
+            case "search":
+                return lookup(argument, this::search);
+            case "enqueue":
+                return lookup(argument, this::enqueue);
+            default:
+                return CompletableFuture.completedFuture(run(command, argument));
+        }
+    }
+
+    private String run(String command, String argument) {
+        switch (command.toLowerCase(Locale.ROOT)) {
+            case "play":
+                commands.play();
+                return OK;
+            case "pause":
+                commands.pause();
+                return OK;
+            case "toggle":
+                commands.togglePlay();
+                return OK;
+            case "stop":
+                commands.stop();
+                return OK;
+            case "next":
+                commands.next();
+                return OK;
+            case "previous":
+                commands.previous();
+                return OK;
+            case "seek":
+                return seek(argument);
+            case "volume":
+                return volume(argument);
+            case "playlist":
+                if (argument.isEmpty()) {
+                    return ERROR + " Playlist name missing";
+                }
+                commands.selectPlaylist(argument);
+                return OK;
+            case "status":
+                return status();
+            case "help":
+                return OK + " " + HELP;
+            case "":
+                return ERROR + " Empty command";
+            default:
+                return ERROR + " Unknown command " + command + ", type help to see the commands";
+        }
+    }
+
+    private String seek(String argument) {
+        try {
+            double position = Double.parseDouble(argument);
+            if (position < 0 || position > 1) {
+                return ERROR + " Position must be from 0 to 1";
+            }
+            commands.seek(position);
+            return OK;
+        } catch (NumberFormatException e) {
+            return ERROR + " Not a number: " + argument;
+        }
+    }
+
+    private String volume(String argument) {
+        try {
+            double volume = Double.parseDouble(argument);
+            if (argument.startsWith("+") || argument.startsWith("-")) {
+                commands.changeVolume(volume);
+            } else {
+                commands.setVolume(volume);
+            }
+            return OK;
+        } catch (NumberFormatException e) {
+            return ERROR + " Not a number: " + argument;
+        }
+    }
+
+    private CompletableFuture<String> lookup(String query, UnaryOperator<String> lookup) {
+        if (query.isEmpty()) {
+            return CompletableFuture.completedFuture(ERROR + " Search text missing");
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return lookup.apply(query);
+            } catch (RuntimeException e) {
+                ErrorManager.toLog(ControlProtocol.class, e);
+                return ERROR + " " + e;
+            }
+        }, SEARCHER);
+    }
+
+    private String search(String query) {
+        List<Track> results = player.getPlaylistManager().search(query, SEARCH_RESULTS);
+        StringBuilder reply = new StringBuilder();
+        for (Track track : results) {
+            reply.append("- ").append(track).append('\n');
+        }
+        return reply.append(OK).append(' ').append(results.size()).toString();
+    }
+
+    private String enqueue(String query) {
+        List<Track> results = player.getPlaylistManager().search(query, 1);
+        if (results.isEmpty()) {
+            return ERROR + " No track matches " + query;
+        }
+        Track track = results.get(0);
+        commands.submit(() -> player.enqueue(track, false));
+        return OK + " " + track;
+    }
+
+    private String status() {
+        PlayerState state = commands.getState();
+        Track track = state.getCurrentTrack();
+        return OK + " " + (state.isPlaying() ? "playing" : "paused")
+                + " volume=" + state.getVolume()
+                + " playlist=" + state.getSelectedPlaylist()
+                + " track=" + (track != null ? track : "None");
+    }
+}
@@ -0,0 +1,402 @@
+package com.djrapitops.nmplayer.control;
+
+import com.djrapitops.nmplayer.fileutils.ErrorManager;
+import com.djrapitops.nmplayer.messaging.MessageSender;
+import com.djrapitops.nmplayer.messaging.Phrase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Local server that runs the commands of ControlProtocol sent over TCP, so
+ * that other programs can control the player.
+ * <p>
+ * The server only listens on the loopback address. Each client sends
+ * commands as lines of UTF-8 text, and gets the replies in the same order.
+ * Commands can be sent without waiting for the replies.
+ * <p>
+ * Every client is served by one thread with a Selector, so the server does
+ * not need a thread for each connection. The commands only give tasks to
+ * PlayerCommands, they never wait for the player thread. Searches are run on
+ * the search thread of ControlProtocol, and the next line of the client is
+ * run once the reply of the search is ready, so the other clients are served
+ * meanwhile. A client that does not read its replies is not read from until
+ * they have been sent, and a client that sends a line longer than
+ * MAX_LINE_LENGTH is disconnected.
+ *
+ * @author Rsl1122
+ * @see ControlProtocol
+ */
+public class ControlServer {
+
+    /**
+     * Port used when no port is given on the command line.
+     */
+    public static final int DEFAULT_PORT = 24713;
+
+    static final int MAX_LINE_LENGTH = 4096;
+
+    private static final String PORT_ARGUMENT = "--control-port=";
+    private static final int BUFFER_SIZE = 4096;
+    private static final int MAX_PENDING_BYTES = 64 * 1024;
+
+    private final ControlProtocol protocol;
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final Queue<Client> replied;
+
+    private Thread thread;
+    private volatile boolean closed;
+
+    /**
+     * Creates a new ControlServer, and binds it to a port of the loopback
+     * address. Commands are not served until start is called.
+     *
+     * @param protocol ControlProtocol that runs the commands.
+     * @param port     Port to listen, 0 to use any free port.
+     * @throws IOException If the port can not be bound.
+     */
+    public ControlServer(ControlProtocol protocol, int port) throws IOException {
+        this.protocol = protocol;
+        replied = new ConcurrentLinkedQueue<>();
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        try {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            server.close();
+            selector.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Starts a server on the port given on the command line. Whether the
+     * server was started is sent with MessageSender.
+     *
+     * @param protocol    ControlProtocol that runs the commands.
+     * @param args        the command line arguments
+     * @param defaultPort Port used if no port has been given, -1 to start
+     *                    the server only if a port has been given.
+     * @return the started server, or null if it was not started.
+     */
+    public static ControlServer open(ControlProtocol protocol, String[] args, int defaultPort) {
+        MessageSender msg = MessageSender.getInstance();
+        int port;
+        try {
+            port = getPort(args, defaultPort);
+        } catch (IllegalArgumentException e) {
+            msg.send(e.getMessage());
+            return null;
+        }
+        if (port == -1) {
+            return null;
+        }
+        try {
+            ControlServer server = new ControlServer(protocol, port);
+            server.start();
+            msg.send(Phrase.CONTROL_SERVER_STARTED.parse(Integer.toString(server.getPort())));
+            return server;
+        } catch (IOException e) {
+            msg.send(Phrase.CONTROL_SERVER_FAILED.parse(Integer.toString(port), e.toString()));
+            return null;
+        }
+    }
+
+    /**
+     * Used to get the port given with --control-port=port on the command
+     * line.
+     *
+     * @param args        the command line arguments
+     * @param defaultPort Port returned if no port has been given.
+     * @return the port.
+     * @throws IllegalArgumentException If the port is not a number from 0 to
+     *                                  65535.
+     */
+    public static int getPort(String[] args, int defaultPort) {
+        for (String arg : args) {
+            if (arg.startsWith(PORT_ARGUMENT)) {
+                String value = arg.substring(PORT_ARGUMENT.length());
+                try {
+                    int port = Integer.parseInt(value);
+                    if (port >= 0 && port <= 65535) {
+                        return port;
+                    }
+                } catch (NumberFormatException e) {
+                    // Thrown below.
+                }
+                throw new IllegalArgumentException("Invalid control port: " + value);
+            }
+        }
+        return defaultPort;
+    }
+
+    /**
+     * Starts serving the clients on a new thread.
+     */
+    public synchronized void start() {
+        if (thread == null && !closed) {
+            thread = new Thread(this::run, "NMPlayer Control");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Used to get the port the server listens.
+     *
+     * @return the port.
+     */
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * Stops the server and disconnects the clients.
+     */
+    public synchronized void close() {
+        closed = true;
+        if (thread != null) {
+            selector.wakeup();
+        } else {
+            closeChannels();
+        }
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                selector.select();
+                Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+                while (selected.hasNext()) {
+                    SelectionKey key = selected.next();
+                    selected.remove();
+                    handle(key);
+                }
+                Client client;
+                while ((client = replied.poll()) != null) {
+                    resume(client);
+                }
+            }
+        } catch (IOException e) {
+            ErrorManager.toLog(ControlServer.class, e);
+        } finally {
+            closeChannels();
+        }
+    }
+
+    private void handle(SelectionKey key) {
+        try {
+            if (!key.isValid()) {
+                return;
+            }
+            if (key.isAcceptable()) {
+                accept();
+                return;
+            }
+            Client client = (Client) key.attachment();
+            if (key.isWritable()) {
+                client.write();
+            }
+            if (key.isValid()) {
+                client.read(key.isReadable());
+            }
+            if (key.isValid()) {
+                client.updateInterest();
+            }
+        } catch (IOException e) {
+            // The client disconnected.
+            closeQuietly(key);
+        }
+    }
+
+    /**
+     * Sends the reply of a search that has finished, and runs the lines the
+     * client sent after it.
+     */
+    private void resume(Client client) {
+        try {
+            if (client.key.isValid()) {
+                client.read(false);
+            }
+            if (client.key.isValid()) {
+                client.updateInterest();
+            }
+        } catch (IOException e) {
+            // The client disconnected.
+            closeQuietly(client.key);
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(new Client(key, channel));
+    }
+
+    private void closeChannels() {
+        for (SelectionKey key : selector.keys()) {
+            closeQuietly(key);
+        }
+        try {
+            selector.close();
+            server.close();
+        } catch (IOException e) {
+            ErrorManager.toLog(ControlServer.class, e);
+        }
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // Closing anyway
+        }
+    }
+
+    /**
+     * State of a connection: the line being read, the search being run and
+     * the replies not yet sent.
+     */
+    private class Client {
+
+        private final SelectionKey key;
+        private final SocketChannel channel;
+        private final ByteBuffer in;
+        private final ByteArrayOutputStream line;
+        private final Deque<ByteBuffer> out;
+
+        private CompletableFuture<String> waiting;
+        private int pendingBytes;
+        private boolean inputEnded;
+        private boolean closing;
+
+        Client(SelectionKey key, SocketChannel channel) {
+            this.key = key;
+            this.channel = channel;
+            in = ByteBuffer.allocate(BUFFER_SIZE);
+            in.flip();
+            line = new ByteArrayOutputStream();
+            out = new ArrayDeque<>();
+        }
+
+        /**
+         * Runs the lines that have been received, and reads more if the
+         * channel is readable and not too many replies are waiting.
+         */
+        void read(boolean readable) throws IOException {
+            if (waiting != null && waiting.isDone()) {
+                reply(waiting.join());
+                waiting = null;
+            }
+            runLines();
+            if (readable && !inputEnded && canRun()) {
+                in.compact();
+                int read = channel.read(in);
+                in.flip();
+                runLines();
+                if (read < 0) {
+                    inputEnded = true;
+                }
+            }
+            write();
+        }
+
+        private boolean canRun() {
+            return !closing && waiting == null && pendingBytes < MAX_PENDING_BYTES;
+        }
+
+        private void runLines() {
+            while (in.hasRemaining() && canRun()) {
+                byte b = in.get();
+                if (b == '\n') {
+                    runLine();
+                } else if (line.size() < MAX_LINE_LENGTH) {
+                    line.write(b);
+                } else {
+                    reply(ControlProtocol.ERROR + " Line is longer than " + MAX_LINE_LENGTH + " bytes");
+                    closing = true;
+                }
+            }
+        }
+
+        private void runLine() {
+            String command = new String(line.toByteArray(), StandardCharsets.UTF_8);
+            line.reset();
+            if (command.endsWith("\r")) {
+                command = command.substring(0, command.length() - 1);
+            }
+            if (command.trim().equalsIgnoreCase(ControlProtocol.QUIT)) {
+                reply(ControlProtocol.OK);
+                closing = true;
+                return;
+            }
+            CompletableFuture<String> reply;
+            try {
+                reply = protocol.submit(command);
+            } catch (RuntimeException e) {
+                ErrorManager.toLog(ControlServer.class, e);
+                reply = CompletableFuture.completedFuture(ControlProtocol.ERROR + " " + e);
+            }
+            if (reply.isDone()) {
+                reply(reply.join());
+            } else {
+                // The lines after this one are run when the reply is ready.
+                waiting = reply;
+                reply.thenRun(() -> {
+                    replied.add(this);
+                    selector.wakeup();
+                });
+            }
+        }
+
+        private void reply(String reply) {
+            byte[] bytes = (reply + "\n").getBytes(StandardCharsets.UTF_8);
+            out.addLast(ByteBuffer.wrap(bytes));
+            pendingBytes += bytes.length;
+        }
+
+        void write() throws IOException {
+            while (!out.isEmpty()) {
+                ByteBuffer next = out.peekFirst();
+                pendingBytes -= channel.write(next);
+                if (next.hasRemaining()) {
+                    return;
+                }
+                out.pollFirst();
+            }
+            if (waiting == null && (closing || (inputEnded && !in.hasRemaining()))) {
+                closeQuietly(key);
+            }
+        }
+
+        void updateInterest() {
+            int ops = out.isEmpty() ? 0 : SelectionKey.OP_WRITE;
+            if (!inputEnded && canRun()) {
+                ops |= SelectionKey.OP_READ;
+            }
+            key.interestOps(ops);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.djrapitops.nmplayer.control;
+
+import com.djrapitops.nmplayer.fileutils.ErrorManager;
+import com.djrapitops.nmplayer.functionality.MusicPlayer;
+import com.djrapitops.nmplayer.functionality.PlayerCommands;
+import com.djrapitops.nmplayer.functionality.playback.NullPlaybackEngine;
+import com.djrapitops.nmplayer.functionality.playback.PlaybackEngine;
+import com.djrapitops.nmplayer.functionality.playback.SoundPlaybackEngine;
+import com.djrapitops.nmplayer.functionality.playback.StreamPlaybackEngine;
+import com.djrapitops.nmplayer.messaging.MessageSender;
+import com.djrapitops.nmplayer.messaging.Phrase;
+
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Line;
+import javax.sound.sampled.SourceDataLine;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * This class runs the player without a window, for example as a background
+ * player on a server.
+ * <p>
+ * No JavaFX classes are loaded: the tracks are played with a
+ * SoundPlaybackEngine, or a NullPlaybackEngine if there is no sound card, and
+ * the messages of MessageSender are logged. Java runtimes can not decode
+ * .mp3 files without JavaFX, so unless an MP3 service provider for
+ * javax.sound is on the classpath, a message says so at startup and only
+ * WAV, AIFF and AU files can be played. The LoudnessScanner scans the
+ * library when the playlist has been selected, as with the window.
+ * <p>
+ * The player is controlled by typing the commands of ControlProtocol to the
+ * standard input, the replies are printed to the standard output. The same
+ * commands are served by a ControlServer, on the port given with
+ * --control-port=port or ControlServer.DEFAULT_PORT. The player keeps running
+ * when the input ends, until quit is typed or the process is stopped. The
+ * playback is paused on exit so that the PlaybackCheckpoint has the position.
+ *
+ * @author Rsl1122
+ * @see ControlProtocol
+ * @see ControlServer
+ */
+public class HeadlessPlayer {
+
+    private final MusicPlayer player;
+    private final PlayerCommands commands;
+    private final ControlProtocol protocol;
+    private final CountDownLatch stopped;
+
+    private HeadlessPlayer(MusicPlayer player, PlayerCommands commands) {
+        this.player = player;
+        this.commands = commands;
+        protocol = new ControlProtocol(commands, player);
+        stopped = new CountDownLatch(1);
+    }
+
+    /**
+     * Starts the player and waits until it is stopped.
+     *
+     * @param args the command line arguments
+     */
+    public static void start(String[] args) {
+        PlaybackEngine engine = createEngine();
+        MusicPlayer.setDefaultPlaybackEngine(engine);
+        HeadlessPlayer headless = new HeadlessPlayer(MusicPlayer.getInstance(), PlayerCommands.getInstance());
+        headless.run();
+        MessageSender msg = MessageSender.getInstance();
+        msg.send(Phrase.HEADLESS_STARTED.parse(engine.getName()));
+        if (!StreamPlaybackEngine.isMp3Supported()) {
+            msg.send(Phrase.MP3_UNSUPPORTED + "");
+        }
+        ControlServer server = ControlServer.open(headless.protocol, args, ControlServer.DEFAULT_PORT);
+        headless.awaitStop();
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    /**
+     * Creates the engine used for the playback.
+     *
+     * @return SoundPlaybackEngine if audio can be played, NullPlaybackEngine
+     * playing at real-time speed otherwise.
+     */
+    static PlaybackEngine createEngine() {
+        if (AudioSystem.isLineSupported(new Line.Info(SourceDataLine.class))) {
+            return new SoundPlaybackEngine();
+        }
+        return new NullPlaybackEngine(true);
+    }
+
+    private void run() {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> commands.submitAndWait(player::pause), "NMPlayer Shutdown"));
+        commands.init();
+        Thread console = new Thread(this::readConsole, "NMPlayer Console");
+        console.setDaemon(true);
+        console.start();
+    }
+
+    private void readConsole() {
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, Charset.defaultCharset()));
+        PrintStream out = System.out;
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.trim().equalsIgnoreCase(ControlProtocol.QUIT)) {
+                    stopped.countDown();
+                    return;
+                }
+                out.println(protocol.execute(line));
+            }
+        } catch (IOException e) {
+            ErrorManager.toLog(HeadlessPlayer.class, e);
+        }
+    }
+
+    private void awaitStop() {
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.djrapitops.nmplayer.fileutils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class stores information that is slow to find out about track files,
+ * such as the loudness of a track, so that it is only calculated once.
+ * <p>
+ * The cache is stored in metadata.cache next to the playlists folder, one
+ * line per file: the file path, the modification time of the file and
+ * key=value pairs, separated by tabs. When a file is modified the values of
+ * it are no longer returned, and the next put replaces them.
+ * <p>
+ * Values are written to the file with save, the caller decides how often.
+ * The file is written and the modification times of the track files are
+ * read without holding the lock of the cache, so a save does not stop other
+ * threads from reading values.
+ * <p>
+ * THIS CLASS SHOULD NOT BE INITIALIZED WITH CLASS CONSTRUCTOR, MetadataCache
+ * IS A SINGLETON CLASS, use MetadataCache.getInstance() instead.
+ *
+ * @author Rsl1122
+ */
+public class MetadataCache {
+
+    private static final String CACHE_FILE_NAME = "metadata.cache";
+
+    private final File file;
+    private final Map<String, Entry> entries;
+    private final Object saveLock;
+    private boolean loaded;
+    private boolean changed;
+
+    /**
+     * Creates a MetadataCache stored in a file.
+     *
+     * @param file File of the cache.
+     */
+    MetadataCache(File file) {
+        this.file = file;
+        entries = new HashMap<>();
+        saveLock = new Object();
+    }
+
+    /**
+     * Used to get a value stored for a file.
+     *
+     * @param filePath Absolute file path of a track.
+     * @param key      Name of the value, for example "loudness".
+     * @return the value, or null if it has not been stored or the file has
+     * been modified after it was stored.
+     */
+    public String get(String filePath, String key) {
+        long modifiedTime = new File(filePath).lastModified();
+        synchronized (this) {
+            load();
+            Entry entry = entries.get(filePath);
+            if (entry == null || entry.modifiedTime != modifiedTime) {
+                return null;
+            }
+            return entry.values.get(key);
+        }
+    }
+
+    /**
+     * Used to store a value for a file. Old values of a file that has been
+     * modified are removed.
+     *
+     * @param filePath Absolute file path of a track.
+     * @param key      Name of the value, can not contain tabs or '='.
+     * @param value    Value, can not contain tabs or line breaks.
+     */
+    public void put(String filePath, String key, String value) {
+        long modifiedTime = new File(filePath).lastModified();
+        synchronized (this) {
+            load();
+            Entry entry = entries.get(filePath);
+            if (entry == null || entry.modifiedTime != modifiedTime) {
+                entry = new Entry(modifiedTime);
+                entries.put(filePath, entry);
+            }
+            entry.values.put(key, value);
+            changed = true;
+        }
+    }
+
+    /**
+     * Writes the cache file, if values have been put after it was written.
+     * <p>
+     * The lines are made from the values while holding the lock, and written
+     * after it has been released. Saves are written one at a time, so an
+     * older save never replaces a newer one.
+     */
+    public void save() {
+        synchronized (saveLock) {
+            List<String> lines;
+            synchronized (this) {
+                if (!changed) {
+                    return;
+                }
+                lines = toLines();
+                changed = false;
+            }
+            if (!FileUtility.writeFile(lines, file)) {
+                synchronized (this) {
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    private List<String> toLines() {
+        List<String> lines = new ArrayList<>(entries.size());
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            Entry entry = e.getValue();
+            StringBuilder line = new StringBuilder(e.getKey()).append('\t').append(entry.modifiedTime);
+            for (Map.Entry<String, String> value : entry.values.entrySet()) {
+                line.append('\t').append(value.getKey()).append('=').append(value.getValue());
+            }
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        try {
+            for (String line : FileUtility.lines(file)) {
+                String[] parts = line.split("\t");
+                if (parts.length < 2) {
+                    continue;
+                }
+                Entry entry = new Entry(Long.parseLong(parts[1]));
+                for (int i = 2; i < parts.length; i++) {
+                    int separator = parts[i].indexOf('=');
+                    if (separator > 0) {
+                        entry.values.put(parts[i].substring(0, separator), parts[i].substring(separator + 1));
+                    }
+                }
+                entries.put(parts[0], entry);
+            }
+        } catch (IOException | RuntimeException ex) {
+            // A broken cache is calculated again.
+            ErrorManager.toLog(MetadataCache.class, ex);
+            entries.clear();
+        }
+    }
+
+    /**
+     * Used to get the only instance of the MetadataCache.
+     *
+     * @return INSTANCE created in the static class MetadataCacheSingletonHolder
+     */
+    public static MetadataCache getInstance() {
+        return MetadataCacheSingletonHolder.INSTANCE;
+    }
+
+    private static class Entry {
+
+        private final long modifiedTime;
+        private final Map<String, String> values;
+
+        Entry(long modifiedTime) {
+            this.modifiedTime = modifiedTime;
+            values = new LinkedHashMap<>();
+        }
+    }
+
+    private static class MetadataCacheSingletonHolder {
+
+        private static final MetadataCache INSTANCE = new MetadataCache(new File(CACHE_FILE_NAME));
+    }
+}
@@ -0,0 +1,336 @@
+package com.djrapitops.nmplayer.fileutils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * This class stores the playback position, so that the playback can be
+ * resumed after the player has been closed.
+ * <p>
+ * The checkpoint is stored in playback.checkpoint next to the playlists
+ * folder. The file has a fixed size of two records, and is memory-mapped, so
+ * an update only copies a record into memory and the operating system writes
+ * it to the disk. Updates are written to the records in turns, with a
+ * sequence number and a checksum, so if an update is cut in half the
+ * previous record is still used.
+ * <p>
+ * A record holds the selected playlist, the current track, the position in
+ * it, and the resume points of up to RESUME_SLOTS long tracks. The resume
+ * points are identified by a 64 bit hash of the file path. When the slots are
+ * full, the least recently updated resume point is replaced.
+ * <p>
+ * THIS CLASS SHOULD NOT BE INITIALIZED WITH CLASS CONSTRUCTOR,
+ * PlaybackCheckpoint IS A SINGLETON CLASS, use PlaybackCheckpoint.getInstance()
+ * instead.
+ *
+ * @author Rsl1122
+ */
+public class PlaybackCheckpoint {
+
+    static final int RESUME_SLOTS = 32;
+    static final int RECORD_SIZE = 2048;
+
+    private static final String CHECKPOINT_FILE_NAME = "playback.checkpoint";
+    private static final int MAGIC = 0x4E4D5043;
+    private static final int MAX_PLAYLIST_BYTES = 128;
+    private static final int MAX_PATH_BYTES = 1024;
+
+    private static final int CRC_OFFSET = 4;
+    private static final int SEQUENCE_OFFSET = 8;
+    private static final int POSITION_OFFSET = 16;
+    private static final int PLAYING_OFFSET = 24;
+    private static final int PLAYLIST_OFFSET = 26;
+    private static final int PATH_OFFSET = PLAYLIST_OFFSET + 2 + MAX_PLAYLIST_BYTES;
+    private static final int RESUME_OFFSET = PATH_OFFSET + 2 + MAX_PATH_BYTES;
+    private static final int RESUME_SLOT_SIZE = 24;
+
+    private final File file;
+    private final ByteBuffer record;
+    private final long[] resumeKeys;
+    private final long[] resumePositions;
+    private final long[] resumeTimes;
+
+    private MappedByteBuffer mapped;
+    private boolean loaded;
+    private long sequence;
+    private String playlist;
+    private String trackPath;
+    private long position;
+    private boolean playing;
+
+    /**
+     * Creates a PlaybackCheckpoint stored in a file.
+     *
+     * @param file File of the checkpoint.
+     */
+    PlaybackCheckpoint(File file) {
+        this.file = file;
+        record = ByteBuffer.allocate(RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        resumeKeys = new long[RESUME_SLOTS];
+        resumePositions = new long[RESUME_SLOTS];
+        resumeTimes = new long[RESUME_SLOTS];
+    }
+
+    /**
+     * Stores the playback position.
+     *
+     * @param playlist  Name of the selected playlist.
+     * @param trackPath Absolute file path of the current track.
+     * @param position  Position in the track in milliseconds.
+     * @param playing   Was the track playing?
+     */
+    public synchronized void update(String playlist, String trackPath, long position, boolean playing) {
+        load();
+        this.playlist = playlist;
+        this.trackPath = trackPath;
+        this.position = Math.max(0, position);
+        this.playing = playing;
+        write();
+    }
+
+    /**
+     * Stores the position of a long track, so that it continues from the
+     * position when it is played again. Written with the next update.
+     *
+     * @param trackPath Absolute file path of the track.
+     * @param position  Position in milliseconds.
+     */
+    public synchronized void setResumePoint(String trackPath, long position) {
+        load();
+        long key = hash(trackPath);
+        int slot = findSlot(key);
+        if (slot == -1) {
+            slot = 0;
+            for (int i = 1; i < RESUME_SLOTS; i++) {
+                if (resumeTimes[i] < resumeTimes[slot]) {
+                    slot = i;
+                }
+            }
+        }
+        resumeKeys[slot] = key;
+        resumePositions[slot] = Math.max(0, position);
+        resumeTimes[slot] = System.currentTimeMillis();
+    }
+
+    /**
+     * Removes the resume point of a track, for example when it has been
+     * played to the end. Written with the next update.
+     *
+     * @param trackPath Absolute file path of the track.
+     */
+    public synchronized void clearResumePoint(String trackPath) {
+        load();
+        int slot = findSlot(hash(trackPath));
+        if (slot != -1) {
+            resumeKeys[slot] = 0;
+            resumePositions[slot] = 0;
+            resumeTimes[slot] = 0;
+        }
+    }
+
+    /**
+     * Used to get the resume point of a track.
+     *
+     * @param trackPath Absolute file path of the track.
+     * @return Position in milliseconds, 0 if the track has no resume point.
+     */
+    public synchronized long getResumePoint(String trackPath) {
+        load();
+        int slot = findSlot(hash(trackPath));
+        return slot != -1 ? resumePositions[slot] : 0;
+    }
+
+    private int findSlot(long key) {
+        for (int i = 0; i < RESUME_SLOTS; i++) {
+            if (resumeTimes[i] != 0 && resumeKeys[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Used to get the playlist that was selected.
+     *
+     * @return Name of the playlist, or null if nothing has been stored.
+     */
+    public synchronized String getPlaylist() {
+        load();
+        return playlist;
+    }
+
+    /**
+     * Used to get the track that was played.
+     *
+     * @return Absolute file path, or null if nothing has been stored.
+     */
+    public synchronized String getTrackPath() {
+        load();
+        return trackPath;
+    }
+
+    /**
+     * Used to get the position in the track that was played.
+     *
+     * @return Position in milliseconds.
+     */
+    public synchronized long getPosition() {
+        load();
+        return position;
+    }
+
+    /**
+     * Tells if the track was playing.
+     *
+     * @return true if the track was playing when it was stored.
+     */
+    public synchronized boolean wasPlaying() {
+        load();
+        return playing;
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed.
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, 2 * RECORD_SIZE);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+        } catch (IOException | RuntimeException ex) {
+            // The position is kept in memory only.
+            ErrorManager.toLog(PlaybackCheckpoint.class, ex);
+            return;
+        }
+        int latest = -1;
+        long latestSequence = -1;
+        for (int i = 0; i < 2; i++) {
+            long recordSequence = readRecord(i);
+            if (recordSequence > latestSequence) {
+                latest = i;
+                latestSequence = recordSequence;
+            }
+        }
+        if (latest != -1) {
+            read(latest);
+            sequence = latestSequence;
+        }
+    }
+
+    /**
+     * Copies a record into the buffer, and checks it.
+     *
+     * @return Sequence number of the record, -1 if it is not valid.
+     */
+    private long readRecord(int index) {
+        byte[] bytes = record.array();
+        mapped.position(index * RECORD_SIZE);
+        mapped.get(bytes);
+        if (record.getInt(0) != MAGIC || record.getInt(CRC_OFFSET) != checksum()) {
+            return -1;
+        }
+        return record.getLong(SEQUENCE_OFFSET);
+    }
+
+    private void read(int index) {
+        readRecord(index);
+        position = record.getLong(POSITION_OFFSET);
+        playing = record.get(PLAYING_OFFSET) != 0;
+        playlist = readString(PLAYLIST_OFFSET);
+        trackPath = readString(PATH_OFFSET);
+        for (int i = 0; i < RESUME_SLOTS; i++) {
+            int offset = RESUME_OFFSET + i * RESUME_SLOT_SIZE;
+            resumeKeys[i] = record.getLong(offset);
+            resumePositions[i] = record.getLong(offset + 8);
+            resumeTimes[i] = record.getLong(offset + 16);
+        }
+    }
+
+    private void write() {
+        if (mapped == null) {
+            return;
+        }
+        sequence++;
+        byte[] bytes = record.array();
+        Arrays.fill(bytes, (byte) 0);
+        record.putInt(0, MAGIC);
+        record.putLong(SEQUENCE_OFFSET, sequence);
+        record.putLong(POSITION_OFFSET, position);
+        record.put(PLAYING_OFFSET, (byte) (playing ? 1 : 0));
+        writeString(PLAYLIST_OFFSET, playlist, MAX_PLAYLIST_BYTES);
+        writeString(PATH_OFFSET, trackPath, MAX_PATH_BYTES);
+        for (int i = 0; i < RESUME_SLOTS; i++) {
+            int offset = RESUME_OFFSET + i * RESUME_SLOT_SIZE;
+            record.putLong(offset, resumeKeys[i]);
+            record.putLong(offset + 8, resumePositions[i]);
+            record.putLong(offset + 16, resumeTimes[i]);
+        }
+        record.putInt(CRC_OFFSET, checksum());
+        mapped.position((int) (sequence % 2) * RECORD_SIZE);
+        mapped.put(bytes);
+    }
+
+    private int checksum() {
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), SEQUENCE_OFFSET, RECORD_SIZE - SEQUENCE_OFFSET);
+        return (int) crc.getValue();
+    }
+
+    private String readString(int offset) {
+        int length = record.getShort(offset);
+        if (length <= 0) {
+            return null;
+        }
+        return new String(record.array(), offset + 2, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a string with its length. Strings that do not fit are not
+     * written, a cut file path would point to another file.
+     */
+    private void writeString(int offset, String value, int maxBytes) {
+        byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        if (bytes.length > maxBytes) {
+            bytes = new byte[0];
+        }
+        record.putShort(offset, (short) bytes.length);
+        System.arraycopy(bytes, 0, record.array(), offset + 2, bytes.length);
+    }
+
+    /**
+     * FNV-1a hash of the characters of a file path.
+     */
+    private static long hash(String path) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < path.length(); i++) {
+            hash ^= path.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Used to get the only instance of the PlaybackCheckpoint.
+     *
+     * @return INSTANCE created in the static class
+     * PlaybackCheckpointSingletonHolder
+     */
+    public static PlaybackCheckpoint getInstance() {
+        return PlaybackCheckpointSingletonHolder.INSTANCE;
+    }
+
+    private static class PlaybackCheckpointSingletonHolder {
+
+        private static final PlaybackCheckpoint INSTANCE = new PlaybackCheckpoint(new File(CHECKPOINT_FILE_NAME));
+    }
+}
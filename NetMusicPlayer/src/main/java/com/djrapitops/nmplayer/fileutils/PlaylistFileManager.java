@@ -5,14 +5,20 @@
  */
 package com.djrapitops.nmplayer.fileutils;
 
+import com.djrapitops.nmplayer.functionality.PlaylistEdit;
 import com.djrapitops.nmplayer.functionality.Track;
+import com.djrapitops.nmplayer.functionality.TrackTable;
 import com.djrapitops.nmplayer.functionality.utilities.TextUtils;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -22,27 +28,248 @@ import java.util.stream.Collectors;
  * The .txt files contain absolute file paths to the .mp3 files used by the
  * program.
  * <p>
+ * Smart playlists are stored as .smart files, which contain one rule per
+ * line. Empty lines and lines starting with # are ignored.
+ * <p>
+ * Small changes to a playlist are appended to {name}.journal inside the
+ * /journal/ folder next to the /playlists/ folder, instead of writing the
+ * whole .txt file again. The journal is applied when the playlist is loaded,
+ * and it is merged into the .txt file when it grows larger than the .txt
+ * file.
+ * <p>
  * All the methods are static.
  *
  * @author Rsl1122
  */
 public class PlaylistFileManager {
 
+    /**
+     * File extension of smart playlist files.
+     */
+    public static final String SMART_EXTENSION = ".smart";
+
+    private static final String JOURNAL_EXTENSION = ".journal";
+    private static final char JOURNAL_REMOVE = '-';
+    private static final char JOURNAL_INSERT = '+';
+
     /**
      * Saves the {filepaths} list to a {name}.txt file.
      * <p>
      * If playlists folder doesn't exist it will be created.
      * <p>
      * If a file with the name exists inside the folder, it's contents will be overwritten.
+     * <p>
+     * PlaylistIndex is updated after the file has been written, and the
+     * journal of the playlist is deleted.
      *
      * @param filepaths a List containing filepaths to .mp3 files inside the playlist.
      * @param name      Name of the playlist, and the name of the .txt file
      * @return Success of the save.
+     * @see PlaylistIndex
      */
     public static boolean save(List<String> filepaths, String name) {
         File playlistFolder = getPlaylistFolder();
         File playlistFile = new File(playlistFolder, name + ".txt");
-        return FileUtility.writeFile(filepaths, playlistFile);
+        boolean success = FileUtility.writeFile(filepaths, playlistFile);
+        if (success) {
+            File journal = getJournalFile(name);
+            if (journal.exists() && !journal.delete()) {
+                ErrorManager.toLog(PlaylistFileManager.class, new IOException("Could not delete " + journal.getName()));
+            }
+            PlaylistIndex.getInstance().update(name, filepaths, playlistFile.lastModified());
+        }
+        return success;
+    }
+
+    /**
+     * Saves changes of a playlist by appending them to the journal of the
+     * playlist.
+     * <p>
+     * The edits have to describe changes to the playlist that was loaded with
+     * load(name) or saved with save(filepaths, name). If the journal becomes
+     * larger than the .txt file, the journal is merged into the .txt file.
+     *
+     * @param edits PlaylistEdits in the order they were made.
+     * @param name  Name of the playlist.
+     * @return Success of the save.
+     * @see PlaylistEdit
+     */
+    public static boolean saveEdits(List<PlaylistEdit> edits, String name) {
+        if (edits.isEmpty()) {
+            return true;
+        }
+        TrackTable table = TrackTable.getInstance();
+        List<String> lines = new ArrayList<>();
+        // Net change of each path, so that a moved track or an undone add does not change the index.
+        Map<String, Integer> changes = new HashMap<>();
+        for (PlaylistEdit edit : edits) {
+            if (edit.getRemovedPositions().length > 0) {
+                lines.add(JOURNAL_REMOVE + joinPositions(edit.getRemovedPositions()));
+                for (int id : edit.getRemovedIds()) {
+                    changes.merge(table.getFilePath(id), -1, Integer::sum);
+                }
+            }
+            if (edit.getInsertedPositions().length > 0) {
+                lines.add(JOURNAL_INSERT + joinPositions(edit.getInsertedPositions()));
+                for (int id : edit.getInsertedIds()) {
+                    String path = table.getFilePath(id);
+                    lines.add(path);
+                    changes.merge(path, 1, Integer::sum);
+                }
+            }
+        }
+        File journal = getJournalFile(name);
+        File journalFolder = journal.getParentFile();
+        if (!journalFolder.exists()) {
+            journalFolder.mkdir();
+        }
+        if (!FileUtility.appendToFile(lines, journal)) {
+            return false;
+        }
+        if (journal.length() > new File(getPlaylistFolder(), name + ".txt").length()) {
+            return save(loadFile(name), name);
+        }
+        List<String> removedPaths = new ArrayList<>();
+        List<String> addedPaths = new ArrayList<>();
+        for (Map.Entry<String, Integer> change : changes.entrySet()) {
+            if (change.getValue() < 0) {
+                removedPaths.add(change.getKey());
+            } else if (change.getValue() > 0) {
+                addedPaths.add(change.getKey());
+            }
+        }
+        PlaylistIndex.getInstance().applyEdits(name, removedPaths, addedPaths, getLastModified(name));
+        return true;
+    }
+
+    private static String joinPositions(int[] positions) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < positions.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append(positions[i]);
+        }
+        return line.toString();
+    }
+
+    /**
+     * Applies the lines of a journal to the file paths of a playlist.
+     */
+    private static List<String> applyJournal(List<String> filepaths, List<String> journal) {
+        List<String> playlist = filepaths;
+        for (int line = 0; line < journal.size(); line++) {
+            String record = journal.get(line);
+            if (record.isEmpty()) {
+                continue;
+            }
+            int[] positions = parsePositions(record.substring(1));
+            if (record.charAt(0) == JOURNAL_REMOVE) {
+                List<String> kept = new ArrayList<>(playlist.size());
+                int next = 0;
+                for (int i = 0; i < playlist.size(); i++) {
+                    if (next < positions.length && positions[next] == i) {
+                        next++;
+                    } else {
+                        kept.add(playlist.get(i));
+                    }
+                }
+                playlist = kept;
+            } else if (record.charAt(0) == JOURNAL_INSERT) {
+                List<String> inserted = journal.subList(line + 1, line + 1 + positions.length);
+                List<String> merged = new ArrayList<>(playlist.size() + positions.length);
+                int next = 0;
+                int old = 0;
+                while (merged.size() < playlist.size() + positions.length) {
+                    if (next < positions.length && positions[next] == merged.size()) {
+                        merged.add(inserted.get(next++));
+                    } else {
+                        merged.add(playlist.get(old++));
+                    }
+                }
+                playlist = merged;
+                line += positions.length;
+            } else {
+                throw new IllegalArgumentException("Unknown journal record: " + record);
+            }
+        }
+        return playlist;
+    }
+
+    private static int[] parsePositions(String positions) {
+        String[] split = positions.split(",");
+        int[] parsed = new int[split.length];
+        for (int i = 0; i < split.length; i++) {
+            parsed[i] = Integer.parseInt(split[i]);
+        }
+        return parsed;
+    }
+
+    /**
+     * Used to get the time the playlist was last changed, including changes
+     * in the journal.
+     */
+    static long getLastModified(String name) {
+        File playlistFile = new File(getPlaylistFolder(), name + ".txt");
+        return Math.max(playlistFile.lastModified(), getJournalFile(name).lastModified());
+    }
+
+    private static File getJournalFile(String name) {
+        return new File("journal", name + JOURNAL_EXTENSION);
+    }
+
+    /**
+     * Removes a file path from every playlist that contains it.
+     * <p>
+     * PlaylistIndex is used to find the playlists, so other playlist files are
+     * not read.
+     *
+     * @param filepath Absolute file path of the track to remove.
+     * @return Names of the playlists the path was removed from.
+     */
+    public static Set<String> removeFromAllPlaylists(String filepath) {
+        return removeFromAllPlaylists(Collections.singleton(filepath));
+    }
+
+    /**
+     * Removes multiple file paths from every playlist that contains them.
+     * <p>
+     * Each affected playlist is read and saved only once.
+     *
+     * @param filepaths Absolute file paths of the tracks to remove.
+     * @return Names of the playlists paths were removed from.
+     */
+    public static Set<String> removeFromAllPlaylists(Collection<String> filepaths) {
+        Set<String> removed = new HashSet<>(filepaths);
+        Set<String> playlists = new HashSet<>();
+        PlaylistIndex index = PlaylistIndex.getInstance();
+        for (String filepath : removed) {
+            playlists.addAll(index.getPlaylists(filepath));
+        }
+        for (String playlist : playlists) {
+            List<String> playlistPaths = loadFile(playlist);
+            playlistPaths.removeIf(removed::contains);
+            save(playlistPaths, playlist);
+        }
+        return playlists;
+    }
+
+    /**
+     * Replaces a file path with another in every playlist that contains it,
+     * used when a file has been moved or renamed.
+     *
+     * @param oldFilepath Absolute file path before the move.
+     * @param newFilepath Absolute file path after the move.
+     * @return Names of the changed playlists.
+     */
+    public static Set<String> relocate(String oldFilepath, String newFilepath) {
+        Set<String> playlists = PlaylistIndex.getInstance().getPlaylists(oldFilepath);
+        for (String playlist : playlists) {
+            List<String> filepaths = loadFile(playlist);
+            filepaths.replaceAll(path -> path.equals(oldFilepath) ? newFilepath : path);
+            save(filepaths, playlist);
+        }
+        return playlists;
     }
 
     /**
@@ -68,15 +295,22 @@ public class PlaylistFileManager {
         if (name.equals("all")) {
             return loadAll();
         }
-        ArrayList<String> playlist = new ArrayList<>();
+        return loadFile(name);
+    }
+
+    /**
+     * Reads the contents of {name}.txt and applies the journal, without the
+     * special case of "all".
+     */
+    static List<String> loadFile(String name) {
+        List<String> playlist = new ArrayList<>();
         File playlistFolder = getPlaylistFolder();
         File playlistFile = new File(playlistFolder, name + ".txt");
-        if (playlistFile.exists()) {
+        File journal = getJournalFile(name);
+        if (playlistFile.exists() || journal.exists()) {
             try {
-                List<String> lines = FileUtility.lines(playlistFile);
-                if (!lines.isEmpty()) {
-                    playlist.addAll(lines);
-                }
+                playlist.addAll(FileUtility.lines(playlistFile));
+                playlist = applyJournal(playlist, FileUtility.lines(journal));
             } catch (Exception ex) {
                 ErrorManager.toLog(PlaylistFileManager.class, ex);
             }
@@ -96,11 +330,7 @@ public class PlaylistFileManager {
         File[] files = playlistFolder.listFiles();
         for (File file : files) {
             if (file.getName().equals("all.txt")) {
-                try {
-                    playlist.addAll(FileUtility.lines(file));
-                } catch (IOException ex) {
-                    ErrorManager.toLog(PlaylistFileManager.class, ex);
-                }
+                playlist.addAll(loadFile("all"));
             }
             if (file.isDirectory() || !file.canRead() || !file.getName().endsWith(".txt") || file.getName().equals("all.txt")) {
                 continue;
@@ -117,6 +347,51 @@ public class PlaylistFileManager {
         return new ArrayList<>(playlist);
     }
 
+    /**
+     * Used to get the .smart file of a smart playlist. The file might not
+     * exist.
+     *
+     * @param name Name of the smart playlist.
+     * @return {name}.smart File inside the playlists folder.
+     */
+    public static File getSmartPlaylistFile(String name) {
+        return new File(getPlaylistFolder(), name + SMART_EXTENSION);
+    }
+
+    /**
+     * Check whether or not a playlist is a smart playlist.
+     *
+     * @param name Name of the playlist.
+     * @return Does {name}.smart exist?
+     */
+    public static boolean isSmartPlaylist(String name) {
+        return getSmartPlaylistFile(name).exists();
+    }
+
+    /**
+     * Reads the rules of a smart playlist.
+     *
+     * @param name Name of the smart playlist, and the name of the .smart file.
+     * @return List containing the rule lines, empty if the file doesn't exist.
+     */
+    public static List<String> loadSmartRules(String name) {
+        List<String> rules = new ArrayList<>();
+        File smartFile = getSmartPlaylistFile(name);
+        if (smartFile.exists()) {
+            try {
+                for (String line : FileUtility.lines(smartFile)) {
+                    String rule = line.trim();
+                    if (!rule.isEmpty() && !rule.startsWith("#")) {
+                        rules.add(rule);
+                    }
+                }
+            } catch (IOException ex) {
+                ErrorManager.toLog(PlaylistFileManager.class, ex);
+            }
+        }
+        return rules;
+    }
+
     /**
      * This method is used to translate a List containing Track objects into a
      * List containing absolute file paths as string before saving them to the
@@ -141,6 +416,11 @@ public class PlaylistFileManager {
         StringBuilder playlists = new StringBuilder();
         File[] files = getPlaylistFolder().listFiles();
         for (File file : files) {
+            String name = file.getName();
+            if (file.isFile() && file.canRead() && name.endsWith(SMART_EXTENSION)) {
+                playlists.append(TextUtils.uppercaseFirst(name.substring(0, name.length() - SMART_EXTENSION.length()))).append(", ");
+                continue;
+            }
             if (file.isDirectory() || !file.canRead() || !file.getName().endsWith(".txt")) {
                 continue;
             }
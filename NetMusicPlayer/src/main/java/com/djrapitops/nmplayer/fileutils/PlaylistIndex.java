@@ -0,0 +1,305 @@
+package com.djrapitops.nmplayer.fileutils;
+
+import com.djrapitops.nmplayer.functionality.utilities.TextUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class keeps track of which playlists contain each file path.
+ * <p>
+ * The index is stored in playlists.index next to the playlists folder, with
+ * the modification time of every playlist file and its journal. When the index is loaded,
+ * only the playlist files that have been modified after the index was saved
+ * are read again.
+ * <p>
+ * The index is updated every time a playlist is saved with
+ * PlaylistFileManager. Each update is appended to the file as a section
+ * that replaces the paths of a playlist, or adds or removes some of them,
+ * so saving a small change does not write the whole index. The file is
+ * written again without the old sections once it has more than twice the
+ * lines of the index.
+ * <p>
+ * THIS CLASS SHOULD NOT BE INITIALIZED WITH CLASS CONSTRUCTOR, PlaylistIndex
+ * IS A SINGLETON CLASS, use PlaylistIndex.getInstance() instead.
+ *
+ * @author Rsl1122
+ * @see PlaylistFileManager
+ */
+public class PlaylistIndex {
+
+    private static final String INDEX_FILE_NAME = "playlists.index";
+    private static final String HEADER_PREFIX = "#";
+    private static final String ADDED_PREFIX = "+";
+    private static final String REMOVED_PREFIX = "-";
+
+    private final File file;
+    private final Map<String, Set<String>> playlistsOfPath;
+    private final Map<String, Set<String>> pathsOfPlaylist;
+    private final Map<String, Long> lastModified;
+    private boolean loaded;
+    private long fileLines;
+
+    /**
+     * Creates a PlaylistIndex stored in a file.
+     *
+     * @param file File of the index.
+     */
+    PlaylistIndex(File file) {
+        this.file = file;
+        playlistsOfPath = new HashMap<>();
+        pathsOfPlaylist = new HashMap<>();
+        lastModified = new HashMap<>();
+    }
+
+    /**
+     * Used to get the names of the playlists that contain a file path.
+     *
+     * @param path Absolute file path of a track.
+     * @return Set of playlist names, empty if no playlist contains the path.
+     */
+    public synchronized Set<String> getPlaylists(String path) {
+        load();
+        Set<String> playlists = playlistsOfPath.get(path);
+        return playlists != null ? new HashSet<>(playlists) : new HashSet<>();
+    }
+
+    /**
+     * Used to tell that a playlist file has been written, and saves the index.
+     *
+     * @param playlist     Name of the playlist.
+     * @param paths        File paths in the playlist.
+     * @param modifiedTime Modification time of the written playlist file.
+     */
+    public synchronized void update(String playlist, Collection<String> paths, long modifiedTime) {
+        load();
+        setPaths(playlist, paths, modifiedTime);
+        List<String> lines = new ArrayList<>();
+        addSection(lines, HEADER_PREFIX, playlist, pathsOfPlaylist.get(playlist));
+        append(lines);
+    }
+
+    /**
+     * Used to tell that changes of a playlist have been appended to its
+     * journal, and saves the index.
+     *
+     * @param playlist     Name of the playlist.
+     * @param removed      File paths removed from the playlist.
+     * @param added        File paths added to the playlist.
+     * @param modifiedTime Modification time of the playlist and its journal.
+     */
+    public synchronized void applyEdits(String playlist, Collection<String> removed, Collection<String> added, long modifiedTime) {
+        load();
+        removePaths(playlist, removed, modifiedTime);
+        addPaths(playlist, added, modifiedTime);
+        List<String> lines = new ArrayList<>();
+        addSection(lines, REMOVED_PREFIX, playlist, removed);
+        addSection(lines, ADDED_PREFIX, playlist, added);
+        append(lines);
+    }
+
+    /**
+     * Reads the index file, and then every playlist file that has been
+     * modified after the index was saved.
+     */
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        readIndexFile();
+
+        boolean changed = false;
+        Set<String> existing = new HashSet<>();
+        File[] files = PlaylistFileManager.getPlaylistFolder().listFiles();
+        for (File file : files != null ? files : new File[0]) {
+            if (file.isDirectory() || !file.canRead() || !file.getName().endsWith(".txt")) {
+                continue;
+            }
+            String playlist = TextUtils.removeExtension(file.getName());
+            existing.add(playlist);
+            Long indexed = lastModified.get(playlist);
+            long modifiedTime = PlaylistFileManager.getLastModified(playlist);
+            if (indexed == null || indexed != modifiedTime) {
+                setPaths(playlist, PlaylistFileManager.loadFile(playlist), modifiedTime);
+                changed = true;
+            }
+        }
+        for (String playlist : new ArrayList<>(pathsOfPlaylist.keySet())) {
+            if (!existing.contains(playlist)) {
+                removePlaylist(playlist);
+                changed = true;
+            }
+        }
+        if (changed) {
+            save();
+        }
+    }
+
+    private void readIndexFile() {
+        try {
+            String kind = null;
+            String playlist = null;
+            List<String> paths = new ArrayList<>();
+            long modifiedTime = 0;
+            List<String> lines = FileUtility.lines(getIndexFile());
+            for (String line : lines) {
+                if (isSectionStart(line)) {
+                    if (playlist != null) {
+                        applySection(kind, playlist, paths, modifiedTime);
+                    }
+                    int separator = line.lastIndexOf('\t');
+                    kind = line.substring(0, 1);
+                    playlist = line.substring(1, separator);
+                    modifiedTime = Long.parseLong(line.substring(separator + 1));
+                    paths = new ArrayList<>();
+                } else if (playlist != null) {
+                    paths.add(line);
+                }
+            }
+            if (playlist != null) {
+                applySection(kind, playlist, paths, modifiedTime);
+            }
+            fileLines = lines.size();
+        } catch (IOException | RuntimeException ex) {
+            // A broken index is rebuilt from the playlist files.
+            ErrorManager.toLog(PlaylistIndex.class, ex);
+            playlistsOfPath.clear();
+            pathsOfPlaylist.clear();
+            lastModified.clear();
+        }
+    }
+
+    private static boolean isSectionStart(String line) {
+        return line.startsWith(HEADER_PREFIX) || line.startsWith(ADDED_PREFIX) || line.startsWith(REMOVED_PREFIX);
+    }
+
+    private void applySection(String kind, String playlist, List<String> paths, long modifiedTime) {
+        switch (kind) {
+            case ADDED_PREFIX:
+                addPaths(playlist, paths, modifiedTime);
+                break;
+            case REMOVED_PREFIX:
+                removePaths(playlist, paths, modifiedTime);
+                break;
+            default:
+                setPaths(playlist, paths, modifiedTime);
+        }
+    }
+
+    private void addSection(List<String> lines, String kind, String playlist, Collection<String> paths) {
+        lines.add(kind + playlist + '\t' + lastModified.get(playlist));
+        lines.addAll(paths);
+    }
+
+    /**
+     * Appends sections to the index file, or writes the whole index if the
+     * file has become more than twice as long as the index or has been
+     * deleted.
+     */
+    private void append(List<String> lines) {
+        long indexLines = pathsOfPlaylist.size();
+        for (Set<String> paths : pathsOfPlaylist.values()) {
+            indexLines += paths.size();
+        }
+        File indexFile = getIndexFile();
+        if (fileLines + lines.size() > 2 * indexLines || !indexFile.exists()
+                || !FileUtility.appendToFile(lines, indexFile)) {
+            save();
+        } else {
+            fileLines += lines.size();
+        }
+    }
+
+    private void save() {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, Set<String>> entry : pathsOfPlaylist.entrySet()) {
+            addSection(lines, HEADER_PREFIX, entry.getKey(), entry.getValue());
+        }
+        FileUtility.writeFile(lines, getIndexFile());
+        fileLines = lines.size();
+    }
+
+    private void setPaths(String playlist, Collection<String> paths, long modifiedTime) {
+        Set<String> newPaths = new HashSet<>(paths);
+        Set<String> oldPaths = pathsOfPlaylist.get(playlist);
+        if (oldPaths != null) {
+            for (String path : oldPaths) {
+                if (!newPaths.contains(path)) {
+                    removePlaylistOfPath(path, playlist);
+                }
+            }
+        }
+        for (String path : newPaths) {
+            if (oldPaths == null || !oldPaths.contains(path)) {
+                playlistsOfPath.computeIfAbsent(path, p -> new HashSet<>()).add(playlist);
+            }
+        }
+        pathsOfPlaylist.put(playlist, newPaths);
+        lastModified.put(playlist, modifiedTime);
+    }
+
+    private void addPaths(String playlist, Collection<String> added, long modifiedTime) {
+        Set<String> paths = pathsOfPlaylist.computeIfAbsent(playlist, p -> new HashSet<>());
+        for (String path : added) {
+            if (paths.add(path)) {
+                playlistsOfPath.computeIfAbsent(path, p -> new HashSet<>()).add(playlist);
+            }
+        }
+        lastModified.put(playlist, modifiedTime);
+    }
+
+    private void removePaths(String playlist, Collection<String> removed, long modifiedTime) {
+        Set<String> paths = pathsOfPlaylist.computeIfAbsent(playlist, p -> new HashSet<>());
+        for (String path : removed) {
+            if (paths.remove(path)) {
+                removePlaylistOfPath(path, playlist);
+            }
+        }
+        lastModified.put(playlist, modifiedTime);
+    }
+
+    private void removePlaylist(String playlist) {
+        Set<String> paths = pathsOfPlaylist.remove(playlist);
+        lastModified.remove(playlist);
+        for (String path : paths != null ? paths : Collections.<String>emptySet()) {
+            removePlaylistOfPath(path, playlist);
+        }
+    }
+
+    private void removePlaylistOfPath(String path, String playlist) {
+        Set<String> playlists = playlistsOfPath.get(path);
+        if (playlists != null) {
+            playlists.remove(playlist);
+            if (playlists.isEmpty()) {
+                playlistsOfPath.remove(path);
+            }
+        }
+    }
+
+    private File getIndexFile() {
+        return file;
+    }
+
+    /**
+     * Used to get the only instance of the PlaylistIndex.
+     *
+     * @return INSTANCE created in the static class PlaylistIndexSingletonHolder
+     */
+    public static PlaylistIndex getInstance() {
+        return PlaylistIndexSingletonHolder.INSTANCE;
+    }
+
+    private static class PlaylistIndexSingletonHolder {
+
+        private static final PlaylistIndex INSTANCE = new PlaylistIndex(new File(INDEX_FILE_NAME));
+    }
+}
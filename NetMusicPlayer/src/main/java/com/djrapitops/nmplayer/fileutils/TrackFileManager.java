@@ -1,15 +1,26 @@
 package com.djrapitops.nmplayer.fileutils;
 
+import com.djrapitops.nmplayer.functionality.SmartPlaylistManager;
 import com.djrapitops.nmplayer.functionality.Track;
+import com.djrapitops.nmplayer.functionality.TrackTable;
 import com.djrapitops.nmplayer.functionality.utilities.TextUtils;
 import com.djrapitops.nmplayer.messaging.MessageSender;
 import com.djrapitops.nmplayer.messaging.Phrase;
 import com.mpatric.mp3agic.*;
 
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleConsumer;
 
 /**
  * This class is used to read the properties of .mp3 files and translating them
@@ -72,12 +83,43 @@ public class TrackFileManager {
      * information.
      */
     public static List<Track> translateToTracks(List<String> filepaths) {
+        return translateToTracks(filepaths, progress -> {
+        }, () -> false);
+    }
+
+    /**
+     * Used to turn a List containing absolute file paths into a List
+     * containing Track objects, with progress and cancellation.
+     * <p>
+     * Progress is told at most once per percent, so that a large playlist
+     * doesn't flood the listener.
+     *
+     * @param filepaths List containing absolute file paths.
+     * @param progress  Told the fraction of files read, from 0 to 1.0
+     * @param cancelled Checked before every file.
+     * @return a List containing Track objects that include the file
+     * information.
+     * @throws CancellationException If cancelled returned true.
+     */
+    public static List<Track> translateToTracks(List<String> filepaths, DoubleConsumer progress, BooleanSupplier cancelled) {
         List<Track> tracks = new ArrayList<>();
+        int size = filepaths.size();
+        int read = 0;
+        int reported = -1;
         for (String filepath : filepaths) {
+            if (cancelled.getAsBoolean()) {
+                throw new CancellationException();
+            }
             Track track = processFile(new File(filepath));
             if (track != null) {
                 tracks.add(track);
             }
+            read++;
+            int percent = read * 100 / size;
+            if (percent != reported) {
+                reported = percent;
+                progress.accept(percent / 100.0);
+            }
         }
         return tracks;
     }
@@ -105,7 +147,73 @@ public class TrackFileManager {
             MessageSender.getInstance().send(Phrase.WRONG_FILETYPE + "");
             return null;
         }
-        return new Track(getTrackName(file), getArtist(file), file.getAbsolutePath());
+        Mp3File mp3 = readMp3(file);
+        Track track = new Track(getTrackName(file, mp3), getArtist(file, mp3), file.getAbsolutePath());
+        TrackTable table = TrackTable.getInstance();
+        table.setDuration(track.getId(), getDuration(file, mp3));
+        table.setAddedTime(track.getId(), getAddedTime(file));
+        SmartPlaylistManager.getInstance().trackScanned(track);
+        return track;
+    }
+
+    /**
+     * Used to get the time a file was added, the creation time of the file if
+     * the file system supports it.
+     *
+     * @param file File to read the time of.
+     * @return Epoch millisecond.
+     */
+    private static long getAddedTime(File file) {
+        try {
+            return Files.readAttributes(file.toPath(), BasicFileAttributes.class).creationTime().toMillis();
+        } catch (IOException ex) {
+            ErrorManager.toLog(TrackFileManager.class, ex);
+            return file.lastModified();
+        }
+    }
+
+    /**
+     * Used to read the metadata of a .mp3 file.
+     *
+     * @param file File to read.
+     * @return Mp3File or null if the file is not a readable .mp3 file.
+     */
+    private static Mp3File readMp3(File file) {
+        if (!file.getName().endsWith(".mp3")) {
+            return null;
+        }
+        try {
+            return new Mp3File(file);
+        } catch (IOException | UnsupportedTagException | InvalidDataException ex) {
+            ErrorManager.toLog(TrackFileManager.class, ex);
+            return null;
+        }
+    }
+
+    /**
+     * Used to get the duration of a .mp3 or .wav file.
+     *
+     * @param file File to read the duration of.
+     * @param mp3  Already read metadata of the file, null if not an .mp3 file.
+     * @return duration in milliseconds, or TrackTable.UNKNOWN_DURATION
+     */
+    private static long getDuration(File file, Mp3File mp3) {
+        if (mp3 != null) {
+            return mp3.getLengthInMilliseconds();
+        }
+        if (file.getName().endsWith(".wav")) {
+            try {
+                AudioFileFormat fileFormat = AudioSystem.getAudioFileFormat(file);
+                AudioFormat format = fileFormat.getFormat();
+                long frames = fileFormat.getFrameLength();
+                if (frames != AudioSystem.NOT_SPECIFIED && format.getFrameRate() > 0) {
+                    return (long) (frames * 1000 / format.getFrameRate());
+                }
+            } catch (IOException | UnsupportedAudioFileException ex) {
+                ErrorManager.toLog(TrackFileManager.class, ex);
+            }
+        }
+        return TrackTable.UNKNOWN_DURATION;
     }
 
     /**
@@ -117,21 +225,20 @@ public class TrackFileManager {
      * @return Artist that is defined in the ID3 tag.
      */
     public static String getArtist(File file) {
+        return getArtist(file, readMp3(file));
+    }
+
+    private static String getArtist(File file, Mp3File mp3) {
         String artist = null;
-        if (file.getName().endsWith(".mp3")) {
-            try {
-                Mp3File mp3 = new Mp3File(file);
-                final ID3v2 id3v2Tag = mp3.getId3v2Tag();
-                if (id3v2Tag != null) {
-                    artist = id3v2Tag.getAlbumArtist();
-                } else {
-                    final ID3v1 id3v1Tag = mp3.getId3v1Tag();
-                    if (id3v1Tag != null) {
-                        artist = id3v1Tag.getArtist();
-                    }
+        if (mp3 != null) {
+            final ID3v2 id3v2Tag = mp3.getId3v2Tag();
+            if (id3v2Tag != null) {
+                artist = id3v2Tag.getAlbumArtist();
+            } else {
+                final ID3v1 id3v1Tag = mp3.getId3v1Tag();
+                if (id3v1Tag != null) {
+                    artist = id3v1Tag.getArtist();
                 }
-            } catch (IOException | UnsupportedTagException | InvalidDataException ex) {
-                ErrorManager.toLog(TrackFileManager.class, ex);
             }
         }
         if (artist == null) {
@@ -158,21 +265,20 @@ public class TrackFileManager {
      * @return Track name that is defined in the ID3 tag.
      */
     public static String getTrackName(File file) {
+        return getTrackName(file, readMp3(file));
+    }
+
+    private static String getTrackName(File file, Mp3File mp3) {
         String title = null;
-        if (file.getName().endsWith(".mp3")) {
-            try {
-                Mp3File mp3 = new Mp3File(file);
-                final ID3v2 id3v2Tag = mp3.getId3v2Tag();
-                if (id3v2Tag != null) {
-                    title = id3v2Tag.getTitle();
-                } else {
-                    final ID3v1 id3v1Tag = mp3.getId3v1Tag();
-                    if (id3v1Tag != null) {
-                        title = id3v1Tag.getTitle();
-                    }
+        if (mp3 != null) {
+            final ID3v2 id3v2Tag = mp3.getId3v2Tag();
+            if (id3v2Tag != null) {
+                title = id3v2Tag.getTitle();
+            } else {
+                final ID3v1 id3v1Tag = mp3.getId3v1Tag();
+                if (id3v1Tag != null) {
+                    title = id3v1Tag.getTitle();
                 }
-            } catch (IOException | UnsupportedTagException | InvalidDataException ex) {
-                ErrorManager.toLog(TrackFileManager.class, ex);
             }
         }
         if (title == null) {
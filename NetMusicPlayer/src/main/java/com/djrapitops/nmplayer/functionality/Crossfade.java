@@ -0,0 +1,136 @@
+package com.djrapitops.nmplayer.functionality;
+
+import com.djrapitops.nmplayer.functionality.playback.PlaybackEngine;
+import com.djrapitops.nmplayer.functionality.playback.PlaybackHandle;
+
+import java.util.concurrent.Future;
+import java.util.function.DoubleSupplier;
+
+/**
+ * This class fades one track out while the next track fades in.
+ * <p>
+ * The volumes are changed every STEP_MILLIS by a single task scheduled with
+ * the PlaybackEngine, which schedules itself again until the fade is over.
+ * The volumes are calculated from the time that has passed since the start,
+ * so a late step does not make the fade longer. An equal power curve is used
+ * so that the loudness stays the same in the middle of the fade.
+ * <p>
+ * The steps run on the event thread of the engine, and finish can be called
+ * from the thread of PlayerCommands, so the methods are synchronized.
+ *
+ * @author Rsl1122
+ * @see MusicPlayer#setCrossfade(long)
+ */
+public class Crossfade {
+
+    static final long STEP_MILLIS = 20;
+
+    private final PlaybackEngine engine;
+    private final PlaybackHandle outgoing;
+    private final PlaybackHandle incoming;
+    private final long overlapNanos;
+    private final DoubleSupplier outgoingVolume;
+    private final DoubleSupplier incomingVolume;
+
+    private long startNanos;
+    private Future<?> step;
+    private boolean finished;
+
+    /**
+     * Creates a new Crossfade, it is not started.
+     *
+     * @param engine        PlaybackEngine used to schedule the steps.
+     * @param outgoing      Player that is faded out and stopped.
+     * @param incoming      Player that is faded in.
+     * @param overlapMillis Length of the fade in milliseconds.
+     * @param volume        Volume of the MusicPlayer, read on every step so
+     *                      that volume changes during the fade are used.
+     */
+    public Crossfade(PlaybackEngine engine, PlaybackHandle outgoing, PlaybackHandle incoming, long overlapMillis, DoubleSupplier volume) {
+        this(engine, outgoing, incoming, overlapMillis, volume, volume);
+    }
+
+    /**
+     * Creates a new Crossfade with a different full volume for each player,
+     * it is not started.
+     *
+     * @param engine         PlaybackEngine used to schedule the steps.
+     * @param outgoing       Player that is faded out and stopped.
+     * @param incoming       Player that is faded in.
+     * @param overlapMillis  Length of the fade in milliseconds.
+     * @param outgoingVolume Full volume of the outgoing player, read on every
+     *                       step.
+     * @param incomingVolume Full volume of the incoming player, read on every
+     *                       step.
+     */
+    public Crossfade(PlaybackEngine engine, PlaybackHandle outgoing, PlaybackHandle incoming, long overlapMillis,
+                     DoubleSupplier outgoingVolume, DoubleSupplier incomingVolume) {
+        this.engine = engine;
+        this.outgoing = outgoing;
+        this.incoming = incoming;
+        this.overlapNanos = Math.max(1, overlapMillis) * 1000000L;
+        this.outgoingVolume = outgoingVolume;
+        this.incomingVolume = incomingVolume;
+    }
+
+    /**
+     * Starts the fade. The incoming player is set silent, the caller should
+     * play it right after.
+     */
+    public synchronized void start() {
+        startNanos = System.nanoTime();
+        incoming.setVolume(0);
+        step = engine.schedule(this::step, STEP_MILLIS);
+    }
+
+    private synchronized void step() {
+        if (finished) {
+            return;
+        }
+        double t = (System.nanoTime() - startNanos) / (double) overlapNanos;
+        if (t >= 1) {
+            finish();
+            return;
+        }
+        outgoing.setVolume(outgoingVolume.getAsDouble() * Math.cos(t * Math.PI / 2));
+        incoming.setVolume(incomingVolume.getAsDouble() * Math.sin(t * Math.PI / 2));
+        step = engine.schedule(this::step, STEP_MILLIS);
+    }
+
+    /**
+     * Ends the fade immediately: the outgoing player is stopped and the
+     * incoming player is set to the full volume.
+     * <p>
+     * Does nothing if the fade has already finished.
+     */
+    public synchronized void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (step != null) {
+            step.cancel(false);
+        }
+        outgoing.stop();
+        outgoing.setVolume(outgoingVolume.getAsDouble());
+        incoming.setVolume(incomingVolume.getAsDouble());
+    }
+
+    /**
+     * Used to check if the fade has ended.
+     *
+     * @return true after finish has been called or the overlap has passed.
+     */
+    public synchronized boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Used to get the player that is being faded in.
+     *
+     * @return the incoming PlaybackHandle.
+     */
+    public PlaybackHandle getIncoming() {
+        return incoming;
+    }
+}
@@ -1,17 +1,26 @@
 package com.djrapitops.nmplayer.functionality;
 
+import com.djrapitops.nmplayer.fileutils.PlaybackCheckpoint;
 import com.djrapitops.nmplayer.fileutils.PlaylistFileManager;
 import com.djrapitops.nmplayer.fileutils.TrackFileManager;
+import com.djrapitops.nmplayer.functionality.loudness.LoudnessScanner;
+import com.djrapitops.nmplayer.functionality.playback.JavaFxPlaybackEngine;
+import com.djrapitops.nmplayer.functionality.playback.PlaybackEngine;
+import com.djrapitops.nmplayer.functionality.playback.PlaybackHandle;
+import com.djrapitops.nmplayer.functionality.utilities.PlaylistAlgebra;
 import com.djrapitops.nmplayer.functionality.utilities.TextUtils;
 import com.djrapitops.nmplayer.functionality.utilities.TrackComparator;
 import com.djrapitops.nmplayer.messaging.MessageSender;
 import com.djrapitops.nmplayer.messaging.Phrase;
 import com.djrapitops.nmplayer.ui.Updatable;
-import javafx.scene.media.Media;
-import javafx.scene.media.MediaPlayer;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
 
 /**
  * This class contains all the logic used to change the playback (sound that is
@@ -20,37 +29,103 @@ import java.util.List;
  * The class contains information about the current state of the player, as well
  * as a PlaylistManager
  *
+ * The sound is output with a PlaybackEngine, JavaFX MediaPlayer by default.
+ * The engine of getInstance() can be changed with setDefaultPlaybackEngine,
+ * so that JavaFX is not used at all.
+ *
+ * Consecutive tracks can be crossfaded, see setCrossfade.
+ *
+ * Tracks are played at the same loudness with the gain measured by the
+ * LoudnessScanner, see setNormalizeLoudness.
+ *
+ * The playback position is stored in the PlaybackCheckpoint every
+ * CHECKPOINT_MS while playing, and init resumes from it. Long tracks
+ * continue from where they were left when they are played again.
+ *
+ * The class is not thread safe. The UI changes it through PlayerCommands,
+ * which runs every change on one thread, and the events of the
+ * PlaybackEngine are run with the executor given to setEventExecutor.
+ *
  * THIS CLASS SHOULD NOT BE INITIALIZED WITH CLASS CONSTRUCTOR, MusicPlayer IS A
  * SINGLETON CLASS, use MusicPlayer.getInstance() instead.
  *
  * @author Rsl1122
  * @see PlaylistManager
+ * @see PlaybackEngine
+ * @see PlayerCommands
  */
 public class MusicPlayer {
 
+    private static final int SKIP_DELAY_MS = 250;
+    private static final int SCAN_DEFER_MS = 2000;
+    private static final int CHECKPOINT_MS = 5000;
+    private static final int LONG_TRACK_SECONDS = 600;
+
+    private static volatile PlaybackEngine defaultEngine;
+
     private final PlaylistManager playlist;
     private final MessageSender msg;
-    private MediaPlayer mp;
-    private Updatable progressBar;
+
+    private PlaybackEngine engine;
+    private Executor events;
+    private PlayerPool<PlaybackHandle> players;
+    private PlaybackHandle mp;
+    private Future<?> skipDelay;
+    private Future<?> crossfadeStart;
+    private Future<?> checkpointTask;
+    private Crossfade crossfade;
+    private long crossfadeMillis;
+    private Track pendingTrack;
+    private double resumeSeconds;
+    private long endOfMediaTime;
+    private long lastTransitionGap;
+    private final ProgressPublisher progress;
+    private final PlaybackCheckpoint checkpoint;
     private Updatable ui;
 
+    private List<Track> library;
+    private Set<String> libraryPaths;
+
     private String selectedPlaylist;
+    private boolean smartPlaylistSelected;
+    private boolean playlistFileSaved;
     private boolean playing;
     private double volume;
+    private double gain;
+    private boolean normalizeLoudness;
 
     /**
      * Class constructor.
      *
      * Creates a new PlaylistManager and grabs the instance of MessageSender for
-     * easier access to sending messages.
+     * easier access to sending messages. Tracks are played with JavaFX.
      *
      * @see MessageSender
      */
     public MusicPlayer() {
+        this(new JavaFxPlaybackEngine());
+    }
+
+    /**
+     * Class constructor.
+     *
+     * Creates a MusicPlayer that plays tracks with the given PlaybackEngine.
+     *
+     * @param engine PlaybackEngine used for the audio output.
+     * @see PlaybackEngine
+     */
+    public MusicPlayer(PlaybackEngine engine) {
         playlist = new PlaylistManager();
+        progress = new ProgressPublisher();
+        checkpoint = PlaybackCheckpoint.getInstance();
+        events = Runnable::run;
+        setPlaybackEngine(engine);
         msg = MessageSender.getInstance();
         selectedPlaylist = "None";
         volume = 0.75;
+        gain = 1;
+        normalizeLoudness = true;
+        lastTransitionGap = -1;
     }
 
     /**
@@ -59,17 +134,64 @@ public class MusicPlayer {
      * Selects a playlist "all" that contains all the tracks in other playlists
      * and the tracks folder.
      *
+     * If the PlaybackCheckpoint has a track, the playlist and the track that
+     * were played last are selected, and the track is moved to the stored
+     * position. The playlist is only selected again if it still has the
+     * track.
+     *
      * Sets the initial playing state to false.
      *
      * @throws IllegalStateException If a javafx Application is has not been
      * started yet.
+     * @see PlaybackCheckpoint
      */
     public void init() {
-        selectPlaylist("all");
-        selectTrack(0);
+        String resumePath = checkpoint.getTrackPath();
+        String resumePlaylist = checkpoint.getPlaylist();
+        Track resumeTrack = null;
+        if (resumePath != null && resumePlaylist != null && !resumePlaylist.equals("all") && !resumePlaylist.equals("None")) {
+            selectPlaylist(resumePlaylist);
+            resumeTrack = findTrack(resumePath);
+        }
+        if (resumeTrack == null) {
+            selectPlaylist("all");
+            resumeTrack = resumePath != null ? findTrack(resumePath) : null;
+        }
+        if (resumeTrack != null) {
+            resume(resumeTrack, checkpoint.getPosition());
+        } else {
+            selectTrack(0);
+        }
         playing = false;
     }
 
+    /**
+     * Selects a track and moves it to a position. The position is given to
+     * loadTrack, so that the checkpoint written when the track is loaded
+     * keeps the position.
+     */
+    private void resume(Track track, long position) {
+        if (!new File(track.getFilePath()).exists()) {
+            msg.send(Phrase.NONEXISTING_FILE.parse(track.toString()));
+            return;
+        }
+        if (mp != null && pendingTrack == null && track.equals(playlist.getCurrentTrack())) {
+            resumeSeconds = position / 1000.0;
+            applyResume();
+        } else {
+            loadTrack(track, true, position);
+        }
+    }
+
+    private Track findTrack(String filePath) {
+        for (Track track : playlist.getPlaylist()) {
+            if (track.getFilePath().equals(filePath)) {
+                return track;
+            }
+        }
+        return null;
+    }
+
     /**
      * This method is used to change the playlist. PlaylistFileManager is used
      * to load the playlist file, and TrackFileManager is used to translate the
@@ -80,6 +202,16 @@ public class MusicPlayer {
      *
      * First track of the playlist will be selected if the currently playing
      * track is not found.
+     * <p>
+     * The sorted "all" playlist is kept in memory after it has been loaded.
+     * When "all" is selected again and the same files are found, the kept
+     * playlist is used instead of reading and sorting the tracks again.
+     * <p>
+     * If a {name}.smart file exists, the tracks of the smart playlist are
+     * used. The library is scanned first if it has not been loaded yet.
+     * <p>
+     * The playlist is loaded on the calling thread. PlayerCommands loads
+     * playlists on another thread with createLoader and applyPlaylist.
      *
      * @param playlistName Name of the playlist
      * @throws IllegalStateException If a javafx Application is has not been
@@ -87,39 +219,92 @@ public class MusicPlayer {
      * @see PlaylistFileManager
      * @see TrackFileManager
      * @see PlaylistManager
+     * @see SmartPlaylistManager
+     * @see PlaylistLoader
      */
     public void selectPlaylist(String playlistName) {
+        applyPlaylist(createLoader(playlistName).load(progress -> {
+        }, () -> false));
+    }
+
+    /**
+     * Creates a PlaylistLoader that can read a playlist on another thread.
+     * The loader is given a copy of the kept "all" library.
+     *
+     * @param playlistName Name of the playlist
+     * @return a new PlaylistLoader, PlaylistLoader.load has not been called.
+     * @see #applyPlaylist(PlaylistLoader)
+     */
+    public PlaylistLoader createLoader(String playlistName) {
         msg.send(Phrase.LOADING_PLAYLIST.parse(TextUtils.uppercaseFirst(playlistName)));
-        selectedPlaylist = playlistName;
-        List<Track> newPlaylist = TrackFileManager.translateToTracks(PlaylistFileManager.load(selectedPlaylist));
-        if (selectedPlaylist.equals("all")) {
-            newPlaylist.sort(new TrackComparator());
+        return createPathLoader(playlistName);
+    }
+
+    /**
+     * Creates a PlaylistLoader that can read the file paths of a playlist on
+     * another thread, for combinePlaylists. No message is sent.
+     *
+     * @param playlistName Name of the playlist
+     * @return a new PlaylistLoader, PlaylistLoader.loadPaths has not been
+     * called.
+     * @see #combinePlaylists(PlaylistLoader, PlaylistAlgebra.Operation, PlaylistLoader, String)
+     */
+    public PlaylistLoader createPathLoader(String playlistName) {
+        if (library == null) {
+            return new PlaylistLoader(playlistName, null, null);
         }
-        playlist.setPlaylist(newPlaylist);
-        msg.send(Phrase.SELECTED_PLAYLIST.parse(TextUtils.uppercaseFirst(playlistName)));
+        return new PlaylistLoader(playlistName, new ArrayList<>(library), new HashSet<>(libraryPaths));
+    }
+
+    /**
+     * Changes the playlist to one read by a PlaylistLoader. If the loader
+     * scanned the library, the scanned library is kept.
+     *
+     * @param loader PlaylistLoader that has been loaded.
+     * @see #createLoader(String)
+     */
+    public void applyPlaylist(PlaylistLoader loader) {
+        keepLibrary(loader);
+        selectedPlaylist = loader.getName();
+        playlistFileSaved = false;
+        smartPlaylistSelected = loader.isSmart();
+        playlist.setPlaylist(loader.getTracks());
+        playlist.setSorted(loader.isAll());
+        LoudnessScanner.getInstance().scan(loader.getTracks());
+        msg.send(Phrase.SELECTED_PLAYLIST.parse(TextUtils.uppercaseFirst(selectedPlaylist)));
         if (playlist.isEmpty()) {
             msg.send(Phrase.PLAYLIST_EMPTY + "");
         }
     }
 
+    private void keepLibrary(PlaylistLoader loader) {
+        if (loader.getLoadedLibrary() != null) {
+            library = loader.getLoadedLibrary();
+            libraryPaths = loader.getLoadedLibraryPaths();
+        }
+    }
+
     /**
      * Used to move to the next track in the playlist.
      *
      * If currentTrack is null (Not initialized) nothing is done. Otherwise the
      * playback is stopped, new Track selected, and then played.
      *
+     * Queued tracks are played before the rest of the playlist.
+     * <p>
+     * When tracks are skipped quickly, only the track that is selected last
+     * is opened and played.
+     *
      * @throws IllegalStateException If a javafx Application is has not been
      * started yet.
+     * @see #skipTo(Track)
      */
     public void nextTrack() {
         if (playlist.getCurrentTrack() != null) {
-            if (playlist.isEmpty()) {
+            if (playlist.isEmpty() && playlist.getQueue().isEmpty()) {
                 return;
             }
-            mp.stop();
-            playing = false;
-            selectTrack(playlist.getCurrentTrackIndex() + 1);
-            play();
+            skipTo(playlist.nextTrack());
         }
     }
 
@@ -128,20 +313,79 @@ public class MusicPlayer {
      *
      * If currentTrack is null (Not initialized) nothing is done. Otherwise the
      * playback is stopped, new Track selected, and then played.
+     * <p>
+     * When tracks are skipped quickly, only the track that is selected last
+     * is opened and played.
      *
      * @throws IllegalStateException If a javafx Application is has not been
      * started yet.
+     * @see #skipTo(Track)
      */
     public void previousTrack() {
         if (playlist.getCurrentTrack() != null) {
             if (playlist.isEmpty()) {
                 return;
             }
+            skipTo(playlist.previousTrack());
+        }
+    }
+
+    /**
+     * Moves the playback to a track that was skipped to.
+     * <p>
+     * If the PlayerPool already has a player for the track, it is played
+     * immediately. Otherwise only the current track is changed, and the track
+     * is opened after no other track has been skipped to for SKIP_DELAY_MS,
+     * so that tracks that are skipped over are never opened. The next track
+     * is prepared after the delay as well.
+     */
+    private void skipTo(Track track) {
+        if (track == null || (track.equals(playlist.getCurrentTrack()) && pendingTrack == null)) {
+            return;
+        }
+        if (!new File(track.getFilePath()).exists()) {
+            msg.send(Phrase.NONEXISTING_FILE.parse(track.toString()));
+            return;
+        }
+        finishCrossfade();
+        if (mp != null) {
             mp.stop();
-            playing = false;
-            selectTrack(playlist.getCurrentTrackIndex() - 1);
+        }
+        playing = false;
+        if (players.getState(track) != PlayerPool.State.DISPOSED) {
+            loadTrack(track, false);
             play();
+        } else {
+            pendingTrack = track;
+            playlist.setCurrentTrack(track);
+            progress.setPlaying(false);
+        }
+        if (skipDelay != null) {
+            skipDelay.cancel(false);
+        }
+        skipDelay = schedule(() -> {
+            if (pendingTrack != null) {
+                loadTrack(pendingTrack, true);
+                play();
+                update(ui);
+            } else {
+                prefetchNext();
+            }
+        }, SKIP_DELAY_MS);
+    }
+
+    /**
+     * Moves to the next track when the current track has ended, without
+     * waiting for the skip delay.
+     */
+    private void playNextTrack() {
+        if (playlist.isEmpty() && playlist.getQueue().isEmpty()) {
+            return;
         }
+        mp.stop();
+        playing = false;
+        selectTrack(playlist.nextTrack());
+        play();
     }
 
     /**
@@ -153,10 +397,16 @@ public class MusicPlayer {
      * @see MessageSender
      */
     public void play() {
+        if (pendingTrack != null) {
+            loadTrack(pendingTrack, true);
+        }
         if (mp != null) {
             playing = true;
             mp.play();
             msg.send(Phrase.NOW_PLAYING.parse(playlist.getCurrentTrack().toString()));
+            progress.setPlaying(true);
+            scheduleCrossfade();
+            scheduleCheckpoint();
         }
     }
 
@@ -171,8 +421,13 @@ public class MusicPlayer {
      */
     public void pause() {
         if (mp != null && playing) {
+            finishCrossfade();
             playing = false;
+            scheduleCrossfade();
             mp.pause();
+            progress.setPlaying(false);
+            progress.publish();
+            checkpoint();
             msg.send(Phrase.PAUSE + "");
         }
     }
@@ -187,50 +442,318 @@ public class MusicPlayer {
      */
     public void stop() {
         if (mp != null && playing) {
+            finishCrossfade();
             playing = false;
+            scheduleCrossfade();
             mp.stop();
+            progress.setPlaying(false);
+            progress.publish();
+            checkpoint();
             msg.send(Phrase.STOP + "");
         }
     }
 
     /**
-     * Used to change the MediaPlayer object to play the Track.
-     *
-     * Creates a new MediaPlayer object with the filepath inside the Track
-     * object, and frees the resources associated with the old MediaPlayer
-     * object, if one exists. If the file specified by Track object doesn't
-     * exist a message will be sent with MessageSender. After successfully
-     * creating the new MediaPlayer object, the currentTrack information will be
-     * updated and a select message will be sent with MessageSender
+     * Used to change the PlaybackHandle object to play the Track.
      *
+     * The PlaybackHandle of the track is taken from the PlayerPool, which
+     * reuses the player of the next or previous track, or opens the file of
+     * the Track with the PlaybackEngine. The old PlaybackHandle is stopped and
+     * kept as the previous player. If the file specified by Track object
+     * doesn't exist or can't be played a message will be sent with
+     * MessageSender. After successfully getting the PlaybackHandle, the
+     * currentTrack information will be updated and the track after it is
+     * prepared.
      *
      * @param track Track to be played.
      * @throws IllegalStateException If a javafx Application is has not been
      * started yet.
      * @see MessageSender
+     * @see PlayerPool
      */
     public void selectTrack(Track track) {
-        if (track != null && !track.equals(playlist.getCurrentTrack())) {
-            String mp3FilePath = track.getFilePath();
-            File trackFile = new File(mp3FilePath);
+        if (track != null && (!track.equals(playlist.getCurrentTrack()) || track.equals(pendingTrack))) {
+            File trackFile = new File(track.getFilePath());
             if (!trackFile.exists()) {
                 msg.send(Phrase.NONEXISTING_FILE.parse(track.toString()));
                 return;
             }
-            Media play = new Media(trackFile.toURI().toString());
-            if (mp != null) {
-                mp.dispose();
+            loadTrack(track, true);
+        }
+    }
+
+    private void loadTrack(Track track, boolean prefetch) {
+        loadTrack(track, prefetch, checkpoint.getResumePoint(track.getFilePath()));
+    }
+
+    private void loadTrack(Track track, boolean prefetch, long resumePosition) {
+        finishCrossfade();
+        pendingTrack = null;
+        LoudnessScanner.getInstance().deferFor(SCAN_DEFER_MS);
+        try {
+            mp = players.activate(track);
+        } catch (RuntimeException e) {
+            msg.send(Phrase.PLAYBACK_FAILED.parse(track.toString(), engine.getName()));
+            return;
+        }
+        gain = getGain(track);
+        mp.setVolume(getTrackVolume(gain));
+        TrackTable.getInstance().recordPlay(track.getId(), System.currentTimeMillis());
+        playlist.setCurrentTrack(track);
+        resumeSeconds = resumePosition / 1000.0;
+        applyResume();
+        checkpoint();
+        if (prefetch) {
+            prefetchNext();
+        }
+    }
+
+    /**
+     * Opens a PlaybackHandle for the PlayerPool. The listeners are registered
+     * once, and only act while the player is the current player.
+     */
+    private PlaybackHandle createPlayer(Track track) {
+        PlaybackHandle player = engine.open(track);
+        player.setOnEndOfMedia(() -> events.execute(() -> {
+            if (player == mp) {
+                endOfMediaTime = System.nanoTime();
+                Track ended = playlist.getCurrentTrack();
+                if (ended != null) {
+                    checkpoint.clearResumePoint(ended.getFilePath());
+                }
+                playNextTrack();
+                update(ui);
+            }
+        }));
+        player.setOnPlaying(() -> events.execute(() -> {
+            if (player == mp && endOfMediaTime != 0) {
+                lastTransitionGap = System.nanoTime() - endOfMediaTime;
+                endOfMediaTime = 0;
             }
-            mp = new MediaPlayer(play);
-            mp.setVolume(volume);
-            mp.setOnEndOfMedia(() -> {
-                nextTrack();
-                ui.update();
-            });
-            mp.currentTimeProperty().addListener(observable -> progressBar.update());
-            mp.setOnReady(() -> progressBar.update());
-            playlist.setCurrentTrack(track);
+        }));
+        player.setOnReady(() -> events.execute(() -> {
+            players.markReady(player);
+            if (player == mp) {
+                applyResume();
+                progress.publish();
+            }
+        }));
+        return player;
+    }
+
+    /**
+     * Runs a task with the event executor after a delay, timed by the
+     * PlaybackEngine.
+     */
+    private Future<?> schedule(Runnable task, long delayMillis) {
+        return engine.schedule(() -> events.execute(task), delayMillis);
+    }
+
+    /**
+     * Used to set the executor that runs the events of the PlaybackEngine,
+     * such as the end of a track, and the delayed tasks of the MusicPlayer.
+     * <p>
+     * By default the events are run on the event thread of the engine.
+     *
+     * @param events Executor, for example the thread of PlayerCommands.
+     * @see PlayerCommands
+     */
+    public void setEventExecutor(Executor events) {
+        this.events = events;
+    }
+
+    /**
+     * Schedules the crossfade into the next track to start when the current
+     * track has overlap milliseconds left. One task is scheduled for the
+     * whole track, it is scheduled again when the position changes.
+     * <p>
+     * The overlap is at most half of the track, so short tracks are not
+     * faded out as soon as they start.
+     */
+    private void scheduleCrossfade() {
+        if (crossfadeStart != null) {
+            crossfadeStart.cancel(false);
+            crossfadeStart = null;
+        }
+        if (crossfadeMillis <= 0 || !playing || mp == null || !(mp.getTotalDuration() > 0)) {
+            return;
         }
+        long duration = (long) (mp.getTotalDuration() * 1000);
+        long remaining = duration - (long) (mp.getCurrentTime() * 1000);
+        long overlap = Math.min(crossfadeMillis, duration / 2);
+        PlaybackHandle player = mp;
+        crossfadeStart = schedule(() -> startCrossfade(player, overlap), Math.max(0, remaining - overlap));
+    }
+
+    /**
+     * Moves to the next track while the current track is still playing, and
+     * fades between them.
+     * <p>
+     * The fade is only done if the next track has been prepared by
+     * prefetchNext, opening a track at this point could not be done in time.
+     * Otherwise the current track plays to the end like without crossfade.
+     */
+    private void startCrossfade(PlaybackHandle player, long overlap) {
+        crossfadeStart = null;
+        if (player != mp || !playing) {
+            return;
+        }
+        List<Track> upcoming = playlist.getUpcoming(1);
+        Track next = upcoming.isEmpty() ? null : upcoming.get(0);
+        if (next == null || players.getState(next) != PlayerPool.State.READY) {
+            return;
+        }
+        finishCrossfade();
+        Track outgoingTrack = playlist.getCurrentTrack();
+        if (outgoingTrack != null) {
+            // The outgoing track never reaches the end of media event, it has been played to the end.
+            checkpoint.clearResumePoint(outgoingTrack.getFilePath());
+        }
+        playlist.nextTrack();
+        PlaybackHandle outgoing = mp;
+        mp = players.activate(next, false);
+        double outgoingGain = gain;
+        double incomingGain = getGain(next);
+        gain = incomingGain;
+        crossfade = new Crossfade(engine, outgoing, mp, overlap,
+                () -> getTrackVolume(outgoingGain), () -> getTrackVolume(incomingGain));
+        crossfade.start();
+        TrackTable.getInstance().recordPlay(next.getId(), System.currentTimeMillis());
+        playlist.setCurrentTrack(next);
+        prefetchNext();
+        play();
+        update(ui);
+    }
+
+    /**
+     * Ends a crossfade that is going on, so that only the current track
+     * plays.
+     */
+    private void finishCrossfade() {
+        if (crossfade != null) {
+            crossfade.finish();
+            crossfade = null;
+        }
+    }
+
+    /**
+     * Moves the current track to the position it should be resumed from,
+     * once the duration of the track is known.
+     */
+    private void applyResume() {
+        if (resumeSeconds > 0 && mp != null && mp.getTotalDuration() > 0) {
+            mp.seek(Math.min(resumeSeconds, mp.getTotalDuration()));
+            resumeSeconds = 0;
+            scheduleCrossfade();
+            progress.publish();
+        }
+    }
+
+    /**
+     * Schedules the next checkpoint while a track is playing. One task is
+     * scheduled at a time, it schedules itself again.
+     */
+    private void scheduleCheckpoint() {
+        if (checkpointTask != null) {
+            checkpointTask.cancel(false);
+        }
+        checkpointTask = schedule(() -> {
+            checkpointTask = null;
+            if (playing) {
+                checkpoint();
+                scheduleCheckpoint();
+            }
+        }, CHECKPOINT_MS);
+    }
+
+    /**
+     * Stores the current position in the PlaybackCheckpoint. The position of
+     * long tracks is stored as their resume point as well.
+     * <p>
+     * If the track has not been moved to its resume position yet, because
+     * the duration is not known, the resume position is stored instead.
+     */
+    private void checkpoint() {
+        Track track = playlist.getCurrentTrack();
+        if (track == null || mp == null) {
+            return;
+        }
+        double seconds = resumeSeconds > 0 ? resumeSeconds : mp.getCurrentTime();
+        long position = seconds > 0 ? (long) (seconds * 1000) : 0;
+        if (mp.getTotalDuration() >= LONG_TRACK_SECONDS) {
+            checkpoint.setResumePoint(track.getFilePath(), position);
+        }
+        checkpoint.update(selectedPlaylist, track.getFilePath(), position, playing);
+    }
+
+    /**
+     * Used to get the gain of a track from the LoudnessScanner. Tracks that
+     * have not been measured are measured before the other tracks, and
+     * played without a gain.
+     */
+    private double getGain(Track track) {
+        if (!normalizeLoudness) {
+            return 1;
+        }
+        LoudnessScanner scanner = LoudnessScanner.getInstance();
+        if (Double.isNaN(scanner.getLoudness(track))) {
+            scanner.scanFirst(track);
+            return 1;
+        }
+        return scanner.getGain(track);
+    }
+
+    private double getTrackVolume(double trackGain) {
+        return Math.min(1, volume * trackGain);
+    }
+
+    private static void update(Updatable updatable) {
+        if (updatable != null) {
+            updatable.update();
+        }
+    }
+
+    /**
+     * Prepares a PlaybackHandle for the track that will be played after the
+     * current track, so that the media is opened while the current track
+     * plays.
+     * <p>
+     * The next track is decided by the PlayQueue, the shuffle order or the
+     * playlist. If the next track has changed since it was prepared, the old
+     * prepared PlaybackHandle is disposed.
+     * <p>
+     * If the next track has not been measured by the LoudnessScanner, it is
+     * measured first so that its gain is known when it starts.
+     *
+     * @see PlaylistManager#getUpcoming(int)
+     * @see PlayerPool#prepareNext(Track)
+     */
+    public void prefetchNext() {
+        List<Track> upcoming = playlist.getUpcoming(1);
+        Track next = upcoming.isEmpty() ? null : upcoming.get(0);
+        if (next != null && !new File(next.getFilePath()).exists()) {
+            next = null;
+        }
+        if (next != null) {
+            getGain(next);
+        }
+        try {
+            players.prepareNext(next);
+        } catch (RuntimeException e) {
+            // The track can't be opened, the user is told when it is selected.
+            players.prepareNext(null);
+        }
+    }
+
+    /**
+     * Used to get the silence between the end of the previous track and the
+     * start of the current track, when the track changed at the end of the
+     * previous track.
+     *
+     * @return Gap in nanoseconds, -1 if a track has not ended yet.
+     */
+    public long getLastTransitionGap() {
+        return lastTransitionGap;
     }
 
     /**
@@ -250,6 +773,8 @@ public class MusicPlayer {
      * to playlist in PlaylistManager, add message is sent with MessageSender
      * and the new playlist is saved with PlaylistFileManager.
      *
+     * Smart playlists can not be edited, a message is sent instead.
+     *
      * @param track Track to add to the playlist.
      * @throws IllegalStateException If a javafx Application is has not been
      * started yet.
@@ -261,30 +786,284 @@ public class MusicPlayer {
         if (track == null) {
             return;
         }
+        if (smartPlaylistSelected) {
+            msg.send(Phrase.SMART_PLAYLIST_READ_ONLY.parse(selectedPlaylist));
+            return;
+        }
         playlist.addTrackToPlaylist(track);
+        if (library != null && libraryPaths.add(track.getFilePath())) {
+            TrackComparator.insertSorted(library, track);
+        }
         msg.send(Phrase.ADDED_TRACK.parse(track.getArtist() + " - " + track.getName()));
-        PlaylistFileManager.saveTracksAsPlaylist(playlist.getPlaylist(), selectedPlaylist);
+        saveChanges();
+    }
+
+    /**
+     * Adds a Track to the PlayQueue without changing the playlist.
+     *
+     * @param track Track to queue.
+     * @param next  true to play the track next, false to add it to the end of
+     *              the queue.
+     * @see PlayQueue
+     */
+    public void enqueue(Track track, boolean next) {
+        if (track == null) {
+            return;
+        }
+        PlayQueue queue = playlist.getQueue();
+        if (next) {
+            queue.enqueueNext(track);
+        } else {
+            queue.enqueueLast(track);
+        }
+        prefetchNext();
+        msg.send(Phrase.QUEUED_TRACK.parse(track.toString()));
     }
 
     /**
      * Removes a track object from the current Playlist, and saves the change to
      * the txt file.
      *
+     * Removing a track from "all" only changes "all", the other playlists
+     * are not changed.
+     *
+     * Smart playlists can not be edited, a message is sent instead.
+     *
      * @param track Track to remove.
      */
     public void removeTrackFromPlaylist(Track track) {
+        if (smartPlaylistSelected) {
+            msg.send(Phrase.SMART_PLAYLIST_READ_ONLY.parse(selectedPlaylist));
+            return;
+        }
         boolean removingCurrentTrack = playlist.getCurrentTrackIndex() == playlist.getIndexOf(track);
         if (removingCurrentTrack && playing) {
             stop();
         }
         playlist.removeTrackFromPlaylist(track);
+        saveChanges();
+        if (selectedPlaylist.equals("all") && library != null) {
+            library.remove(track);
+            libraryPaths.remove(track.getFilePath());
+            SmartPlaylistManager.getInstance().trackRemoved(track);
+        }
         msg.send(Phrase.REMOVED_TRACK.parse(track.toString()));
-        PlaylistFileManager.saveTracksAsPlaylist(playlist.getPlaylist(), selectedPlaylist);
         if (removingCurrentTrack) {
             selectTrack(playlist.getCurrentTrackIndex());
         }
     }
 
+    /**
+     * Removes every selected track from the current Playlist, and saves the
+     * change to the txt file once.
+     *
+     * Like removeTrackFromPlaylist, removing tracks from "all" only changes
+     * "all".
+     *
+     * @param selection Positions of the tracks to remove.
+     * @see TrackSelection
+     */
+    public void removeTracksFromPlaylist(TrackSelection selection) {
+        if (smartPlaylistSelected) {
+            msg.send(Phrase.SMART_PLAYLIST_READ_ONLY.parse(selectedPlaylist));
+            return;
+        }
+        Track current = playlist.getCurrentTrack();
+        List<Track> before = playlist.getPlaylist();
+        int currentPosition = before.indexOf(current);
+        boolean removingCurrentTrack = currentPosition != -1 && selection.isSelected(currentPosition);
+        if (removingCurrentTrack && playing) {
+            stop();
+        }
+        List<Track> removed = playlist.removeSelected(selection);
+        if (removed.isEmpty()) {
+            return;
+        }
+        saveChanges();
+        if (selectedPlaylist.equals("all")) {
+            Set<Track> removedTracks = new HashSet<>(removed);
+            List<String> removedPaths = new ArrayList<>();
+            for (Track track : removed) {
+                removedPaths.add(track.getFilePath());
+                SmartPlaylistManager.getInstance().trackRemoved(track);
+            }
+            if (library != null) {
+                library.removeIf(removedTracks::contains);
+                libraryPaths.removeAll(removedPaths);
+            }
+        }
+        if (playlist.isRandom()) {
+            playlist.setRandom(true);
+        }
+        msg.send(Phrase.REMOVED_TRACKS.parse(String.valueOf(removed.size())));
+        List<Track> after = playlist.getPlaylist();
+        if (removingCurrentTrack && !after.isEmpty()) {
+            int removedBefore = 0;
+            for (int i = selection.nextSelected(0); i >= 0 && i < currentPosition; i = selection.nextSelected(i + 1)) {
+                removedBefore++;
+            }
+            selectTrack(after.get(Math.min(currentPosition - removedBefore, after.size() - 1)));
+        }
+    }
+
+    /**
+     * Moves every selected track in front of the track at the target
+     * position, and saves the change to the txt file once.
+     *
+     * @param selection Positions of the tracks to move.
+     * @param target    Position the tracks are moved in front of.
+     * @see TrackSelection
+     */
+    public void moveTracks(TrackSelection selection, int target) {
+        if (smartPlaylistSelected) {
+            msg.send(Phrase.SMART_PLAYLIST_READ_ONLY.parse(selectedPlaylist));
+            return;
+        }
+        playlist.moveSelected(selection, target);
+        saveChanges();
+    }
+
+    /**
+     * Reverts the latest change made to the current playlist, and saves the
+     * change.
+     * <p>
+     * Edits only change the current playlist, so undoing an edit restores
+     * the playlist file as it was, including removals from "all".
+     *
+     * @see PlaylistManager#undo()
+     */
+    public void undo() {
+        if (smartPlaylistSelected || !playlist.undo()) {
+            msg.send(Phrase.NOTHING_TO_UNDO + "");
+            return;
+        }
+        historyChanged();
+        msg.send(Phrase.UNDONE.parse(TextUtils.uppercaseFirst(selectedPlaylist)));
+    }
+
+    /**
+     * Makes the latest undone change to the current playlist again, and saves
+     * the change.
+     *
+     * @see PlaylistManager#redo()
+     */
+    public void redo() {
+        if (smartPlaylistSelected || !playlist.redo()) {
+            msg.send(Phrase.NOTHING_TO_REDO + "");
+            return;
+        }
+        historyChanged();
+        msg.send(Phrase.REDONE.parse(TextUtils.uppercaseFirst(selectedPlaylist)));
+    }
+
+    private void historyChanged() {
+        if (selectedPlaylist.equals("all")) {
+            // The kept library no longer matches "all", it is loaded again when needed.
+            library = null;
+            libraryPaths = null;
+        }
+        if (playlist.isRandom()) {
+            playlist.setRandom(true);
+        }
+        saveChanges();
+    }
+
+    /**
+     * Saves the changes made to the current playlist.
+     * <p>
+     * The first change after a playlist has been selected saves the whole
+     * playlist, because the file might contain tracks that could not be
+     * loaded, or in the case of "all", not contain every track. After that
+     * only the changes are appended to the journal of the playlist.
+     */
+    private void saveChanges() {
+        List<PlaylistEdit> edits = playlist.takeEdits();
+        if (playlistFileSaved) {
+            PlaylistFileManager.saveEdits(edits, selectedPlaylist);
+        } else {
+            playlistFileSaved = PlaylistFileManager.saveTracksAsPlaylist(playlist.getPlaylist(), selectedPlaylist);
+        }
+    }
+
+    /**
+     * Adds every selected track to another playlist, and saves that playlist
+     * once. Tracks the other playlist already has are not added again.
+     *
+     * @param selection    Positions of the tracks to copy.
+     * @param playlistName Name of the playlist to copy the tracks to.
+     * @see TrackSelection
+     */
+    public void copyTracksToPlaylist(TrackSelection selection, String playlistName) {
+        if (playlistName.equals(selectedPlaylist)) {
+            return;
+        }
+        if (PlaylistFileManager.isSmartPlaylist(playlistName)) {
+            msg.send(Phrase.SMART_PLAYLIST_READ_ONLY.parse(playlistName));
+            return;
+        }
+        List<String> filePaths = PlaylistFileManager.load(playlistName);
+        Set<String> existing = new HashSet<>(filePaths);
+        int copied = 0;
+        for (Track track : playlist.getSelectedTracks(selection)) {
+            if (existing.add(track.getFilePath())) {
+                filePaths.add(track.getFilePath());
+                copied++;
+            }
+        }
+        PlaylistFileManager.save(filePaths, playlistName);
+        msg.send(Phrase.COPIED_TRACKS.parse(String.valueOf(copied), TextUtils.uppercaseFirst(playlistName)));
+    }
+
+    /**
+     * Combines two playlists with a set operation and saves the result as a
+     * playlist.
+     * <p>
+     * Either of the combined playlists can be a smart playlist or "all". The
+     * file paths of the playlists are read by PlaylistLoaders, which
+     * PlayerCommands loads on another thread. If a loader scanned the
+     * library, the scanned library is kept.
+     *
+     * @param first      PlaylistLoader of the first playlist, loadPaths has
+     *                   been called.
+     * @param operation  Set operation, for example UNION.
+     * @param second     PlaylistLoader of the second playlist, loadPaths has
+     *                   been called.
+     * @param resultName Name of the playlist the result is saved as.
+     * @see PlaylistAlgebra
+     * @see PlayerCommands#combinePlaylists(String, PlaylistAlgebra.Operation, String, String)
+     */
+    public void combinePlaylists(PlaylistLoader first, PlaylistAlgebra.Operation operation, PlaylistLoader second, String resultName) {
+        if (PlaylistFileManager.isSmartPlaylist(resultName)) {
+            msg.send(Phrase.SMART_PLAYLIST_READ_ONLY.parse(resultName));
+            return;
+        }
+        keepLibrary(first);
+        keepLibrary(second);
+        List<String> result = PlaylistAlgebra.combine(first.getPaths(), operation, second.getPaths());
+        PlaylistFileManager.save(result, resultName);
+        if (resultName.equals(selectedPlaylist)) {
+            playlistFileSaved = false;
+        }
+        msg.send(Phrase.SAVED_PLAYLIST.parse(String.valueOf(result.size()), TextUtils.uppercaseFirst(resultName)));
+    }
+
+    /**
+     * Adds every selected track to the end of the PlayQueue.
+     *
+     * @param selection Positions of the tracks to queue.
+     * @see TrackSelection
+     * @see PlayQueue
+     */
+    public void enqueue(TrackSelection selection) {
+        List<Track> tracks = playlist.getSelectedTracks(selection);
+        PlayQueue queue = playlist.getQueue();
+        for (Track track : tracks) {
+            queue.enqueueLast(track);
+        }
+        prefetchNext();
+        msg.send(Phrase.QUEUED_TRACKS.parse(String.valueOf(tracks.size())));
+    }
+
     /**
      * Used to get the relative playtime/duration of the playback for the
      * current track.
@@ -292,10 +1071,10 @@ public class MusicPlayer {
      * @return a double from 0 to 1.0
      */
     public double getCurrentTrackProgress() {
-        if (mp == null) {
+        if (mp == null || !(mp.getTotalDuration() > 0)) {
             return 0;
         }
-        return mp.getCurrentTime().toSeconds() / mp.getTotalDuration().toSeconds();
+        return mp.getCurrentTime() / mp.getTotalDuration();
     }
 
     /**
@@ -305,10 +1084,13 @@ public class MusicPlayer {
      * @param d a double from 0 to 1.0
      */
     public void setTrackPosition(double d) {
-        if (mp == null) {
+        if (mp == null || !(mp.getTotalDuration() > 0)) {
             return;
         }
-        mp.seek(mp.getTotalDuration().multiply(d));
+        finishCrossfade();
+        mp.seek(mp.getTotalDuration() * d);
+        scheduleCrossfade();
+        checkpoint();
     }
 
     /**
@@ -324,8 +1106,8 @@ public class MusicPlayer {
             d = 1;
         }
         volume = d;
-        if (mp != null) {
-            mp.setVolume(volume);
+        if (mp != null && (crossfade == null || crossfade.isFinished())) {
+            mp.setVolume(getTrackVolume(gain));
         }
     }
 
@@ -339,15 +1121,103 @@ public class MusicPlayer {
     }
 
     /**
-     * Used to grab the MediaPlayer object that is currently handling the
+     * Used to grab the PlaybackHandle object that is currently handling the
      * playback.
      *
-     * @return MediaPlayer that has the current track playback capability.
+     * @return PlaybackHandle that has the current track playback capability.
      */
-    public MediaPlayer getMediaPlayer() {
+    public PlaybackHandle getPlayback() {
         return mp;
     }
 
+    /**
+     * Used to get the PlaybackEngine that plays the tracks.
+     *
+     * @return the PlaybackEngine.
+     */
+    public PlaybackEngine getPlaybackEngine() {
+        return engine;
+    }
+
+    /**
+     * Changes the PlaybackEngine that plays the tracks. The players of the
+     * old engine are disposed, and the playback is stopped.
+     *
+     * @param engine PlaybackEngine used for the audio output.
+     * @see PlaybackEngine
+     */
+    public void setPlaybackEngine(PlaybackEngine engine) {
+        finishCrossfade();
+        if (crossfadeStart != null) {
+            crossfadeStart.cancel(false);
+            crossfadeStart = null;
+        }
+        if (checkpointTask != null) {
+            checkpointTask.cancel(false);
+            checkpointTask = null;
+        }
+        if (players != null) {
+            players.clear();
+        }
+        this.engine = engine;
+        players = new PlayerPool<>(this::createPlayer, PlaybackHandle::stop, PlaybackHandle::dispose);
+        mp = null;
+        playing = false;
+        pendingTrack = playlist.getCurrentTrack();
+        progress.setPlaying(false);
+        progress.setEngine(engine);
+    }
+
+    /**
+     * Used to set the length of the crossfade between consecutive tracks.
+     * <p>
+     * When a track has this many milliseconds left, the next track starts
+     * playing and the volumes of the two tracks are faded. Tracks that are
+     * skipped to are not faded.
+     *
+     * @param millis Overlap in milliseconds, 0 to turn crossfade off.
+     * @see Crossfade
+     */
+    public void setCrossfade(long millis) {
+        crossfadeMillis = Math.max(0, millis);
+        scheduleCrossfade();
+    }
+
+    /**
+     * Used to get the length of the crossfade between consecutive tracks.
+     *
+     * @return Overlap in milliseconds, 0 if crossfade is off.
+     */
+    public long getCrossfade() {
+        return crossfadeMillis;
+    }
+
+    /**
+     * Used to set whether or not tracks are played at the same loudness.
+     * <p>
+     * The volume of each track is multiplied by the gain that plays it at
+     * LoudnessScanner.REFERENCE_LOUDNESS, the result is at most 1.0. Tracks
+     * that have not been measured yet are played without a gain.
+     *
+     * @param normalize true to apply the gain of each track.
+     * @see LoudnessScanner
+     */
+    public void setNormalizeLoudness(boolean normalize) {
+        normalizeLoudness = normalize;
+        Track current = playlist.getCurrentTrack();
+        gain = current != null ? getGain(current) : 1;
+        setVolume(volume);
+    }
+
+    /**
+     * Tells whether or not tracks are played at the same loudness.
+     *
+     * @return true if the gain of each track is applied.
+     */
+    public boolean isNormalizeLoudness() {
+        return normalizeLoudness;
+    }
+
     /**
      * Tells whether or not the MusicPlayer has active playback going on.
      *
@@ -401,9 +1271,20 @@ public class MusicPlayer {
      * playback moves forward.
      *
      * @param progressBar An Object that implements Updatable
+     * @see ProgressPublisher
      */
     public void setProgressBar(Updatable progressBar) {
-        this.progressBar = progressBar;
+        progress.setTarget(progressBar);
+    }
+
+    /**
+     * Used to get the ProgressPublisher that updates the progress bar, to
+     * change its rate or to tell when the window is hidden.
+     *
+     * @return the ProgressPublisher.
+     */
+    public ProgressPublisher getProgressPublisher() {
+        return progress;
     }
 
     /**
@@ -416,6 +1297,16 @@ public class MusicPlayer {
         this.ui = updatable;
     }
 
+    /**
+     * Used to set the PlaybackEngine of the instance returned by
+     * getInstance(). Has no effect after getInstance() has been called.
+     *
+     * @param engine PlaybackEngine used instead of JavaFX.
+     */
+    public static void setDefaultPlaybackEngine(PlaybackEngine engine) {
+        defaultEngine = engine;
+    }
+
     /**
      * Used to get the only instance of the MusicPlayer so that all of it's
      * methods can be accessed easily.
@@ -428,6 +1319,6 @@ public class MusicPlayer {
 
     private static class MusicPlayerSingletonHolder {
 
-        private static final MusicPlayer INSTANCE = new MusicPlayer();
+        private static final MusicPlayer INSTANCE = defaultEngine != null ? new MusicPlayer(defaultEngine) : new MusicPlayer();
     }
 }
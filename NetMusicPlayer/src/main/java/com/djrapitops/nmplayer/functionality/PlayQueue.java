@@ -0,0 +1,134 @@
+package com.djrapitops.nmplayer.functionality;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class is used to queue tracks to be played before the rest of the
+ * playlist ("Up next").
+ * <p>
+ * The ids of the queued tracks are held in a ring buffer, so tracks can be
+ * added to and removed from both ends, and any queued track can be looked at,
+ * in constant time.
+ *
+ * @author Rsl1122
+ * @see PlaylistManager
+ */
+public class PlayQueue {
+
+    private int[] ids;
+    private int head;
+    private int size;
+
+    /**
+     * Creates a new empty PlayQueue.
+     */
+    public PlayQueue() {
+        ids = new int[16];
+    }
+
+    /**
+     * Adds a Track to the front of the queue, so that it is played next.
+     *
+     * @param track Track to queue.
+     */
+    public void enqueueNext(Track track) {
+        if (size == ids.length) {
+            grow();
+        }
+        head = (head - 1) & (ids.length - 1);
+        ids[head] = track.getId();
+        size++;
+    }
+
+    /**
+     * Adds a Track to the end of the queue.
+     *
+     * @param track Track to queue.
+     */
+    public void enqueueLast(Track track) {
+        if (size == ids.length) {
+            grow();
+        }
+        ids[(head + size) & (ids.length - 1)] = track.getId();
+        size++;
+    }
+
+    /**
+     * Removes the first Track from the queue.
+     *
+     * @return the Track that was first, or null if the queue is empty.
+     */
+    public Track dequeue() {
+        if (size == 0) {
+            return null;
+        }
+        int id = ids[head];
+        head = (head + 1) & (ids.length - 1);
+        size--;
+        return TrackTable.getInstance().getTrack(id);
+    }
+
+    /**
+     * Used to look at a queued Track without removing it.
+     *
+     * @param k Position in the queue, 0 is the Track that is played next.
+     * @return the Track, or null if the queue has k tracks or less.
+     */
+    public Track peek(int k) {
+        if (k < 0 || k >= size) {
+            return null;
+        }
+        return TrackTable.getInstance().getTrack(ids[(head + k) & (ids.length - 1)]);
+    }
+
+    /**
+     * Used to get the tracks that are played next.
+     *
+     * @param k Maximum amount of tracks.
+     * @return List of at most k first tracks of the queue.
+     */
+    public List<Track> lookahead(int k) {
+        int count = Math.max(Math.min(k, size), 0);
+        List<Track> tracks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tracks.add(peek(i));
+        }
+        return tracks;
+    }
+
+    /**
+     * Used to get the amount of tracks in the queue.
+     *
+     * @return size of the queue.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check whether or not the queue is empty.
+     *
+     * @return Emptiness state of the queue.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all tracks from the queue.
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    private void grow() {
+        int[] grown = new int[ids.length * 2];
+        int firstPart = Math.min(size, ids.length - head);
+        System.arraycopy(ids, head, grown, 0, firstPart);
+        System.arraycopy(ids, 0, grown, firstPart, size - firstPart);
+        ids = grown;
+        head = 0;
+    }
+}
@@ -0,0 +1,453 @@
+package com.djrapitops.nmplayer.functionality;
+
+import com.djrapitops.nmplayer.fileutils.ErrorManager;
+import com.djrapitops.nmplayer.functionality.utilities.PlaylistAlgebra;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+
+/**
+ * This class runs every change of the MusicPlayer on one player thread.
+ * <p>
+ * The UI gives commands such as play, next or select playlist to this class
+ * instead of calling the MusicPlayer, so the event handlers return
+ * immediately and slow commands don't freeze the window. The events of the
+ * PlaybackEngine are run on the same thread, so the state of the MusicPlayer
+ * is only ever changed by one thread.
+ * <p>
+ * Commands that only set a value, like the volume or the play position,
+ * replace the same command if it is the latest command that has not been
+ * run yet. Dragging the volume slider runs the last volume only, instead of
+ * every value on the way.
+ * <p>
+ * After the commands in the queue have been run, an immutable PlayerState is
+ * published to the listeners.
+ * <p>
+ * Playlists are read on a separate loader thread, see selectPlaylist.
+ *
+ * @author Rsl1122
+ * @see MusicPlayer
+ * @see PlayerState
+ */
+public class PlayerCommands {
+
+    private static final String VOLUME = "volume";
+    private static final String SEEK = "seek";
+    private static final String SELECT_TRACK = "selectTrack";
+    private static final String SELECT_PLAYLIST = "selectPlaylist";
+    private static final String CROSSFADE = "crossfade";
+
+    private final MusicPlayer player;
+    private final ExecutorService executor;
+    private final ExecutorService loaderExecutor;
+    private final Deque<Command> queue;
+    private final List<Consumer<PlayerState>> listeners;
+
+    private volatile Thread thread;
+    private volatile PlayerState state;
+    private boolean draining;
+    private CompletableFuture<Void> loading;
+
+    /**
+     * Creates a new PlayerCommands for a MusicPlayer, and makes the player
+     * run its events on the player thread.
+     *
+     * @param player MusicPlayer to change.
+     */
+    public PlayerCommands(MusicPlayer player) {
+        this.player = player;
+        queue = new ArrayDeque<>();
+        listeners = new CopyOnWriteArrayList<>();
+        executor = Executors.newSingleThreadExecutor(task -> {
+            Thread t = new Thread(task, "NMPlayer Player");
+            t.setDaemon(true);
+            thread = t;
+            return t;
+        });
+        loaderExecutor = Executors.newSingleThreadExecutor(task -> {
+            Thread t = new Thread(task, "NMPlayer Loader");
+            t.setDaemon(true);
+            t.setPriority(Thread.NORM_PRIORITY - 1);
+            return t;
+        });
+        state = PlayerState.of(player);
+        player.setEventExecutor(this::submit);
+    }
+
+    /**
+     * Used to get the PlayerCommands of MusicPlayer.getInstance().
+     *
+     * @return INSTANCE created in the static class PlayerCommandsSingletonHolder
+     */
+    public static PlayerCommands getInstance() {
+        return PlayerCommandsSingletonHolder.INSTANCE;
+    }
+
+    /**
+     * Runs a task on the player thread after the commands given before it.
+     *
+     * @param task Task that changes the MusicPlayer.
+     */
+    public void submit(Runnable task) {
+        submit(null, task);
+    }
+
+    /**
+     * Runs a task on the player thread, replacing the latest waiting task if
+     * it has the same key.
+     *
+     * @param key  Key of the command, null if the command should never be
+     *             replaced.
+     * @param task Task that changes the MusicPlayer.
+     */
+    public void submit(String key, Runnable task) {
+        synchronized (queue) {
+            Command latest = queue.peekLast();
+            if (key != null && latest != null && key.equals(latest.key)) {
+                queue.pollLast();
+            }
+            queue.addLast(new Command(key, task));
+            if (!draining) {
+                draining = true;
+                executor.execute(this::drain);
+            }
+        }
+    }
+
+    /**
+     * Runs a task on the player thread and waits for it to finish. Used for
+     * quick changes that the caller needs the result of, such as editing the
+     * playlist.
+     * <p>
+     * If called on the player thread, the task is run immediately.
+     *
+     * @param task Task that changes the MusicPlayer.
+     */
+    public void submitAndWait(Runnable task) {
+        if (Thread.currentThread() == thread) {
+            task.run();
+            return;
+        }
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        submit(() -> {
+            try {
+                task.run();
+            } finally {
+                done.complete(null);
+            }
+        });
+        done.join();
+    }
+
+    private void drain() {
+        while (true) {
+            Command command;
+            synchronized (queue) {
+                command = queue.pollFirst();
+                if (command == null) {
+                    draining = false;
+                    break;
+                }
+            }
+            try {
+                command.task.run();
+            } catch (RuntimeException e) {
+                ErrorManager.toLog(PlayerCommands.class, e);
+            }
+            boolean idle;
+            synchronized (queue) {
+                idle = queue.isEmpty();
+            }
+            if (idle) {
+                publish();
+            }
+        }
+    }
+
+    private void publish() {
+        PlayerState newState = PlayerState.of(player);
+        state = newState;
+        for (Consumer<PlayerState> listener : listeners) {
+            listener.accept(newState);
+        }
+    }
+
+    /**
+     * Used to get the state of the MusicPlayer after the latest commands.
+     *
+     * @return Immutable PlayerState.
+     */
+    public PlayerState getState() {
+        return state;
+    }
+
+    /**
+     * Adds a listener that is given the new PlayerState after commands have
+     * been run. Listeners are called on the player thread.
+     *
+     * @param listener Listener to add.
+     */
+    public void addListener(Consumer<PlayerState> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener Listener to remove.
+     */
+    public void removeListener(Consumer<PlayerState> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Starts the playback logic.
+     *
+     * @see MusicPlayer#init()
+     */
+    public void init() {
+        submit(player::init);
+    }
+
+    /**
+     * Begins or resumes the playback.
+     */
+    public void play() {
+        submit(player::play);
+    }
+
+    /**
+     * Pauses the playback.
+     */
+    public void pause() {
+        submit(player::pause);
+    }
+
+    /**
+     * Pauses the playback if a track is playing, otherwise plays.
+     */
+    public void togglePlay() {
+        submit(() -> {
+            if (player.isPlaying()) {
+                player.pause();
+            } else {
+                player.play();
+            }
+        });
+    }
+
+    /**
+     * Stops the playback.
+     */
+    public void stop() {
+        submit(player::stop);
+    }
+
+    /**
+     * Moves to the next track. Skips are not replaced by each other, the
+     * MusicPlayer only opens the track that is skipped to last.
+     */
+    public void next() {
+        submit(player::nextTrack);
+    }
+
+    /**
+     * Moves to the previous track.
+     */
+    public void previous() {
+        submit(player::previousTrack);
+    }
+
+    /**
+     * Selects a track and plays it, unless it is already playing.
+     *
+     * @param track Track to play.
+     */
+    public void playTrack(Track track) {
+        submit(SELECT_TRACK, () -> {
+            if (!track.equals(player.getCurrentTrack()) || !player.isPlaying()) {
+                player.selectTrack(track);
+                player.play();
+            }
+        });
+    }
+
+    /**
+     * Changes the playlist.
+     *
+     * @param playlistName Name of the playlist.
+     * @return CompletableFuture that completes when the playlist has been
+     * changed.
+     * @see #selectPlaylist(String, DoubleConsumer)
+     */
+    public CompletableFuture<Void> selectPlaylist(String playlistName) {
+        return selectPlaylist(playlistName, progress -> {
+        });
+    }
+
+    /**
+     * Changes the playlist, reading the playlist on the loader thread.
+     * <p>
+     * The old playlist can be played and changed while the new one is read.
+     * When it has been read, the playlist is changed with one command on the
+     * player thread, so the player never has a half loaded playlist.
+     * <p>
+     * Selecting another playlist cancels the selection that is still loading.
+     * The returned CompletableFuture can also be cancelled, in which case the
+     * current playlist is kept.
+     *
+     * @param playlistName Name of the playlist.
+     * @param progress     Told the fraction of the files read, from 0 to 1.0,
+     *                     on the loader thread.
+     * @return CompletableFuture that completes when the playlist has been
+     * changed, or completes exceptionally if it was cancelled or could not be
+     * loaded.
+     * @see PlaylistLoader
+     */
+    public CompletableFuture<Void> selectPlaylist(String playlistName, DoubleConsumer progress) {
+        CompletableFuture<Void> selection = new CompletableFuture<>();
+        CompletableFuture<Void> previous;
+        synchronized (this) {
+            previous = loading;
+            loading = selection;
+        }
+        if (previous != null) {
+            previous.cancel(false);
+        }
+        submit(SELECT_PLAYLIST, () -> {
+            if (selection.isDone()) {
+                return;
+            }
+            PlaylistLoader loader = player.createLoader(playlistName);
+            loaderExecutor.execute(() -> load(loader, selection, progress));
+        });
+        return selection;
+    }
+
+    private void load(PlaylistLoader loader, CompletableFuture<Void> selection, DoubleConsumer progress) {
+        try {
+            loader.load(progress, selection::isDone);
+        } catch (CancellationException e) {
+            return;
+        } catch (RuntimeException e) {
+            ErrorManager.toLog(PlayerCommands.class, e);
+            selection.completeExceptionally(e);
+            return;
+        }
+        submit(() -> {
+            if (selection.isDone()) {
+                return;
+            }
+            player.applyPlaylist(loader);
+            PlaylistManager playlistManager = player.getPlaylistManager();
+            if (playlistManager.isRandom()) {
+                playlistManager.setRandom(true);
+            }
+            selection.complete(null);
+            // Built here so that the first search, on the JavaFX thread or a ControlServer, does not have to.
+            loaderExecutor.execute(playlistManager::prepareSearch);
+        });
+    }
+
+    /**
+     * Combines two playlists with a set operation and saves the result as a
+     * playlist.
+     * <p>
+     * The playlists are read on the loader thread like in selectPlaylist, so
+     * scanning the library for a smart playlist does not hold up the other
+     * commands.
+     *
+     * @param first      Name of the first playlist.
+     * @param operation  Set operation, for example UNION.
+     * @param second     Name of the second playlist.
+     * @param resultName Name of the playlist the result is saved as.
+     * @return CompletableFuture that completes when the result has been
+     * saved, or completes exceptionally if the playlists could not be read.
+     * @see MusicPlayer#combinePlaylists(PlaylistLoader, PlaylistAlgebra.Operation, PlaylistLoader, String)
+     */
+    public CompletableFuture<Void> combinePlaylists(String first, PlaylistAlgebra.Operation operation, String second, String resultName) {
+        CompletableFuture<Void> combination = new CompletableFuture<>();
+        submit(() -> {
+            PlaylistLoader firstLoader = player.createPathLoader(first);
+            PlaylistLoader secondLoader = player.createPathLoader(second);
+            loaderExecutor.execute(() -> {
+                try {
+                    firstLoader.loadPaths(progress -> {
+                    }, () -> false);
+                    secondLoader.useLibraryOf(firstLoader);
+                    secondLoader.loadPaths(progress -> {
+                    }, () -> false);
+                } catch (RuntimeException e) {
+                    ErrorManager.toLog(PlayerCommands.class, e);
+                    combination.completeExceptionally(e);
+                    return;
+                }
+                submit(() -> {
+                    player.combinePlaylists(firstLoader, operation, secondLoader, resultName);
+                    combination.complete(null);
+                });
+            });
+        });
+        return combination;
+    }
+
+    /**
+     * Changes the play position of the current track.
+     *
+     * @param position a double from 0 to 1.0
+     */
+    public void seek(double position) {
+        submit(SEEK, () -> player.setTrackPosition(position));
+    }
+
+    /**
+     * Sets the volume.
+     *
+     * @param volume a double from 0 to 1.0
+     */
+    public void setVolume(double volume) {
+        submit(VOLUME, () -> player.setVolume(volume));
+    }
+
+    /**
+     * Changes the volume by an amount.
+     *
+     * @param change Amount to add to the volume, negative to lower it.
+     */
+    public void changeVolume(double change) {
+        submit(() -> player.setVolume(player.getVolume() + change));
+    }
+
+    /**
+     * Sets the crossfade length.
+     *
+     * @param millis Overlap in milliseconds, 0 to turn crossfade off.
+     */
+    public void setCrossfade(long millis) {
+        submit(CROSSFADE, () -> player.setCrossfade(millis));
+    }
+
+    private static class Command {
+
+        private final String key;
+        private final Runnable task;
+
+        Command(String key, Runnable task) {
+            this.key = key;
+            this.task = task;
+        }
+    }
+
+    private static class PlayerCommandsSingletonHolder {
+
+        private static final PlayerCommands INSTANCE = new PlayerCommands(MusicPlayer.getInstance());
+    }
+}
@@ -0,0 +1,207 @@
+package com.djrapitops.nmplayer.functionality;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * This class keeps the players of the current, next and previous track, so
+ * that moving to the next or previous track reuses a player that has already
+ * been opened instead of creating a new one.
+ * <p>
+ * Each slot has a State. A player is created in the PREPARING state, becomes
+ * READY when the media has been opened, is ACTIVE while it is the current
+ * player, and is DISPOSED when it is pushed out of the pool. A player that
+ * stops being the current player is stopped and kept as the previous player.
+ * <p>
+ * The class is not thread safe, it is used from the event thread of the
+ * PlaybackEngine.
+ *
+ * @param <P> Type of the player, for example PlaybackHandle.
+ * @author Rsl1122
+ * @see MusicPlayer
+ */
+public class PlayerPool<P> {
+
+    /**
+     * State of a player in the pool.
+     */
+    public enum State {
+        PREPARING,
+        READY,
+        ACTIVE,
+        DISPOSED
+    }
+
+    private final Function<Track, P> factory;
+    private final Consumer<P> stopper;
+    private final Consumer<P> disposer;
+
+    private Slot<P> current;
+    private Slot<P> next;
+    private Slot<P> previous;
+
+    /**
+     * Creates a new empty PlayerPool.
+     *
+     * @param factory  Function that creates a player for a track.
+     * @param stopper  Function that stops a player so it can be played again
+     *                 from the start.
+     * @param disposer Function that frees the resources of a player.
+     */
+    public PlayerPool(Function<Track, P> factory, Consumer<P> stopper, Consumer<P> disposer) {
+        this.factory = factory;
+        this.stopper = stopper;
+        this.disposer = disposer;
+    }
+
+    /**
+     * Makes the player of a track the current player.
+     * <p>
+     * If the track is in the next or previous slot, that player is used.
+     * Otherwise a new player is created. The old current player is stopped
+     * and moved to the previous slot.
+     *
+     * @param track Track to play.
+     * @return Player of the track.
+     */
+    public P activate(Track track) {
+        return activate(track, true);
+    }
+
+    /**
+     * Makes the player of a track the current player.
+     * <p>
+     * Same as activate(Track), but the old current player can be left playing
+     * when it is moved to the previous slot, so that it can be faded out. The
+     * caller has to stop it.
+     *
+     * @param track       Track to play.
+     * @param stopCurrent Should the old current player be stopped?
+     * @return Player of the track.
+     * @see Crossfade
+     */
+    public P activate(Track track, boolean stopCurrent) {
+        if (current != null && current.track.equals(track)) {
+            return current.player;
+        }
+        Slot<P> slot;
+        if (next != null && next.track.equals(track)) {
+            slot = next;
+            next = null;
+        } else if (previous != null && previous.track.equals(track)) {
+            slot = previous;
+            previous = null;
+        } else {
+            slot = new Slot<>(track, factory.apply(track));
+        }
+        if (current != null) {
+            if (stopCurrent) {
+                stopper.accept(current.player);
+            }
+            current.state = State.READY;
+            dispose(previous);
+            previous = current;
+        }
+        slot.state = State.ACTIVE;
+        current = slot;
+        return slot.player;
+    }
+
+    /**
+     * Creates a player for the track that will be played next, if it is not
+     * in the pool already.
+     *
+     * @param track Next track, null to dispose the next player.
+     */
+    public void prepareNext(Track track) {
+        if (next != null && next.track.equals(track)) {
+            return;
+        }
+        dispose(next);
+        next = null;
+        if (track == null || (current != null && current.track.equals(track))) {
+            return;
+        }
+        if (previous != null && previous.track.equals(track)) {
+            next = previous;
+            previous = null;
+            return;
+        }
+        next = new Slot<>(track, factory.apply(track));
+    }
+
+    /**
+     * Used to tell that the media of a player has been opened.
+     *
+     * @param player Player of the pool.
+     */
+    public void markReady(P player) {
+        for (Slot<P> slot : slots()) {
+            if (slot != null && slot.player == player && slot.state == State.PREPARING) {
+                slot.state = State.READY;
+            }
+        }
+    }
+
+    /**
+     * Used to get the state of the player of a track.
+     *
+     * @param track Track to look for.
+     * @return State of the player, DISPOSED if the track has no player.
+     */
+    public State getState(Track track) {
+        for (Slot<P> slot : slots()) {
+            if (slot != null && slot.track.equals(track)) {
+                return slot.state;
+            }
+        }
+        return State.DISPOSED;
+    }
+
+    /**
+     * Used to get the current player.
+     *
+     * @return the player, or null if no player has been activated.
+     */
+    public P getCurrent() {
+        return current != null ? current.player : null;
+    }
+
+    /**
+     * Disposes every player of the pool.
+     */
+    public void clear() {
+        for (Slot<P> slot : slots()) {
+            dispose(slot);
+        }
+        current = null;
+        next = null;
+        previous = null;
+    }
+
+    private void dispose(Slot<P> slot) {
+        if (slot != null && slot.state != State.DISPOSED) {
+            slot.state = State.DISPOSED;
+            disposer.accept(slot.player);
+        }
+    }
+
+    private List<Slot<P>> slots() {
+        return Arrays.asList(current, next, previous);
+    }
+
+    private static class Slot<P> {
+
+        private final Track track;
+        private final P player;
+        private State state;
+
+        Slot(Track track, P player) {
+            this.track = track;
+            this.player = player;
+            this.state = State.PREPARING;
+        }
+    }
+}
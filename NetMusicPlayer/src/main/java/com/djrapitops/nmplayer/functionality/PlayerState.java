@@ -0,0 +1,97 @@
+package com.djrapitops.nmplayer.functionality;
+
+/**
+ * Immutable snapshot of the state of the MusicPlayer, published by
+ * PlayerCommands after commands have been run.
+ * <p>
+ * The UI reads the state from the snapshot instead of the MusicPlayer, so it
+ * never sees the player in the middle of a change.
+ *
+ * @author Rsl1122
+ * @see PlayerCommands#getState()
+ */
+public final class PlayerState {
+
+    private final Track currentTrack;
+    private final String selectedPlaylist;
+    private final boolean playing;
+    private final double volume;
+    private final long crossfade;
+
+    /**
+     * Creates a new PlayerState.
+     *
+     * @param currentTrack     Current Track, or null.
+     * @param selectedPlaylist Name of the selected playlist.
+     * @param playing          Is a track playing?
+     * @param volume           Volume from 0 to 1.0.
+     * @param crossfade        Crossfade length in milliseconds.
+     */
+    public PlayerState(Track currentTrack, String selectedPlaylist, boolean playing, double volume, long crossfade) {
+        this.currentTrack = currentTrack;
+        this.selectedPlaylist = selectedPlaylist;
+        this.playing = playing;
+        this.volume = volume;
+        this.crossfade = crossfade;
+    }
+
+    /**
+     * Takes a snapshot of a MusicPlayer.
+     *
+     * @param player MusicPlayer, only used from the thread that changes it.
+     * @return a new PlayerState.
+     */
+    public static PlayerState of(MusicPlayer player) {
+        return new PlayerState(player.getCurrentTrack(), player.getSelectedPlaylist(), player.isPlaying(), player.getVolume(), player.getCrossfade());
+    }
+
+    /**
+     * Used to get the current track.
+     *
+     * @return Track, or null if no track has been selected.
+     */
+    public Track getCurrentTrack() {
+        return currentTrack;
+    }
+
+    /**
+     * Used to get the name of the selected playlist.
+     *
+     * @return For example "all".
+     */
+    public String getSelectedPlaylist() {
+        return selectedPlaylist;
+    }
+
+    /**
+     * Tells if a track was playing.
+     *
+     * @return true if playing.
+     */
+    public boolean isPlaying() {
+        return playing;
+    }
+
+    /**
+     * Used to get the volume.
+     *
+     * @return a double from 0 to 1.0
+     */
+    public double getVolume() {
+        return volume;
+    }
+
+    /**
+     * Used to get the crossfade length.
+     *
+     * @return Milliseconds, 0 if crossfade is off.
+     */
+    public long getCrossfade() {
+        return crossfade;
+    }
+
+    @Override
+    public String toString() {
+        return "PlayerState{" + currentTrack + ", " + selectedPlaylist + ", playing=" + playing + ", volume=" + volume + ", crossfade=" + crossfade + '}';
+    }
+}
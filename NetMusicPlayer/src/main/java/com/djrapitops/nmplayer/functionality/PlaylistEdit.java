@@ -0,0 +1,110 @@
+package com.djrapitops.nmplayer.functionality;
+
+/**
+ * This class describes one change made to a playlist, as the difference
+ * between the playlist before and after the change.
+ * <p>
+ * A change removes tracks from some positions of the old playlist and then
+ * inserts tracks to some positions of the new playlist. Positions are in
+ * ascending order. Adding, removing, moving and clearing can all be described
+ * this way, and the change can be reversed without knowing the whole
+ * playlist.
+ * <p>
+ * PlaylistEdits are written to the playlist journal instead of writing the
+ * whole playlist file again.
+ *
+ * @author Rsl1122
+ * @see PlaylistManager
+ */
+public class PlaylistEdit {
+
+    private static final int[] NONE = new int[0];
+
+    private final int[] removedPositions;
+    private final int[] removedIds;
+    private final int[] insertedPositions;
+    private final int[] insertedIds;
+
+    /**
+     * Creates a new PlaylistEdit.
+     *
+     * @param removedPositions  Removed positions of the old playlist, ascending.
+     * @param removedIds        TrackTable ids of the removed tracks.
+     * @param insertedPositions Inserted positions of the new playlist,
+     *                          ascending.
+     * @param insertedIds       TrackTable ids of the inserted tracks.
+     */
+    public PlaylistEdit(int[] removedPositions, int[] removedIds, int[] insertedPositions, int[] insertedIds) {
+        this.removedPositions = removedPositions;
+        this.removedIds = removedIds;
+        this.insertedPositions = insertedPositions;
+        this.insertedIds = insertedIds;
+    }
+
+    /**
+     * Creates a PlaylistEdit that inserts a single track.
+     *
+     * @param position Position of the new track.
+     * @param id       TrackTable id of the track.
+     * @return a new PlaylistEdit.
+     */
+    public static PlaylistEdit insert(int position, int id) {
+        return new PlaylistEdit(NONE, NONE, new int[]{position}, new int[]{id});
+    }
+
+    /**
+     * Creates a PlaylistEdit that removes a single track.
+     *
+     * @param position Position of the track.
+     * @param id       TrackTable id of the track.
+     * @return a new PlaylistEdit.
+     */
+    public static PlaylistEdit remove(int position, int id) {
+        return new PlaylistEdit(new int[]{position}, new int[]{id}, NONE, NONE);
+    }
+
+    /**
+     * Used to get the PlaylistEdit that undoes this edit.
+     *
+     * @return a new PlaylistEdit.
+     */
+    public PlaylistEdit inverse() {
+        return new PlaylistEdit(insertedPositions, insertedIds, removedPositions, removedIds);
+    }
+
+    /**
+     * Used to get the removed positions of the old playlist.
+     *
+     * @return positions in ascending order, do not modify.
+     */
+    public int[] getRemovedPositions() {
+        return removedPositions;
+    }
+
+    /**
+     * Used to get the TrackTable ids of the removed tracks.
+     *
+     * @return ids in the order of the removed positions, do not modify.
+     */
+    public int[] getRemovedIds() {
+        return removedIds;
+    }
+
+    /**
+     * Used to get the inserted positions of the new playlist.
+     *
+     * @return positions in ascending order, do not modify.
+     */
+    public int[] getInsertedPositions() {
+        return insertedPositions;
+    }
+
+    /**
+     * Used to get the TrackTable ids of the inserted tracks.
+     *
+     * @return ids in the order of the inserted positions, do not modify.
+     */
+    public int[] getInsertedIds() {
+        return insertedIds;
+    }
+}
@@ -0,0 +1,172 @@
+package com.djrapitops.nmplayer.functionality;
+
+import com.djrapitops.nmplayer.fileutils.PlaylistFileManager;
+import com.djrapitops.nmplayer.fileutils.TrackFileManager;
+import com.djrapitops.nmplayer.functionality.utilities.TrackComparator;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleConsumer;
+
+/**
+ * This class reads the tracks of a playlist without changing the
+ * MusicPlayer, so that a playlist can be loaded on another thread while the
+ * old playlist keeps playing.
+ * <p>
+ * The loader is created by MusicPlayer.createLoader on the thread that
+ * changes the MusicPlayer, with a copy of the kept "all" library. load can be
+ * run on any thread, and the result is given to MusicPlayer.applyPlaylist on
+ * the thread that changes the MusicPlayer.
+ *
+ * @author Rsl1122
+ * @see MusicPlayer#createLoader(String)
+ * @see PlayerCommands#selectPlaylist(String, DoubleConsumer)
+ */
+public class PlaylistLoader {
+
+    private final String name;
+    private final boolean all;
+    private final boolean smart;
+
+    private List<Track> library;
+    private Set<String> libraryPaths;
+    private boolean libraryLoaded;
+    private List<Track> tracks;
+    private List<String> paths;
+
+    /**
+     * Creates a new PlaylistLoader.
+     *
+     * @param name         Name of the playlist.
+     * @param library      Copy of the sorted "all" library, null if it has
+     *                     not been loaded.
+     * @param libraryPaths File paths of the library, null if it has not been
+     *                     loaded.
+     */
+    PlaylistLoader(String name, List<Track> library, Set<String> libraryPaths) {
+        this.name = name;
+        this.library = library;
+        this.libraryPaths = libraryPaths;
+        all = name.equals("all");
+        smart = !all && PlaylistFileManager.isSmartPlaylist(name);
+    }
+
+    /**
+     * Reads the tracks of the playlist.
+     * <p>
+     * If a {name}.smart file exists, the tracks of the smart playlist are
+     * used. The library is scanned first if it has not been loaded yet.
+     *
+     * @param progress  Told the fraction of files read, from 0 to 1.0
+     * @param cancelled Checked while the files are read.
+     * @return this loader.
+     * @throws CancellationException If cancelled returned true.
+     */
+    public PlaylistLoader load(DoubleConsumer progress, BooleanSupplier cancelled) {
+        if (all) {
+            tracks = getLibrary(PlaylistFileManager.loadAll(), progress, cancelled);
+        } else if (smart) {
+            if (library == null) {
+                getLibrary(PlaylistFileManager.loadAll(), progress, cancelled);
+            }
+            tracks = SmartPlaylistManager.getInstance().getTracks(name);
+        } else {
+            tracks = TrackFileManager.translateToTracks(PlaylistFileManager.load(name), progress, cancelled);
+        }
+        if (cancelled.getAsBoolean()) {
+            throw new CancellationException();
+        }
+        return this;
+    }
+
+    /**
+     * Reads the file paths of the playlist, used to combine playlists.
+     * <p>
+     * The tracks of playlist files are not read. The tracks of a smart
+     * playlist are read like in load.
+     *
+     * @param progress  Told the fraction of files read, from 0 to 1.0
+     * @param cancelled Checked while the files are read.
+     * @return this loader.
+     * @throws CancellationException If cancelled returned true.
+     */
+    public PlaylistLoader loadPaths(DoubleConsumer progress, BooleanSupplier cancelled) {
+        if (!smart) {
+            paths = PlaylistFileManager.load(name);
+            return this;
+        }
+        load(progress, cancelled);
+        paths = new ArrayList<>(tracks.size());
+        for (Track track : tracks) {
+            paths.add(track.getFilePath());
+        }
+        return this;
+    }
+
+    /**
+     * Gives the library scanned by another loader to this loader, so that it
+     * is not scanned twice.
+     *
+     * @param other Loader that has been loaded.
+     */
+    void useLibraryOf(PlaylistLoader other) {
+        if (library == null && other.libraryLoaded) {
+            library = other.library;
+            libraryPaths = other.libraryPaths;
+        }
+    }
+
+    private List<Track> getLibrary(List<String> filePaths, DoubleConsumer progress, BooleanSupplier cancelled) {
+        Set<String> paths = new HashSet<>(filePaths);
+        if (library == null || !paths.equals(libraryPaths)) {
+            List<Track> scanned = TrackFileManager.translateToTracks(filePaths, progress, cancelled);
+            TrackComparator.sort(scanned);
+            library = scanned;
+            libraryPaths = paths;
+            libraryLoaded = true;
+        }
+        return new ArrayList<>(library);
+    }
+
+    /**
+     * Used to get the name of the playlist.
+     *
+     * @return for example "all".
+     */
+    public String getName() {
+        return name;
+    }
+
+    boolean isAll() {
+        return all;
+    }
+
+    boolean isSmart() {
+        return smart;
+    }
+
+    List<Track> getTracks() {
+        return tracks;
+    }
+
+    List<String> getPaths() {
+        return paths;
+    }
+
+    /**
+     * Used to get the library scanned by load.
+     *
+     * @return the sorted library, or null if the kept library was used.
+     */
+    List<Track> getLoadedLibrary() {
+        return libraryLoaded ? library : null;
+    }
+
+    Set<String> getLoadedLibraryPaths() {
+        return libraryLoaded ? libraryPaths : null;
+    }
+}
@@ -1,21 +1,60 @@
 package com.djrapitops.nmplayer.functionality;
 
+import com.djrapitops.nmplayer.functionality.utilities.IntVector;
+import com.djrapitops.nmplayer.functionality.utilities.TrackComparator;
+
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 
 /**
  * This class is used to manipulate the List containing Track objects called
  * playlist.
+ * <p>
+ * The playlist is stored as an immutable IntVector of TrackTable ids. Every
+ * change publishes a new IntVector, so getPlaylist() returns a snapshot that
+ * can be read without locking while the playlist is being changed. Methods
+ * that change the playlist are synchronized, so that changes made from
+ * different threads are not lost.
+ * <p>
+ * Every change is also recorded in an undo history. The history keeps the
+ * IntVector of the playlist before and after the change, which share most of
+ * their nodes, so a step costs O(log n) memory and undoing is instant. The
+ * changes are also kept as PlaylistEdits until they are taken with
+ * takeEdits() and saved.
  *
  * @author Rsl1122
  * @see Track
  */
 public class PlaylistManager {
 
-    private List<Track> playlist;
-    private RandomOrderUtility random;
+    private static final int HISTORY_SIZE = 100;
+
+    private volatile IntVector playlist;
+    private volatile RandomOrderUtility random;
+    private volatile WeightedShuffle weighted;
+    private ShuffleMode shuffleMode;
+    private final PlayQueue queue;
+    /**
+     * SearchIndex of the playlist, null until the next search after the
+     * playlist has been replaced.
+     */
+    private volatile SearchIndex searchIndex;
+    private boolean sorted;
+    private final Deque<HistoryStep> undoHistory;
+    private final Deque<HistoryStep> redoHistory;
+    private final List<PlaylistEdit> unsavedEdits;
 
     private Track currentTrack;
+    /**
+     * Track of the playlist the playback continues from. Queued tracks do
+     * not change it, so the playlist continues where it was after them.
+     */
+    private Track anchorTrack;
+    private Track dequeuedTrack;
 
     /**
      * Creates a new PlaylistManager with given List as the playlist.
@@ -23,7 +62,12 @@ public class PlaylistManager {
      * @param playlist A pre-existing List of tracks
      */
     public PlaylistManager(List<Track> playlist) {
-        this.playlist = playlist;
+        this.playlist = toIds(playlist);
+        queue = new PlayQueue();
+        shuffleMode = ShuffleMode.UNIFORM;
+        undoHistory = new ArrayDeque<>();
+        redoHistory = new ArrayDeque<>();
+        unsavedEdits = new ArrayList<>();
     }
 
     /**
@@ -35,12 +79,25 @@ public class PlaylistManager {
 
     /**
      * Adds a new Track to the playlist.
+     * <p>
+     * If the playlist is kept sorted, the track is inserted to its
+     * alphabetical position.
      *
      * @param t Track to be added.
+     * @see #setSorted(boolean)
      */
-    public void addTrackToPlaylist(Track t) {
+    public synchronized void addTrackToPlaylist(Track t) {
         if (!hasTrack(t)) {
-            playlist.add(t);
+            int index = playlist.size();
+            if (sorted) {
+                index = Collections.binarySearch(getPlaylist(), t, new TrackComparator());
+                index = index < 0 ? -index - 1 : index;
+            }
+            commit(playlist.insert(index, t.getId()), PlaylistEdit.insert(index, t.getId()));
+            SearchIndex search = searchIndex;
+            if (search != null) {
+                search.add(t);
+            }
         }
     }
 
@@ -49,33 +106,243 @@ public class PlaylistManager {
      *
      * @param t Track to be removed.
      */
-    public void removeTrackFromPlaylist(Track t) {
-        playlist.remove(t);
+    public synchronized void removeTrackFromPlaylist(Track t) {
+        int index = playlist.indexOf(t.getId());
+        if (index != -1) {
+            commit(playlist.removeAt(index), PlaylistEdit.remove(index, t.getId()));
+        }
+        SearchIndex search = searchIndex;
+        if (search != null) {
+            search.remove(t);
+        }
+    }
+
+    /**
+     * Removes every selected track from the playlist in a single pass.
+     * <p>
+     * Parts of the playlist without selected tracks are shared with the
+     * previous playlist, so the undo history stays small.
+     *
+     * @param selection Positions of the tracks to remove.
+     * @return the removed tracks in playlist order.
+     * @see TrackSelection
+     */
+    public synchronized List<Track> removeSelected(TrackSelection selection) {
+        IntVector playlist = this.playlist;
+        int[] positions = new int[Math.min(selection.size(), playlist.size())];
+        int[] ids = new int[positions.length];
+        int count = 0;
+        for (int i = selection.nextSelected(0); i >= 0 && i < playlist.size(); i = selection.nextSelected(i + 1)) {
+            positions[count] = i;
+            ids[count++] = playlist.get(i);
+        }
+        List<Track> removed = new ArrayList<>(count);
+        if (count == 0) {
+            return removed;
+        }
+        positions = Arrays.copyOf(positions, count);
+        ids = Arrays.copyOf(ids, count);
+        commit(playlist.removePositions(selection::isSelected), new PlaylistEdit(positions, ids, new int[0], new int[0]));
+        TrackTable table = TrackTable.getInstance();
+        SearchIndex search = searchIndex;
+        for (int id : ids) {
+            Track track = table.getTrack(id);
+            removed.add(track);
+            if (search != null) {
+                search.remove(track);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Moves every selected track in front of the track at the target
+     * position, keeping their order. The playlist is no longer kept sorted
+     * after a move.
+     *
+     * @param selection Positions of the tracks to move.
+     * @param target    Position the tracks are moved in front of, size of the
+     *                  playlist to move them to the end.
+     * @see TrackSelection
+     */
+    public synchronized void moveSelected(TrackSelection selection, int target) {
+        int[] ids = playlist.toArray();
+        int[] movedPositions = new int[ids.length];
+        int[] moved = new int[ids.length];
+        int movedSize = 0;
+        for (int i = selection.nextSelected(0); i >= 0 && i < ids.length; i = selection.nextSelected(i + 1)) {
+            movedPositions[movedSize] = i;
+            moved[movedSize++] = ids[i];
+        }
+        if (movedSize == 0) {
+            return;
+        }
+        int[] result = new int[ids.length];
+        int resultSize = 0;
+        int insertedAt = -1;
+        for (int i = 0; i <= ids.length; i++) {
+            if (i == target) {
+                insertedAt = resultSize;
+                System.arraycopy(moved, 0, result, resultSize, movedSize);
+                resultSize += movedSize;
+            }
+            if (i < ids.length && !selection.isSelected(i)) {
+                result[resultSize++] = ids[i];
+            }
+        }
+        if (insertedAt == -1) {
+            insertedAt = resultSize;
+            System.arraycopy(moved, 0, result, resultSize, movedSize);
+        }
+        int[] insertedPositions = new int[movedSize];
+        for (int i = 0; i < movedSize; i++) {
+            insertedPositions[i] = insertedAt + i;
+        }
+        moved = Arrays.copyOf(moved, movedSize);
+        PlaylistEdit edit = new PlaylistEdit(Arrays.copyOf(movedPositions, movedSize), moved, insertedPositions, moved);
+        commit(IntVector.of(result), false, edit);
+    }
+
+    /**
+     * Used to get the selected tracks.
+     *
+     * @param selection Positions of the tracks.
+     * @return the selected tracks in playlist order.
+     * @see TrackSelection
+     */
+    public List<Track> getSelectedTracks(TrackSelection selection) {
+        IntVector playlist = this.playlist;
+        List<Track> tracks = new ArrayList<>(selection.size());
+        TrackTable table = TrackTable.getInstance();
+        for (int i = selection.nextSelected(0); i >= 0 && i < playlist.size(); i = selection.nextSelected(i + 1)) {
+            tracks.add(table.getTrack(playlist.get(i)));
+        }
+        return tracks;
     }
 
     /**
      * Removes all Tracks from the playlist.
      */
-    public void clearPlaylist() {
-        playlist.clear();
+    public synchronized void clearPlaylist() {
+        int[] ids = playlist.toArray();
+        if (ids.length > 0) {
+            int[] positions = new int[ids.length];
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = i;
+            }
+            commit(IntVector.EMPTY, new PlaylistEdit(positions, ids, new int[0], new int[0]));
+        }
+        searchIndex = new SearchIndex();
     }
 
     /**
      * Grab the list containing all the Track objects called playlist.
+     * <p>
+     * The returned list does not change when the playlist is changed.
      *
-     * @return the playlist.
+     * @return read-only snapshot of the playlist.
      */
     public List<Track> getPlaylist() {
-        return playlist;
+        return new TrackList(playlist);
     }
 
     /**
      * Replaces the current playlist with the given parameter.
+     * <p>
+     * The undo history and unsaved edits of the old playlist are discarded.
      *
      * @param playlist a List used to replace the old playlist.
      */
-    public void setPlaylist(List<Track> playlist) {
-        this.playlist = playlist;
+    public synchronized void setPlaylist(List<Track> playlist) {
+        this.playlist = toIds(playlist);
+        searchIndex = null;
+        undoHistory.clear();
+        redoHistory.clear();
+        unsavedEdits.clear();
+        updateShuffle();
+    }
+
+    /**
+     * Reverts the latest change of the playlist.
+     *
+     * @return false if there was nothing to undo.
+     */
+    public synchronized boolean undo() {
+        HistoryStep step = undoHistory.poll();
+        if (step == null) {
+            return false;
+        }
+        redoHistory.push(step);
+        restore(step.before, step.sortedBefore, step.edit.inverse());
+        return true;
+    }
+
+    /**
+     * Makes the latest undone change again.
+     *
+     * @return false if there was nothing to redo.
+     */
+    public synchronized boolean redo() {
+        HistoryStep step = redoHistory.poll();
+        if (step == null) {
+            return false;
+        }
+        undoHistory.push(step);
+        restore(step.after, step.sortedAfter, step.edit);
+        return true;
+    }
+
+    /**
+     * Check whether or not there is a change to undo.
+     *
+     * @return Can undo() revert a change?
+     */
+    public synchronized boolean canUndo() {
+        return !undoHistory.isEmpty();
+    }
+
+    /**
+     * Check whether or not there is an undone change to redo.
+     *
+     * @return Can redo() make a change again?
+     */
+    public synchronized boolean canRedo() {
+        return !redoHistory.isEmpty();
+    }
+
+    /**
+     * Used to get the changes made after the previous call, so that only the
+     * changes have to be saved.
+     *
+     * @return PlaylistEdits in the order they were made.
+     * @see PlaylistEdit
+     */
+    public synchronized List<PlaylistEdit> takeEdits() {
+        List<PlaylistEdit> edits = new ArrayList<>(unsavedEdits);
+        unsavedEdits.clear();
+        return edits;
+    }
+
+    /**
+     * Used to tell that the playlist is in alphabetical order, so that new
+     * tracks are inserted in order instead of added to the end.
+     * <p>
+     * The playlist is not sorted by this method.
+     *
+     * @param sorted Is the playlist sorted with TrackComparator?
+     * @see TrackComparator
+     */
+    public void setSorted(boolean sorted) {
+        this.sorted = sorted;
+    }
+
+    /**
+     * Check whether or not new tracks are inserted in alphabetical order.
+     *
+     * @return sorted state.
+     */
+    public boolean isSorted() {
+        return sorted;
     }
 
     /**
@@ -88,38 +355,98 @@ public class PlaylistManager {
      * @return Track object that has the same name, or null.
      */
     public Track getTrackByName(String trackName) {
-        for (Track track : playlist) {
-            if (track.getName().equals(trackName)) {
-                return track;
+        TrackTable table = TrackTable.getInstance();
+        int nameId = table.findNameId(trackName);
+        if (nameId == -1) {
+            return null;
+        }
+        IntVector playlist = this.playlist;
+        for (int i = 0; i < playlist.size(); i++) {
+            int id = playlist.get(i);
+            if (table.getNameId(id) == nameId) {
+                return table.getTrack(id);
             }
         }
         return null;
     }
 
+    /**
+     * Searches the playlist for tracks which name, artist or file name contain
+     * the given text. Case and accents are ignored.
+     * <p>
+     * The SearchIndex is built by prepareSearch or the first search after the
+     * playlist has been replaced, after that it is kept up to date as tracks
+     * are added and removed. The index is built and searched without locking the
+     * PlaylistManager, so searching does not stop the player thread from
+     * changing the playlist. A search made while the playlist changes finds
+     * the tracks of the playlist before or after the change.
+     *
+     * @param query Text to search for.
+     * @param limit Maximum number of tracks to return.
+     * @return matching Track objects, best matches first.
+     * @see SearchIndex
+     */
+    public List<Track> search(String query, int limit) {
+        return getSearchIndex().search(query, limit);
+    }
+
+    /**
+     * Builds the SearchIndex of the playlist if it has not been built, so
+     * that the next search does not have to. Called on a background thread
+     * after the playlist has been replaced.
+     */
+    public void prepareSearch() {
+        getSearchIndex();
+    }
+
+    private SearchIndex getSearchIndex() {
+        SearchIndex index = searchIndex;
+        if (index != null) {
+            return index;
+        }
+        IntVector ids = playlist;
+        index = new SearchIndex();
+        index.addAll(new TrackList(ids));
+        synchronized (this) {
+            // Tracks added or removed while the index was built are not in it, so it is only kept if there were none.
+            if (searchIndex == null && playlist == ids) {
+                searchIndex = index;
+            }
+        }
+        return index;
+    }
+
     /**
      * Used get a Track object from the playlist for the selectTrack(Track)
      * method.
      *
      * If random is enabled, the RandomOrderUtility index will be used to select
-     * the track.
+     * the track. Weighted shuffle modes do not have an order, so the index of
+     * the playlist is used. An index past the end starts the playlist again,
+     * with a new order if random is enabled.
      *
      * @param i Index of the track in the playlist.
      * @return appropriate track object that is on the list.
      *
      */
-    public Track selectTrack(int i) {
+    public synchronized Track selectTrack(int i) {
+        IntVector playlist = this.playlist;
         final int tracks = playlist.size();
         if (playlist.isEmpty()) {
             return null;
         } else if (i == -1) {
             return selectTrack(tracks - 1);
         } else if (tracks > i && i >= 0) {
-            if (isRandom()) {
-                int index = random.getNewIndexFromOrder(i);
-                return playlist.get(index);
-            } else {
-                return playlist.get(i);
+            int index = random != null ? random.getNewIndexFromOrder(i) : i;
+            return TrackTable.getInstance().getTrack(playlist.get(index));
+        } else if (random != null) {
+            // A new cycle, the track that just played is not repeated at its start.
+            random = new RandomOrderUtility(tracks, -1);
+            int played = currentTrack != null ? playlist.indexOf(currentTrack.getId()) : -1;
+            if (tracks > 1 && random.getNewIndexFromOrder(0) == played) {
+                return selectTrack(1);
             }
+            return selectTrack(0);
         } else {
             if (isRandom()) {
                 setRandom(true);
@@ -128,6 +455,92 @@ public class PlaylistManager {
         }
     }
 
+    /**
+     * Used to get the Track that should be played after the current track.
+     * <p>
+     * If tracks have been queued, the first one is removed from the PlayQueue
+     * and returned. Otherwise the track after the last played track of the
+     * playlist (or shuffle order) is returned, or a track is drawn if a
+     * weighted shuffle mode is used.
+     *
+     * @return Track to play next, null if playlist and queue are empty.
+     * @see PlayQueue
+     */
+    public synchronized Track nextTrack() {
+        if (!queue.isEmpty()) {
+            dequeuedTrack = queue.dequeue();
+            return dequeuedTrack;
+        }
+        WeightedShuffle weighted = this.weighted;
+        if (weighted != null) {
+            int id = weighted.next();
+            return id != -1 ? TrackTable.getInstance().getTrack(id) : null;
+        }
+        return selectTrack(getAnchorIndex() + 1);
+    }
+
+    /**
+     * Used to get the Track that should be played before the current track.
+     * <p>
+     * If the current track was taken from the PlayQueue, the track of the
+     * playlist that was played before it is returned.
+     *
+     * @return Track to play, null if the playlist is empty.
+     */
+    public synchronized Track previousTrack() {
+        int anchor = getAnchorIndex();
+        if (anchor != -1 && currentTrack != null && !currentTrack.equals(anchorTrack)) {
+            return selectTrack(anchor);
+        }
+        return selectTrack(anchor - 1);
+    }
+
+    /**
+     * Used to look at the tracks that will be played after the current track,
+     * without changing anything.
+     * <p>
+     * Queued tracks come first, then the following tracks of the playlist
+     * (or shuffle order).
+     *
+     * @param k Maximum amount of tracks.
+     * @return List of at most k tracks.
+     */
+    public synchronized List<Track> getUpcoming(int k) {
+        List<Track> upcoming = queue.lookahead(k);
+        int tracks = playlist.size();
+        if (tracks == 0) {
+            return upcoming;
+        }
+        int position = getAnchorIndex();
+        TrackTable table = TrackTable.getInstance();
+        if (weighted != null) {
+            for (int i = 0; upcoming.size() < Math.min(k, queue.size() + tracks); i++) {
+                int id = weighted.peek(i);
+                if (id == -1) {
+                    break;
+                }
+                upcoming.add(table.getTrack(id));
+            }
+            return upcoming;
+        }
+        while (upcoming.size() < Math.min(k, queue.size() + tracks)) {
+            position = (position + 1) % tracks;
+            int index = random != null ? random.getNewIndexFromOrder(position) : position;
+            upcoming.add(table.getTrack(playlist.get(index)));
+        }
+        return upcoming;
+    }
+
+    /**
+     * Used to get the queue of tracks that are played before the rest of the
+     * playlist.
+     *
+     * @return the PlayQueue.
+     */
+    public PlayQueue getQueue() {
+        return queue;
+    }
+
     /**
      * Check whether or not the playlist is empty.
      *
@@ -146,10 +559,10 @@ public class PlaylistManager {
      * @param track Track object to look for.
      * @return Index of the given track object, -1 if not found.
      */
-    public int getIndexOf(Track track) {
-        int trackIndex = playlist.indexOf(track);
-        if (isRandom()) {
-            return random.getIndexOrderList().indexOf(trackIndex);
+    public synchronized int getIndexOf(Track track) {
+        int trackIndex = track != null ? playlist.indexOf(track.getId()) : -1;
+        if (random != null) {
+            return random.getOrderIndexOf(trackIndex);
         }
         return trackIndex;
     }
@@ -161,12 +574,7 @@ public class PlaylistManager {
      * @return Does the playlist have the track?
      */
     public boolean hasTrack(Track track) {
-        for (Track t : playlist) {
-            if (t.equals(track)) {
-                return true;
-            }
-        }
-        return false;
+        return track != null && playlist.indexOf(track.getId()) != -1;
     }
 
     /**
@@ -183,8 +591,16 @@ public class PlaylistManager {
      *
      * @param currentTrack new Track.
      */
-    public void setCurrentTrack(Track currentTrack) {
+    public synchronized void setCurrentTrack(Track currentTrack) {
         this.currentTrack = currentTrack;
+        if (currentTrack == null || !currentTrack.equals(dequeuedTrack)) {
+            anchorTrack = currentTrack;
+            dequeuedTrack = null;
+        }
+        WeightedShuffle weighted = this.weighted;
+        if (weighted != null && currentTrack != null) {
+            weighted.played(currentTrack.getId());
+        }
     }
 
     /**
@@ -196,28 +612,162 @@ public class PlaylistManager {
         return getIndexOf(currentTrack);
     }
 
+    private int getAnchorIndex() {
+        return getIndexOf(anchorTrack);
+    }
+
     /**
      * Checks whether or shuffle is enabled.
      *
      * @return state.
      */
     public boolean isRandom() {
-        return random != null;
+        return random != null || weighted != null;
     }
 
     /**
      * Changes the shuffle status.
      *
-     * a true will create a new RandomOrderUtility.
+     * a true will create a new RandomOrderUtility, or a WeightedShuffle if
+     * the ShuffleMode is not UNIFORM. An existing WeightedShuffle of the same
+     * mode is kept, so that recently played tracks are still not repeated.
      *
      * @param value true/false
      * @see RandomOrderUtility
+     * @see WeightedShuffle
      */
-    public void setRandom(boolean value) {
-        if (value) {
-            random = new RandomOrderUtility(playlist.size(), getCurrentTrackIndex());
+    public synchronized void setRandom(boolean value) {
+        if (!value) {
+            random = null;
+            weighted = null;
+        } else if (shuffleMode == ShuffleMode.UNIFORM) {
+            weighted = null;
+            random = createRandomOrder();
+        } else if (weighted != null && weighted.getMode() == shuffleMode) {
+            weighted.update(playlist);
         } else {
             random = null;
+            weighted = new WeightedShuffle(playlist, shuffleMode);
+        }
+    }
+
+    /**
+     * Used to get the way tracks are shuffled when shuffle is enabled.
+     *
+     * @return the ShuffleMode.
+     */
+    public ShuffleMode getShuffleMode() {
+        return shuffleMode;
+    }
+
+    /**
+     * Changes the way tracks are shuffled. If shuffle is enabled the new mode
+     * is taken into use immediately.
+     *
+     * @param shuffleMode new ShuffleMode.
+     * @see ShuffleMode
+     */
+    public synchronized void setShuffleMode(ShuffleMode shuffleMode) {
+        this.shuffleMode = shuffleMode;
+        if (isRandom()) {
+            setRandom(true);
+        }
+    }
+
+    private void commit(IntVector changed, PlaylistEdit edit) {
+        commit(changed, sorted, edit);
+    }
+
+    private void commit(IntVector changed, boolean sortedAfter, PlaylistEdit edit) {
+        undoHistory.push(new HistoryStep(playlist, changed, sorted, sortedAfter, edit));
+        sorted = sortedAfter;
+        if (undoHistory.size() > HISTORY_SIZE) {
+            undoHistory.removeLast();
+        }
+        redoHistory.clear();
+        unsavedEdits.add(edit);
+        editShuffle(edit);
+        playlist = changed;
+        updateWeighted();
+    }
+
+    private void restore(IntVector version, boolean sorted, PlaylistEdit edit) {
+        editShuffle(edit);
+        playlist = version;
+        this.sorted = sorted;
+        unsavedEdits.add(edit);
+        searchIndex = null;
+        updateWeighted();
+    }
+
+    /**
+     * Updates the shuffle to the edited playlist. The uniform order keeps its
+     * keys and is only changed around the edited tracks, so tracks played
+     * before the anchor track are not played again before the rest of the
+     * order. Called before the playlist is replaced.
+     *
+     * @param edit Change made to the playlist.
+     */
+    private void editShuffle(PlaylistEdit edit) {
+        RandomOrderUtility random = this.random;
+        if (random != null) {
+            this.random = random.edit(edit, getAnchorIndex());
+        }
+    }
+
+    /**
+     * Updates the shuffle to a replaced playlist. The uniform order is
+     * created again starting from the anchor track, so that every lookup
+     * uses an order of the current playlist.
+     */
+    private void updateShuffle() {
+        if (random != null) {
+            random = createRandomOrder();
+        }
+        updateWeighted();
+    }
+
+    private void updateWeighted() {
+        WeightedShuffle weighted = this.weighted;
+        if (weighted != null) {
+            weighted.update(playlist);
+        }
+    }
+
+    private RandomOrderUtility createRandomOrder() {
+        return new RandomOrderUtility(playlist.size(), anchorTrack != null ? playlist.indexOf(anchorTrack.getId()) : -1);
+    }
+
+    private static IntVector toIds(List<Track> tracks) {
+        if (tracks instanceof TrackList) {
+            return ((TrackList) tracks).getIds();
+        }
+        int[] ids = new int[tracks.size()];
+        int i = 0;
+        for (Track track : tracks) {
+            ids[i++] = track.getId();
+        }
+        return IntVector.of(ids);
+    }
+
+    /**
+     * One step of the undo history. The IntVectors share every node that was
+     * not changed.
+     */
+    private static class HistoryStep {
+
+        private final IntVector before;
+        private final IntVector after;
+        private final boolean sortedBefore;
+        private final boolean sortedAfter;
+        private final PlaylistEdit edit;
+
+        HistoryStep(IntVector before, IntVector after, boolean sortedBefore, boolean sortedAfter, PlaylistEdit edit) {
+            this.before = before;
+            this.after = after;
+            this.sortedBefore = sortedBefore;
+            this.sortedAfter = sortedAfter;
+            this.edit = edit;
         }
     }
 }
@@ -0,0 +1,178 @@
+package com.djrapitops.nmplayer.functionality;
+
+import com.djrapitops.nmplayer.functionality.playback.PlaybackEngine;
+import com.djrapitops.nmplayer.ui.Updatable;
+
+import java.util.concurrent.Future;
+
+/**
+ * This class updates the progress bar a fixed amount of times per second
+ * while a track is playing.
+ * <p>
+ * The play position is sampled by a single task scheduled with the
+ * PlaybackEngine, which schedules itself again after every sample. Nothing is
+ * scheduled while the playback is paused or stopped, or while the window is
+ * hidden, so the progress bar costs nothing when it can't move or can't be
+ * seen.
+ *
+ * @author Rsl1122
+ * @see MusicPlayer#getProgressPublisher()
+ */
+public class ProgressPublisher {
+
+    /**
+     * Default amount of samples per second.
+     */
+    public static final int DEFAULT_RATE = 10;
+
+    private PlaybackEngine engine;
+    private Updatable target;
+    private int rate;
+    private boolean playing;
+    private boolean visible;
+
+    private Future<?> sample;
+    private int generation;
+
+    /**
+     * Creates a new ProgressPublisher that samples DEFAULT_RATE times per
+     * second. Sampling starts when an engine is set and setPlaying(true) is
+     * called.
+     */
+    public ProgressPublisher() {
+        rate = DEFAULT_RATE;
+        visible = true;
+    }
+
+    /**
+     * Used to set the PlaybackEngine the samples are scheduled with.
+     *
+     * @param engine PlaybackEngine of the MusicPlayer.
+     */
+    public synchronized void setEngine(PlaybackEngine engine) {
+        cancel();
+        this.engine = engine;
+        reschedule();
+    }
+
+    /**
+     * Used to set the Updatable that is updated on every sample.
+     *
+     * @param target for example the TrackProgressBar.
+     */
+    public synchronized void setTarget(Updatable target) {
+        this.target = target;
+    }
+
+    /**
+     * Used to change the amount of samples per second.
+     *
+     * @param rate Samples per second.
+     * @throws IllegalArgumentException If rate is not positive.
+     */
+    public synchronized void setRate(int rate) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("Rate must be positive: " + rate);
+        }
+        this.rate = rate;
+        cancel();
+        reschedule();
+    }
+
+    /**
+     * Used to get the amount of samples per second.
+     *
+     * @return Samples per second.
+     */
+    public synchronized int getRate() {
+        return rate;
+    }
+
+    /**
+     * Used to tell if a track is playing.
+     *
+     * @param playing Is the play position moving?
+     */
+    public synchronized void setPlaying(boolean playing) {
+        this.playing = playing;
+        reschedule();
+    }
+
+    /**
+     * Used to tell if the progress can be seen, for example false when the
+     * window is minimized.
+     *
+     * @param visible Can the target be seen?
+     */
+    public synchronized void setVisible(boolean visible) {
+        this.visible = visible;
+        reschedule();
+    }
+
+    /**
+     * Used to check if the play position is being sampled.
+     *
+     * @return true if a sample is scheduled.
+     */
+    public synchronized boolean isSampling() {
+        return sample != null;
+    }
+
+    /**
+     * Updates the target once, for example after the playback has stopped.
+     * <p>
+     * The update is run on the event thread of the PlaybackEngine, like the
+     * samples.
+     */
+    public void publish() {
+        PlaybackEngine engine;
+        synchronized (this) {
+            engine = this.engine;
+        }
+        if (engine != null) {
+            engine.schedule(this::update, 0);
+        }
+    }
+
+    private void update() {
+        Updatable target;
+        synchronized (this) {
+            target = this.target;
+        }
+        if (target != null) {
+            target.update();
+        }
+    }
+
+    private void reschedule() {
+        boolean active = playing && visible && engine != null;
+        if (active && sample == null) {
+            schedule(generation);
+        } else if (!active) {
+            cancel();
+        }
+    }
+
+    private void schedule(int generation) {
+        sample = engine.schedule(() -> sample(generation), 1000 / rate);
+    }
+
+    private void cancel() {
+        if (sample != null) {
+            sample.cancel(false);
+            sample = null;
+        }
+        // A sample that was already running when it was cancelled does not schedule the next one.
+        generation++;
+    }
+
+    private void sample(int generation) {
+        synchronized (this) {
+            if (generation != this.generation) {
+                return;
+            }
+            schedule(generation);
+        }
+        update();
+    }
+}
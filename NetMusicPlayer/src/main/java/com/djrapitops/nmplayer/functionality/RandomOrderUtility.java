@@ -1,17 +1,42 @@
 package com.djrapitops.nmplayer.functionality;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
+import java.util.Set;
 
 /**
  * This class is used for selecting tracks in random order consistently.
+ * <p>
+ * The order is never stored. Instead a keyed Feistel network with cycle
+ * walking is used as a pseudo-random permutation of the playlist indexes, so
+ * each index of the order is computed on demand in constant time and memory,
+ * no matter how large the playlist is. The permutation can be inverted, which
+ * is used to look up the position of a track in the order.
+ * <p>
+ * When the playlist is edited the order is not shuffled again. The edited
+ * order keeps the keys of the old order and only maps the positions around
+ * the removed and inserted tracks, so tracks keep their places in the order
+ * and inserted tracks are placed randomly after the current track. After
+ * MAX_EDITS edits a new order is created starting from the current track.
  *
  * @author Rsl1122
  */
 public class RandomOrderUtility {
 
-    private List<Integer> indexOrder;
+    private static final int ROUNDS = 4;
+    static final int MAX_EDITS = 64;
+
+    private final int size;
+    private final int halfBits;
+    private final int halfMask;
+    private final int[] keys;
+
+    private final int firstIndex;
+    private final int firstIndexPosition;
+    private final int displacedIndex;
 
     /**
      * Creates a new Random order with the currentIndex at index 0.
@@ -20,17 +45,71 @@ public class RandomOrderUtility {
      * @param currentIndex Index to set to index 0
      */
     public RandomOrderUtility(int playlistSize, int currentIndex) {
-        indexOrder = new ArrayList<>();
-        indexOrder.add(currentIndex);
-        List<Integer> numbers = new ArrayList<>();
-        for (int i = 0; i < playlistSize; i++) {
-            if (i == currentIndex) {
-                continue;
-            }
-            numbers.add(i);
+        this(playlistSize, currentIndex, new Random());
+    }
+
+    /**
+     * Creates a new Random order with the currentIndex at index 0.
+     *
+     * @param playlistSize Size of required random order.
+     * @param currentIndex Index to set to index 0
+     * @param random       Random used to generate the keys of the order.
+     */
+    public RandomOrderUtility(int playlistSize, int currentIndex, Random random) {
+        size = Math.max(playlistSize, 0);
+        int bits = 32 - Integer.numberOfLeadingZeros(Math.max(size - 1, 1));
+        halfBits = (bits + 1) / 2;
+        halfMask = (1 << halfBits) - 1;
+        keys = new int[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            keys[i] = random.nextInt();
+        }
+        if (currentIndex >= 0 && currentIndex < size) {
+            firstIndex = currentIndex;
+            firstIndexPosition = unpermute(currentIndex);
+            displacedIndex = permute(0);
+        } else {
+            firstIndex = -1;
+            firstIndexPosition = -1;
+            displacedIndex = -1;
         }
-        Collections.shuffle(numbers);
-        indexOrder.addAll(numbers);
+    }
+
+    private RandomOrderUtility(int playlistSize) {
+        size = playlistSize;
+        halfBits = 0;
+        halfMask = 0;
+        keys = null;
+        firstIndex = -1;
+        firstIndexPosition = -1;
+        displacedIndex = -1;
+    }
+
+    /**
+     * Used to get the order of the playlist after an edit.
+     * <p>
+     * Removed tracks are left out of the order and the remaining tracks keep
+     * their order. Inserted tracks are placed to random spots after the spot
+     * of the current track.
+     *
+     * @param edit         Change made to the playlist.
+     * @param currentIndex Spot of the current track in this order, -1 if
+     *                     there is none.
+     * @return the order of the edited playlist.
+     */
+    public RandomOrderUtility edit(PlaylistEdit edit, int currentIndex) {
+        EditedOrder edited = new EditedOrder(this, edit, currentIndex, new Random());
+        if (edited.edits <= MAX_EDITS) {
+            return edited;
+        }
+        boolean currentKept = currentIndex >= 0
+                && Arrays.binarySearch(edit.getRemovedPositions(), getNewIndexFromOrder(currentIndex)) < 0;
+        int current = currentKept ? edited.getNewIndexFromOrder(edited.firstSurviving - 1) : -1;
+        return new RandomOrderUtility(edited.size(), current);
+    }
+
+    int getEditCount() {
+        return 0;
     }
 
     /**
@@ -38,17 +117,265 @@ public class RandomOrderUtility {
      *
      * @param index index on the list.
      * @return number on the list.
+     * @throws IndexOutOfBoundsException If the index is not inside the order.
      */
     public int getNewIndexFromOrder(int index) {
-        return indexOrder.get(index);
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (firstIndex != -1) {
+            if (index == 0) {
+                return firstIndex;
+            }
+            if (index == firstIndexPosition) {
+                return displacedIndex;
+            }
+        }
+        return permute(index);
+    }
+
+    /**
+     * Used to get the spot in the order that contains the given index number.
+     * <p>
+     * Inverse of {@link #getNewIndexFromOrder(int)}.
+     *
+     * @param playlistIndex index number of a track in the playlist.
+     * @return spot in the order, -1 if the number is not in the order.
+     */
+    public int getOrderIndexOf(int playlistIndex) {
+        if (playlistIndex < 0 || playlistIndex >= size) {
+            return -1;
+        }
+        if (firstIndex != -1) {
+            if (playlistIndex == firstIndex) {
+                return 0;
+            }
+            if (playlistIndex == displacedIndex) {
+                return firstIndexPosition;
+            }
+        }
+        return unpermute(playlistIndex);
+    }
+
+    /**
+     * Used to get the amount of numbers in the order.
+     *
+     * @return size of the playlist the order was created for.
+     */
+    public int size() {
+        return size;
     }
 
     /**
      * Used to access the list.
+     * <p>
+     * The returned list is a read-only view, numbers are computed as they are
+     * accessed.
      *
      * @return The list of numbers used.
      */
     public List<Integer> getIndexOrderList() {
-        return indexOrder;
+        return new AbstractList<Integer>() {
+            @Override
+            public Integer get(int index) {
+                return getNewIndexFromOrder(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public int indexOf(Object o) {
+                return o instanceof Integer ? getOrderIndexOf((Integer) o) : -1;
+            }
+        };
+    }
+
+    /**
+     * Counts the numbers smaller than the value.
+     */
+    private static int countBelow(int[] sorted, int value) {
+        int i = Arrays.binarySearch(sorted, value);
+        return i >= 0 ? i : -i - 1;
+    }
+
+    /**
+     * Used to get the n:th number (from 0) that is not in the array.
+     */
+    private static int nthMissing(int[] sorted, int n) {
+        // sorted[i] - i is the amount of missing numbers before sorted[i].
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] - middle <= n) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return n + low;
+    }
+
+    /**
+     * Picks amount distinct numbers of [from, to) in ascending order.
+     */
+    private static int[] pick(int amount, int from, int to, Random random) {
+        int[] picked = new int[amount];
+        int range = to - from;
+        if (amount > range / 2) {
+            // Selection sampling, goes through the range once.
+            for (int i = 0, count = 0; count < amount; i++) {
+                if (random.nextInt(range - i) < amount - count) {
+                    picked[count++] = from + i;
+                }
+            }
+            return picked;
+        }
+        Set<Integer> chosen = new HashSet<>();
+        for (int i = range - amount; i < range; i++) {
+            int value = random.nextInt(i + 1);
+            chosen.add(chosen.contains(value) ? i : value);
+        }
+        int count = 0;
+        for (int value : chosen) {
+            picked[count++] = from + value;
+        }
+        Arrays.sort(picked);
+        return picked;
+    }
+
+    private int permute(int x) {
+        do {
+            x = encrypt(x);
+        } while (x < 0 || x >= size);
+        return x;
+    }
+
+    private int unpermute(int x) {
+        do {
+            x = decrypt(x);
+        } while (x < 0 || x >= size);
+        return x;
+    }
+
+    private int encrypt(int x) {
+        int left = x >>> halfBits;
+        int right = x & halfMask;
+        for (int i = 0; i < ROUNDS; i++) {
+            int next = left ^ (round(right, keys[i]) & halfMask);
+            left = right;
+            right = next;
+        }
+        return (left << halfBits) | right;
+    }
+
+    private int decrypt(int x) {
+        int left = x >>> halfBits;
+        int right = x & halfMask;
+        for (int i = ROUNDS - 1; i >= 0; i--) {
+            int previous = right ^ (round(left, keys[i]) & halfMask);
+            right = left;
+            left = previous;
+        }
+        return (left << halfBits) | right;
+    }
+
+    private static int round(int value, int key) {
+        int h = (value ^ key) * 0x9E3779B9;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h;
+    }
+
+    /**
+     * Order of an edited playlist, computed through the order before the
+     * edit.
+     */
+    private static class EditedOrder extends RandomOrderUtility {
+
+        private final RandomOrderUtility before;
+        private final int edits;
+        /**
+         * Spots of the removed tracks in the order before the edit,
+         * ascending.
+         */
+        private final int[] removedSpots;
+        private final int[] removedIndexes;
+        /**
+         * Spots of the inserted tracks in this order, ascending.
+         */
+        private final int[] insertedSpots;
+        private final int[] indexOfInsertedSpot;
+        private final int[] insertedIndexes;
+        private final int[] spotOfInsertedIndex;
+        /**
+         * First spot inserted tracks may be placed to, right after the
+         * current track.
+         */
+        private final int firstSurviving;
+
+        EditedOrder(RandomOrderUtility before, PlaylistEdit edit, int currentIndex, Random random) {
+            super(before.size() - edit.getRemovedPositions().length + edit.getInsertedPositions().length);
+            this.before = before;
+            edits = before.getEditCount() + 1;
+            removedIndexes = edit.getRemovedPositions();
+            removedSpots = new int[removedIndexes.length];
+            for (int i = 0; i < removedSpots.length; i++) {
+                removedSpots[i] = before.getOrderIndexOf(removedIndexes[i]);
+            }
+            Arrays.sort(removedSpots);
+            firstSurviving = currentIndex >= 0 ? currentIndex + 1 - countBelow(removedSpots, currentIndex + 1) : 0;
+
+            insertedIndexes = edit.getInsertedPositions();
+            insertedSpots = pick(insertedIndexes.length, firstSurviving, size(), random);
+            indexOfInsertedSpot = insertedIndexes.clone();
+            for (int i = indexOfInsertedSpot.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = indexOfInsertedSpot[i];
+                indexOfInsertedSpot[i] = indexOfInsertedSpot[j];
+                indexOfInsertedSpot[j] = swap;
+            }
+            spotOfInsertedIndex = new int[insertedIndexes.length];
+            for (int i = 0; i < insertedSpots.length; i++) {
+                spotOfInsertedIndex[Arrays.binarySearch(insertedIndexes, indexOfInsertedSpot[i])] = insertedSpots[i];
+            }
+        }
+
+        @Override
+        int getEditCount() {
+            return edits;
+        }
+
+        @Override
+        public int getNewIndexFromOrder(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            int inserted = Arrays.binarySearch(insertedSpots, index);
+            if (inserted >= 0) {
+                return indexOfInsertedSpot[inserted];
+            }
+            int spotBefore = nthMissing(removedSpots, index + inserted + 1);
+            int indexBefore = before.getNewIndexFromOrder(spotBefore);
+            return nthMissing(insertedIndexes, indexBefore - countBelow(removedIndexes, indexBefore));
+        }
+
+        @Override
+        public int getOrderIndexOf(int playlistIndex) {
+            if (playlistIndex < 0 || playlistIndex >= size()) {
+                return -1;
+            }
+            int inserted = Arrays.binarySearch(insertedIndexes, playlistIndex);
+            if (inserted >= 0) {
+                return spotOfInsertedIndex[inserted];
+            }
+            int indexBefore = nthMissing(removedIndexes, playlistIndex + inserted + 1);
+            int spotBefore = before.getOrderIndexOf(indexBefore);
+            return nthMissing(insertedSpots, spotBefore - countBelow(removedSpots, spotBefore));
+        }
     }
 }
@@ -0,0 +1,374 @@
+package com.djrapitops.nmplayer.functionality;
+
+import com.djrapitops.nmplayer.functionality.utilities.IntList;
+import com.djrapitops.nmplayer.functionality.utilities.TextUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class is used to search Track objects by their name, artist and file
+ * name.
+ * <p>
+ * Text of every track is normalized with TextUtils.normalizeForSearch, so
+ * searches ignore case and accents. Each three character part of the text
+ * (trigram) has a posting list of the tracks containing it, which allows
+ * substring queries to only look at tracks that contain every trigram of the
+ * query. Queries shorter than three characters use posting lists of word
+ * beginnings, and of the one and two character parts of the text for the
+ * tracks that contain the query elsewhere, so no query looks at every
+ * track.
+ * <p>
+ * Removed tracks are only marked as removed, the posting lists are rebuilt
+ * once more than half of the indexed tracks have been removed.
+ * <p>
+ * The methods are synchronized, so tracks can be added and removed by one
+ * thread while another thread searches.
+ *
+ * @author Rsl1122
+ * @see PlaylistManager
+ */
+public class SearchIndex {
+
+    private static final char FIELD_SEPARATOR = '\u0000';
+    /**
+     * Added to the key of a one or two character part of the text, to tell it
+     * apart from a word beginning of the same characters.
+     */
+    private static final long SUBSTRING = 1L << 52;
+
+    private final List<Track> tracks;
+    private final List<String> texts;
+    private final Map<Track, Integer> ids;
+    private final GramTable postings;
+    private int removed;
+
+    /**
+     * Creates a new empty SearchIndex.
+     */
+    public SearchIndex() {
+        tracks = new ArrayList<>();
+        texts = new ArrayList<>();
+        ids = new HashMap<>();
+        postings = new GramTable();
+    }
+
+    /**
+     * Adds a Track to the index.
+     * <p>
+     * If the track is already in the index nothing is done.
+     *
+     * @param track Track to add.
+     */
+    public synchronized void add(Track track) {
+        if (track == null || ids.containsKey(track)) {
+            return;
+        }
+        int id = tracks.size();
+        String text = getSearchText(track);
+        tracks.add(track);
+        texts.add(text);
+        ids.put(track, id);
+        indexText(id, text);
+    }
+
+    /**
+     * Adds multiple Tracks to the index.
+     *
+     * @param newTracks Tracks to add.
+     */
+    public synchronized void addAll(Collection<Track> newTracks) {
+        for (Track track : newTracks) {
+            add(track);
+        }
+    }
+
+    /**
+     * Removes a Track from the index.
+     *
+     * @param track Track to remove.
+     */
+    public synchronized void remove(Track track) {
+        Integer id = ids.remove(track);
+        if (id == null) {
+            return;
+        }
+        tracks.set(id, null);
+        texts.set(id, null);
+        removed++;
+        if (removed > tracks.size() / 2) {
+            compact();
+        }
+    }
+
+    /**
+     * Removes all Tracks from the index.
+     */
+    public synchronized void clear() {
+        tracks.clear();
+        texts.clear();
+        ids.clear();
+        postings.clear();
+        removed = 0;
+    }
+
+    /**
+     * Used to get the amount of Tracks in the index.
+     *
+     * @return amount of tracks that can be found.
+     */
+    public synchronized int size() {
+        return ids.size();
+    }
+
+    /**
+     * Searches for tracks that contain the query in their name, artist or file
+     * name.
+     * <p>
+     * Tracks that have a word starting with the query are returned before
+     * tracks that only contain the query.
+     *
+     * @param query For example "dej" or "Déjà"
+     * @param limit Maximum number of tracks to return.
+     * @return List of matching Track objects, empty if none match.
+     */
+    public synchronized List<Track> search(String query, int limit) {
+        String normalized = TextUtils.normalizeForSearch(query).trim();
+        List<Track> results = new ArrayList<>();
+        if (normalized.isEmpty() || limit <= 0) {
+            return results;
+        }
+        List<Track> containing = new ArrayList<>();
+        if (normalized.length() < 3) {
+            IntList wordStarts = postings.get(prefixKey(normalized, 0, normalized.length()));
+            for (int i = 0; wordStarts != null && i < wordStarts.size() && results.size() < limit; i++) {
+                Track track = tracks.get(wordStarts.get(i));
+                if (track != null) {
+                    results.add(track);
+                }
+            }
+            IntList parts = postings.get(SUBSTRING | prefixKey(normalized, 0, normalized.length()));
+            for (int i = 0; parts != null && i < parts.size() && results.size() + containing.size() < limit; i++) {
+                int id = parts.get(i);
+                if (getMatch(id, normalized) == Match.CONTAINS) {
+                    containing.add(tracks.get(id));
+                }
+            }
+        } else {
+            IntList candidates = getCandidates(normalized);
+            for (int i = 0; i < candidates.size() && results.size() < limit; i++) {
+                int id = candidates.get(i);
+                Match match = getMatch(id, normalized);
+                if (match == Match.WORD_START) {
+                    results.add(tracks.get(id));
+                } else if (match == Match.CONTAINS && containing.size() < limit) {
+                    containing.add(tracks.get(id));
+                }
+            }
+        }
+        for (int i = 0; i < containing.size() && results.size() < limit; i++) {
+            results.add(containing.get(i));
+        }
+        return results;
+    }
+
+    private Match getMatch(int id, String query) {
+        String text = texts.get(id);
+        if (text == null) {
+            return Match.NONE;
+        }
+        int index = text.indexOf(query);
+        if (index == -1) {
+            return Match.NONE;
+        }
+        if (isWordStart(text, index) || hasWordStartMatch(text, query, index)) {
+            return Match.WORD_START;
+        }
+        return Match.CONTAINS;
+    }
+
+    private boolean hasWordStartMatch(String text, String query, int from) {
+        int index = text.indexOf(query, from + 1);
+        while (index != -1) {
+            if (isWordStart(text, index)) {
+                return true;
+            }
+            index = text.indexOf(query, index + 1);
+        }
+        return false;
+    }
+
+    private static boolean isWordStart(String text, int index) {
+        return index == 0 || !Character.isLetterOrDigit(text.charAt(index - 1));
+    }
+
+    /**
+     * Finds the shortest trigram posting list of the query.
+     * <p>
+     * The lists are not intersected, as every candidate is checked against
+     * the text anyway, and checking can stop once enough results are found.
+     *
+     * @param query normalized query, at least three characters long.
+     * @return ids of tracks that might contain the query.
+     */
+    private IntList getCandidates(String query) {
+        IntList shortest = null;
+        for (int i = 0; i + 3 <= query.length(); i++) {
+            IntList list = postings.get(trigramKey(query, i));
+            if (list == null) {
+                return new IntList(1);
+            }
+            if (shortest == null || list.size() < shortest.size()) {
+                shortest = list;
+            }
+        }
+        return shortest;
+    }
+
+    private void indexText(int id, String text) {
+        // Artist and name are usually repeated in the file name, so duplicate grams are removed first.
+        long[] keys = new long[text.length() * 5];
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) != FIELD_SEPARATOR) {
+                boolean twoCharacters = i + 2 <= text.length() && text.charAt(i + 1) != FIELD_SEPARATOR;
+                keys[count++] = SUBSTRING | prefixKey(text, i, 1);
+                if (twoCharacters) {
+                    keys[count++] = SUBSTRING | prefixKey(text, i, 2);
+                }
+                if (isWordStart(text, i)) {
+                    keys[count++] = prefixKey(text, i, 1);
+                    if (twoCharacters) {
+                        keys[count++] = prefixKey(text, i, 2);
+                    }
+                }
+            }
+            if (i + 3 <= text.length() && text.charAt(i) != FIELD_SEPARATOR
+                    && text.charAt(i + 1) != FIELD_SEPARATOR && text.charAt(i + 2) != FIELD_SEPARATOR) {
+                keys[count++] = trigramKey(text, i);
+            }
+        }
+        Arrays.sort(keys, 0, count);
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || keys[i] != keys[i - 1]) {
+                postings.getOrCreate(keys[i]).add(id);
+            }
+        }
+    }
+
+    private void compact() {
+        List<Track> live = new ArrayList<>(ids.size());
+        for (Track track : tracks) {
+            if (track != null) {
+                live.add(track);
+            }
+        }
+        clear();
+        addAll(live);
+    }
+
+    private static long prefixKey(String text, int i, int length) {
+        long key = (long) length << 48;
+        for (int j = 0; j < length; j++) {
+            key |= (long) text.charAt(i + j) << (16 * (length - 1 - j));
+        }
+        return key;
+    }
+
+    private static long trigramKey(String text, int i) {
+        return (3L << 48) | ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+    }
+
+    private static String getSearchText(Track track) {
+        String fileName = TrackTable.getInstance().getFileName(track.getId());
+        if (fileName == null) {
+            fileName = "";
+        }
+        return String.join(String.valueOf(FIELD_SEPARATOR), Arrays.asList(
+                TextUtils.normalizeForSearch(track.getName()),
+                TextUtils.normalizeForSearch(track.getArtist()),
+                TextUtils.normalizeForSearch(TextUtils.removeExtension(fileName))
+        ));
+    }
+
+    private enum Match {
+        NONE, WORD_START, CONTAINS
+    }
+
+    /**
+     * Open addressing hash table from gram keys to posting lists.
+     * <p>
+     * Used instead of a HashMap to avoid creating a Long object for every
+     * gram of every track while indexing.
+     */
+    private static class GramTable {
+
+        private long[] keys;
+        private IntList[] lists;
+        private int size;
+
+        GramTable() {
+            clear();
+        }
+
+        IntList get(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); lists[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return lists[i];
+                }
+            }
+            return null;
+        }
+
+        IntList getOrCreate(long key) {
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            for (; lists[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return lists[i];
+                }
+            }
+            IntList list = new IntList(2);
+            keys[i] = key;
+            lists[i] = list;
+            if (++size > keys.length / 2) {
+                grow();
+            }
+            return list;
+        }
+
+        void clear() {
+            keys = new long[1024];
+            lists = new IntList[1024];
+            size = 0;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            IntList[] oldLists = lists;
+            keys = new long[oldKeys.length * 2];
+            lists = new IntList[oldLists.length * 2];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldLists[j] != null) {
+                    int i = slot(oldKeys[j], mask);
+                    while (lists[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[j];
+                    lists[i] = oldLists[j];
+                }
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h >>> 32) & mask;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.djrapitops.nmplayer.functionality;
+
+/**
+ * This enum contains the different ways tracks can be shuffled.
+ * <p>
+ * UNIFORM uses RandomOrderUtility, other modes draw tracks with WeightedShuffle
+ * using the weight given by getWeight.
+ *
+ * @author Rsl1122
+ * @see PlaylistManager#setShuffleMode(ShuffleMode)
+ */
+public enum ShuffleMode {
+    UNIFORM("Shuffle"),
+    MOST_PLAYED("Shuffle: Most played"),
+    LEAST_PLAYED("Shuffle: Least played"),
+    NOT_RECENT("Shuffle: Not played recently");
+
+    private static final long DAY_MS = 24L * 60L * 60L * 1000L;
+    private static final double MIN_RECENT_WEIGHT = 0.01;
+
+    private final String name;
+
+    ShuffleMode(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Used to get the weight of a track, tracks with bigger weight are drawn
+     * more often.
+     * <p>
+     * MOST_PLAYED grows with the play count, LEAST_PLAYED shrinks with it.
+     * NOT_RECENT grows linearly for a day after the track was played.
+     *
+     * @param table TrackTable containing the track.
+     * @param id    id of the track.
+     * @param now   Current Epoch millisecond.
+     * @return a positive weight.
+     */
+    public double getWeight(TrackTable table, int id, long now) {
+        switch (this) {
+            case MOST_PLAYED:
+                return 1.0 + table.getPlayCount(id);
+            case LEAST_PLAYED:
+                return 1.0 / (1.0 + table.getPlayCount(id));
+            case NOT_RECENT:
+                long lastPlayed = table.getLastPlayed(id);
+                if (lastPlayed == 0) {
+                    return 1.0;
+                }
+                double sincePlayed = (double) (now - lastPlayed) / DAY_MS;
+                return Math.max(MIN_RECENT_WEIGHT, Math.min(1.0, sincePlayed));
+            default:
+                return 1.0;
+        }
+    }
+
+    /**
+     * Used to get the name of the mode shown to the user.
+     *
+     * @return for example "Shuffle: Most played"
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Used to get the mode after this one, used when cycling through the
+     * modes.
+     *
+     * @return next mode, UNIFORM after the last mode.
+     */
+    public ShuffleMode next() {
+        ShuffleMode[] modes = values();
+        return modes[(ordinal() + 1) % modes.length];
+    }
+}
@@ -0,0 +1,111 @@
+package com.djrapitops.nmplayer.functionality;
+
+import com.djrapitops.nmplayer.functionality.utilities.TrackComparator;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * This class represents a playlist that contains every track of the library
+ * that matches all of its rules.
+ * <p>
+ * Membership is kept in a BitSet indexed by track id, and is updated one
+ * track at a time as tracks are scanned or removed. Rules that change with
+ * time or play count (dynamic rules) are left out of the membership, and are
+ * checked only for the members when the tracks are requested.
+ *
+ * @author Rsl1122
+ * @see SmartRule
+ * @see SmartPlaylistManager
+ */
+public class SmartPlaylist {
+
+    private final List<SmartRule> rules;
+    private final List<SmartRule> dynamicRules;
+    private final BitSet members;
+    private final long lastModified;
+
+    /**
+     * Creates a new SmartPlaylist with no members.
+     *
+     * @param rules        Rules that a track has to match.
+     * @param lastModified Modification time of the .smart file the rules were
+     *                     read from.
+     */
+    public SmartPlaylist(List<SmartRule> rules, long lastModified) {
+        this.rules = new ArrayList<>();
+        this.dynamicRules = new ArrayList<>();
+        for (SmartRule rule : rules) {
+            if (rule.isDynamic()) {
+                dynamicRules.add(rule);
+            } else {
+                this.rules.add(rule);
+            }
+        }
+        this.members = new BitSet();
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Checks the track against the rules and adds or removes it from the
+     * playlist.
+     *
+     * @param table TrackTable containing the track.
+     * @param id    id of the track.
+     */
+    public void evaluate(TrackTable table, int id) {
+        for (SmartRule rule : rules) {
+            if (!rule.matches(table, id, 0)) {
+                members.clear(id);
+                return;
+            }
+        }
+        members.set(id);
+    }
+
+    /**
+     * Removes a track from the playlist.
+     *
+     * @param id id of the track.
+     */
+    public void remove(int id) {
+        members.clear(id);
+    }
+
+    /**
+     * Used to get the tracks of the playlist in alphabetical order.
+     *
+     * @param table TrackTable containing the tracks.
+     * @param now   Current Epoch millisecond used by dynamic rules.
+     * @return a new List of Track objects.
+     */
+    public List<Track> getTracks(TrackTable table, long now) {
+        List<Track> tracks = new ArrayList<>(members.cardinality());
+        for (int id = members.nextSetBit(0); id >= 0; id = members.nextSetBit(id + 1)) {
+            if (matchesDynamicRules(table, id, now)) {
+                tracks.add(table.getTrack(id));
+            }
+        }
+        TrackComparator.sort(tracks);
+        return tracks;
+    }
+
+    private boolean matchesDynamicRules(TrackTable table, int id, long now) {
+        for (SmartRule rule : dynamicRules) {
+            if (!rule.matches(table, id, now)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Used to get the modification time of the file the rules were read from.
+     *
+     * @return Epoch millisecond.
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+}
@@ -0,0 +1,120 @@
+package com.djrapitops.nmplayer.functionality;
+
+import com.djrapitops.nmplayer.fileutils.ErrorManager;
+import com.djrapitops.nmplayer.fileutils.PlaylistFileManager;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class keeps the members of every SmartPlaylist up to date.
+ * <p>
+ * Every scanned track is checked against the rules of the loaded smart
+ * playlists when it is scanned, and removed from them when it is removed from
+ * the library. The whole library is only checked when the rules of a smart
+ * playlist are read from its .smart file.
+ * <p>
+ * THIS CLASS SHOULD NOT BE INITIALIZED WITH CLASS CONSTRUCTOR,
+ * SmartPlaylistManager IS A SINGLETON CLASS, use
+ * SmartPlaylistManager.getInstance() instead.
+ *
+ * @author Rsl1122
+ * @see SmartPlaylist
+ * @see PlaylistFileManager
+ */
+public class SmartPlaylistManager {
+
+    private final BitSet library;
+    private final Map<String, SmartPlaylist> playlists;
+
+    private SmartPlaylistManager() {
+        library = new BitSet();
+        playlists = new HashMap<>();
+    }
+
+    /**
+     * Used to tell that a track has been scanned and is part of the library.
+     *
+     * @param track Track that was scanned.
+     */
+    public synchronized void trackScanned(Track track) {
+        int id = track.getId();
+        library.set(id);
+        TrackTable table = TrackTable.getInstance();
+        for (SmartPlaylist playlist : playlists.values()) {
+            playlist.evaluate(table, id);
+        }
+    }
+
+    /**
+     * Used to tell that a track has been removed from the library.
+     *
+     * @param track Track that was removed.
+     */
+    public synchronized void trackRemoved(Track track) {
+        int id = track.getId();
+        library.clear(id);
+        for (SmartPlaylist playlist : playlists.values()) {
+            playlist.remove(id);
+        }
+    }
+
+    /**
+     * Used to get the tracks of a smart playlist.
+     * <p>
+     * The rules are read again if the .smart file has been modified.
+     *
+     * @param name Name of the smart playlist, and the name of the .smart file.
+     * @return List of matching Track objects in alphabetical order, empty if
+     * the playlist doesn't exist.
+     */
+    public synchronized List<Track> getTracks(String name) {
+        File file = PlaylistFileManager.getSmartPlaylistFile(name);
+        if (!file.exists()) {
+            playlists.remove(name);
+            return new ArrayList<>();
+        }
+        SmartPlaylist playlist = playlists.get(name);
+        if (playlist == null || playlist.getLastModified() != file.lastModified()) {
+            playlist = load(name, file.lastModified());
+            playlists.put(name, playlist);
+        }
+        return playlist.getTracks(TrackTable.getInstance(), System.currentTimeMillis());
+    }
+
+    private SmartPlaylist load(String name, long lastModified) {
+        List<SmartRule> rules = new ArrayList<>();
+        for (String line : PlaylistFileManager.loadSmartRules(name)) {
+            try {
+                rules.add(SmartRule.parse(line));
+            } catch (IllegalArgumentException e) {
+                ErrorManager.toLog(name + PlaylistFileManager.SMART_EXTENSION + ": " + e.getMessage());
+            }
+        }
+        SmartPlaylist playlist = new SmartPlaylist(rules, lastModified);
+        TrackTable table = TrackTable.getInstance();
+        for (int id = library.nextSetBit(0); id >= 0; id = library.nextSetBit(id + 1)) {
+            playlist.evaluate(table, id);
+        }
+        return playlist;
+    }
+
+    /**
+     * Used to get the only instance of the SmartPlaylistManager.
+     *
+     * @return INSTANCE created in the static class
+     * SmartPlaylistManagerSingletonHolder
+     */
+    public static SmartPlaylistManager getInstance() {
+        return SmartPlaylistManagerSingletonHolder.INSTANCE;
+    }
+
+    private static class SmartPlaylistManagerSingletonHolder {
+
+        private static final SmartPlaylistManager INSTANCE = new SmartPlaylistManager();
+    }
+}
@@ -0,0 +1,182 @@
+package com.djrapitops.nmplayer.functionality;
+
+import com.djrapitops.nmplayer.functionality.utilities.TextUtils;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This class represents a single rule of a SmartPlaylist, for example
+ * "artist = Dj Rapitops", "duration &lt; 5m" or "added &lt; 30d".
+ * <p>
+ * A rule has a field, an operator and a value. Text fields (name, artist,
+ * file) support =, != and contains, and ignore case and accents. Number
+ * fields (duration, added, plays) support =, !=, &lt; and &gt;.
+ * <p>
+ * Durations are given as a number followed by s, m, h, d or w. "added" is
+ * compared to the time since the file was added, so "added &lt; 30d" matches
+ * files added in the last 30 days.
+ *
+ * @author Rsl1122
+ * @see SmartPlaylist
+ */
+public class SmartRule {
+
+    private static final Pattern RULE = Pattern.compile(
+            "^\\s*(\\w+)\\s*(!=|=|<|>|contains)\\s*(.+?)\\s*$", Pattern.CASE_INSENSITIVE);
+
+    private final Field field;
+    private final String operator;
+    private final String text;
+    private final long number;
+
+    private SmartRule(Field field, String operator, String text, long number) {
+        this.field = field;
+        this.operator = operator;
+        this.text = text;
+        this.number = number;
+    }
+
+    /**
+     * Used to read a rule from a line of a .smart file.
+     *
+     * @param line for example "duration &lt; 5m"
+     * @return the rule.
+     * @throws IllegalArgumentException If the line is not a valid rule.
+     */
+    public static SmartRule parse(String line) {
+        Matcher matcher = RULE.matcher(line);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Invalid rule: " + line);
+        }
+        Field field;
+        try {
+            field = Field.valueOf(matcher.group(1).toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown field in rule: " + line);
+        }
+        String operator = matcher.group(2).toLowerCase(Locale.ROOT);
+        String value = matcher.group(3);
+        if (field.isText()) {
+            if (operator.equals("<") || operator.equals(">")) {
+                throw new IllegalArgumentException("Text can not be compared with " + operator + ": " + line);
+            }
+            return new SmartRule(field, operator, TextUtils.normalizeForSearch(value), 0);
+        }
+        if (operator.equals("contains")) {
+            throw new IllegalArgumentException("Numbers can not be compared with contains: " + line);
+        }
+        long number = field == Field.PLAYS ? parseNumber(value, line) : parseDuration(value, line);
+        return new SmartRule(field, operator, null, number);
+    }
+
+    /**
+     * Check whether or not a track matches the rule.
+     *
+     * @param table TrackTable containing the track.
+     * @param id    id of the track.
+     * @param now   Current Epoch millisecond, used by the "added" rule.
+     * @return Does the track match?
+     */
+    public boolean matches(TrackTable table, int id, long now) {
+        switch (field) {
+            case NAME:
+                return matchesText(table.getName(id));
+            case ARTIST:
+                return matchesText(table.getArtist(id));
+            case FILE:
+                return matchesText(table.getFileName(id));
+            case DURATION:
+                long duration = table.getDuration(id);
+                return duration != TrackTable.UNKNOWN_DURATION && matchesNumber(duration);
+            case ADDED:
+                long added = table.getAddedTime(id);
+                return added != 0 && matchesNumber(now - added);
+            case PLAYS:
+                return matchesNumber(table.getPlayCount(id));
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Check whether or not the result of the rule can change without the
+     * track changing, as time passes or the track is played.
+     *
+     * @return true for "added" and "plays" rules.
+     */
+    public boolean isDynamic() {
+        return field == Field.ADDED || field == Field.PLAYS;
+    }
+
+    private boolean matchesText(String value) {
+        String normalized = value != null ? TextUtils.normalizeForSearch(value) : "";
+        switch (operator) {
+            case "=":
+                return normalized.equals(text);
+            case "!=":
+                return !normalized.equals(text);
+            default:
+                return normalized.contains(text);
+        }
+    }
+
+    private boolean matchesNumber(long value) {
+        switch (operator) {
+            case "<":
+                return value < number;
+            case ">":
+                return value > number;
+            case "=":
+                return value == number;
+            default:
+                return value != number;
+        }
+    }
+
+    private static long parseNumber(String value, String line) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in rule: " + line);
+        }
+    }
+
+    /**
+     * Durations without a unit are seconds.
+     */
+    private static long parseDuration(String value, String line) {
+        String lower = value.toLowerCase(Locale.ROOT);
+        char unit = lower.charAt(lower.length() - 1);
+        long multiplier;
+        switch (unit) {
+            case 's':
+                multiplier = 1000L;
+                break;
+            case 'm':
+                multiplier = 60L * 1000L;
+                break;
+            case 'h':
+                multiplier = 60L * 60L * 1000L;
+                break;
+            case 'd':
+                multiplier = 24L * 60L * 60L * 1000L;
+                break;
+            case 'w':
+                multiplier = 7L * 24L * 60L * 60L * 1000L;
+                break;
+            default:
+                return parseNumber(lower, line) * 1000L;
+        }
+        return parseNumber(lower.substring(0, lower.length() - 1).trim(), line) * multiplier;
+    }
+
+    private enum Field {
+        NAME, ARTIST, FILE, DURATION, ADDED, PLAYS;
+
+        boolean isText() {
+            return this == NAME || this == ARTIST || this == FILE;
+        }
+    }
+}
@@ -5,18 +5,23 @@
  */
 package com.djrapitops.nmplayer.functionality;
 
-import java.util.Objects;
+import com.djrapitops.nmplayer.functionality.utilities.TrackComparator;
+
+import java.text.CollationKey;
 
 /**
  * This class is used to store information of mp3 file in a single object.
+ * <p>
+ * The information is stored in the TrackTable, Track object only holds the id
+ * of the track in the table. Tracks with the same name, artist and file path
+ * have the same id, and are equal.
  *
  * @author Rsl1122
+ * @see TrackTable
  */
 public class Track {
 
-    private final String name;
-    private final String artist;
-    private final String fileName;
+    private final int id;
 
     /**
      * Used to create a new Track object.
@@ -26,9 +31,25 @@ public class Track {
      * @param filePath The absolute filepath of the .mp3 file.
      */
     public Track(String name, String artist, String filePath) {
-        this.name = name;
-        this.artist = artist;
-        this.fileName = filePath;
+        this(TrackTable.getInstance().register(name, artist, filePath));
+    }
+
+    /**
+     * Used to create a Track object for a track already in the TrackTable.
+     *
+     * @param id id of the track in the TrackTable.
+     */
+    Track(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Grabs the id of the track in the TrackTable.
+     *
+     * @return id of the track.
+     */
+    public int getId() {
+        return id;
     }
 
     /**
@@ -37,7 +58,7 @@ public class Track {
      * @return Track name of the mp3.
      */
     public String getName() {
-        return name;
+        return TrackTable.getInstance().getName(id);
     }
 
     /**
@@ -46,7 +67,7 @@ public class Track {
      * @return Artist of the mp3.
      */
     public String getArtist() {
-        return artist;
+        return TrackTable.getInstance().getArtist(id);
     }
 
     /**
@@ -55,12 +76,33 @@ public class Track {
      * @return The absolute filepath of the .mp3 file.
      */
     public String getFilePath() {
-        return fileName;
+        return TrackTable.getInstance().getFilePath(id);
+    }
+
+    /**
+     * Grabs the duration of the track.
+     *
+     * @return duration in milliseconds, or TrackTable.UNKNOWN_DURATION
+     */
+    public long getDuration() {
+        return TrackTable.getInstance().getDuration(id);
+    }
+
+    /**
+     * Grabs the key used to sort the Track alphabetically.
+     * <p>
+     * The key is created on the first call.
+     *
+     * @return CollationKey of the "Artist - Name" text.
+     * @see TrackComparator
+     */
+    public CollationKey getSortKey() {
+        return TrackTable.getInstance().getSortKey(id);
     }
 
     @Override
     public String toString() {
-        return artist + " - " + name;
+        return getArtist() + " - " + getName();
     }
 
     @Override
@@ -68,13 +110,11 @@ public class Track {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Track track = (Track) o;
-        return Objects.equals(name, track.name) &&
-                Objects.equals(artist, track.artist) &&
-                Objects.equals(fileName, track.fileName);
+        return id == track.id;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, artist, fileName);
+        return id;
     }
 }
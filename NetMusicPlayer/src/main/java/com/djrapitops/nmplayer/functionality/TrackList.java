@@ -0,0 +1,62 @@
+package com.djrapitops.nmplayer.functionality;
+
+import com.djrapitops.nmplayer.functionality.utilities.IntVector;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * This class is a read-only List of Track objects, backed by an IntVector of
+ * track ids.
+ * <p>
+ * As the IntVector can not change, a TrackList is a snapshot of a playlist
+ * that can be iterated by any thread while the playlist is changed.
+ * <p>
+ * Track objects are created from the TrackTable as they are accessed.
+ *
+ * @author Rsl1122
+ * @see TrackTable
+ * @see PlaylistManager
+ */
+public class TrackList extends AbstractList<Track> implements RandomAccess {
+
+    private final IntVector ids;
+
+    /**
+     * Creates a new List of the given track ids.
+     *
+     * @param ids ids of the tracks in the TrackTable.
+     */
+    public TrackList(IntVector ids) {
+        this.ids = ids;
+    }
+
+    @Override
+    public Track get(int index) {
+        return TrackTable.getInstance().getTrack(ids.get(index));
+    }
+
+    @Override
+    public int size() {
+        return ids.size();
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return o instanceof Track ? ids.indexOf(((Track) o).getId()) : -1;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) != -1;
+    }
+
+    /**
+     * Used to get the ids of the tracks on the list.
+     *
+     * @return the IntVector of ids.
+     */
+    public IntVector getIds() {
+        return ids;
+    }
+}
@@ -0,0 +1,141 @@
+package com.djrapitops.nmplayer.functionality;
+
+import java.util.BitSet;
+
+/**
+ * This class holds the positions of the selected tracks of a playlist.
+ * <p>
+ * Positions are stored in a BitSet, so selecting a range of any size and
+ * going through the selected positions in order are both linear operations.
+ * The positions refer to the order of the playlist, not the shuffle order.
+ *
+ * @author Rsl1122
+ * @see PlaylistManager
+ */
+public class TrackSelection {
+
+    private final BitSet positions;
+    private int anchor;
+
+    /**
+     * Creates a new empty TrackSelection.
+     */
+    public TrackSelection() {
+        positions = new BitSet();
+        anchor = -1;
+    }
+
+    /**
+     * Creates a copy of a TrackSelection, so that the selection can be given
+     * to another thread while the original is changed.
+     *
+     * @param selection TrackSelection to copy.
+     */
+    public TrackSelection(TrackSelection selection) {
+        positions = (BitSet) selection.positions.clone();
+        anchor = selection.anchor;
+    }
+
+    /**
+     * Selects or deselects a position, depending on whether it was selected.
+     * <p>
+     * The position is used as the start of the next range selection.
+     *
+     * @param position Position on the playlist.
+     */
+    public void toggle(int position) {
+        positions.flip(position);
+        anchor = position;
+    }
+
+    /**
+     * Selects a position.
+     *
+     * @param position Position on the playlist.
+     */
+    public void select(int position) {
+        positions.set(position);
+        anchor = position;
+    }
+
+    /**
+     * Selects every position between the previously toggled or selected
+     * position and the given position.
+     * <p>
+     * If nothing has been selected before only the position is selected.
+     *
+     * @param position Position on the playlist, end of the range.
+     */
+    public void extendTo(int position) {
+        if (anchor == -1) {
+            select(position);
+            return;
+        }
+        selectRange(Math.min(anchor, position), Math.max(anchor, position));
+    }
+
+    /**
+     * Selects a range of positions.
+     *
+     * @param from First position of the range.
+     * @param to   Last position of the range, inclusive.
+     */
+    public void selectRange(int from, int to) {
+        positions.set(from, to + 1);
+    }
+
+    /**
+     * Selects every position of a playlist.
+     *
+     * @param size Size of the playlist.
+     */
+    public void selectAll(int size) {
+        positions.set(0, size);
+    }
+
+    /**
+     * Deselects every position.
+     */
+    public void clear() {
+        positions.clear();
+        anchor = -1;
+    }
+
+    /**
+     * Check whether or not a position is selected.
+     *
+     * @param position Position on the playlist.
+     * @return Is the position selected?
+     */
+    public boolean isSelected(int position) {
+        return positions.get(position);
+    }
+
+    /**
+     * Used to get the first selected position at or after the given position.
+     *
+     * @param from Position to start from.
+     * @return selected position, -1 if there are none.
+     */
+    public int nextSelected(int from) {
+        return positions.nextSetBit(from);
+    }
+
+    /**
+     * Used to get the amount of selected positions.
+     *
+     * @return amount of selected tracks.
+     */
+    public int size() {
+        return positions.cardinality();
+    }
+
+    /**
+     * Check whether or not nothing is selected.
+     *
+     * @return Emptiness state of the selection.
+     */
+    public boolean isEmpty() {
+        return positions.isEmpty();
+    }
+}
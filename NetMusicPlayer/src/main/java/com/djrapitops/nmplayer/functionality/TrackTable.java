@@ -0,0 +1,398 @@
+package com.djrapitops.nmplayer.functionality;
+
+import com.djrapitops.nmplayer.functionality.utilities.StringPool;
+import com.djrapitops.nmplayer.functionality.utilities.TrackComparator;
+
+import java.text.CollationKey;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * This class stores the information of every Track known by the program.
+ * <p>
+ * Information is stored column by column in arrays indexed by the track id,
+ * instead of a separate object for each track. Names and artists are stored
+ * only once with StringPools, and file paths are split into a folder and a
+ * file name so that a folder is stored only once for all the tracks in it.
+ * <p>
+ * Each combination of name, artist and file path is given a single id, which
+ * is used by Track objects and playlists to refer to the track.
+ * <p>
+ * Tracks are registered and read on several threads (the loader, player,
+ * JavaFX and loudness threads). Changes lock the table, and the arrays are
+ * replaced with larger copies when they grow. The arrays are published with
+ * a volatile reference when a track is registered, so reading a column takes
+ * no lock. The columns that change after a track is registered are atomic
+ * arrays.
+ * <p>
+ * The file path of a track is joined from the folder and the file name the
+ * first time it is needed, and kept for the next calls.
+ * <p>
+ * THIS CLASS SHOULD NOT BE INITIALIZED WITH CLASS CONSTRUCTOR, TrackTable IS A
+ * SINGLETON CLASS, use TrackTable.getInstance() instead.
+ *
+ * @author Rsl1122
+ * @see Track
+ */
+public class TrackTable {
+
+    /**
+     * Duration of tracks which duration has not been read.
+     */
+    public static final long UNKNOWN_DURATION = -1;
+
+    private final StringPool names;
+    private final StringPool artists;
+    private final StringPool folders;
+    private final StringPool fileNames;
+
+    private volatile Columns columns;
+    private volatile int size;
+
+    private int[] slots;
+
+    private TrackTable() {
+        names = new StringPool();
+        artists = new StringPool();
+        folders = new StringPool();
+        fileNames = new StringPool();
+        columns = new Columns(64);
+        slots = new int[128];
+    }
+
+    /**
+     * Used to get the id of a track, adding the track to the table if it is
+     * not in the table yet.
+     *
+     * @param name     Track name of the mp3.
+     * @param artist   Artist of the mp3.
+     * @param filePath The absolute filepath of the .mp3 file.
+     * @return id of the track.
+     */
+    public synchronized int register(String name, String artist, String filePath) {
+        int nameId = names.intern(name);
+        int artistId = artists.intern(artist);
+        int folderId = -1;
+        int fileNameId = -1;
+        if (filePath != null) {
+            int split = getFileNameStart(filePath);
+            folderId = folders.intern(filePath.substring(0, split));
+            fileNameId = fileNames.intern(filePath.substring(split));
+        }
+
+        Columns c = columns;
+        int mask = slots.length - 1;
+        int slot = hash(nameId, artistId, folderId, fileNameId) & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (c.nameIds[id] == nameId && c.artistIds[id] == artistId
+                    && c.folderIds[id] == folderId && c.fileNameIds[id] == fileNameId) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int id = size;
+        if (id == c.nameIds.length) {
+            c = new Columns(c, id * 2);
+        }
+        c.nameIds[id] = nameId;
+        c.artistIds[id] = artistId;
+        c.folderIds[id] = folderId;
+        c.fileNameIds[id] = fileNameId;
+        c.durations.set(id, UNKNOWN_DURATION);
+        slots[slot] = id + 1;
+        columns = c;
+        size = id + 1;
+        if (size > slots.length / 2) {
+            rehash(c);
+        }
+        return id;
+    }
+
+    /**
+     * Used to get a Track object that represents the track with the id.
+     *
+     * @param id id of the track.
+     * @return a Track object.
+     */
+    public Track getTrack(int id) {
+        return new Track(id);
+    }
+
+    /**
+     * Used to get the name of a track.
+     *
+     * @param id id of the track.
+     * @return Track name of the mp3.
+     */
+    public String getName(int id) {
+        return names.get(columns.nameIds[id]);
+    }
+
+    /**
+     * Used to get the artist of a track.
+     *
+     * @param id id of the track.
+     * @return Artist of the mp3.
+     */
+    public String getArtist(int id) {
+        return artists.get(columns.artistIds[id]);
+    }
+
+    /**
+     * Used to get the file path of a track.
+     *
+     * @param id id of the track.
+     * @return The absolute filepath of the .mp3 file.
+     */
+    public String getFilePath(int id) {
+        Columns c = columns;
+        String filePath = c.filePaths[id];
+        if (filePath == null) {
+            int folderId = c.folderIds[id];
+            if (folderId == -1) {
+                return null;
+            }
+            filePath = folders.get(folderId) + fileNames.get(c.fileNameIds[id]);
+            // Strings are immutable, so the path is stored without the lock. Two threads may join the same path.
+            c.filePaths[id] = filePath;
+        }
+        return filePath;
+    }
+
+    /**
+     * Used to get the file name of a track without creating the whole path.
+     *
+     * @param id id of the track.
+     * @return name of the file, for example "Dj Rapitops - Arrival.mp3"
+     */
+    public String getFileName(int id) {
+        return fileNames.get(columns.fileNameIds[id]);
+    }
+
+    /**
+     * Used to get the duration of a track.
+     *
+     * @param id id of the track.
+     * @return duration in milliseconds, or UNKNOWN_DURATION.
+     */
+    public long getDuration(int id) {
+        return columns.durations.get(id);
+    }
+
+    /**
+     * Used to set the duration of a track.
+     *
+     * @param id       id of the track.
+     * @param duration duration in milliseconds.
+     */
+    public synchronized void setDuration(int id, long duration) {
+        columns.durations.set(id, duration);
+    }
+
+    /**
+     * Used to get when the file of a track was added.
+     *
+     * @param id id of the track.
+     * @return Epoch millisecond, 0 if not known.
+     */
+    public long getAddedTime(int id) {
+        return columns.addedTimes.get(id);
+    }
+
+    /**
+     * Used to set when the file of a track was added.
+     *
+     * @param id   id of the track.
+     * @param time Epoch millisecond the file was created.
+     */
+    public synchronized void setAddedTime(int id, long time) {
+        columns.addedTimes.set(id, time);
+    }
+
+    /**
+     * Used to tell that a track has been played, which updates its play count
+     * and last played time.
+     * <p>
+     * Play statistics are kept in memory only.
+     *
+     * @param id   id of the track.
+     * @param time Epoch millisecond the track was played.
+     */
+    public synchronized void recordPlay(int id, long time) {
+        Columns c = columns;
+        c.playCounts.incrementAndGet(id);
+        c.lastPlayed.set(id, time);
+    }
+
+    /**
+     * Used to get how many times a track has been played.
+     *
+     * @param id id of the track.
+     * @return play count.
+     */
+    public int getPlayCount(int id) {
+        return columns.playCounts.get(id);
+    }
+
+    /**
+     * Used to get when a track was last played.
+     *
+     * @param id id of the track.
+     * @return Epoch millisecond, 0 if the track has not been played.
+     */
+    public long getLastPlayed(int id) {
+        return columns.lastPlayed.get(id);
+    }
+
+    /**
+     * Used to get the key used to sort the track alphabetically.
+     * <p>
+     * The key is created on the first call and stored in the table.
+     *
+     * @param id id of the track.
+     * @return CollationKey of the "Artist - Name" text.
+     * @see TrackComparator
+     */
+    public CollationKey getSortKey(int id) {
+        CollationKey key = columns.sortKeys.get(id);
+        if (key != null) {
+            return key;
+        }
+        // The key is created outside the lock, creating it is slow.
+        key = TrackComparator.createSortKey(getTrack(id));
+        synchronized (this) {
+            columns.sortKeys.set(id, key);
+        }
+        return key;
+    }
+
+    /**
+     * Used to get the id of a name without adding it to the table.
+     * <p>
+     * Comparing name ids is faster than comparing the names.
+     *
+     * @param name Track name to look for.
+     * @return id of the name, -1 if no track has the name.
+     * @see #getNameId(int)
+     */
+    public synchronized int findNameId(String name) {
+        return names.indexOf(name);
+    }
+
+    /**
+     * Used to get the id of the name of a track.
+     *
+     * @param id id of the track.
+     * @return id of the name.
+     */
+    public int getNameId(int id) {
+        return columns.nameIds[id];
+    }
+
+    /**
+     * Used to get the amount of tracks in the table.
+     *
+     * @return amount of tracks.
+     */
+    public int size() {
+        return size;
+    }
+
+    private void rehash(Columns c) {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hash(c.nameIds[id], c.artistIds[id], c.folderIds[id], c.fileNameIds[id]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    private static int hash(int nameId, int artistId, int folderId, int fileNameId) {
+        int h = nameId;
+        h = h * 31 + artistId;
+        h = h * 31 + folderId;
+        h = h * 31 + fileNameId;
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Playlists can contain paths of other operating systems, so both
+     * separators are checked.
+     */
+    private static int getFileNameStart(String filePath) {
+        return Math.max(filePath.lastIndexOf('/'), filePath.lastIndexOf('\\')) + 1;
+    }
+
+    /**
+     * The arrays of the columns. A new Columns with larger copies of the
+     * arrays is created when the table grows.
+     */
+    private static class Columns {
+
+        private final int[] nameIds;
+        private final int[] artistIds;
+        private final int[] folderIds;
+        private final int[] fileNameIds;
+        private final String[] filePaths;
+        private final AtomicLongArray durations;
+        private final AtomicIntegerArray playCounts;
+        private final AtomicLongArray lastPlayed;
+        private final AtomicLongArray addedTimes;
+        private final AtomicReferenceArray<CollationKey> sortKeys;
+
+        Columns(int capacity) {
+            nameIds = new int[capacity];
+            artistIds = new int[capacity];
+            folderIds = new int[capacity];
+            fileNameIds = new int[capacity];
+            filePaths = new String[capacity];
+            durations = new AtomicLongArray(capacity);
+            playCounts = new AtomicIntegerArray(capacity);
+            lastPlayed = new AtomicLongArray(capacity);
+            addedTimes = new AtomicLongArray(capacity);
+            sortKeys = new AtomicReferenceArray<>(capacity);
+        }
+
+        Columns(Columns old, int capacity) {
+            nameIds = Arrays.copyOf(old.nameIds, capacity);
+            artistIds = Arrays.copyOf(old.artistIds, capacity);
+            folderIds = Arrays.copyOf(old.folderIds, capacity);
+            fileNameIds = Arrays.copyOf(old.fileNameIds, capacity);
+            filePaths = Arrays.copyOf(old.filePaths, capacity);
+            durations = new AtomicLongArray(capacity);
+            playCounts = new AtomicIntegerArray(capacity);
+            lastPlayed = new AtomicLongArray(capacity);
+            addedTimes = new AtomicLongArray(capacity);
+            sortKeys = new AtomicReferenceArray<>(capacity);
+            for (int id = 0; id < old.nameIds.length; id++) {
+                durations.set(id, old.durations.get(id));
+                playCounts.set(id, old.playCounts.get(id));
+                lastPlayed.set(id, old.lastPlayed.get(id));
+                addedTimes.set(id, old.addedTimes.get(id));
+                sortKeys.set(id, old.sortKeys.get(id));
+            }
+        }
+    }
+
+    /**
+     * Used to get the only instance of the TrackTable.
+     *
+     * @return INSTANCE created in the static class TrackTableSingletonHolder
+     */
+    public static TrackTable getInstance() {
+        return TrackTableSingletonHolder.INSTANCE;
+    }
+
+    private static class TrackTableSingletonHolder {
+
+        private static final TrackTable INSTANCE = new TrackTable();
+    }
+}
@@ -0,0 +1,291 @@
+package com.djrapitops.nmplayer.functionality;
+
+import com.djrapitops.nmplayer.fileutils.ErrorManager;
+import com.djrapitops.nmplayer.functionality.utilities.IntList;
+import com.djrapitops.nmplayer.functionality.utilities.IntVector;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class is used to draw tracks randomly so that some tracks come up more
+ * often than others, depending on the ShuffleMode.
+ * <p>
+ * Draws use an alias table (Vose's alias method), so drawing a track takes
+ * constant time regardless of the size of the playlist. The table is built in
+ * O(n) time. When the playlist or the weights change the table is rebuilt on a
+ * background thread, draws use the previous table until the new one is ready.
+ * <p>
+ * Tracks drawn or played recently are not drawn again until window other
+ * tracks have been played.
+ *
+ * @author Rsl1122
+ * @see ShuffleMode
+ * @see PlaylistManager
+ */
+public class WeightedShuffle {
+
+    /**
+     * Default amount of recently played tracks that are not drawn again.
+     */
+    public static final int DEFAULT_WINDOW = 10;
+
+    private static final int MAX_REDRAWS = 32;
+
+    private static final ExecutorService REBUILDER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "WeightedShuffle rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ShuffleMode mode;
+    private final Random random;
+    private final int window;
+    private final AtomicBoolean rebuildScheduled;
+
+    private volatile AliasTable table;
+    private volatile IntVector latestIds;
+
+    private final int[] recent;
+    private int recentStart;
+    private int recentSize;
+    private final IntList pending;
+
+    /**
+     * Creates a new WeightedShuffle for the given track ids.
+     *
+     * @param ids  ids of the tracks on the playlist.
+     * @param mode ShuffleMode that gives the weights.
+     */
+    public WeightedShuffle(IntVector ids, ShuffleMode mode) {
+        this(ids, mode, DEFAULT_WINDOW, new Random());
+    }
+
+    /**
+     * Creates a new WeightedShuffle for the given track ids.
+     *
+     * @param ids    ids of the tracks on the playlist.
+     * @param mode   ShuffleMode that gives the weights.
+     * @param window Amount of recently played tracks that are not drawn again.
+     * @param random Random used to draw the tracks.
+     */
+    public WeightedShuffle(IntVector ids, ShuffleMode mode, int window, Random random) {
+        this.mode = mode;
+        this.random = random;
+        this.window = Math.max(window, 0);
+        rebuildScheduled = new AtomicBoolean();
+        recent = new int[this.window];
+        pending = new IntList();
+        latestIds = ids;
+        table = new AliasTable(ids, mode, System.currentTimeMillis());
+    }
+
+    /**
+     * Used to draw the next track.
+     * <p>
+     * Tracks drawn earlier with peek are returned first.
+     *
+     * @return id of the track, -1 if there are no tracks.
+     */
+    public synchronized int next() {
+        if (!pending.isEmpty()) {
+            return pending.removeAt(0);
+        }
+        return draw();
+    }
+
+    /**
+     * Used to look at a track that will be drawn later, without drawing the
+     * tracks before it.
+     *
+     * @param k 0 for the track returned by the next call to next().
+     * @return id of the track, -1 if there are no tracks.
+     */
+    public synchronized int peek(int k) {
+        while (pending.size() <= k) {
+            int id = draw();
+            if (id == -1) {
+                return -1;
+            }
+            pending.add(id);
+        }
+        return pending.get(k);
+    }
+
+    /**
+     * Used to tell that a track was played.
+     * <p>
+     * The track is added to the no-repeat window, and the weights are
+     * recalculated as the play statistics of the track have changed.
+     *
+     * @param id id of the played track.
+     */
+    public synchronized void played(int id) {
+        if (window > 0) {
+            if (recentSize == window) {
+                recent[recentStart] = id;
+                recentStart = (recentStart + 1) % window;
+            } else {
+                recent[(recentStart + recentSize) % window] = id;
+                recentSize++;
+            }
+        }
+        if (mode != ShuffleMode.UNIFORM) {
+            update(latestIds);
+        }
+    }
+
+    /**
+     * Used to tell that the playlist has changed.
+     * <p>
+     * The alias table is rebuilt on a background thread, and tracks drawn
+     * with peek are forgotten.
+     *
+     * @param ids ids of the tracks on the new playlist.
+     */
+    public void update(IntVector ids) {
+        synchronized (this) {
+            if (ids != latestIds) {
+                pending.clear();
+            }
+        }
+        latestIds = ids;
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            REBUILDER.execute(() -> {
+                try {
+                    rebuild();
+                } catch (Exception e) {
+                    ErrorManager.toLog(WeightedShuffle.class, e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Builds the alias table from the latest ids on the current thread.
+     */
+    void rebuild() {
+        rebuildScheduled.set(false);
+        table = new AliasTable(latestIds, mode, System.currentTimeMillis());
+    }
+
+    /**
+     * Used to get the ShuffleMode that gives the weights.
+     *
+     * @return the mode.
+     */
+    public ShuffleMode getMode() {
+        return mode;
+    }
+
+    private int draw() {
+        AliasTable current = table;
+        int n = current.trackIds.length;
+        if (n == 0) {
+            return -1;
+        }
+        // At least one track has to stay drawable, so only the latest plays are excluded on small playlists.
+        int excludedPending = Math.min(pending.size(), n - 1);
+        int excludedRecent = Math.min(recentSize, n - 1 - excludedPending);
+        if (excludedPending + excludedRecent == 0) {
+            return current.draw(random);
+        }
+        for (int i = 0; i < MAX_REDRAWS; i++) {
+            int id = current.draw(random);
+            if (!isExcluded(id, excludedRecent, excludedPending)) {
+                return id;
+            }
+        }
+        // Most of the weight is in excluded tracks, pick any track that is not excluded.
+        int start = random.nextInt(n);
+        for (int i = 0; i < n; i++) {
+            int id = current.trackIds[(start + i) % n];
+            if (!isExcluded(id, excludedRecent, excludedPending)) {
+                return id;
+            }
+        }
+        return current.draw(random);
+    }
+
+    private boolean isExcluded(int id, int excludedRecent, int excludedPending) {
+        for (int i = 0; i < excludedRecent; i++) {
+            if (recent[(recentStart + recentSize - 1 - i) % window] == id) {
+                return true;
+            }
+        }
+        for (int i = pending.size() - excludedPending; i < pending.size(); i++) {
+            if (pending.get(i) == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Vose's alias table: every column has a probability to keep its own
+     * track and otherwise the track of its alias column.
+     */
+    private static class AliasTable {
+
+        private final int[] trackIds;
+        private final double[] probability;
+        private final int[] alias;
+
+        AliasTable(IntVector ids, ShuffleMode mode, long now) {
+            trackIds = ids.toArray();
+            int n = trackIds.length;
+            probability = new double[n];
+            alias = new int[n];
+            if (n == 0) {
+                return;
+            }
+
+            TrackTable table = TrackTable.getInstance();
+            double[] scaled = new double[n];
+            double total = 0;
+            for (int i = 0; i < n; i++) {
+                scaled[i] = mode.getWeight(table, trackIds[i], now);
+                total += scaled[i];
+            }
+
+            int[] small = new int[n];
+            int[] large = new int[n];
+            int smallSize = 0;
+            int largeSize = 0;
+            for (int i = 0; i < n; i++) {
+                scaled[i] = total > 0 ? scaled[i] * n / total : 1.0;
+                if (scaled[i] < 1.0) {
+                    small[smallSize++] = i;
+                } else {
+                    large[largeSize++] = i;
+                }
+            }
+            while (smallSize > 0 && largeSize > 0) {
+                int less = small[--smallSize];
+                int more = large[--largeSize];
+                probability[less] = scaled[less];
+                alias[less] = more;
+                scaled[more] = scaled[more] + scaled[less] - 1.0;
+                if (scaled[more] < 1.0) {
+                    small[smallSize++] = more;
+                } else {
+                    large[largeSize++] = more;
+                }
+            }
+            // Left over columns are full, differences are rounding errors.
+            while (largeSize > 0) {
+                probability[large[--largeSize]] = 1.0;
+            }
+            while (smallSize > 0) {
+                probability[small[--smallSize]] = 1.0;
+            }
+        }
+
+        int draw(Random random) {
+            int column = random.nextInt(trackIds.length);
+            return random.nextDouble() < probability[column] ? trackIds[column] : trackIds[alias[column]];
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.djrapitops.nmplayer.functionality.loudness;
+
+import javax.sound.sampled.AudioInputStream;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Interface for decoders the LoudnessScanner uses to read track files.
+ * <p>
+ * A decoder for .mp3 or another format can be added with
+ * LoudnessScanner.addDecoder.
+ *
+ * @author Rsl1122
+ * @see LoudnessScanner#addDecoder(AudioDecoder)
+ */
+public interface AudioDecoder {
+
+    /**
+     * Tells if the decoder should be used for a file. Usually decided by the
+     * file extension.
+     *
+     * @param file Track file.
+     * @return true if the file can be decoded.
+     */
+    boolean supports(File file);
+
+    /**
+     * Opens the decoded audio of a file.
+     *
+     * @param file Track file.
+     * @return Stream of integer or float PCM, 8 to 32 bits per sample.
+     * @throws IOException If the file can not be read or decoded.
+     */
+    AudioInputStream open(File file) throws IOException;
+}
@@ -0,0 +1,172 @@
+package com.djrapitops.nmplayer.functionality.loudness;
+
+/**
+ * This class measures the integrated loudness of audio as described in
+ * ITU-R BS.1770 and EBU R128.
+ * <p>
+ * The samples are K-weighted with two biquad filters, and the mean square of
+ * every 400 ms block is calculated, with blocks starting every 100 ms.
+ * Blocks quieter than -70 LUFS are ignored, and so are blocks more than
+ * 10 LU quieter than the loudness of the remaining blocks, so silence and
+ * quiet passages do not lower the result.
+ * <p>
+ * The meter is not thread safe.
+ *
+ * @author Rsl1122
+ * @see LoudnessScanner
+ */
+public class LoudnessMeter {
+
+    private static final double ABSOLUTE_GATE = -70;
+    private static final double RELATIVE_GATE = -10;
+    private static final int BLOCK_STEPS = 4;
+
+    private final int channels;
+    private final double[] weights;
+    private final double[] pb;
+    private final double[] pa;
+    private final double[] rb;
+    private final double[] ra;
+    // Filter state, 4 values per channel for each of the two filters.
+    private final double[] state;
+    private final int stepFrames;
+
+    private final double[] steps;
+    private int stepCount;
+    private double stepEnergy;
+    private int stepFrame;
+
+    private double[] blocks;
+    private int blockCount;
+
+    /**
+     * Creates a new LoudnessMeter.
+     *
+     * @param sampleRate Sample rate of the audio, for example 44100.
+     * @param channels   Number of channels, the channels of 5.1 audio are in
+     *                   the order L, R, C, LFE, Ls, Rs.
+     */
+    public LoudnessMeter(float sampleRate, int channels) {
+        if (sampleRate <= 0 || channels <= 0) {
+            throw new IllegalArgumentException("Unsupported audio: " + sampleRate + " Hz, " + channels + " channels");
+        }
+        this.channels = channels;
+        weights = new double[channels];
+        for (int c = 0; c < channels; c++) {
+            weights[c] = c < 3 ? 1.0 : 1.41;
+        }
+        if (channels == 6) {
+            weights[3] = 0;
+        }
+
+        double k = Math.tan(Math.PI * 1681.974450955533 / sampleRate);
+        double q = 0.7071752369554196;
+        double vh = Math.pow(10, 3.999843853973347 / 20);
+        double vb = Math.pow(vh, 0.4996667741545416);
+        double a0 = 1 + k / q + k * k;
+        pb = new double[]{(vh + vb * k / q + k * k) / a0, 2 * (k * k - vh) / a0, (vh - vb * k / q + k * k) / a0};
+        pa = new double[]{1, 2 * (k * k - 1) / a0, (1 - k / q + k * k) / a0};
+
+        k = Math.tan(Math.PI * 38.13547087602444 / sampleRate);
+        q = 0.5003270373238773;
+        a0 = 1 + k / q + k * k;
+        rb = new double[]{1, -2, 1};
+        ra = new double[]{1, 2 * (k * k - 1) / a0, (1 - k / q + k * k) / a0};
+
+        state = new double[channels * 8];
+        stepFrames = Math.max(1, Math.round(sampleRate / 10));
+        steps = new double[BLOCK_STEPS];
+        blocks = new double[64];
+    }
+
+    /**
+     * Measures frames of audio.
+     *
+     * @param samples Interleaved samples from -1.0 to 1.0
+     * @param offset  Index of the first sample.
+     * @param frames  Number of frames, one sample of every channel.
+     */
+    public void process(float[] samples, int offset, int frames) {
+        int i = offset;
+        for (int f = 0; f < frames; f++) {
+            for (int c = 0; c < channels; c++) {
+                double x = samples[i++];
+                if (weights[c] != 0) {
+                    double y = filter(x, c);
+                    stepEnergy += weights[c] * y * y;
+                }
+            }
+            if (++stepFrame == stepFrames) {
+                endStep();
+            }
+        }
+    }
+
+    private double filter(double x, int channel) {
+        int s = channel * 8;
+        // Direct form I, the pre-filter first and then the high-pass.
+        double y = pb[0] * x + pb[1] * state[s] + pb[2] * state[s + 1] - pa[1] * state[s + 2] - pa[2] * state[s + 3];
+        state[s + 1] = state[s];
+        state[s] = x;
+        state[s + 3] = state[s + 2];
+        state[s + 2] = y;
+
+        double z = rb[0] * y + rb[1] * state[s + 4] + rb[2] * state[s + 5] - ra[1] * state[s + 6] - ra[2] * state[s + 7];
+        state[s + 5] = state[s + 4];
+        state[s + 4] = y;
+        state[s + 7] = state[s + 6];
+        state[s + 6] = z;
+        return z;
+    }
+
+    private void endStep() {
+        steps[stepCount % BLOCK_STEPS] = stepEnergy;
+        stepCount++;
+        stepEnergy = 0;
+        stepFrame = 0;
+        if (stepCount >= BLOCK_STEPS) {
+            double sum = 0;
+            for (double step : steps) {
+                sum += step;
+            }
+            if (blockCount == blocks.length) {
+                double[] grown = new double[blocks.length * 2];
+                System.arraycopy(blocks, 0, grown, 0, blockCount);
+                blocks = grown;
+            }
+            blocks[blockCount++] = sum / (BLOCK_STEPS * stepFrames);
+        }
+    }
+
+    /**
+     * Used to get the integrated loudness of the audio measured so far.
+     *
+     * @return Loudness in LUFS, negative infinity if the audio is silent or
+     * shorter than one block.
+     */
+    public double getIntegratedLoudness() {
+        double absoluteThreshold = toEnergy(ABSOLUTE_GATE);
+        double relativeThreshold = toEnergy(toLoudness(mean(absoluteThreshold)) + RELATIVE_GATE);
+        return toLoudness(mean(Math.max(absoluteThreshold, relativeThreshold)));
+    }
+
+    private double mean(double threshold) {
+        double sum = 0;
+        int count = 0;
+        for (int i = 0; i < blockCount; i++) {
+            if (blocks[i] > threshold) {
+                sum += blocks[i];
+                count++;
+            }
+        }
+        return count > 0 ? sum / count : 0;
+    }
+
+    private static double toLoudness(double energy) {
+        return energy > 0 ? -0.691 + 10 * Math.log10(energy) : Double.NEGATIVE_INFINITY;
+    }
+
+    private static double toEnergy(double loudness) {
+        return Math.pow(10, (loudness + 0.691) / 10);
+    }
+}
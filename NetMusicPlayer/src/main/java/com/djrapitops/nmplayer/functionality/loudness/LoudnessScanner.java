@@ -0,0 +1,337 @@
+package com.djrapitops.nmplayer.functionality.loudness;
+
+import com.djrapitops.nmplayer.fileutils.MetadataCache;
+import com.djrapitops.nmplayer.functionality.Track;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * This class measures the loudness of tracks in the background, so that
+ * tracks mastered at different levels can be played at the same loudness.
+ * <p>
+ * Tracks given to scan are measured one at a time on a single thread of the
+ * lowest priority. The results are stored in the MetadataCache, so a track is
+ * only measured again if its file changes.
+ * <p>
+ * The scanner is throttled so that it does not compete with the playback:
+ * audio is decoded at most at the rate given to setRate, and the scanning
+ * waits while the MusicPlayer opens tracks, see deferFor.
+ * <p>
+ * .wav files are decoded with WavDecoder, other files with
+ * SoundSystemDecoder. Decoders for other formats, such as .mp3, can be added
+ * with addDecoder. Files that can not be decoded are skipped and played
+ * without a gain.
+ * <p>
+ * THIS CLASS SHOULD NOT BE INITIALIZED WITH CLASS CONSTRUCTOR,
+ * LoudnessScanner IS A SINGLETON CLASS, use LoudnessScanner.getInstance()
+ * instead.
+ *
+ * @author Rsl1122
+ * @see LoudnessMeter
+ * @see MetadataCache
+ */
+public class LoudnessScanner {
+
+    /**
+     * Loudness tracks are played at, in LUFS. The same as the reference level
+     * of ReplayGain 2.0.
+     */
+    public static final double REFERENCE_LOUDNESS = -18;
+
+    static final String LOUDNESS_KEY = "loudness";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long DEFAULT_RATE = 4 * 1024 * 1024;
+    private static final int SAVE_INTERVAL = 20;
+
+    private final MetadataCache cache;
+    private final List<AudioDecoder> decoders;
+    private final Deque<String> queue;
+    private final Set<String> queued;
+    private final Set<String> failed;
+
+    private volatile long rate;
+    private volatile long deferredUntil;
+    private Thread thread;
+    private int unsaved;
+
+    private LoudnessScanner(MetadataCache cache) {
+        this.cache = cache;
+        decoders = new CopyOnWriteArrayList<>();
+        decoders.add(new WavDecoder());
+        decoders.add(new SoundSystemDecoder());
+        queue = new ArrayDeque<>();
+        queued = new HashSet<>();
+        failed = new HashSet<>();
+        rate = DEFAULT_RATE;
+        deferredUntil = System.nanoTime();
+    }
+
+    /**
+     * Adds a decoder that is used before the other decoders for the files it
+     * supports.
+     *
+     * @param decoder AudioDecoder, for example for .mp3 files.
+     */
+    public void addDecoder(AudioDecoder decoder) {
+        decoders.add(0, decoder);
+    }
+
+    /**
+     * Measures tracks that have not been measured yet, after the tracks given
+     * before.
+     *
+     * @param tracks Tracks to measure.
+     */
+    public synchronized void scan(Collection<Track> tracks) {
+        for (Track track : tracks) {
+            String path = track.getFilePath();
+            if (!failed.contains(path) && queued.add(path)) {
+                queue.addLast(path);
+            }
+        }
+        start();
+    }
+
+    /**
+     * Measures a track before the other tracks, unless it has been measured.
+     *
+     * @param track Track to measure next.
+     */
+    public synchronized void scanFirst(Track track) {
+        String path = track.getFilePath();
+        if (failed.contains(path)) {
+            return;
+        }
+        if (!queued.add(path)) {
+            queue.remove(path);
+        }
+        queue.addFirst(path);
+        start();
+    }
+
+    private void start() {
+        if (thread == null) {
+            thread = new Thread(this::run, "NMPlayer Loudness");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.start();
+        }
+        notifyAll();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                String path = take();
+                waitForDeferral();
+                if (cache.get(path, LOUDNESS_KEY) != null) {
+                    continue;
+                }
+                try {
+                    double loudness = measure(new File(path), true);
+                    cache.put(path, LOUDNESS_KEY, Double.toString(loudness));
+                    if (++unsaved >= SAVE_INTERVAL) {
+                        save();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    synchronized (this) {
+                        failed.add(path);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            save();
+        }
+    }
+
+    private synchronized String take() throws InterruptedException {
+        while (queue.isEmpty()) {
+            save();
+            wait();
+        }
+        String path = queue.pollFirst();
+        queued.remove(path);
+        return path;
+    }
+
+    private void save() {
+        if (unsaved > 0) {
+            unsaved = 0;
+            cache.save();
+        }
+    }
+
+    /**
+     * Used to get the measured loudness of a track.
+     *
+     * @param track Track that has been measured.
+     * @return Loudness in LUFS, NaN if the track has not been measured.
+     */
+    public double getLoudness(Track track) {
+        String value = cache.get(track.getFilePath(), LOUDNESS_KEY);
+        try {
+            return value != null ? Double.parseDouble(value) : Double.NaN;
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Used to get the volume multiplier that plays a track at the
+     * REFERENCE_LOUDNESS.
+     *
+     * @param track Track to play.
+     * @return Gain as a multiplier, 1.0 if the track has not been measured
+     * or is silent.
+     */
+    public double getGain(Track track) {
+        double loudness = getLoudness(track);
+        if (Double.isNaN(loudness) || Double.isInfinite(loudness)) {
+            return 1.0;
+        }
+        return Math.pow(10, (REFERENCE_LOUDNESS - loudness) / 20);
+    }
+
+    /**
+     * Pauses the scanning, so that the disk is free while a track is opened.
+     *
+     * @param millis Milliseconds from now the scanning should wait.
+     */
+    public void deferFor(long millis) {
+        long until = System.nanoTime() + millis * 1000000L;
+        if (until - deferredUntil > 0) {
+            deferredUntil = until;
+        }
+    }
+
+    private void waitForDeferral() throws InterruptedException {
+        long wait;
+        while ((wait = deferredUntil - System.nanoTime()) > 0) {
+            Thread.sleep(wait / 1000000 + 1);
+        }
+    }
+
+    /**
+     * Used to set how fast tracks are decoded when scanning.
+     *
+     * @param bytesPerSecond Bytes of decoded audio per second, CD quality
+     *                       audio is 176400 bytes per second.
+     * @throws IllegalArgumentException If the rate is not positive.
+     */
+    public void setRate(long bytesPerSecond) {
+        if (bytesPerSecond <= 0) {
+            throw new IllegalArgumentException("Rate must be positive: " + bytesPerSecond);
+        }
+        rate = bytesPerSecond;
+    }
+
+    /**
+     * Measures the integrated loudness of a file on the calling thread,
+     * without throttling.
+     *
+     * @param file Audio file.
+     * @return Loudness in LUFS, negative infinity if the file is silent.
+     * @throws IOException If no decoder can decode the file.
+     */
+    public double analyze(File file) throws IOException {
+        try {
+            return measure(file, false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+    }
+
+    private double measure(File file, boolean throttle) throws IOException, InterruptedException {
+        AudioDecoder decoder = null;
+        for (AudioDecoder d : decoders) {
+            if (d.supports(file)) {
+                decoder = d;
+                break;
+            }
+        }
+        if (decoder == null) {
+            throw new IOException("No decoder for " + file);
+        }
+        try (AudioInputStream in = decoder.open(file)) {
+            AudioFormat format = in.getFormat();
+            int frameSize = format.getFrameSize();
+            int sampleSize = frameSize / format.getChannels();
+            if (frameSize <= 0 || sampleSize <= 0 || sampleSize > 4) {
+                throw new IOException("Unsupported format " + format + " of " + file);
+            }
+            LoudnessMeter meter = new LoudnessMeter(format.getSampleRate(), format.getChannels());
+            byte[] buffer = new byte[BUFFER_SIZE / frameSize * frameSize];
+            float[] samples = new float[buffer.length / sampleSize];
+            while (true) {
+                long start = System.nanoTime();
+                int read = in.read(buffer);
+                if (read < 0) {
+                    break;
+                }
+                int frames = read / frameSize;
+                toSamples(buffer, frames * format.getChannels(), format, sampleSize, samples);
+                meter.process(samples, 0, frames);
+                if (throttle) {
+                    waitForDeferral();
+                    long wait = read * 1000000000L / rate - (System.nanoTime() - start);
+                    if (wait > 0) {
+                        Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+                    }
+                }
+            }
+            return meter.getIntegratedLoudness();
+        }
+    }
+
+    private static void toSamples(byte[] buffer, int count, AudioFormat format, int sampleSize, float[] samples) {
+        boolean bigEndian = format.isBigEndian();
+        boolean unsigned = format.getEncoding().equals(AudioFormat.Encoding.PCM_UNSIGNED);
+        boolean floating = format.getEncoding().equals(AudioFormat.Encoding.PCM_FLOAT);
+        int shift = 32 - sampleSize * 8;
+        for (int i = 0; i < count; i++) {
+            int offset = i * sampleSize;
+            int value = 0;
+            for (int b = 0; b < sampleSize; b++) {
+                int index = bigEndian ? offset + b : offset + sampleSize - 1 - b;
+                value = value << 8 | buffer[index] & 0xFF;
+            }
+            if (floating) {
+                samples[i] = Float.intBitsToFloat(value);
+                continue;
+            }
+            value <<= shift;
+            if (unsigned) {
+                value ^= 0x80000000;
+            }
+            samples[i] = value / 2147483648f;
+        }
+    }
+
+    /**
+     * Used to get the only instance of the LoudnessScanner.
+     *
+     * @return INSTANCE created in the static class
+     * LoudnessScannerSingletonHolder
+     */
+    public static LoudnessScanner getInstance() {
+        return LoudnessScannerSingletonHolder.INSTANCE;
+    }
+
+    private static class LoudnessScannerSingletonHolder {
+
+        private static final LoudnessScanner INSTANCE = new LoudnessScanner(MetadataCache.getInstance());
+    }
+}
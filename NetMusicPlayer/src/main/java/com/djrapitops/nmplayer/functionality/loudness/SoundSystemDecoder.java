@@ -0,0 +1,50 @@
+package com.djrapitops.nmplayer.functionality.loudness;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * AudioDecoder that decodes files with javax.sound.sampled.AudioSystem.
+ * <p>
+ * AIFF and AU files are supported by every Java runtime. Other formats, such
+ * as .mp3, are decoded if a javax.sound service provider for them is on the
+ * classpath.
+ *
+ * @author Rsl1122
+ * @see AudioDecoder
+ */
+public class SoundSystemDecoder implements AudioDecoder {
+
+    @Override
+    public boolean supports(File file) {
+        return true;
+    }
+
+    @Override
+    public AudioInputStream open(File file) throws IOException {
+        AudioInputStream source;
+        try {
+            source = AudioSystem.getAudioInputStream(file);
+        } catch (UnsupportedAudioFileException e) {
+            throw new IOException("Unsupported audio file " + file, e);
+        }
+        AudioFormat format = source.getFormat();
+        AudioFormat.Encoding encoding = format.getEncoding();
+        if (encoding.equals(AudioFormat.Encoding.PCM_SIGNED) || encoding.equals(AudioFormat.Encoding.PCM_UNSIGNED)
+                || encoding.equals(AudioFormat.Encoding.PCM_FLOAT)) {
+            return source;
+        }
+        AudioFormat pcm = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, format.getSampleRate(), 16,
+                format.getChannels(), format.getChannels() * 2, format.getSampleRate(), false);
+        try {
+            return AudioSystem.getAudioInputStream(pcm, source);
+        } catch (IllegalArgumentException e) {
+            source.close();
+            throw new IOException("Can not convert " + format + " to PCM", e);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.djrapitops.nmplayer.functionality.loudness;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * AudioDecoder that reads .wav files without javax.sound service providers.
+ * <p>
+ * Integer PCM of 8 to 32 bits and 32 bit float PCM are supported, also in
+ * WAVE_FORMAT_EXTENSIBLE files. The samples are given as they are stored in
+ * the file.
+ *
+ * @author Rsl1122
+ * @see AudioDecoder
+ */
+public class WavDecoder implements AudioDecoder {
+
+    private static final int FORMAT_PCM = 1;
+    private static final int FORMAT_FLOAT = 3;
+    private static final int FORMAT_EXTENSIBLE = 0xFFFE;
+
+    @Override
+    public boolean supports(File file) {
+        return file.getName().toLowerCase().endsWith(".wav");
+    }
+
+    @Override
+    public AudioInputStream open(File file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            return read(in, file);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private AudioInputStream read(DataInputStream in, File file) throws IOException {
+        if (readTag(in) != tag("RIFF")) {
+            throw new IOException("Not a RIFF file " + file);
+        }
+        readInt(in);
+        if (readTag(in) != tag("WAVE")) {
+            throw new IOException("Not a WAVE file " + file);
+        }
+        AudioFormat format = null;
+        while (true) {
+            int chunk;
+            long size;
+            try {
+                chunk = readTag(in);
+                size = readInt(in) & 0xFFFFFFFFL;
+            } catch (EOFException e) {
+                throw new IOException("No data in " + file, e);
+            }
+            if (chunk == tag("fmt ")) {
+                format = readFormat(in, size, file);
+            } else if (chunk == tag("data")) {
+                if (format == null) {
+                    throw new IOException("No format before data in " + file);
+                }
+                return new AudioInputStream(in, format, size / format.getFrameSize());
+            } else {
+                skip(in, size);
+            }
+            if ((size & 1) != 0) {
+                skip(in, 1);
+            }
+        }
+    }
+
+    private AudioFormat readFormat(DataInputStream in, long size, File file) throws IOException {
+        int formatTag = readShort(in);
+        int channels = readShort(in);
+        int sampleRate = readInt(in);
+        readInt(in);
+        int blockAlign = readShort(in);
+        int bits = readShort(in);
+        long read = 16;
+        if (formatTag == FORMAT_EXTENSIBLE && size >= 26) {
+            readShort(in);
+            readShort(in);
+            readInt(in);
+            formatTag = readShort(in);
+            read = 26;
+        }
+        skip(in, size - read);
+
+        if (channels <= 0 || blockAlign <= 0 || bits <= 0 || bits > 32) {
+            throw new IOException("Unsupported WAVE format in " + file);
+        }
+        if (formatTag == FORMAT_FLOAT && bits == 32) {
+            return new AudioFormat(AudioFormat.Encoding.PCM_FLOAT, sampleRate, bits, channels, blockAlign, sampleRate, false);
+        }
+        if (formatTag != FORMAT_PCM) {
+            throw new IOException("Unsupported WAVE encoding " + formatTag + " in " + file);
+        }
+        AudioFormat.Encoding encoding = bits <= 8 ? AudioFormat.Encoding.PCM_UNSIGNED : AudioFormat.Encoding.PCM_SIGNED;
+        return new AudioFormat(encoding, sampleRate, blockAlign / channels * 8, channels, blockAlign, sampleRate, false);
+    }
+
+    private static int tag(String name) {
+        return name.charAt(0) | name.charAt(1) << 8 | name.charAt(2) << 16 | name.charAt(3) << 24;
+    }
+
+    private static int readTag(DataInputStream in) throws IOException {
+        return readInt(in);
+    }
+
+    private static int readInt(DataInputStream in) throws IOException {
+        return Integer.reverseBytes(in.readInt());
+    }
+
+    private static int readShort(DataInputStream in) throws IOException {
+        return Short.reverseBytes(in.readShort()) & 0xFFFF;
+    }
+
+    private static void skip(InputStream in, long bytes) throws IOException {
+        while (bytes > 0) {
+            long skipped = in.skip(bytes);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new EOFException();
+                }
+                skipped = 1;
+            }
+            bytes -= skipped;
+        }
+    }
+}
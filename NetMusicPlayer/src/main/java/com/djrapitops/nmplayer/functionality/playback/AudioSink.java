@@ -0,0 +1,60 @@
+package com.djrapitops.nmplayer.functionality.playback;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.LineUnavailableException;
+
+/**
+ * Interface for the destination of decoded PCM audio of a
+ * StreamPlaybackEngine.
+ * <p>
+ * All methods are called from the playback thread of a single
+ * PlaybackHandle.
+ *
+ * @author Rsl1122
+ * @see StreamPlaybackEngine
+ */
+interface AudioSink {
+
+    /**
+     * Prepares the sink for audio of the given format.
+     *
+     * @param format Format of the audio, 16 bit signed PCM.
+     * @throws LineUnavailableException If the audio device can not be used.
+     */
+    void open(AudioFormat format) throws LineUnavailableException;
+
+    /**
+     * Starts or resumes the output. Does nothing if the output is running.
+     */
+    void start();
+
+    /**
+     * Pauses the output.
+     */
+    void pause();
+
+    /**
+     * Discards audio that has been written but not output yet.
+     */
+    void flush();
+
+    /**
+     * Waits until written audio has been output.
+     */
+    void drain();
+
+    /**
+     * Writes audio to the sink, blocks if the sink outputs at real-time speed
+     * and its buffer is full.
+     *
+     * @param buffer Audio bytes.
+     * @param offset Index of the first byte.
+     * @param length Amount of bytes, a multiple of the frame size.
+     */
+    void write(byte[] buffer, int offset, int length);
+
+    /**
+     * Frees the resources of the sink.
+     */
+    void close();
+}
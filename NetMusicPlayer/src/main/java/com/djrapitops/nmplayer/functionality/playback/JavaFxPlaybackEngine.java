@@ -0,0 +1,119 @@
+package com.djrapitops.nmplayer.functionality.playback;
+
+import com.djrapitops.nmplayer.functionality.Track;
+import javafx.application.Platform;
+import javafx.scene.media.Media;
+import javafx.scene.media.MediaPlayer;
+import javafx.util.Duration;
+
+import java.io.File;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PlaybackEngine that plays tracks with JavaFX MediaPlayer objects.
+ * <p>
+ * The event thread is the JavaFX Application thread, so a JavaFX Application
+ * has to be running.
+ *
+ * @author Rsl1122
+ * @see PlaybackEngine
+ */
+public class JavaFxPlaybackEngine implements PlaybackEngine {
+
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "NMPlayer JavaFX Timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Override
+    public PlaybackHandle open(Track track) {
+        return new Handle(new MediaPlayer(new Media(new File(track.getFilePath()).toURI().toString())));
+    }
+
+    @Override
+    public Future<?> schedule(Runnable task, long delayMillis) {
+        return TIMER.schedule(() -> Platform.runLater(task), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public String getName() {
+        return "JavaFX";
+    }
+
+    private static class Handle implements PlaybackHandle {
+
+        private final MediaPlayer player;
+        private Runnable onReady;
+
+        Handle(MediaPlayer player) {
+            this.player = player;
+            player.setOnReady(() -> run(onReady));
+        }
+
+        @Override
+        public void play() {
+            player.play();
+        }
+
+        @Override
+        public void pause() {
+            player.pause();
+        }
+
+        @Override
+        public void stop() {
+            player.stop();
+        }
+
+        @Override
+        public void dispose() {
+            player.dispose();
+        }
+
+        @Override
+        public void seek(double seconds) {
+            player.seek(Duration.seconds(seconds));
+        }
+
+        @Override
+        public double getCurrentTime() {
+            return player.getCurrentTime().toSeconds();
+        }
+
+        @Override
+        public double getTotalDuration() {
+            Duration total = player.getTotalDuration();
+            return total != null && !total.isUnknown() ? total.toSeconds() : Double.NaN;
+        }
+
+        @Override
+        public void setVolume(double volume) {
+            player.setVolume(volume);
+        }
+
+        @Override
+        public void setOnEndOfMedia(Runnable task) {
+            player.setOnEndOfMedia(task);
+        }
+
+        @Override
+        public void setOnPlaying(Runnable task) {
+            player.setOnPlaying(task);
+        }
+
+        @Override
+        public void setOnReady(Runnable task) {
+            onReady = task;
+        }
+
+        private static void run(Runnable task) {
+            if (task != null) {
+                task.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.djrapitops.nmplayer.functionality.playback;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * AudioSink that outputs to the sound card with a javax.sound.sampled
+ * SourceDataLine.
+ *
+ * @author Rsl1122
+ * @see SoundPlaybackEngine
+ */
+class LineSink implements AudioSink {
+
+    private SourceDataLine line;
+
+    @Override
+    public void open(AudioFormat format) throws LineUnavailableException {
+        line = AudioSystem.getSourceDataLine(format);
+        line.open(format);
+    }
+
+    @Override
+    public void start() {
+        if (!line.isRunning()) {
+            line.start();
+        }
+    }
+
+    @Override
+    public void pause() {
+        line.stop();
+    }
+
+    @Override
+    public void flush() {
+        line.flush();
+    }
+
+    @Override
+    public void drain() {
+        line.drain();
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) {
+        line.write(buffer, offset, length);
+    }
+
+    @Override
+    public void close() {
+        if (line != null) {
+            line.close();
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.djrapitops.nmplayer.functionality.playback;
+
+import com.djrapitops.nmplayer.fileutils.MetadataCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * Index of the byte offsets of the frames of an .mp3 file, used to seek
+ * without decoding the audio before the seek position.
+ * <p>
+ * Every MPEG Layer III frame holds the same number of samples, so the frame
+ * of a sample is known exactly. The index stores the offset of every STEP:th
+ * frame. To seek, decoding starts from the indexed frame before the position
+ * and at most STEP + PRIMING_FRAMES frames are decoded and discarded, so the
+ * seek is sample accurate and takes the same time anywhere in the file.
+ * <p>
+ * The index is built by reading the frame headers of the file the first
+ * time a StreamPlaybackEngine seeks the file, and stored in the
+ * MetadataCache for the next seeks. The stream engines can only play .mp3
+ * files if a decoder is installed, see StreamPlaybackEngine.isMp3Supported.
+ * The JavaFX engine seeks inside MediaPlayer and does not use the index.
+ * <p>
+ * The Xing table of contents is not used, it only has 100 entries.
+ *
+ * @author Rsl1122
+ * @see StreamPlaybackEngine
+ */
+public class Mp3SeekIndex {
+
+    static final String CACHE_KEY = "seekIndex";
+    static final int STEP = 32;
+    /**
+     * Frames decoded before the seek position, the first frames decoded
+     * after a jump can be missing the bits they share with earlier frames.
+     */
+    static final int PRIMING_FRAMES = 2;
+
+    private static final int[] MPEG1_BITRATES = {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320};
+    private static final int[] MPEG2_BITRATES = {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160};
+    private static final int[] MPEG1_SAMPLE_RATES = {44100, 48000, 32000};
+    private static final int WINDOW_SIZE = 64 * 1024;
+
+    private final int sampleRate;
+    private final int samplesPerFrame;
+    private final long frameCount;
+    private final long[] offsets;
+
+    /**
+     * Creates a new Mp3SeekIndex.
+     *
+     * @param sampleRate      Sample rate of the file.
+     * @param samplesPerFrame Samples in a frame, 1152 or 576.
+     * @param frameCount      Number of frames in the file.
+     * @param offsets         Byte offset of every STEP:th frame.
+     */
+    Mp3SeekIndex(int sampleRate, int samplesPerFrame, long frameCount, long[] offsets) {
+        this.sampleRate = sampleRate;
+        this.samplesPerFrame = samplesPerFrame;
+        this.frameCount = frameCount;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Tells if a file is an .mp3 file, by the extension.
+     *
+     * @param file File of a track.
+     * @return true if the name ends with .mp3
+     */
+    public static boolean isMp3(File file) {
+        return file.getName().toLowerCase().endsWith(".mp3");
+    }
+
+    /**
+     * Used to get the index of a file from the MetadataCache, or builds and
+     * caches it if it is not cached.
+     *
+     * @param file .mp3 file.
+     * @return the index of the file.
+     * @throws IOException If the file can not be read or has no MPEG Layer
+     *                     III frames.
+     */
+    public static Mp3SeekIndex get(File file) throws IOException {
+        Mp3SeekIndex index = getCached(file);
+        if (index == null) {
+            index = build(file);
+            MetadataCache.getInstance().put(file.getAbsolutePath(), CACHE_KEY, index.encode());
+        }
+        return index;
+    }
+
+    /**
+     * Used to get the index of a file from the MetadataCache.
+     *
+     * @param file .mp3 file.
+     * @return the index, or null if it is not cached.
+     */
+    public static Mp3SeekIndex getCached(File file) {
+        String value = MetadataCache.getInstance().get(file.getAbsolutePath(), CACHE_KEY);
+        try {
+            return value != null ? decode(value) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Builds the index of a file by reading its frame headers.
+     * <p>
+     * An ID3v2 tag at the start is skipped, and so is data that is not a
+     * frame of the same MPEG version and sample rate as the first frame.
+     *
+     * @param file .mp3 file.
+     * @return a new index.
+     * @throws IOException If the file can not be read or has no MPEG Layer
+     *                     III frames.
+     */
+    public static Mp3SeekIndex build(File file) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            Reader reader = new Reader(in);
+            long length = in.length();
+            long position = skipId3(reader);
+            int firstHeader = 0;
+            long frames = 0;
+            long[] offsets = new long[64];
+            while (position + 4 <= length) {
+                int header = reader.readInt(position);
+                int frameLength = frameLength(header);
+                boolean matches = firstHeader == 0
+                        ? frameLength > 0 && position + frameLength + 4 <= length && sameStream(header, reader.readInt(position + frameLength))
+                        : frameLength > 0 && sameStream(firstHeader, header);
+                if (!matches) {
+                    position++;
+                    continue;
+                }
+                if (firstHeader == 0) {
+                    firstHeader = header;
+                }
+                if (frames % STEP == 0) {
+                    int entry = (int) (frames / STEP);
+                    if (entry == offsets.length) {
+                        long[] grown = new long[offsets.length * 2];
+                        System.arraycopy(offsets, 0, grown, 0, entry);
+                        offsets = grown;
+                    }
+                    offsets[entry] = position;
+                }
+                frames++;
+                position += frameLength;
+            }
+            if (firstHeader == 0) {
+                throw new IOException("No MPEG Layer III frames in " + file);
+            }
+            long[] index = new long[(int) ((frames + STEP - 1) / STEP)];
+            System.arraycopy(offsets, 0, index, 0, index.length);
+            return new Mp3SeekIndex(sampleRate(firstHeader), samplesPerFrame(firstHeader), frames, index);
+        }
+    }
+
+    private static long skipId3(Reader reader) throws IOException {
+        if (reader.read(0) != 'I' || reader.read(1) != 'D' || reader.read(2) != '3') {
+            return 0;
+        }
+        long size = (reader.read(6) & 0x7F) << 21 | (reader.read(7) & 0x7F) << 14 | (reader.read(8) & 0x7F) << 7 | reader.read(9) & 0x7F;
+        boolean footer = (reader.read(5) & 0x10) != 0;
+        return 10 + size + (footer ? 10 : 0);
+    }
+
+    private static int version(int header) {
+        return header >>> 19 & 3;
+    }
+
+    private static boolean sameStream(int first, int header) {
+        return frameLength(header) > 0 && (first & 0xFFFE0C00) == (header & 0xFFFE0C00);
+    }
+
+    /**
+     * Used to get the length of an MPEG Layer III frame.
+     *
+     * @return Length in bytes, 0 if the header is not a valid Layer III
+     * frame header.
+     */
+    private static int frameLength(int header) {
+        if ((header & 0xFFE00000) != 0xFFE00000 || version(header) == 1 || (header >>> 17 & 3) != 1) {
+            return 0;
+        }
+        int bitrateIndex = header >>> 12 & 0xF;
+        int sampleRateIndex = header >>> 10 & 3;
+        if (bitrateIndex == 0 || bitrateIndex == 15 || sampleRateIndex == 3) {
+            return 0;
+        }
+        boolean mpeg1 = version(header) == 3;
+        int bitrate = (mpeg1 ? MPEG1_BITRATES : MPEG2_BITRATES)[bitrateIndex] * 1000;
+        int padding = header >>> 9 & 1;
+        return (mpeg1 ? 144 : 72) * bitrate / sampleRate(header) + padding;
+    }
+
+    private static int sampleRate(int header) {
+        int rate = MPEG1_SAMPLE_RATES[header >>> 10 & 3];
+        switch (version(header)) {
+            case 3:
+                return rate;
+            case 2:
+                return rate / 2;
+            default:
+                return rate / 4;
+        }
+    }
+
+    private static int samplesPerFrame(int header) {
+        return version(header) == 3 ? 1152 : 576;
+    }
+
+    /**
+     * Used to get the frame decoding should start from to seek to a sample.
+     *
+     * @param sample Index of the sample to seek to, from the start of the
+     *               first frame.
+     * @return Index of an indexed frame, at least PRIMING_FRAMES before the
+     * frame of the sample unless it is the first frame.
+     */
+    public long findFrame(long sample) {
+        long frame = Math.max(0, Math.min(sample / samplesPerFrame, frameCount) - PRIMING_FRAMES);
+        return Math.min(frame / STEP, offsets.length - 1) * STEP;
+    }
+
+    /**
+     * Used to get the byte offset of an indexed frame.
+     *
+     * @param frame Frame returned by findFrame.
+     * @return Offset from the start of the file.
+     */
+    public long getOffset(long frame) {
+        return offsets[(int) (frame / STEP)];
+    }
+
+    /**
+     * Used to get the number of frames in the file.
+     *
+     * @return Number of frames.
+     */
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Used to get the number of samples in a frame.
+     *
+     * @return 1152 for MPEG-1, 576 for MPEG-2 and 2.5
+     */
+    public int getSamplesPerFrame() {
+        return samplesPerFrame;
+    }
+
+    /**
+     * Used to get the sample rate of the file.
+     *
+     * @return Sample rate, for example 44100.
+     */
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Used to get the duration of the frames.
+     *
+     * @return Duration in seconds.
+     */
+    public double getDuration() {
+        return frameCount * samplesPerFrame / (double) sampleRate;
+    }
+
+    /**
+     * Used to write the index as a single line for the MetadataCache.
+     *
+     * @return The values separated by ';' and the offsets as differences
+     * separated by ','.
+     */
+    String encode() {
+        StringBuilder value = new StringBuilder()
+                .append(sampleRate).append(';')
+                .append(samplesPerFrame).append(';')
+                .append(frameCount).append(';')
+                .append(STEP).append(';');
+        long previous = 0;
+        for (int i = 0; i < offsets.length; i++) {
+            if (i > 0) {
+                value.append(',');
+            }
+            value.append(offsets[i] - previous);
+            previous = offsets[i];
+        }
+        return value.toString();
+    }
+
+    /**
+     * Reads an index written by encode.
+     *
+     * @param value Line from the MetadataCache.
+     * @return the index.
+     * @throws IllegalArgumentException If the value is not a valid index, or
+     *                                  was written with another STEP.
+     */
+    static Mp3SeekIndex decode(String value) {
+        String[] parts = value.split(";", -1);
+        if (parts.length != 5 || Integer.parseInt(parts[3]) != STEP || parts[4].isEmpty()) {
+            throw new IllegalArgumentException("Invalid seek index: " + value);
+        }
+        String[] deltas = parts[4].split(",");
+        long[] offsets = new long[deltas.length];
+        long previous = 0;
+        for (int i = 0; i < deltas.length; i++) {
+            previous += Long.parseLong(deltas[i]);
+            offsets[i] = previous;
+        }
+        return new Mp3SeekIndex(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Long.parseLong(parts[2]), offsets);
+    }
+
+    /**
+     * Reads bytes of a file through a window, so that reading the headers
+     * does not read the file a byte at a time.
+     */
+    private static class Reader {
+
+        private final RandomAccessFile file;
+        private final byte[] window;
+        private long windowStart;
+        private int windowLength;
+
+        Reader(RandomAccessFile file) {
+            this.file = file;
+            window = new byte[WINDOW_SIZE];
+        }
+
+        int read(long position) throws IOException {
+            if (position < windowStart || position >= windowStart + windowLength) {
+                file.seek(position);
+                windowStart = position;
+                windowLength = Math.max(0, file.read(window));
+                if (windowLength == 0) {
+                    return -1;
+                }
+            }
+            return window[(int) (position - windowStart)] & 0xFF;
+        }
+
+        int readInt(long position) throws IOException {
+            return read(position) << 24 | read(position + 1) << 16 | read(position + 2) << 8 | read(position + 3);
+        }
+    }
+}
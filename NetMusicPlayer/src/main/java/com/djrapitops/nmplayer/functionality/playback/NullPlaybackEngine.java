@@ -0,0 +1,85 @@
+package com.djrapitops.nmplayer.functionality.playback;
+
+import com.djrapitops.nmplayer.functionality.Track;
+import com.djrapitops.nmplayer.functionality.TrackTable;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * PlaybackEngine that decodes tracks and discards the audio, for tests,
+ * benchmarks and hosts without a display or a sound card.
+ * <p>
+ * At real-time speed a track takes as long to play as it would with a sound
+ * card, otherwise it is decoded as fast as possible. Files that javax.sound
+ * can not decode, such as .mp3 without a service provider, are played as
+ * silence of the length stored in the TrackTable.
+ *
+ * @author Rsl1122
+ * @see PlaybackEngine
+ */
+public class NullPlaybackEngine extends StreamPlaybackEngine {
+
+    private static final AudioFormat SILENCE_FORMAT = new AudioFormat(44100, 16, 2, true, false);
+
+    private final boolean realTime;
+
+    /**
+     * Creates a new NullPlaybackEngine.
+     *
+     * @param realTime Should tracks play at real-time speed instead of as
+     *                 fast as possible?
+     */
+    public NullPlaybackEngine(boolean realTime) {
+        super("Null");
+        this.realTime = realTime;
+    }
+
+    @Override
+    protected AudioInputStream openStream(Track track) throws IOException {
+        File file = new File(track.getFilePath());
+        if (!file.exists()) {
+            throw new IOException("File not found " + file);
+        }
+        try {
+            return openPcm(file);
+        } catch (UnsupportedAudioFileException e) {
+            long duration = Math.max(0, TrackTable.getInstance().getDuration(track.getId()));
+            long frames = (long) (duration * SILENCE_FORMAT.getFrameRate() / 1000);
+            return new AudioInputStream(new SilenceInputStream(), SILENCE_FORMAT, frames);
+        }
+    }
+
+    @Override
+    AudioSink createSink() {
+        return new NullSink(realTime);
+    }
+
+    /**
+     * InputStream of zero bytes that never ends, AudioInputStream limits it
+     * to the length of the track.
+     */
+    private static class SilenceInputStream extends InputStream {
+
+        @Override
+        public int read() {
+            return 0;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            Arrays.fill(buffer, offset, offset + length, (byte) 0);
+            return length;
+        }
+
+        @Override
+        public long skip(long n) {
+            return n;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.djrapitops.nmplayer.functionality.playback;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * AudioSink that discards the audio.
+ * <p>
+ * At real-time speed write blocks until the written audio would have been
+ * played, otherwise the audio is discarded as fast as it can be decoded.
+ *
+ * @author Rsl1122
+ * @see NullPlaybackEngine
+ */
+class NullSink implements AudioSink {
+
+    private final boolean realTime;
+    private double bytesPerNano;
+    private boolean running;
+    private long startNanos;
+    private long written;
+
+    /**
+     * Creates a new NullSink.
+     *
+     * @param realTime Should writing take as long as playing the audio?
+     */
+    NullSink(boolean realTime) {
+        this.realTime = realTime;
+    }
+
+    @Override
+    public void open(AudioFormat format) {
+        bytesPerNano = format.getFrameRate() * format.getFrameSize() / 1e9;
+    }
+
+    @Override
+    public void start() {
+        if (!running) {
+            running = true;
+            startNanos = System.nanoTime();
+            written = 0;
+        }
+    }
+
+    @Override
+    public void pause() {
+        running = false;
+    }
+
+    @Override
+    public void flush() {
+        startNanos = System.nanoTime();
+        written = 0;
+    }
+
+    @Override
+    public void drain() {
+        /* Written audio is never waiting to be output. */
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) {
+        written += length;
+        if (!realTime || bytesPerNano <= 0) {
+            return;
+        }
+        long wait = startNanos + (long) (written / bytesPerNano) - System.nanoTime();
+        if (wait > 0) {
+            try {
+                Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+    }
+}
@@ -0,0 +1,355 @@
+package com.djrapitops.nmplayer.functionality.playback;
+
+import com.djrapitops.nmplayer.functionality.Track;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Least recently used cache of decoded PCM audio of short tracks, used by a
+ * StreamPlaybackEngine in front of its decoder.
+ * <p>
+ * When a short track is opened for the first time, the decoded audio is
+ * copied into a buffer while it is played, and the buffer is added to the
+ * cache when the track has been read to the end. The next time it is opened,
+ * it is played from the buffer without reading the file, so jingles and
+ * loops that are replayed often start instantly. Opening a track never
+ * decodes more than the decoder does for playing it. Tracks longer than the
+ * entry limit, and tracks that are closed before their end, are not cached.
+ * <p>
+ * The buffers are held on the heap, or off the heap in direct ByteBuffers so
+ * that they do not grow the heap. The least recently used tracks are removed
+ * when the buffers use more than the budget. A track is decoded again if its
+ * file has been modified.
+ * <p>
+ * The methods are synchronized, the buffers are shared by the streams that
+ * read them.
+ *
+ * @author Rsl1122
+ * @see StreamPlaybackEngine#setPcmCache(PcmCache)
+ */
+public class PcmCache {
+
+    private final long budget;
+    private final long entryLimit;
+    private final boolean direct;
+    private final LinkedHashMap<String, Entry> entries;
+
+    private long memoryUse;
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates a new PcmCache.
+     *
+     * @param budget     Maximum bytes of the buffers.
+     * @param entryLimit Maximum bytes of the decoded audio of one track.
+     * @param direct     Should the buffers be direct ByteBuffers outside the
+     *                   heap?
+     * @throws IllegalArgumentException If budget or entryLimit is negative.
+     */
+    public PcmCache(long budget, long entryLimit, boolean direct) {
+        if (budget < 0 || entryLimit < 0) {
+            throw new IllegalArgumentException("Negative budget: " + budget + ", " + entryLimit);
+        }
+        this.budget = budget;
+        this.entryLimit = Math.min(Math.min(entryLimit, budget), Integer.MAX_VALUE);
+        this.direct = direct;
+        entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Opens a track from the cache, or with the decoder of the engine.
+     * <p>
+     * If the track is short enough, the audio read from the returned stream
+     * is added to the cache when the stream reaches its end.
+     *
+     * @param engine Engine that decodes the track.
+     * @param track  Track to open.
+     * @return Stream of the decoded audio.
+     * @throws IOException If the track can not be read or decoded.
+     */
+    AudioInputStream open(StreamPlaybackEngine engine, Track track) throws IOException {
+        String path = track.getFilePath();
+        long modified = new File(path).lastModified();
+        synchronized (this) {
+            Entry entry = entries.get(path);
+            if (entry != null && entry.modified == modified) {
+                hits++;
+                return entry.open();
+            }
+            misses++;
+        }
+        AudioInputStream stream = engine.openStream(track);
+        AudioFormat format = stream.getFormat();
+        long bytes = stream.getFrameLength() * format.getFrameSize();
+        if (stream.getFrameLength() < 0 || bytes > entryLimit) {
+            return stream;
+        }
+        return new AudioInputStream(new CachingInputStream(stream, path, modified, (int) bytes), format, stream.getFrameLength());
+    }
+
+    /**
+     * Tells if a track is in the cache and its file has not been modified.
+     *
+     * @param track Track to look for.
+     * @return true if opening the track would be a hit.
+     */
+    synchronized boolean contains(Track track) {
+        String path = track.getFilePath();
+        Entry entry = entries.get(path);
+        return entry != null && entry.modified == new File(path).lastModified();
+    }
+
+    private synchronized void put(String path, Entry entry) {
+        Entry old = entries.put(path, entry);
+        if (old != null) {
+            memoryUse -= old.size();
+        }
+        memoryUse += entry.size();
+        Iterator<Entry> leastRecent = entries.values().iterator();
+        while (memoryUse > budget && leastRecent.hasNext()) {
+            memoryUse -= leastRecent.next().size();
+            leastRecent.remove();
+        }
+    }
+
+    /**
+     * Removes every track from the cache. Streams that are playing from the
+     * cache keep their buffers until they are closed.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        memoryUse = 0;
+    }
+
+    /**
+     * Used to get the share of opened tracks that were found in the cache.
+     *
+     * @return a double from 0 to 1.0, 0 if no tracks have been opened.
+     */
+    public synchronized double getHitRate() {
+        long opened = hits + misses;
+        return opened > 0 ? hits / (double) opened : 0;
+    }
+
+    /**
+     * Used to get the number of tracks opened from the cache.
+     *
+     * @return Number of hits.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Used to get the number of tracks that were not in the cache when they
+     * were opened.
+     *
+     * @return Number of misses.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Used to get the bytes used by the buffers of the cached tracks.
+     *
+     * @return Bytes, at most the budget.
+     */
+    public synchronized long getMemoryUse() {
+        return memoryUse;
+    }
+
+    /**
+     * Used to get the maximum bytes of the buffers.
+     *
+     * @return Budget in bytes.
+     */
+    public long getBudget() {
+        return budget;
+    }
+
+    /**
+     * Used to get the number of cached tracks.
+     *
+     * @return Number of tracks.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Tells if the buffers are held outside the heap.
+     *
+     * @return true if direct ByteBuffers are used.
+     */
+    public boolean isDirect() {
+        return direct;
+    }
+
+    private static class Entry {
+
+        private final AudioFormat format;
+        private final ByteBuffer data;
+        private final long modified;
+
+        Entry(AudioFormat format, ByteBuffer data, long modified) {
+            this.format = format;
+            this.data = data;
+            this.modified = modified;
+        }
+
+        AudioInputStream open() {
+            return new AudioInputStream(new BufferInputStream(data.duplicate()), format, data.limit() / format.getFrameSize());
+        }
+
+        long size() {
+            return data.capacity();
+        }
+    }
+
+    /**
+     * InputStream that copies the audio read from a decoder into a buffer,
+     * and adds the buffer to the cache when the end has been read.
+     */
+    private class CachingInputStream extends InputStream {
+
+        private final AudioInputStream stream;
+        private final String path;
+        private final long modified;
+        private final int bytes;
+
+        private ByteBuffer buffer;
+        private boolean abandoned;
+
+        CachingInputStream(AudioInputStream stream, String path, long modified, int bytes) {
+            this.stream = stream;
+            this.path = path;
+            this.modified = modified;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == 1 ? single[0] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int offset, int length) throws IOException {
+            int read = stream.read(b, offset, length);
+            if (abandoned) {
+                return read;
+            }
+            if (read < 0) {
+                finish();
+            } else if (read > 0) {
+                if (buffer == null) {
+                    // Allocated by the reader, so that opening the track does not clear the memory.
+                    buffer = direct ? ByteBuffer.allocateDirect(bytes) : ByteBuffer.allocate(bytes);
+                }
+                if (read > buffer.remaining()) {
+                    // The decoder gave more audio than its frame length.
+                    abandon();
+                } else {
+                    buffer.put(b, offset, read);
+                    if (!buffer.hasRemaining()) {
+                        // AudioInputStream stops at the frame length without reading the end of the decoder.
+                        finish();
+                    }
+                }
+            }
+            return read;
+        }
+
+        /**
+         * Skips by reading, so that the skipped audio is cached too.
+         */
+        @Override
+        public long skip(long n) throws IOException {
+            byte[] skipped = new byte[(int) Math.max(0, Math.min(n, 64 * 1024))];
+            long total = 0;
+            while (total < n) {
+                int read = read(skipped, 0, (int) Math.min(skipped.length, n - total));
+                if (read <= 0) {
+                    break;
+                }
+                total += read;
+            }
+            return total;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return stream.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            abandon();
+            stream.close();
+        }
+
+        private void finish() {
+            if (buffer != null) {
+                buffer.flip();
+                put(path, new Entry(stream.getFormat(), buffer, modified));
+            }
+            abandon();
+        }
+
+        private void abandon() {
+            abandoned = true;
+            buffer = null;
+        }
+    }
+
+    /**
+     * InputStream that reads a ByteBuffer, each stream has its own position.
+     */
+    private static class BufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int read = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, read);
+            return read;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.djrapitops.nmplayer.functionality.playback;
+
+import com.djrapitops.nmplayer.functionality.Track;
+
+import java.util.concurrent.Future;
+
+/**
+ * Interface for the audio output used by MusicPlayer.
+ * <p>
+ * An engine opens a PlaybackHandle for each track. Every engine has one event
+ * thread: the callbacks of its PlaybackHandles and the tasks given to
+ * schedule are run on that thread. MusicPlayer passes them on to its event
+ * executor.
+ *
+ * @author Rsl1122
+ * @see PlaybackHandle
+ * @see JavaFxPlaybackEngine
+ * @see SoundPlaybackEngine
+ * @see NullPlaybackEngine
+ */
+public interface PlaybackEngine {
+
+    /**
+     * Opens a track for playback. The track is not played until
+     * PlaybackHandle.play() is called.
+     *
+     * @param track Track to open.
+     * @return a new PlaybackHandle.
+     * @throws IllegalStateException If the engine can not be used, for
+     *                               example if a JavaFX Application has not
+     *                               been started.
+     */
+    PlaybackHandle open(Track track);
+
+    /**
+     * Runs a task on the event thread of the engine after a delay.
+     *
+     * @param task        Task to run.
+     * @param delayMillis Delay in milliseconds.
+     * @return Future that can be used to cancel the task.
+     */
+    Future<?> schedule(Runnable task, long delayMillis);
+
+    /**
+     * Used to get the name of the engine, shown to the user.
+     *
+     * @return for example "JavaFX".
+     */
+    String getName();
+}
@@ -0,0 +1,84 @@
+package com.djrapitops.nmplayer.functionality.playback;
+
+/**
+ * Interface for the playback of a single track, opened with a PlaybackEngine.
+ * <p>
+ * Callbacks are run on the event thread of the PlaybackEngine. The methods
+ * can be called from any thread.
+ *
+ * @author Rsl1122
+ * @see PlaybackEngine
+ */
+public interface PlaybackHandle {
+
+    /**
+     * Begins or resumes the playback.
+     */
+    void play();
+
+    /**
+     * Pauses the playback, play() continues from the same position.
+     */
+    void pause();
+
+    /**
+     * Stops the playback, play() starts from the beginning.
+     */
+    void stop();
+
+    /**
+     * Frees the resources of the playback. The handle can not be used after
+     * this.
+     */
+    void dispose();
+
+    /**
+     * Changes the play position.
+     *
+     * @param seconds New position in seconds.
+     */
+    void seek(double seconds);
+
+    /**
+     * Used to get the play position.
+     *
+     * @return Position in seconds.
+     */
+    double getCurrentTime();
+
+    /**
+     * Used to get the length of the track.
+     *
+     * @return Length in seconds, NaN if not known yet.
+     */
+    double getTotalDuration();
+
+    /**
+     * Used to set the volume of the playback.
+     *
+     * @param volume a double from 0 to 1.0
+     */
+    void setVolume(double volume);
+
+    /**
+     * Used to set the task that is run when the end of the track is reached.
+     *
+     * @param task Task to run.
+     */
+    void setOnEndOfMedia(Runnable task);
+
+    /**
+     * Used to set the task that is run when the playback starts or resumes.
+     *
+     * @param task Task to run.
+     */
+    void setOnPlaying(Runnable task);
+
+    /**
+     * Used to set the task that is run when the track has been opened and its
+     * duration is known.
+     *
+     * @param task Task to run.
+     */
+    void setOnReady(Runnable task);
+}
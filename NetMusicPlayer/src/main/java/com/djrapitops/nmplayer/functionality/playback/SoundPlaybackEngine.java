@@ -0,0 +1,43 @@
+package com.djrapitops.nmplayer.functionality.playback;
+
+import com.djrapitops.nmplayer.functionality.Track;
+
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * PlaybackEngine that plays tracks through a javax.sound.sampled
+ * SourceDataLine, without JavaFX.
+ * <p>
+ * WAV, AIFF and AU files are supported by every Java runtime. Other formats,
+ * such as .mp3, can be played if a javax.sound service provider for them is
+ * on the classpath.
+ *
+ * @author Rsl1122
+ * @see PlaybackEngine
+ */
+public class SoundPlaybackEngine extends StreamPlaybackEngine {
+
+    /**
+     * Creates a new SoundPlaybackEngine.
+     */
+    public SoundPlaybackEngine() {
+        super("Sound");
+    }
+
+    @Override
+    protected AudioInputStream openStream(Track track) throws IOException {
+        try {
+            return openPcm(new File(track.getFilePath()));
+        } catch (UnsupportedAudioFileException e) {
+            throw new IOException("Unsupported audio file " + track.getFilePath(), e);
+        }
+    }
+
+    @Override
+    AudioSink createSink() {
+        return new LineSink();
+    }
+}
@@ -0,0 +1,266 @@
+package com.djrapitops.nmplayer.functionality.playback;
+
+import com.djrapitops.nmplayer.functionality.Track;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base class for PlaybackEngines that decode tracks with javax.sound.sampled
+ * and write the decoded audio to an AudioSink.
+ * <p>
+ * Every PlaybackHandle decodes on its own thread. Callbacks and scheduled
+ * tasks are run on a single event thread owned by the engine. No JavaFX
+ * classes are used.
+ * <p>
+ * Short tracks are kept decoded in a PcmCache, so replaying them does not
+ * read or decode the file again. .mp3 files are seeked with a Mp3SeekIndex,
+ * which is built when a file is seeked for the first time.
+ *
+ * @author Rsl1122
+ * @see SoundPlaybackEngine
+ * @see NullPlaybackEngine
+ */
+public abstract class StreamPlaybackEngine implements PlaybackEngine {
+
+    private static final long DEFAULT_CACHE_BUDGET = 64L * 1024 * 1024;
+    private static final long DEFAULT_CACHE_ENTRY_LIMIT = 16L * 1024 * 1024;
+
+    private final String name;
+    private final ScheduledExecutorService events;
+    private volatile PcmCache pcmCache;
+
+    /**
+     * Creates a new engine with its own event thread.
+     *
+     * @param name Name of the engine.
+     */
+    protected StreamPlaybackEngine(String name) {
+        this.name = name;
+        events = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "NMPlayer " + name + " Events");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pcmCache = new PcmCache(DEFAULT_CACHE_BUDGET, DEFAULT_CACHE_ENTRY_LIMIT, false);
+    }
+
+    /**
+     * Opens the decoded audio of a track.
+     *
+     * @param track Track to open.
+     * @return Stream of 16 bit signed little-endian PCM.
+     * @throws IOException If the track can not be read or decoded.
+     */
+    protected abstract AudioInputStream openStream(Track track) throws IOException;
+
+    /**
+     * Opens the decoded audio of a track from a frame, without decoding the
+     * audio before it.
+     * <p>
+     * By default .mp3 files are opened from the frame with openPcmAt.
+     *
+     * @param track Track to open.
+     * @param frame Frame of the decoded audio the stream should start from.
+     * @return Stream of 16 bit signed little-endian PCM, or null if the track
+     * can only be seeked by decoding it from the start.
+     * @throws IOException If the track can not be read or decoded.
+     */
+    protected AudioInputStream openStream(Track track, long frame) throws IOException {
+        try {
+            return openPcmAt(new File(track.getFilePath()), frame);
+        } catch (UnsupportedAudioFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Opens the decoded audio of a track from a frame, unless the track is in
+     * the PcmCache, which seeks without decoding.
+     *
+     * @param track Track to open.
+     * @param frame Frame of the decoded audio the stream should start from.
+     * @return Stream of 16 bit signed little-endian PCM, or null if the track
+     * should be seeked by skipping.
+     * @throws IOException If the track can not be read or decoded.
+     */
+    AudioInputStream openAt(Track track, long frame) throws IOException {
+        PcmCache cache = pcmCache;
+        if (cache != null && cache.contains(track)) {
+            return null;
+        }
+        return openStream(track, frame);
+    }
+
+    /**
+     * Opens the decoded audio of a track from the PcmCache, or with
+     * openStream if caching is off.
+     *
+     * @param track Track to open.
+     * @return Stream of 16 bit signed little-endian PCM.
+     * @throws IOException If the track can not be read or decoded.
+     */
+    AudioInputStream openCached(Track track) throws IOException {
+        PcmCache cache = pcmCache;
+        return cache != null ? cache.open(this, track) : openStream(track);
+    }
+
+    /**
+     * Used to set the cache of decoded tracks. By default short tracks are
+     * cached on the heap, up to 64 MB.
+     *
+     * @param cache PcmCache, or null to decode every track from the file.
+     */
+    public void setPcmCache(PcmCache cache) {
+        pcmCache = cache;
+    }
+
+    /**
+     * Used to get the cache of decoded tracks, for example to read its hit
+     * rate and memory use.
+     *
+     * @return PcmCache, or null if caching is off.
+     */
+    public PcmCache getPcmCache() {
+        return pcmCache;
+    }
+
+    /**
+     * Creates the AudioSink a PlaybackHandle writes to.
+     *
+     * @return a new AudioSink.
+     */
+    abstract AudioSink createSink();
+
+    @Override
+    public PlaybackHandle open(Track track) {
+        try {
+            return new StreamPlaybackHandle(this, track);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Could not open " + track.getFilePath(), e);
+        }
+    }
+
+    @Override
+    public Future<?> schedule(Runnable task, long delayMillis) {
+        return events.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Runs a callback on the event thread.
+     *
+     * @param task Callback, nothing is done if null.
+     */
+    void runEvent(Runnable task) {
+        if (task != null) {
+            events.execute(task);
+        }
+    }
+
+    /**
+     * Tells if a javax.sound service provider that decodes .mp3 files is on
+     * the classpath. Java runtimes do not have one, without it .mp3 files can
+     * not be decoded by the engines based on this class.
+     *
+     * @return true if MPEG layer 3 audio can be converted to PCM.
+     */
+    public static boolean isMp3Supported() {
+        AudioFormat mp3 = new AudioFormat(new AudioFormat.Encoding("MPEG1L3"), 44100, AudioSystem.NOT_SPECIFIED,
+                2, AudioSystem.NOT_SPECIFIED, AudioSystem.NOT_SPECIFIED, false);
+        return AudioSystem.isConversionSupported(AudioFormat.Encoding.PCM_SIGNED, mp3);
+    }
+
+    /**
+     * Opens an audio file with AudioSystem and converts it to 16 bit signed
+     * little-endian PCM.
+     *
+     * @param file Audio file.
+     * @return Stream of PCM audio.
+     * @throws IOException                   If the file can not be read.
+     * @throws UnsupportedAudioFileException If no installed decoder supports
+     *                                       the file.
+     */
+    protected static AudioInputStream openPcm(File file) throws IOException, UnsupportedAudioFileException {
+        return toPcm(AudioSystem.getAudioInputStream(file));
+    }
+
+    /**
+     * Opens an .mp3 file from a frame of the decoded audio with AudioSystem,
+     * and converts it to 16 bit signed little-endian PCM.
+     * <p>
+     * Reading starts from the frame given by the Mp3SeekIndex of the file,
+     * and the audio decoded before the requested frame is skipped, so only a
+     * few MPEG frames are decoded no matter where the frame is.
+     *
+     * @param file  Audio file.
+     * @param frame Frame of the decoded audio the stream should start from.
+     * @return Stream of PCM audio, or null if the file is not an .mp3 file.
+     * @throws IOException                   If the file can not be read.
+     * @throws UnsupportedAudioFileException If no installed decoder supports
+     *                                       the file.
+     * @see Mp3SeekIndex
+     */
+    protected static AudioInputStream openPcmAt(File file, long frame) throws IOException, UnsupportedAudioFileException {
+        if (!Mp3SeekIndex.isMp3(file)) {
+            return null;
+        }
+        Mp3SeekIndex index = Mp3SeekIndex.get(file);
+        long start = index.findFrame(frame);
+        InputStream in = new BufferedInputStream(new FileInputStream(file));
+        AudioInputStream pcm;
+        try {
+            skipFully(in, index.getOffset(start));
+            pcm = toPcm(AudioSystem.getAudioInputStream(in));
+        } catch (IOException | UnsupportedAudioFileException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+        if (pcm.getFormat().getSampleRate() != index.getSampleRate()) {
+            pcm.close();
+            return null;
+        }
+        skipFully(pcm, (frame - start * index.getSamplesPerFrame()) * pcm.getFormat().getFrameSize());
+        return pcm;
+    }
+
+    private static void skipFully(InputStream in, long bytes) throws IOException {
+        while (bytes > 0) {
+            long skipped = in.skip(bytes);
+            if (skipped <= 0) {
+                break;
+            }
+            bytes -= skipped;
+        }
+    }
+
+    private static AudioInputStream toPcm(AudioInputStream source) throws IOException, UnsupportedAudioFileException {
+        AudioFormat format = source.getFormat();
+        AudioFormat pcm = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, format.getSampleRate(), 16,
+                format.getChannels(), format.getChannels() * 2, format.getSampleRate(), false);
+        if (format.matches(pcm)) {
+            return source;
+        }
+        try {
+            return AudioSystem.getAudioInputStream(pcm, source);
+        } catch (IllegalArgumentException e) {
+            source.close();
+            throw new UnsupportedAudioFileException("Can not convert " + format + " to PCM");
+        }
+    }
+}
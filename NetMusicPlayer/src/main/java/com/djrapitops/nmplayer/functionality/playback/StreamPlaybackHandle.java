@@ -0,0 +1,288 @@
+package com.djrapitops.nmplayer.functionality.playback;
+
+import com.djrapitops.nmplayer.fileutils.ErrorManager;
+import com.djrapitops.nmplayer.functionality.Track;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.LineUnavailableException;
+import java.io.IOException;
+
+/**
+ * PlaybackHandle of a StreamPlaybackEngine.
+ * <p>
+ * A playback thread is started on the first play(). It reads the decoded
+ * audio in blocks of BUFFER_MILLIS, scales it with the volume and writes it
+ * to the AudioSink. The other methods only change the state under a lock, the
+ * playback thread acts on the change.
+ *
+ * @author Rsl1122
+ * @see StreamPlaybackEngine
+ */
+class StreamPlaybackHandle implements PlaybackHandle {
+
+    private static final int BUFFER_MILLIS = 50;
+    private static final int SKIP_LIMIT_SECONDS = 5;
+
+    private enum State {
+        STOPPED,
+        PLAYING,
+        PAUSED,
+        DISPOSED
+    }
+
+    private final StreamPlaybackEngine engine;
+    private final Track track;
+    private final Object lock;
+    private final AudioFormat format;
+    private final long totalFrames;
+
+    private AudioInputStream stream;
+    private Thread thread;
+    private State state;
+    private long seekFrame;
+    private volatile long frame;
+    private volatile double volume;
+
+    private volatile Runnable onEndOfMedia;
+    private volatile Runnable onPlaying;
+    private volatile Runnable onReady;
+
+    StreamPlaybackHandle(StreamPlaybackEngine engine, Track track) throws IOException {
+        this.engine = engine;
+        this.track = track;
+        lock = new Object();
+        stream = engine.openCached(track);
+        format = stream.getFormat();
+        totalFrames = stream.getFrameLength();
+        state = State.STOPPED;
+        seekFrame = -1;
+        volume = 1.0;
+    }
+
+    @Override
+    public void play() {
+        synchronized (lock) {
+            if (state == State.DISPOSED) {
+                return;
+            }
+            state = State.PLAYING;
+            if (thread == null) {
+                thread = new Thread(this::playback, "NMPlayer Playback " + track.getName());
+                thread.setDaemon(true);
+                thread.start();
+            }
+            lock.notifyAll();
+        }
+        engine.runEvent(() -> run(onPlaying));
+    }
+
+    @Override
+    public void pause() {
+        synchronized (lock) {
+            if (state == State.PLAYING) {
+                state = State.PAUSED;
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        synchronized (lock) {
+            if (state == State.DISPOSED) {
+                return;
+            }
+            state = State.STOPPED;
+            seekFrame = 0;
+            frame = 0;
+            lock.notifyAll();
+        }
+    }
+
+    @Override
+    public void dispose() {
+        synchronized (lock) {
+            state = State.DISPOSED;
+            lock.notifyAll();
+            if (thread == null) {
+                close(stream);
+            }
+        }
+    }
+
+    @Override
+    public void seek(double seconds) {
+        synchronized (lock) {
+            seekFrame = Math.max(0, (long) (seconds * format.getFrameRate()));
+            frame = seekFrame;
+            lock.notifyAll();
+        }
+    }
+
+    @Override
+    public double getCurrentTime() {
+        return frame / format.getFrameRate();
+    }
+
+    @Override
+    public double getTotalDuration() {
+        return totalFrames >= 0 ? totalFrames / format.getFrameRate() : Double.NaN;
+    }
+
+    @Override
+    public void setVolume(double volume) {
+        this.volume = volume;
+    }
+
+    @Override
+    public void setOnEndOfMedia(Runnable task) {
+        onEndOfMedia = task;
+    }
+
+    @Override
+    public void setOnPlaying(Runnable task) {
+        onPlaying = task;
+    }
+
+    @Override
+    public void setOnReady(Runnable task) {
+        onReady = task;
+        // The stream was opened by the constructor, so the track is ready as soon as someone listens.
+        engine.runEvent(() -> run(task));
+    }
+
+    /**
+     * Body of the playback thread.
+     */
+    private void playback() {
+        int frameSize = format.getFrameSize();
+        byte[] buffer = new byte[frameSize * Math.max(1, (int) (format.getFrameRate() * BUFFER_MILLIS / 1000))];
+        AudioSink sink = engine.createSink();
+        // The stream is at its start, a seek made before playing is pending in seekFrame.
+        long position = 0;
+        try {
+            sink.open(format);
+            while (true) {
+                long seekTo;
+                synchronized (lock) {
+                    while ((state == State.STOPPED || state == State.PAUSED) && seekFrame == -1) {
+                        sink.pause();
+                        lock.wait();
+                    }
+                    if (state == State.DISPOSED) {
+                        break;
+                    }
+                    seekTo = seekFrame;
+                    seekFrame = -1;
+                }
+                if (seekTo != -1) {
+                    position = reposition(position, seekTo);
+                    sink.flush();
+                    continue;
+                }
+                sink.start();
+                int read = stream.read(buffer, 0, buffer.length);
+                if (read == -1) {
+                    sink.drain();
+                    if (endOfMedia()) {
+                        engine.runEvent(() -> run(onEndOfMedia));
+                    }
+                    continue;
+                }
+                applyVolume(buffer, read);
+                sink.write(buffer, 0, read);
+                position += read / frameSize;
+                synchronized (lock) {
+                    if (seekFrame == -1) {
+                        frame = position;
+                    }
+                }
+            }
+        } catch (IOException | LineUnavailableException e) {
+            ErrorManager.toLog(StreamPlaybackHandle.class, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            sink.close();
+            close(stream);
+        }
+    }
+
+    private boolean endOfMedia() {
+        synchronized (lock) {
+            if (state == State.PLAYING && seekFrame == -1) {
+                state = State.STOPPED;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Moves the stream to a frame. Moving backwards or far forwards opens the
+     * stream from the frame if the engine can, otherwise moving backwards
+     * opens the stream again and the audio before the frame is skipped.
+     *
+     * @return the new position.
+     */
+    private long reposition(long position, long target) throws IOException {
+        if (target < position || target - position > format.getFrameRate() * SKIP_LIMIT_SECONDS) {
+            AudioInputStream seeked;
+            try {
+                seeked = engine.openAt(track, target);
+            } catch (IOException e) {
+                // Seeked by skipping instead.
+                seeked = null;
+            }
+            if (seeked != null) {
+                close(stream);
+                stream = seeked;
+                return target;
+            }
+        }
+        if (target < position) {
+            close(stream);
+            stream = engine.openCached(track);
+            position = 0;
+        }
+        long bytes = (target - position) * format.getFrameSize();
+        while (bytes > 0) {
+            long skipped = stream.skip(bytes);
+            if (skipped <= 0) {
+                break;
+            }
+            bytes -= skipped;
+        }
+        return target - bytes / format.getFrameSize();
+    }
+
+    /**
+     * Scales 16 bit little-endian samples with the volume.
+     */
+    private void applyVolume(byte[] buffer, int length) {
+        double volume = this.volume;
+        if (volume >= 1.0) {
+            return;
+        }
+        for (int i = 0; i + 1 < length; i += 2) {
+            int sample = (short) ((buffer[i] & 0xff) | (buffer[i + 1] << 8));
+            sample = (int) (sample * volume);
+            buffer[i] = (byte) sample;
+            buffer[i + 1] = (byte) (sample >> 8);
+        }
+    }
+
+    private static void run(Runnable task) {
+        if (task != null) {
+            task.run();
+        }
+    }
+
+    private static void close(AudioInputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            ErrorManager.toLog(StreamPlaybackHandle.class, e);
+        }
+    }
+}
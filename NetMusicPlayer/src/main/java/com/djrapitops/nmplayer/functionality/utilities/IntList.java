@@ -0,0 +1,164 @@
+package com.djrapitops.nmplayer.functionality.utilities;
+
+import java.util.Arrays;
+
+/**
+ * This class is a growable list of primitive int values.
+ * <p>
+ * Used in place of List&lt;Integer&gt; where large amounts of numbers are
+ * stored, as no boxed objects are created.
+ *
+ * @author Rsl1122
+ */
+public class IntList {
+
+    private int[] values;
+    private int size;
+
+    /**
+     * Creates a new empty IntList.
+     */
+    public IntList() {
+        this(8);
+    }
+
+    /**
+     * Creates a new empty IntList with room for the given amount of numbers.
+     *
+     * @param capacity Initial capacity.
+     */
+    public IntList(int capacity) {
+        values = new int[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Creates a new IntList that contains the given numbers.
+     *
+     * @param values Numbers to add, the array is copied.
+     */
+    public IntList(int[] values) {
+        this.values = Arrays.copyOf(values, Math.max(values.length, 1));
+        this.size = values.length;
+    }
+
+    /**
+     * Adds a number to the end of the list.
+     *
+     * @param value Number to add.
+     */
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size + (size >> 1) + 1);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Adds a number to the given position on the list, moving the numbers
+     * after it forward.
+     *
+     * @param index Position of the new number.
+     * @param value Number to add.
+     * @throws IndexOutOfBoundsException If index is not between 0 and size.
+     */
+    public void insert(int index, int value) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size + (size >> 1) + 1);
+        }
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = value;
+        size++;
+    }
+
+    /**
+     * Removes the number in the given position of the list.
+     *
+     * @param index Position of the number.
+     * @return the removed number.
+     * @throws IndexOutOfBoundsException If index is not on the list.
+     */
+    public int removeAt(int index) {
+        int value = get(index);
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        return value;
+    }
+
+    /**
+     * Replaces the number in the given position of the list.
+     *
+     * @param index Position of the number.
+     * @param value New number.
+     * @throws IndexOutOfBoundsException If index is not on the list.
+     */
+    public void set(int index, int value) {
+        get(index);
+        values[index] = value;
+    }
+
+    /**
+     * Used to get the position of the first occurrence of a number.
+     *
+     * @param value Number to look for.
+     * @return Position of the number, -1 if not found.
+     */
+    public int indexOf(int value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Used to get a number on the list.
+     *
+     * @param index Index of the number.
+     * @return the number.
+     * @throws IndexOutOfBoundsException If index is not on the list.
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return values[index];
+    }
+
+    /**
+     * Used to get the amount of numbers on the list.
+     *
+     * @return size of the list.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check whether or not the list is empty.
+     *
+     * @return Emptiness state of the list.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all numbers from the list.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Used to get the numbers in an array that is exactly the size of the list.
+     *
+     * @return a new array.
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
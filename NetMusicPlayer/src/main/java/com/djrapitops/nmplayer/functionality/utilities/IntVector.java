@@ -0,0 +1,424 @@
+package com.djrapitops.nmplayer.functionality.utilities;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * This class is an immutable list of primitive int values.
+ * <p>
+ * Methods that change the list return a new IntVector and leave the old one
+ * untouched, so an IntVector can be read by any thread without locking.
+ * <p>
+ * The numbers are stored in a tree: leaves hold at most NODE_SIZE numbers and
+ * branches at most NODE_SIZE children. A change copies only the nodes on the
+ * path from the root to the changed leaf, O(log n) nodes, and every other
+ * node is shared between the old and the new IntVector. This makes it cheap
+ * to keep old versions around, for example for undo.
+ *
+ * @author Rsl1122
+ */
+public final class IntVector {
+
+    /**
+     * An IntVector with no numbers.
+     */
+    public static final IntVector EMPTY = new IntVector(null, 0);
+
+    private static final int NODE_SIZE = 64;
+
+    private final Node root;
+    private final int size;
+
+    private IntVector(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Creates a new IntVector that contains the given numbers.
+     *
+     * @param values Numbers in order, the array is copied.
+     * @return a new IntVector.
+     */
+    public static IntVector of(int[] values) {
+        if (values.length == 0) {
+            return EMPTY;
+        }
+        Node[] level = new Node[(values.length + NODE_SIZE - 1) / NODE_SIZE];
+        for (int i = 0; i < level.length; i++) {
+            int start = i * NODE_SIZE;
+            level[i] = new Leaf(Arrays.copyOfRange(values, start, Math.min(start + NODE_SIZE, values.length)));
+        }
+        while (level.length > 1) {
+            Node[] parents = new Node[(level.length + NODE_SIZE - 1) / NODE_SIZE];
+            for (int i = 0; i < parents.length; i++) {
+                int start = i * NODE_SIZE;
+                parents[i] = new Branch(Arrays.copyOfRange(level, start, Math.min(start + NODE_SIZE, level.length)));
+            }
+            level = parents;
+        }
+        return new IntVector(level[0], values.length);
+    }
+
+    /**
+     * Used to get a number on the list.
+     *
+     * @param index Index of the number.
+     * @return the number.
+     * @throws IndexOutOfBoundsException If index is not on the list.
+     */
+    public int get(int index) {
+        checkIndex(index, size - 1);
+        Node node = root;
+        while (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            int c = branch.childOf(index);
+            index -= branch.start(c);
+            node = branch.children[c];
+        }
+        return ((Leaf) node).values[index];
+    }
+
+    /**
+     * Used to get the amount of numbers on the list.
+     *
+     * @return size of the list.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check whether or not the list is empty.
+     *
+     * @return Emptiness state of the list.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Used to get the position of the first occurrence of a number.
+     *
+     * @param value Number to look for.
+     * @return Position of the number, -1 if not found.
+     */
+    public int indexOf(int value) {
+        return root != null ? root.indexOf(value, 0) : -1;
+    }
+
+    /**
+     * Used to get a list with a number added to the end.
+     *
+     * @param value Number to add.
+     * @return a new IntVector.
+     */
+    public IntVector add(int value) {
+        return insert(size, value);
+    }
+
+    /**
+     * Used to get a list with a number added to the given position, the
+     * numbers after it are moved forward.
+     *
+     * @param index Position of the new number.
+     * @param value Number to add.
+     * @return a new IntVector.
+     * @throws IndexOutOfBoundsException If index is not between 0 and size.
+     */
+    public IntVector insert(int index, int value) {
+        checkIndex(index, size);
+        if (root == null) {
+            return new IntVector(new Leaf(new int[]{value}), 1);
+        }
+        Node[] result = root.insert(index, value);
+        Node newRoot = result.length == 1 ? result[0] : new Branch(result);
+        return new IntVector(newRoot, size + 1);
+    }
+
+    /**
+     * Used to get a list without the number in the given position.
+     *
+     * @param index Position of the number.
+     * @return a new IntVector.
+     * @throws IndexOutOfBoundsException If index is not on the list.
+     */
+    public IntVector removeAt(int index) {
+        checkIndex(index, size - 1);
+        return withRoot(root.remove(index), size - 1);
+    }
+
+    /**
+     * Used to get a list without the numbers in the positions that match the
+     * filter, in a single pass.
+     * <p>
+     * Parts of the list that have no removed positions are shared with this
+     * list.
+     *
+     * @param removed Filter that tells if the number in a position is removed.
+     * @return a new IntVector, or this IntVector if nothing was removed.
+     */
+    public IntVector removePositions(IntPredicate removed) {
+        if (root == null) {
+            return this;
+        }
+        Node newRoot = root.removePositions(removed, 0);
+        if (newRoot == root) {
+            return this;
+        }
+        return withRoot(newRoot, newRoot != null ? newRoot.size() : 0);
+    }
+
+    /**
+     * Used to get the numbers in an array that is exactly the size of the list.
+     *
+     * @return a new array.
+     */
+    public int[] toArray() {
+        int[] values = new int[size];
+        if (root != null) {
+            root.copyTo(values, 0);
+        }
+        return values;
+    }
+
+    private static IntVector withRoot(Node root, int size) {
+        while (root instanceof Branch && ((Branch) root).children.length == 1) {
+            root = ((Branch) root).children[0];
+        }
+        return root != null ? new IntVector(root, size) : EMPTY;
+    }
+
+    private void checkIndex(int index, int max) {
+        if (index < 0 || index > max) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * Node of the tree. Nodes are never changed after they are created.
+     */
+    private abstract static class Node {
+
+        abstract int size();
+
+        abstract int indexOf(int value, int offset);
+
+        abstract void copyTo(int[] target, int offset);
+
+        /**
+         * @return the new node, or two nodes if the node had to be split.
+         */
+        abstract Node[] insert(int index, int value);
+
+        /**
+         * @return the new node, or null if the node became empty.
+         */
+        abstract Node remove(int index);
+
+        /**
+         * @return the new node, this node if nothing was removed, or null if
+         * the node became empty.
+         */
+        abstract Node removePositions(IntPredicate removed, int offset);
+    }
+
+    private static final class Leaf extends Node {
+
+        private final int[] values;
+
+        Leaf(int[] values) {
+            this.values = values;
+        }
+
+        @Override
+        int size() {
+            return values.length;
+        }
+
+        @Override
+        int indexOf(int value, int offset) {
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] == value) {
+                    return offset + i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        void copyTo(int[] target, int offset) {
+            System.arraycopy(values, 0, target, offset, values.length);
+        }
+
+        @Override
+        Node[] insert(int index, int value) {
+            int[] grown = new int[values.length + 1];
+            System.arraycopy(values, 0, grown, 0, index);
+            grown[index] = value;
+            System.arraycopy(values, index, grown, index + 1, values.length - index);
+            if (grown.length <= NODE_SIZE) {
+                return new Node[]{new Leaf(grown)};
+            }
+            int half = grown.length / 2;
+            return new Node[]{
+                    new Leaf(Arrays.copyOfRange(grown, 0, half)),
+                    new Leaf(Arrays.copyOfRange(grown, half, grown.length))
+            };
+        }
+
+        @Override
+        Node remove(int index) {
+            if (values.length == 1) {
+                return null;
+            }
+            int[] shrunk = new int[values.length - 1];
+            System.arraycopy(values, 0, shrunk, 0, index);
+            System.arraycopy(values, index + 1, shrunk, index, shrunk.length - index);
+            return new Leaf(shrunk);
+        }
+
+        @Override
+        Node removePositions(IntPredicate removed, int offset) {
+            int[] kept = null;
+            int keptSize = 0;
+            for (int i = 0; i < values.length; i++) {
+                if (removed.test(offset + i)) {
+                    if (kept == null) {
+                        kept = Arrays.copyOf(values, values.length);
+                        keptSize = i;
+                    }
+                } else if (kept != null) {
+                    kept[keptSize++] = values[i];
+                }
+            }
+            if (kept == null) {
+                return this;
+            }
+            return keptSize > 0 ? new Leaf(Arrays.copyOf(kept, keptSize)) : null;
+        }
+    }
+
+    private static final class Branch extends Node {
+
+        private final Node[] children;
+        private final int[] ends;
+
+        Branch(Node[] children) {
+            this.children = children;
+            this.ends = new int[children.length];
+            int end = 0;
+            for (int i = 0; i < children.length; i++) {
+                end += children[i].size();
+                ends[i] = end;
+            }
+        }
+
+        @Override
+        int size() {
+            return ends[ends.length - 1];
+        }
+
+        /**
+         * Finds the child that contains the index with a binary search over
+         * the child end positions.
+         */
+        int childOf(int index) {
+            int low = 0;
+            int high = ends.length - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (ends[mid] <= index) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        int start(int c) {
+            return c == 0 ? 0 : ends[c - 1];
+        }
+
+        @Override
+        int indexOf(int value, int offset) {
+            for (int c = 0; c < children.length; c++) {
+                int index = children[c].indexOf(value, offset + start(c));
+                if (index != -1) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        void copyTo(int[] target, int offset) {
+            for (int c = 0; c < children.length; c++) {
+                children[c].copyTo(target, offset + start(c));
+            }
+        }
+
+        @Override
+        Node[] insert(int index, int value) {
+            // An index at the end is added to the last child, so appending fills the last leaf.
+            int c = index == size() ? children.length - 1 : childOf(index);
+            Node[] result = children[c].insert(index - start(c), value);
+            Node[] newChildren;
+            if (result.length == 1) {
+                newChildren = children.clone();
+                newChildren[c] = result[0];
+            } else {
+                newChildren = new Node[children.length + 1];
+                System.arraycopy(children, 0, newChildren, 0, c);
+                newChildren[c] = result[0];
+                newChildren[c + 1] = result[1];
+                System.arraycopy(children, c + 1, newChildren, c + 2, children.length - c - 1);
+            }
+            if (newChildren.length <= NODE_SIZE) {
+                return new Node[]{new Branch(newChildren)};
+            }
+            int half = newChildren.length / 2;
+            return new Node[]{
+                    new Branch(Arrays.copyOfRange(newChildren, 0, half)),
+                    new Branch(Arrays.copyOfRange(newChildren, half, newChildren.length))
+            };
+        }
+
+        @Override
+        Node remove(int index) {
+            int c = childOf(index);
+            Node child = children[c].remove(index - start(c));
+            if (child != null) {
+                Node[] newChildren = children.clone();
+                newChildren[c] = child;
+                return new Branch(newChildren);
+            }
+            if (children.length == 1) {
+                return null;
+            }
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(children, 0, newChildren, 0, c);
+            System.arraycopy(children, c + 1, newChildren, c, newChildren.length - c);
+            return new Branch(newChildren);
+        }
+
+        @Override
+        Node removePositions(IntPredicate removed, int offset) {
+            Node[] newChildren = new Node[children.length];
+            int count = 0;
+            boolean changed = false;
+            for (int c = 0; c < children.length; c++) {
+                Node child = children[c].removePositions(removed, offset + start(c));
+                changed |= child != children[c];
+                if (child != null) {
+                    newChildren[count++] = child;
+                }
+            }
+            if (!changed) {
+                return this;
+            }
+            return count > 0 ? new Branch(Arrays.copyOf(newChildren, count)) : null;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.djrapitops.nmplayer.functionality.utilities;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Utility for combining two playlists with set operations.
+ * <p>
+ * File paths are turned into dense int ids with a StringPool, and membership
+ * is tested with BitSets over the ids, so an operation is linear in the size
+ * of the playlists and does not create an object for each track. The result
+ * keeps the order of the first playlist, followed by the order of the second
+ * playlist. Duplicate paths are included only once.
+ *
+ * @author Rsl1122
+ */
+public class PlaylistAlgebra {
+
+    /**
+     * Set operations that can be used to combine playlists.
+     */
+    public enum Operation {
+        UNION('+'),
+        INTERSECTION('&'),
+        DIFFERENCE('-'),
+        SYMMETRIC_DIFFERENCE('^');
+
+        private final char symbol;
+
+        Operation(char symbol) {
+            this.symbol = symbol;
+        }
+
+        /**
+         * Used to get the Operation written with a symbol.
+         *
+         * @param symbol One of + &amp; - ^
+         * @return the Operation, or null if the symbol is not known.
+         */
+        public static Operation fromSymbol(char symbol) {
+            for (Operation operation : values()) {
+                if (operation.symbol == symbol) {
+                    return operation;
+                }
+            }
+            return null;
+        }
+    }
+
+    private PlaylistAlgebra() {
+        /* Hide constructor. */
+    }
+
+    /**
+     * Combines two lists of file paths.
+     *
+     * @param first     File paths of the first playlist.
+     * @param operation Operation to perform.
+     * @param second    File paths of the second playlist.
+     * @return a new List of file paths.
+     */
+    public static List<String> combine(List<String> first, Operation operation, List<String> second) {
+        StringPool pool = new StringPool();
+        int[] firstIds = toIds(first, pool);
+        int[] secondIds = toIds(second, pool);
+        int[] result = combine(firstIds, operation, secondIds, pool.size());
+        List<String> paths = new ArrayList<>(result.length);
+        for (int id : result) {
+            paths.add(pool.get(id));
+        }
+        return paths;
+    }
+
+    /**
+     * Combines two sequences of ids.
+     *
+     * @param first     ids of the first playlist, in playlist order.
+     * @param operation Operation to perform.
+     * @param second    ids of the second playlist, in playlist order.
+     * @param idLimit   Every id is smaller than this number.
+     * @return ids of the result, in order.
+     */
+    public static int[] combine(int[] first, Operation operation, int[] second, int idLimit) {
+        BitSet inFirst = toBitSet(first, idLimit);
+        BitSet inSecond = toBitSet(second, idLimit);
+        BitSet added = new BitSet(idLimit);
+        int[] result = new int[first.length + second.length];
+        int size = 0;
+        switch (operation) {
+            case UNION:
+                size = addAll(first, null, false, added, result, size);
+                size = addAll(second, null, false, added, result, size);
+                break;
+            case INTERSECTION:
+                size = addAll(first, inSecond, true, added, result, size);
+                break;
+            case DIFFERENCE:
+                size = addAll(first, inSecond, false, added, result, size);
+                break;
+            case SYMMETRIC_DIFFERENCE:
+                size = addAll(first, inSecond, false, added, result, size);
+                size = addAll(second, inFirst, false, added, result, size);
+                break;
+            default:
+                break;
+        }
+        int[] trimmed = new int[size];
+        System.arraycopy(result, 0, trimmed, 0, size);
+        return trimmed;
+    }
+
+    /**
+     * Adds the ids that are (or are not) in the filter to the result, if they
+     * have not been added yet.
+     */
+    private static int addAll(int[] ids, BitSet filter, boolean inFilter, BitSet added, int[] result, int size) {
+        for (int id : ids) {
+            if ((filter == null || filter.get(id) == inFilter) && !added.get(id)) {
+                added.set(id);
+                result[size++] = id;
+            }
+        }
+        return size;
+    }
+
+    private static BitSet toBitSet(int[] ids, int idLimit) {
+        BitSet bits = new BitSet(idLimit);
+        for (int id : ids) {
+            bits.set(id);
+        }
+        return bits;
+    }
+
+    private static int[] toIds(List<String> paths, StringPool pool) {
+        int[] ids = new int[paths.size()];
+        int i = 0;
+        for (String path : paths) {
+            ids[i++] = pool.intern(path);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,120 @@
+package com.djrapitops.nmplayer.functionality.utilities;
+
+import java.util.Arrays;
+
+/**
+ * This class is used to store each different String only once, and to refer
+ * to them with int ids.
+ * <p>
+ * Ids are given in the order Strings are added, starting from 0. A null is
+ * given the id -1.
+ * <p>
+ * The pool is not thread safe, intern and indexOf have to be locked by the
+ * owner of a pool shared by threads. get can be called without the lock for
+ * ids the owner has published, like TrackTable does.
+ *
+ * @author Rsl1122
+ */
+public class StringPool {
+
+    private volatile String[] values;
+    private int[] slots;
+    private int size;
+
+    /**
+     * Creates a new empty StringPool.
+     */
+    public StringPool() {
+        values = new String[16];
+        slots = new int[32];
+    }
+
+    /**
+     * Used to get the id of a String, adding it to the pool if it is not in
+     * the pool yet.
+     *
+     * @param value String to add.
+     * @return id of the String.
+     */
+    public int intern(String value) {
+        if (value == null) {
+            return -1;
+        }
+        int slot = findSlot(value);
+        if (slots[slot] != 0) {
+            return slots[slot] - 1;
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        int id = size++;
+        values[id] = value;
+        slots[slot] = id + 1;
+        if (size > slots.length / 2) {
+            rehash();
+        }
+        return id;
+    }
+
+    /**
+     * Used to get the id of a String without adding it to the pool.
+     *
+     * @param value String to look for.
+     * @return id of the String, -1 if it is not in the pool.
+     */
+    public int indexOf(String value) {
+        if (value == null) {
+            return -1;
+        }
+        return slots[findSlot(value)] - 1;
+    }
+
+    /**
+     * Used to get the String with an id.
+     *
+     * @param id id given by intern.
+     * @return the String, or null if id is -1.
+     */
+    public String get(int id) {
+        return id == -1 ? null : values[id];
+    }
+
+    /**
+     * Used to get the amount of different Strings in the pool.
+     *
+     * @return size of the pool.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the slot that contains the String, or the empty slot it would be
+     * placed in.
+     */
+    private int findSlot(String value) {
+        int mask = slots.length - 1;
+        int slot = hash(value) & mask;
+        while (slots[slot] != 0 && !values[slots[slot] - 1].equals(value)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(String value) {
+        int h = value.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hash(values[id]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+}
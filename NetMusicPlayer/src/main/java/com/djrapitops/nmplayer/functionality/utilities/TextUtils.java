@@ -1,5 +1,9 @@
 package com.djrapitops.nmplayer.functionality.utilities;
 
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
 /**
  * This class contains various static methods to format String objects.
  *
@@ -7,6 +11,8 @@ package com.djrapitops.nmplayer.functionality.utilities;
  */
 public class TextUtils {
 
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+
     private TextUtils() {
         /* Hide constructor. */
     }
@@ -31,4 +37,29 @@ public class TextUtils {
     public static String removeExtension(String s) {
         return s.replace(".wav", "").replace(".mp3", "").replace(".txt", "");
     }
+
+    /**
+     * Formats a string for searching, so that case and accents are ignored.
+     * <p>
+     * Underscores are turned into spaces, as they are displayed as spaces.
+     *
+     * @param s for example "Beyoncé_Déjà Vu"
+     * @return "beyonce deja vu"
+     */
+    public static String normalizeForSearch(String s) {
+        if (isAscii(s)) {
+            return s.replace('_', ' ').toLowerCase(Locale.ROOT);
+        }
+        String decomposed = Normalizer.normalize(s, Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").replace('_', ' ').toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isAscii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 127) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
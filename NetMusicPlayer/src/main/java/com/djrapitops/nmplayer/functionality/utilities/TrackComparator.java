@@ -1,18 +1,82 @@
 package com.djrapitops.nmplayer.functionality.utilities;
 
 import com.djrapitops.nmplayer.functionality.Track;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Locale;
 
 /**
  * This comparator is used to alphabetically sort Track objects.
+ * <p>
+ * Tracks are compared by the CollationKey of their "Artist - Name" text. The
+ * key is created once per Track and cached by it, so comparisons do not
+ * create any new objects.
+ * <p>
+ * The keys are created with the Collator of Locale.ROOT, so the order does
+ * not depend on the locale of the computer. Letters are ordered
+ * alphabetically before case is compared, for example "a" comes before "B".
  *
  * @author Risto
  */
 public class TrackComparator implements Comparator<Track> {
 
+    private static final Collator COLLATOR = Collator.getInstance(Locale.ROOT);
+
     @Override
     public int compare(Track o1, Track o2) {
-        return o1.toString().compareTo(o2.toString());
+        return o1.getSortKey().compareTo(o2.getSortKey());
+    }
+
+    /**
+     * Used to create the CollationKey of a Track.
+     * <p>
+     * Track.getSortKey() should be used instead, as it caches the key.
+     *
+     * @param track Track to create the key for.
+     * @return CollationKey of "Artist - Name"
+     */
+    public static CollationKey createSortKey(Track track) {
+        // Collator is not thread safe.
+        synchronized (COLLATOR) {
+            return COLLATOR.getCollationKey(track.toString());
+        }
     }
 
+    /**
+     * Sorts a List of tracks alphabetically.
+     * <p>
+     * Sort keys of the tracks are created before sorting, after which the
+     * tracks are sorted in parallel.
+     *
+     * @param tracks List to sort.
+     */
+    public static void sort(List<Track> tracks) {
+        Track[] array = tracks.toArray(new Track[0]);
+        for (Track track : array) {
+            track.getSortKey();
+        }
+        Arrays.parallelSort(array, new TrackComparator());
+        ListIterator<Track> iterator = tracks.listIterator();
+        for (Track track : array) {
+            iterator.next();
+            iterator.set(track);
+        }
+    }
+
+    /**
+     * Adds a Track to the correct position on an already sorted List.
+     *
+     * @param tracks List sorted with TrackComparator.
+     * @param track  Track to add.
+     */
+    public static void insertSorted(List<Track> tracks, Track track) {
+        int index = Collections.binarySearch(tracks, track, new TrackComparator());
+        tracks.add(index < 0 ? -index - 1 : index, track);
+    }
 }
@@ -7,6 +7,7 @@ package com.djrapitops.nmplayer.messaging;
 
 import com.djrapitops.nmplayer.java.MethodRef;
 import com.djrapitops.nmplayer.ui.TextConsole;
+import javafx.application.Platform;
 
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -17,8 +18,10 @@ import java.util.logging.Logger;
  * THIS CLASS SHOULD NOT BE INITIALIZED WITH CLASS CONSTRUCTOR, MessageSender IS
  * A SINGLETON CLASS, use MessageSender.getInstance() instead.
  * <p>
- * JavaFx TextConsole can be set as output for the Messages. Old text will not
- * be overwritten in the TextConsole.
+ * Messages are logged to the global Logger by default. JavaFx TextConsole can
+ * be set as output for the Messages. Old text will not be overwritten in the
+ * TextConsole. JavaFX is only used once a TextConsole has been set, so the
+ * headless mode does not load it.
  *
  * @author Rsl1122
  * @see Phrase
@@ -44,8 +47,8 @@ public class MessageSender {
     /**
      * Send a text to the user.
      * <p>
-     * If a TextConsole has not been set, System.out will be used instead to
-     * deliver the message.
+     * If an output has not been set, the message is logged to the global
+     * Logger instead.
      *
      * @param message Message to be sent.
      */
@@ -56,15 +59,26 @@ public class MessageSender {
     /**
      * Used to change the output of the MessageSender.
      * <p>
-     * If given null as a parameter MessageSender will revert back to using System.out as output.
+     * If given null as a parameter MessageSender will revert back to logging
+     * the messages.
+     * <p>
+     * Messages sent from other threads, such as the player thread, are
+     * appended on the JavaFX Application thread.
      *
      * @param console TextConsole to output to.
      */
     public void setOutput(TextConsole console) {
         if (console != null) {
             output = message -> {
-                console.appendText(message + System.getProperty("line.separator"));
-                console.scrollTopProperty().set(Double.MAX_VALUE);
+                Runnable append = () -> {
+                    console.appendText(message + System.getProperty("line.separator"));
+                    console.scrollTopProperty().set(Double.MAX_VALUE);
+                };
+                if (Platform.isFxApplicationThread()) {
+                    append.run();
+                } else {
+                    Platform.runLater(append);
+                }
             };
         } else {
             output = msg -> Logger.getGlobal().log(Level.INFO, msg);
@@ -18,8 +18,13 @@ public enum Phrase {
     PLAYLIST_EMPTY("The selected playlist is empty!"),
     ERROR("An Error has occurred. It has been logged to Errors.txt"),
     ERROR_JAVAFX("JavaFX Application not started, try running the program again!"),
+    CONTROL_SERVER_STARTED("Listening to commands on localhost port REPLACE0"),
+    CONTROL_SERVER_FAILED("Could not listen to commands on port REPLACE0: REPLACE1"),
+    HEADLESS_STARTED("Started without a window, playing with the REPLACE0 playback engine. Type help to see the commands"),
+    MP3_UNSUPPORTED("No MP3 decoder was found, .mp3 files can not be played without a window. Add a javax.sound service provider for MP3, such as mp3spi, to the classpath"),
     EMPTY_NAME("Known Playlists: REPLACE0"),
     WRONG_FILETYPE("Attempted to add wrong filetype! .wav & .mp3 are supported"),
+    PLAYBACK_FAILED("Could not play REPLACE0 with the REPLACE1 playback engine"),
     NONEXISTING_FILE("File doesn't exist! Restart application! (REPLACE0)"),
     SELECTED("Selected Track: REPLACE0"),
     SELECTED_PLAYLIST("Selected Playlist: \"REPLACE0\""),
@@ -28,6 +33,16 @@ public enum Phrase {
     ADDED_TRACK("Added: REPLACE0"),
     ALREADY_HAS_TRACK("Playlist already has this track! (REPLACE0)"),
     REMOVED_TRACK("Removed: REPLACE0"),
+    QUEUED_TRACK("Queued: REPLACE0"),
+    REMOVED_TRACKS("Removed REPLACE0 tracks"),
+    COPIED_TRACKS("Copied REPLACE0 tracks to \"REPLACE1\""),
+    QUEUED_TRACKS("Queued REPLACE0 tracks"),
+    SAVED_PLAYLIST("Saved REPLACE0 tracks to \"REPLACE1\""),
+    UNDONE("Undid the last change to \"REPLACE0\""),
+    REDONE("Redid the last change to \"REPLACE0\""),
+    NOTHING_TO_UNDO("Nothing to undo"),
+    NOTHING_TO_REDO("Nothing to redo"),
+    SMART_PLAYLIST_READ_ONLY("Smart playlists can't be edited, change the rules in REPLACE0.smart instead"),
     STOP("STOPPED"),
     PAUSE("PAUSED");
 
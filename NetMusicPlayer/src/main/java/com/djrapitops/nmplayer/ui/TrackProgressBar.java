@@ -1,6 +1,7 @@
 package com.djrapitops.nmplayer.ui;
 
 import com.djrapitops.nmplayer.functionality.MusicPlayer;
+import com.djrapitops.nmplayer.functionality.PlayerCommands;
 import javafx.beans.Observable;
 import javafx.scene.control.Slider;
 
@@ -24,7 +25,7 @@ public class TrackProgressBar extends Slider implements Updatable {
         TrackProgressBar bar = this;
         super.valueProperty().addListener((Observable ov) -> {
             if (bar.isValueChanging()) {
-                MusicPlayer.getInstance().setTrackPosition(bar.getValue() / 100);
+                PlayerCommands.getInstance().seek(bar.getValue() / 100);
                 bar.disableProperty().set(true);
                 bar.update();
             }
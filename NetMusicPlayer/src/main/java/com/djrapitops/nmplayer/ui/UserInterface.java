@@ -1,15 +1,21 @@
 package com.djrapitops.nmplayer.ui;
 
 import com.djrapitops.nmplayer.functionality.MusicPlayer;
+import com.djrapitops.nmplayer.functionality.PlayerCommands;
+import com.djrapitops.nmplayer.functionality.PlayerState;
+import com.djrapitops.nmplayer.functionality.ProgressPublisher;
 import com.djrapitops.nmplayer.functionality.Track;
 import com.djrapitops.nmplayer.functionality.utilities.TextUtils;
 import com.djrapitops.nmplayer.messaging.MessageSender;
 import com.djrapitops.nmplayer.messaging.Phrase;
 import com.djrapitops.nmplayer.ui.playlist.AddTrackButton;
 import com.djrapitops.nmplayer.ui.playlist.ChangePlaylistBox;
+import com.djrapitops.nmplayer.ui.playlist.SearchField;
+import com.djrapitops.nmplayer.ui.playlist.SelectionBox;
 import com.djrapitops.nmplayer.ui.playlist.UIPlaylist;
 import com.djrapitops.nmplayer.ui.toolbar.*;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.collections.ObservableList;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
@@ -26,6 +32,7 @@ import javafx.stage.Stage;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * JavaFx Application used as the Interface for the user.
@@ -40,6 +47,7 @@ import java.util.List;
 public class UserInterface extends Application implements Updatable {
 
     private final List<Updatable> updatableComponents;
+    private final AtomicBoolean updateRequested;
     private Stage stage;
     private VBox toolbar;
 
@@ -48,6 +56,7 @@ public class UserInterface extends Application implements Updatable {
      */
     public UserInterface() {
         updatableComponents = new ArrayList<>();
+        updateRequested = new AtomicBoolean();
     }
 
     public static void start(String[] args) {
@@ -57,15 +66,17 @@ public class UserInterface extends Application implements Updatable {
     private Node playlist() {
         HBox changePlaylistBox = new ChangePlaylistBox(this, new AddTrackButton(this, stage));
         VBox box = new VBox();
-        VBox playlist = new UIPlaylist(this);
+        UIPlaylist playlist = new UIPlaylist(this);
         ScrollPane scroll = new ScrollPane();
         scroll.setContent(playlist);
         scroll.fitToWidthProperty().set(true);
         scroll.setHbarPolicy(ScrollBarPolicy.NEVER);
         box.getChildren().add(changePlaylistBox);
+        box.getChildren().add(new SearchField(playlist));
+        box.getChildren().add(new SelectionBox(playlist, this));
         box.getChildren().add(scroll);
         updatableComponents.add((Updatable) changePlaylistBox);
-        updatableComponents.add((Updatable) playlist);
+        updatableComponents.add(playlist);
         return box;
     }
 
@@ -92,6 +103,9 @@ public class UserInterface extends Application implements Updatable {
         ShuffleButton shuffle = new ShuffleButton();
         conponents.add(shuffle);
         updatableComponents.add(shuffle);
+        CrossfadeButton crossfade = new CrossfadeButton();
+        conponents.add(crossfade);
+        updatableComponents.add(crossfade);
         conponents.add(new PreviousButton(this));
         conponents.add(play);
         conponents.add(new StopButton(this));
@@ -111,8 +125,8 @@ public class UserInterface extends Application implements Updatable {
         for (Updatable u : updatableComponents) {
             u.update();
         }
-        MusicPlayer mp = MusicPlayer.getInstance();
-        Track currentTrack = mp.getCurrentTrack();
+        PlayerState state = PlayerCommands.getInstance().getState();
+        Track currentTrack = state.getCurrentTrack();
         String track = "None";
         if (currentTrack != null) {
             track = currentTrack.toString();
@@ -120,7 +134,7 @@ public class UserInterface extends Application implements Updatable {
         if (toolbar != null) {
             toolbar.requestFocus();
         }
-        stage.setTitle((mp.isPlaying() ? "▶" : "") + " NMPlayer | " + TextUtils.uppercaseFirst(mp.getSelectedPlaylist()) + " | " + track);
+        stage.setTitle((state.isPlaying() ? "▶" : "") + " NMPlayer | " + TextUtils.uppercaseFirst(state.getSelectedPlaylist()) + " | " + track);
     }
 
     /**
@@ -131,6 +145,7 @@ public class UserInterface extends Application implements Updatable {
      */
     private void handleKeyPress(KeyEvent keyEvent) {
         MusicPlayer musicPlayer = MusicPlayer.getInstance();
+        PlayerCommands commands = PlayerCommands.getInstance();
         KeyCode key = keyEvent.getCode();
         if (key == null) {
             return;
@@ -138,29 +153,41 @@ public class UserInterface extends Application implements Updatable {
             switch (key) {
                 case TRACK_NEXT:
                 case RIGHT:
-                    musicPlayer.nextTrack();
+                    commands.next();
                     break;
                 case TRACK_PREV:
                 case LEFT:
-                    musicPlayer.previousTrack();
+                    commands.previous();
                     break;
                 case PLAY:
                 case PAUSE:
                 case SPACE:
-                    if (musicPlayer.isPlaying()) {
-                        musicPlayer.pause();
-                    } else {
-                        musicPlayer.play();
-                    }
+                    commands.togglePlay();
                     break;
                 case STOP:
-                    musicPlayer.stop();
+                    commands.stop();
                     break;
                 case DOWN:
-                    musicPlayer.setVolume(musicPlayer.getVolume() - 0.1);
+                    commands.changeVolume(-0.1);
                     break;
                 case UP:
-                    musicPlayer.setVolume(musicPlayer.getVolume() + 0.1);
+                    commands.changeVolume(0.1);
+                    break;
+                case Z:
+                    if (!keyEvent.isShortcutDown()) {
+                        return;
+                    }
+                    if (keyEvent.isShiftDown()) {
+                        commands.submit(musicPlayer::redo);
+                    } else {
+                        commands.submit(musicPlayer::undo);
+                    }
+                    break;
+                case Y:
+                    if (!keyEvent.isShortcutDown()) {
+                        return;
+                    }
+                    commands.submit(musicPlayer::redo);
                     break;
                 default:
                     return;
@@ -183,13 +210,33 @@ public class UserInterface extends Application implements Updatable {
         primaryStage.setScene(new Scene(root, 400, 700));
         primaryStage.show();
         MusicPlayer musicPlayer = MusicPlayer.getInstance();
+        PlayerCommands commands = PlayerCommands.getInstance();
         root.setOnKeyPressed(this::handleKeyPress);
-        try {
-            musicPlayer.init();
-        } catch (IllegalStateException e) {
-            MessageSender.getInstance().send(Phrase.ERROR_JAVAFX + "");
-        }
+        ProgressPublisher progress = musicPlayer.getProgressPublisher();
+        stage.iconifiedProperty().addListener((observable, wasIconified, iconified) -> progress.setVisible(!iconified && stage.isShowing()));
+        stage.showingProperty().addListener((observable, wasShowing, showing) -> progress.setVisible(showing && !stage.isIconified()));
+        commands.addListener(state -> requestUpdate());
+        commands.submit(() -> {
+            try {
+                musicPlayer.init();
+            } catch (IllegalStateException e) {
+                MessageSender.getInstance().send(Phrase.ERROR_JAVAFX + "");
+            }
+        });
         update();
-        musicPlayer.setEndOfMediaUpdate(this);
+    }
+
+    /**
+     * Updates the UI on the JavaFX Application thread after PlayerCommands
+     * has published a new state. Updates requested while one is waiting are
+     * combined into it.
+     */
+    private void requestUpdate() {
+        if (updateRequested.compareAndSet(false, true)) {
+            Platform.runLater(() -> {
+                updateRequested.set(false);
+                update();
+            });
+        }
     }
 }
@@ -8,6 +8,7 @@ package com.djrapitops.nmplayer.ui.playlist;
 import com.djrapitops.nmplayer.fileutils.PlaylistFileManager;
 import com.djrapitops.nmplayer.fileutils.TrackFileManager;
 import com.djrapitops.nmplayer.functionality.MusicPlayer;
+import com.djrapitops.nmplayer.functionality.PlayerCommands;
 import com.djrapitops.nmplayer.functionality.PlaylistManager;
 import com.djrapitops.nmplayer.functionality.Track;
 import com.djrapitops.nmplayer.ui.Updatable;
@@ -64,15 +65,17 @@ public class AddTrackButton extends Button {
 
             PlaylistManager playlistManager = musicPlayer.getPlaylistManager();
 
-            addFilesAsTracks(musicPlayer, selectedFiles, playlistManager);
+            PlayerCommands.getInstance().submit(() -> {
+                addFilesAsTracks(musicPlayer, selectedFiles, playlistManager);
 
-            if (playlistManager.isRandom()) {
-                playlistManager.setRandom(true);
-            }
+                if (playlistManager.isRandom()) {
+                    playlistManager.setRandom(true);
+                }
+                if (musicPlayer.isPlaying()) {
+                    musicPlayer.play();
+                }
+            });
             ui.update();
-            if (musicPlayer.isPlaying()) {
-                musicPlayer.play();
-            }
         });
     }
 
@@ -5,10 +5,12 @@
  */
 package com.djrapitops.nmplayer.ui.playlist;
 
+import com.djrapitops.nmplayer.functionality.PlayerCommands;
 import com.djrapitops.nmplayer.ui.Updatable;
 import javafx.collections.ObservableList;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.TextField;
 import javafx.scene.input.KeyCode;
 import javafx.scene.layout.HBox;
@@ -22,11 +24,13 @@ import javafx.scene.layout.HBox;
 public class ChangePlaylistBox extends HBox implements Updatable {
 
     private TextField selector;
+    private String shownPlaylist;
 
     /**
      * Class constructor.
      *
-     * Creates a new textfield, button for changing the playlist. Adds a
+     * Creates a new textfield, button for changing the playlist and a
+     * progress bar that is shown while a playlist loads. Adds a
      * KeyEvent listener for the textfield, if Enter is pressed the Change
      * Playlist button's action will be performed.
      *
@@ -40,7 +44,11 @@ public class ChangePlaylistBox extends HBox implements Updatable {
         super.setSpacing(5);
         selector = new TextField();
         selector.setPromptText("Enter Playlist Name");
-        ChangePlaylistButton changePlaylistButton = new ChangePlaylistButton(selector, u);
+        ProgressBar loadProgress = new ProgressBar(0);
+        loadProgress.setPrefWidth(60);
+        loadProgress.setVisible(false);
+        loadProgress.managedProperty().bind(loadProgress.visibleProperty());
+        ChangePlaylistButton changePlaylistButton = new ChangePlaylistButton(selector, loadProgress, u);
         selector.setOnKeyPressed(keyEvent -> {
             if (keyEvent.getCode() == KeyCode.ENTER) {
                 changePlaylistButton.changePlaylist(selector, u);
@@ -48,13 +56,22 @@ public class ChangePlaylistBox extends HBox implements Updatable {
         });
         ObservableList<Node> components = super.getChildren();
         components.add(selector);
-        components.add(new ChangePlaylistButton(selector, u));
+        components.add(new ChangePlaylistButton(selector, loadProgress, u));
+        components.add(loadProgress);
         components.add(addTrackButton);
     }
 
+    /**
+     * Clears the textfield when the selected playlist has changed, so that a
+     * name that is being typed is not cleared by other updates.
+     */
     @Override
     public void update() {
-        selector.clear();
+        String selected = PlayerCommands.getInstance().getState().getSelectedPlaylist();
+        if (!selected.equals(shownPlaylist)) {
+            shownPlaylist = selected;
+            selector.clear();
+        }
         selector.setDisable(false);
     }
 
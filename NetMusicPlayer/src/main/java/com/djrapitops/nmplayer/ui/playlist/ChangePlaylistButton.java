@@ -2,14 +2,24 @@ package com.djrapitops.nmplayer.ui.playlist;
 
 import com.djrapitops.nmplayer.fileutils.PlaylistFileManager;
 import com.djrapitops.nmplayer.functionality.MusicPlayer;
+import com.djrapitops.nmplayer.functionality.PlayerCommands;
 import com.djrapitops.nmplayer.functionality.PlaylistManager;
+import com.djrapitops.nmplayer.functionality.utilities.PlaylistAlgebra;
 import com.djrapitops.nmplayer.messaging.MessageSender;
 import com.djrapitops.nmplayer.messaging.Phrase;
 import com.djrapitops.nmplayer.ui.Updatable;
+import javafx.application.Platform;
 import javafx.geometry.Pos;
 import javafx.scene.control.Button;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.TextField;
 
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 /**
  * JavaFx UI component, a Button used to change the current playlist.
  *
@@ -20,18 +30,24 @@ import javafx.scene.control.TextField;
  */
 public class ChangePlaylistButton extends Button {
 
+    private static final Pattern COMBINATION = Pattern.compile("^(\\S+)\\s*([+&^-])\\s*(\\S+)\\s*>\\s*(\\S+)$");
+
+    private final ProgressBar progress;
+
     /**
      * Constructor for the button. Sets the click event response to change the
      * playlist of MusicPlayer.
      *
-     * @param t TextArea which text is used to read user input for playlist
-     *          name.
-     * @param u A UI Component to update when the button is pressed.
+     * @param t        TextArea which text is used to read user input for
+     *                 playlist name.
+     * @param progress ProgressBar that is shown while the playlist loads.
+     * @param u        A UI Component to update when the button is pressed.
      * @see MusicPlayer
      * @see UITrack
      * @see PlaylistManager
      */
-    public ChangePlaylistButton(TextField t, Updatable u) {
+    public ChangePlaylistButton(TextField t, ProgressBar progress, Updatable u) {
+        this.progress = progress;
         super.setText("Change Playlist");
         super.setStyle("-fx-background-color: White");
         super.setAlignment(Pos.CENTER_RIGHT);
@@ -43,11 +59,20 @@ public class ChangePlaylistButton extends Button {
      * <p>
      * If the textfield is empty, MessageSender will be used to send the known
      * playlists.
+     * <p>
+     * Text like "rock + jazz &gt; mix" combines two playlists, saves the result
+     * as a new playlist and changes to it. + is union, &amp; intersection, -
+     * difference and ^ symmetric difference. The playlist is changed after
+     * the result has been saved.
+     * <p>
+     * The playlist is loaded in the background and the ProgressBar shows how
+     * much of it has been read. Changing the playlist again before it has
+     * loaded cancels the earlier change.
      *
      * @param t TextField used to get the playlist name.
-     * @param u Element to call .update() on after the change is complete. (If
-     *          successful)
-     * @throws IllegalStateException If JavaFx Application is not running.
+     * @param u Element to call .update() on after the change has been given
+     *          to PlayerCommands.
+     * @see PlayerCommands#selectPlaylist(String)
      */
     public void changePlaylist(TextField t, Updatable u) {
         String newPlaylist = t.getText().toLowerCase().trim();
@@ -55,13 +80,35 @@ public class ChangePlaylistButton extends Button {
             MessageSender.getInstance().send(Phrase.EMPTY_NAME.parse(PlaylistFileManager.getKnownPlaylists()));
             return;
         }
-        MusicPlayer mp = MusicPlayer.getInstance();
-        mp.selectPlaylist(newPlaylist);
-        PlaylistManager playlistManager = mp.getPlaylistManager();
-        if (playlistManager.isRandom()) {
-            playlistManager.setRandom(true);
+        PlayerCommands commands = PlayerCommands.getInstance();
+        progress.setProgress(0);
+        progress.setVisible(true);
+        CompletableFuture<Void> selection;
+        Matcher combination = COMBINATION.matcher(newPlaylist);
+        if (combination.matches()) {
+            PlaylistAlgebra.Operation operation = PlaylistAlgebra.Operation.fromSymbol(combination.group(2).charAt(0));
+            String first = combination.group(1);
+            String second = combination.group(3);
+            String result = combination.group(4);
+            selection = commands.combinePlaylists(first, operation, second, result)
+                    .thenCompose(combined -> commands.selectPlaylist(result, this::showProgress));
+        } else {
+            selection = commands.selectPlaylist(newPlaylist, this::showProgress);
         }
+        selection.whenComplete((result, error) -> Platform.runLater(() -> {
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            if (!(cause instanceof CancellationException)) {
+                progress.setVisible(false);
+            }
+        }));
         u.update();
     }
 
+    /**
+     * Shows the loading progress, called on the loader thread.
+     */
+    private void showProgress(double fraction) {
+        Platform.runLater(() -> progress.setProgress(fraction));
+    }
+
 }
@@ -0,0 +1,37 @@
+package com.djrapitops.nmplayer.ui.playlist;
+
+import com.djrapitops.nmplayer.functionality.MusicPlayer;
+import com.djrapitops.nmplayer.functionality.PlayerCommands;
+import com.djrapitops.nmplayer.functionality.PlayQueue;
+import javafx.geometry.Pos;
+import javafx.scene.control.Button;
+
+/**
+ * JavaFx UI component, a Button used to queue a track to be played after the
+ * current track.
+ *
+ * @author Rsl1122
+ * @see PlayQueue
+ * @see MusicPlayer
+ */
+public class EnqueueButton extends Button {
+
+    /**
+     * Constructor for the button. Sets the click event response to add the
+     * associated track to the end of the PlayQueue.
+     *
+     * @param uiTrack A UITrack Component to update when the button is pressed.
+     * @see MusicPlayer
+     * @see UITrack
+     */
+    public EnqueueButton(UITrack uiTrack) {
+        setStyle("-fx-background-color: SteelBlue; -fx-text-fill: White");
+        setText("+");
+        setAlignment(Pos.CENTER_RIGHT);
+        setOnAction(event -> {
+            PlayerCommands.getInstance().submit(() -> MusicPlayer.getInstance().enqueue(uiTrack.getTrack(), false));
+            uiTrack.update();
+        });
+    }
+
+}
@@ -7,6 +7,7 @@ package com.djrapitops.nmplayer.ui.playlist;
 
 import com.djrapitops.nmplayer.fileutils.PlaylistFileManager;
 import com.djrapitops.nmplayer.functionality.MusicPlayer;
+import com.djrapitops.nmplayer.functionality.PlayerCommands;
 import com.djrapitops.nmplayer.functionality.PlaylistManager;
 import javafx.geometry.Pos;
 import javafx.scene.control.Button;
@@ -36,11 +37,13 @@ public class RemoveButton extends Button {
         setAlignment(Pos.CENTER_RIGHT);
         setOnAction(event -> {
             MusicPlayer musicPlayer = MusicPlayer.getInstance();
-            musicPlayer.removeTrackFromPlaylist(uiTrack.getTrack());
-            PlaylistManager playlistManager = musicPlayer.getPlaylistManager();
-            if (playlistManager.isRandom()) {
-                playlistManager.setRandom(true);
-            }
+            PlayerCommands.getInstance().submit(() -> {
+                musicPlayer.removeTrackFromPlaylist(uiTrack.getTrack());
+                PlaylistManager playlistManager = musicPlayer.getPlaylistManager();
+                if (playlistManager.isRandom()) {
+                    playlistManager.setRandom(true);
+                }
+            });
             uiTrack.update();
         });
     }
@@ -0,0 +1,31 @@
+package com.djrapitops.nmplayer.ui.playlist;
+
+import com.djrapitops.nmplayer.functionality.PlaylistManager;
+import javafx.scene.control.TextField;
+
+/**
+ * JavaFx UI component, a TextField used to search the current playlist.
+ * <p>
+ * The UIPlaylist is filtered as the user types.
+ *
+ * @author Rsl1122
+ * @see UIPlaylist
+ * @see PlaylistManager
+ */
+public class SearchField extends TextField {
+
+    /**
+     * Constructor for the TextField. Sets a listener that changes the filter
+     * of the UIPlaylist whenever the text changes.
+     *
+     * @param playlist UIPlaylist to filter.
+     */
+    public SearchField(UIPlaylist playlist) {
+        setPromptText("Search");
+        textProperty().addListener((observable, oldValue, newValue) -> {
+            playlist.setFilter(newValue);
+            playlist.update();
+        });
+    }
+
+}
@@ -1,6 +1,7 @@
 package com.djrapitops.nmplayer.ui.playlist;
 
 import com.djrapitops.nmplayer.functionality.MusicPlayer;
+import com.djrapitops.nmplayer.functionality.PlayerCommands;
 import com.djrapitops.nmplayer.functionality.PlaylistManager;
 import com.djrapitops.nmplayer.functionality.Track;
 import javafx.geometry.Pos;
@@ -26,9 +27,8 @@ public class SelectButton extends Button {
      * @see PlaylistManager
      */
     public SelectButton(UITrack uiTrack) {
-        final MusicPlayer mp = MusicPlayer.getInstance();
         Track track = uiTrack.getTrack();
-        if (track.equals(mp.getCurrentTrack())) {
+        if (track.equals(PlayerCommands.getInstance().getState().getCurrentTrack())) {
             setStyle("-fx-background-color: #8290ed; -fx-text-fill: White");
         } else {
             setStyle("-fx-background-color: White");
@@ -37,11 +37,8 @@ public class SelectButton extends Button {
         setText(uiTrack.getTrack().toString().replace("_", " "));
         setPrefWidth(10000);
         setOnAction(event -> {
-            if (!mp.getCurrentTrack().equals(uiTrack.getTrack()) || !mp.isPlaying()) {
-                mp.selectTrack(track);
-                mp.play();
-                uiTrack.update();
-            }
+            PlayerCommands.getInstance().playTrack(track);
+            uiTrack.update();
         });
     }
 
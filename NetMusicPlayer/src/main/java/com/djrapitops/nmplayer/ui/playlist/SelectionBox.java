@@ -0,0 +1,89 @@
+package com.djrapitops.nmplayer.ui.playlist;
+
+import com.djrapitops.nmplayer.functionality.MusicPlayer;
+import com.djrapitops.nmplayer.functionality.PlayerCommands;
+import com.djrapitops.nmplayer.functionality.TrackSelection;
+import com.djrapitops.nmplayer.ui.Updatable;
+import javafx.collections.ObservableList;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.control.Button;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.HBox;
+
+/**
+ * JavaFx UI component, contains buttons that act on every track selected in
+ * the UIPlaylist at once.
+ *
+ * @author Rsl1122
+ * @see TrackSelection
+ * @see MusicPlayer
+ */
+public class SelectionBox extends HBox {
+
+    /**
+     * Class constructor.
+     * <p>
+     * Creates buttons to select all tracks, clear the selection, queue,
+     * remove and move the selected tracks to the top, a textfield and a
+     * button to copy the selected tracks to another playlist, and buttons to
+     * undo and redo changes of the playlist.
+     * <p>
+     * The changes are given to PlayerCommands with a copy of the selection,
+     * and the UI is updated when the new PlayerState is published.
+     *
+     * @param playlist UIPlaylist which selection is used.
+     * @param u        Updatable which .update() will be called after a button
+     *                 is pressed.
+     */
+    public SelectionBox(UIPlaylist playlist, Updatable u) {
+        super.setAlignment(Pos.CENTER_LEFT);
+        super.setSpacing(5);
+        TrackSelection selection = playlist.getSelection();
+        MusicPlayer mp = MusicPlayer.getInstance();
+        PlayerCommands commands = PlayerCommands.getInstance();
+
+        TextField copyTarget = new TextField();
+        copyTarget.setPromptText("Copy to Playlist");
+        copyTarget.setPrefWidth(110);
+
+        ObservableList<Node> components = super.getChildren();
+        components.add(createButton("All", () -> selection.selectAll(mp.getPlaylist().size()), u));
+        components.add(createButton("None", selection::clear, u));
+        components.add(createButton("Queue", () -> {
+            TrackSelection queued = new TrackSelection(selection);
+            commands.submit(() -> mp.enqueue(queued));
+        }, u));
+        components.add(createButton("Remove", () -> {
+            TrackSelection removed = new TrackSelection(selection);
+            selection.clear();
+            commands.submit(() -> mp.removeTracksFromPlaylist(removed));
+        }, u));
+        components.add(createButton("To Top", () -> {
+            TrackSelection moved = new TrackSelection(selection);
+            selection.clear();
+            commands.submit(() -> mp.moveTracks(moved, 0));
+        }, u));
+        components.add(copyTarget);
+        components.add(createButton("Copy", () -> {
+            String target = copyTarget.getText().toLowerCase().trim();
+            if (!target.isEmpty()) {
+                TrackSelection copied = new TrackSelection(selection);
+                commands.submit(() -> mp.copyTracksToPlaylist(copied, target));
+                copyTarget.clear();
+            }
+        }, u));
+        components.add(createButton("Undo", () -> commands.submit(mp::undo), u));
+        components.add(createButton("Redo", () -> commands.submit(mp::redo), u));
+    }
+
+    private static Button createButton(String text, Runnable action, Updatable u) {
+        Button button = new Button(text);
+        button.setStyle("-fx-background-color: White");
+        button.setOnAction(event -> {
+            action.run();
+            u.update();
+        });
+        return button;
+    }
+}
@@ -7,6 +7,8 @@ package com.djrapitops.nmplayer.ui.playlist;
 
 import com.djrapitops.nmplayer.functionality.MusicPlayer;
 import com.djrapitops.nmplayer.functionality.Track;
+import com.djrapitops.nmplayer.functionality.TrackList;
+import com.djrapitops.nmplayer.functionality.TrackSelection;
 import com.djrapitops.nmplayer.ui.Updatable;
 import javafx.collections.ObservableList;
 import javafx.geometry.Pos;
@@ -24,7 +26,12 @@ import java.util.List;
  */
 public final class UIPlaylist extends VBox implements Updatable {
 
+    private static final int SEARCH_RESULTS = 200;
+
     private Updatable ui;
+    private String filter;
+    private final TrackSelection selection;
+    private List<Track> shownPlaylist;
 
     /**
      * Class constructor.
@@ -35,6 +42,8 @@ public final class UIPlaylist extends VBox implements Updatable {
      */
     public UIPlaylist(Updatable ui) {
         this.ui = ui;
+        this.filter = "";
+        this.selection = new TrackSelection();
         super.setAlignment(Pos.TOP_LEFT);
         super.alignmentProperty().isBound();
         super.setSpacing(5);
@@ -49,14 +58,52 @@ public final class UIPlaylist extends VBox implements Updatable {
         components.addAll(tracks);
     }
 
+    /**
+     * Used to show only tracks that match a search.
+     *
+     * @param filter Text to search for, empty String to show every track.
+     */
+    public void setFilter(String filter) {
+        this.filter = filter.trim();
+    }
+
+    /**
+     * Used to get the tracks selected by the user.
+     * <p>
+     * The selection is cleared when the playlist changes, as the positions no
+     * longer point to the same tracks.
+     *
+     * @return TrackSelection of the shown playlist.
+     */
+    public TrackSelection getSelection() {
+        return selection;
+    }
+
     private List<HBox> getTrackElements() {
         List<HBox> elements = new ArrayList<>();
         MusicPlayer mp = MusicPlayer.getInstance();
-        List<Track> playlist = mp.getPlaylist();
-        for (Track track : playlist) {
-            elements.add(new UITrack(track, ui));
+        List<Track> snapshot = mp.getPlaylist();
+        if (!isSameSnapshot(snapshot)) {
+            selection.clear();
+        }
+        shownPlaylist = snapshot;
+        if (filter.isEmpty()) {
+            for (int i = 0; i < snapshot.size(); i++) {
+                elements.add(new UITrack(snapshot.get(i), i, selection, ui));
+            }
+        } else {
+            for (Track track : mp.getPlaylistManager().search(filter, SEARCH_RESULTS)) {
+                elements.add(new UITrack(track, snapshot.indexOf(track), selection, ui));
+            }
         }
         return elements;
     }
 
+    private boolean isSameSnapshot(List<Track> snapshot) {
+        if (shownPlaylist instanceof TrackList && snapshot instanceof TrackList) {
+            return ((TrackList) shownPlaylist).getIds() == ((TrackList) snapshot).getIds();
+        }
+        return false;
+    }
+
 }
@@ -1,13 +1,16 @@
 package com.djrapitops.nmplayer.ui.playlist;
 
 import com.djrapitops.nmplayer.functionality.Track;
+import com.djrapitops.nmplayer.functionality.TrackSelection;
 import com.djrapitops.nmplayer.ui.Updatable;
 import javafx.geometry.Pos;
+import javafx.scene.control.CheckBox;
 import javafx.scene.layout.HBox;
 
 /**
- * This element represents a Track object. Contains button to swap to this
- * track, or remove it from the playlist.
+ * This element represents a Track object. Contains a CheckBox to select the
+ * track, and buttons to swap to this track, queue it, or remove it from the
+ * playlist.
  *
  * @author ristolah
  */
@@ -23,17 +26,35 @@ public class UITrack extends HBox implements Updatable {
      * it from the playlist. Updatable will be called if either of the buttons
      * is pressed.
      *
+     * Clicking the CheckBox while holding shift selects every track between
+     * the previously clicked track and this one.
+     *
      * @param track Track this element represents
+     * @param position Position of the track on the playlist.
+     * @param selection TrackSelection the CheckBox changes.
      * @param u Updatable to call when a button is pressed.
      */
-    public UITrack(Track track, Updatable u) {
+    public UITrack(Track track, int position, TrackSelection selection, Updatable u) {
         this.u = u;
         this.track = track;
         super.setAlignment(Pos.CENTER_LEFT);
         super.alignmentProperty().isBound();
         super.setSpacing(5);
         super.setStyle("-fx-background-color: Lightgrey");
+        CheckBox selected = new CheckBox();
+        selected.setSelected(position != -1 && selection.isSelected(position));
+        selected.setDisable(position == -1);
+        selected.setOnMouseClicked(event -> {
+            if (event.isShiftDown()) {
+                selection.extendTo(position);
+            } else {
+                selection.toggle(position);
+            }
+            update();
+        });
+        super.getChildren().add(selected);
         super.getChildren().add(new SelectButton(this));
+        super.getChildren().add(new EnqueueButton(this));
         super.getChildren().add(new RemoveButton(this));
     }
 
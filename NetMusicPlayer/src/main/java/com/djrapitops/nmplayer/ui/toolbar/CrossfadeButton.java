@@ -0,0 +1,57 @@
+package com.djrapitops.nmplayer.ui.toolbar;
+
+import com.djrapitops.nmplayer.functionality.MusicPlayer;
+import com.djrapitops.nmplayer.functionality.PlayerCommands;
+import com.djrapitops.nmplayer.ui.Updatable;
+import javafx.scene.control.Button;
+import javafx.scene.control.Tooltip;
+
+/**
+ * JavaFx UI component, a Button used to change the length of the crossfade
+ * between tracks.
+ *
+ * @author Rsl1122
+ * @see MusicPlayer#setCrossfade(long)
+ */
+public class CrossfadeButton extends Button implements Updatable {
+
+    private static final long[] OVERLAPS = new long[]{0, 2000, 5000, 10000};
+
+    /**
+     * Constructor for the Button.
+     * <p>
+     * Sets the click event response to cycle through off and the crossfade
+     * lengths, and update the text on the button.
+     *
+     * @see MusicPlayer
+     */
+    public CrossfadeButton() {
+        setStyle("-fx-background-color: #8290ed; -fx-text-fill: White");
+        setPrefWidth(40);
+        setOnAction(event -> {
+            PlayerCommands commands = PlayerCommands.getInstance();
+            long current = commands.getState().getCrossfade();
+            long next = OVERLAPS[0];
+            for (long overlap : OVERLAPS) {
+                if (overlap > current) {
+                    next = overlap;
+                    break;
+                }
+            }
+            commands.setCrossfade(next);
+        });
+    }
+
+    @Override
+    public void update() {
+        long overlap = PlayerCommands.getInstance().getState().getCrossfade();
+        if (overlap == 0) {
+            setText("✕");
+            setTooltip(new Tooltip("Crossfade off"));
+        } else {
+            setText(overlap / 1000 + "s");
+            setTooltip(new Tooltip("Crossfade " + overlap / 1000 + " seconds"));
+        }
+    }
+
+}
@@ -3,6 +3,7 @@ package com.djrapitops.nmplayer.ui.toolbar;
 
 import com.djrapitops.nmplayer.fileutils.PlaylistFileManager;
 import com.djrapitops.nmplayer.functionality.MusicPlayer;
+import com.djrapitops.nmplayer.functionality.PlayerCommands;
 import com.djrapitops.nmplayer.functionality.PlaylistManager;
 import com.djrapitops.nmplayer.ui.Updatable;
 import javafx.scene.control.Button;
@@ -29,7 +30,7 @@ public class NextButton extends Button {
         setPrefWidth(30);
         setText("⏩");
         setOnAction(event -> {
-            MusicPlayer.getInstance().nextTrack();
+            PlayerCommands.getInstance().next();
             updatable.update();
         });
     }
@@ -2,6 +2,7 @@
 package com.djrapitops.nmplayer.ui.toolbar;
 
 import com.djrapitops.nmplayer.functionality.MusicPlayer;
+import com.djrapitops.nmplayer.functionality.PlayerCommands;
 import com.djrapitops.nmplayer.ui.Updatable;
 import javafx.scene.control.Button;
 
@@ -27,19 +28,14 @@ public class PlayButton extends Button implements Updatable {
         setPrefWidth(40);
         u.update();
         setOnAction(event -> {
-            MusicPlayer musicPlayer = MusicPlayer.getInstance();
-            if (!musicPlayer.isPlaying()) {
-                musicPlayer.play();
-            } else {
-                musicPlayer.pause();
-            }
+            PlayerCommands.getInstance().togglePlay();
             u.update();
         });
     }
 
     @Override
     public void update() {
-        if (!MusicPlayer.getInstance().isPlaying()) {
+        if (!PlayerCommands.getInstance().getState().isPlaying()) {
             setText(" ▶ ");
         } else {
             setText("⏸");
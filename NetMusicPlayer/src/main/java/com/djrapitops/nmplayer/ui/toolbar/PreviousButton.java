@@ -7,6 +7,7 @@ package com.djrapitops.nmplayer.ui.toolbar;
 
 import com.djrapitops.nmplayer.fileutils.PlaylistFileManager;
 import com.djrapitops.nmplayer.functionality.MusicPlayer;
+import com.djrapitops.nmplayer.functionality.PlayerCommands;
 import com.djrapitops.nmplayer.functionality.PlaylistManager;
 import com.djrapitops.nmplayer.ui.Updatable;
 import javafx.scene.control.Button;
@@ -35,7 +36,7 @@ public class PreviousButton extends Button {
         setPrefWidth(30);
         setText("⏪");
         setOnAction(event -> {
-            MusicPlayer.getInstance().previousTrack();
+            PlayerCommands.getInstance().previous();
             u.update();
         });
     }
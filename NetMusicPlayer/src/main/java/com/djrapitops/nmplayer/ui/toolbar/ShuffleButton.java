@@ -2,12 +2,16 @@
 package com.djrapitops.nmplayer.ui.toolbar;
 
 import com.djrapitops.nmplayer.functionality.MusicPlayer;
+import com.djrapitops.nmplayer.functionality.PlayerCommands;
 import com.djrapitops.nmplayer.functionality.PlaylistManager;
+import com.djrapitops.nmplayer.functionality.ShuffleMode;
 import com.djrapitops.nmplayer.ui.Updatable;
 import javafx.scene.control.Button;
+import javafx.scene.control.Tooltip;
 
 /**
- * JavaFx UI component, a Button used toggle shuffle.
+ * JavaFx UI component, a Button used toggle shuffle and to change the
+ * ShuffleMode.
  *
  * @author Rsl1122
  * @see MusicPlayer
@@ -17,26 +21,42 @@ public class ShuffleButton extends Button implements Updatable {
     /**
      * Constructor for the Button.
      * <p>
-     * Sets the click event response to either toggle the random state of PlaylistManager and update the text on the button.
+     * Sets the click event response to cycle through off and every ShuffleMode, and update the text on the button.
      *
      * @see MusicPlayer
+     * @see ShuffleMode
      */
     public ShuffleButton() {
         setStyle("-fx-background-color: #8290ed; -fx-text-fill: White");
         setPrefWidth(30);
         setOnAction(event -> {
             PlaylistManager manager = MusicPlayer.getInstance().getPlaylistManager();
-            manager.setRandom(!manager.isRandom());
+            PlayerCommands.getInstance().submit(() -> {
+                if (!manager.isRandom()) {
+                    manager.setShuffleMode(ShuffleMode.UNIFORM);
+                    manager.setRandom(true);
+                } else {
+                    ShuffleMode next = manager.getShuffleMode().next();
+                    if (next == ShuffleMode.UNIFORM) {
+                        manager.setRandom(false);
+                    } else {
+                        manager.setShuffleMode(next);
+                    }
+                }
+            });
             update();
         });
     }
 
     @Override
     public void update() {
-        if (!MusicPlayer.getInstance().getPlaylistManager().isRandom()) {
+        PlaylistManager manager = MusicPlayer.getInstance().getPlaylistManager();
+        if (!manager.isRandom()) {
             setText("🔁");
+            setTooltip(new Tooltip("Shuffle off"));
         } else {
             setText("🔀");
+            setTooltip(new Tooltip(manager.getShuffleMode().getName()));
         }
     }
 
@@ -2,6 +2,7 @@ package com.djrapitops.nmplayer.ui.toolbar;
 
 import com.djrapitops.nmplayer.fileutils.PlaylistFileManager;
 import com.djrapitops.nmplayer.functionality.MusicPlayer;
+import com.djrapitops.nmplayer.functionality.PlayerCommands;
 import com.djrapitops.nmplayer.functionality.PlaylistManager;
 import com.djrapitops.nmplayer.ui.Updatable;
 import javafx.scene.control.Button;
@@ -30,7 +31,7 @@ public class StopButton extends Button {
         setStyle("-fx-background-color: #8290ed; -fx-text-fill: White");
         setText("■");
         setOnAction(event -> {
-            MusicPlayer.getInstance().stop();
+            PlayerCommands.getInstance().stop();
             updatable.update();
         });
     }
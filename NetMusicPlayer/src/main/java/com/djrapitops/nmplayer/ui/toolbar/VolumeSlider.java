@@ -1,6 +1,7 @@
 package com.djrapitops.nmplayer.ui.toolbar;
 
 import com.djrapitops.nmplayer.functionality.MusicPlayer;
+import com.djrapitops.nmplayer.functionality.PlayerCommands;
 import com.djrapitops.nmplayer.ui.Updatable;
 import javafx.beans.Observable;
 import javafx.scene.control.Slider;
@@ -24,13 +25,15 @@ public class VolumeSlider extends Slider implements Updatable {
 
         super.valueProperty().addListener((Observable ov) -> {
             if (isValueChanging()) {
-                MusicPlayer.getInstance().setVolume(getValue() / 100);
+                PlayerCommands.getInstance().setVolume(getValue() / 100);
             }
         });
     }
 
     @Override
     public void update() {
-        adjustValue(MusicPlayer.getInstance().getVolume() * 100);
+        if (!isValueChanging()) {
+            adjustValue(PlayerCommands.getInstance().getState().getVolume() * 100);
+        }
     }
 }
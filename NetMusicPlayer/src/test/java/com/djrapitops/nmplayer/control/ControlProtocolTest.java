@@ -0,0 +1,81 @@
+package com.djrapitops.nmplayer.control;
+
+import com.djrapitops.nmplayer.functionality.MusicPlayer;
+import com.djrapitops.nmplayer.functionality.PlayerCommands;
+import com.djrapitops.nmplayer.functionality.Track;
+import com.djrapitops.nmplayer.functionality.playback.NullPlaybackEngine;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Rsl1122
+ */
+public class ControlProtocolTest {
+
+    private MusicPlayer player;
+    private PlayerCommands commands;
+    private ControlProtocol protocol;
+    private Track track;
+
+    @Before
+    public void setUp() {
+        player = new MusicPlayer(new NullPlaybackEngine(false));
+        commands = new PlayerCommands(player);
+        protocol = new ControlProtocol(commands, player);
+        track = new Track("Arrival", "Dj Rapitops", "/tracks/Dj Rapitops - Arrival.mp3");
+        commands.submitAndWait(() -> player.getPlaylistManager().addTrackToPlaylist(track));
+    }
+
+    @Test
+    public void testVolume() {
+        assertEquals(ControlProtocol.OK, protocol.execute("volume 0.5"));
+        assertEquals(ControlProtocol.OK, protocol.execute("VOLUME -0.25"));
+        AtomicReference<Double> volume = new AtomicReference<>();
+        commands.submitAndWait(() -> volume.set(player.getVolume()));
+        assertEquals(0.25, volume.get(), 0.0001);
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertTrue(protocol.execute("volume loud").startsWith(ControlProtocol.ERROR));
+        assertTrue(protocol.execute("seek 2").startsWith(ControlProtocol.ERROR));
+        assertTrue(protocol.execute("playlist").startsWith(ControlProtocol.ERROR));
+        assertTrue(protocol.execute("dance").startsWith(ControlProtocol.ERROR));
+        assertTrue(protocol.execute("  ").startsWith(ControlProtocol.ERROR));
+    }
+
+    @Test
+    public void testSearch() {
+        String[] lines = protocol.execute("search " + track.getName()).split("\n");
+        String last = lines[lines.length - 1];
+        assertTrue(last, last.startsWith(ControlProtocol.OK + " "));
+        assertEquals(lines.length - 1, Integer.parseInt(last.substring(3)));
+        boolean found = false;
+        for (int i = 0; i < lines.length - 1; i++) {
+            assertTrue(lines[i].startsWith("- "));
+            found |= lines[i].equals("- " + track);
+        }
+        assertTrue(found);
+    }
+
+    @Test
+    public void testEnqueue() {
+        String reply = protocol.execute("enqueue " + track.getName());
+        assertTrue(reply, reply.startsWith(ControlProtocol.OK));
+        AtomicReference<Integer> queued = new AtomicReference<>();
+        commands.submitAndWait(() -> queued.set(player.getPlaylistManager().getQueue().size()));
+        assertEquals(1, (int) queued.get());
+        assertTrue(protocol.execute("enqueue zzzzzzzz").startsWith(ControlProtocol.ERROR));
+    }
+
+    @Test
+    public void testStatus() {
+        String status = protocol.execute("status");
+        assertTrue(status, status.startsWith(ControlProtocol.OK + " paused"));
+        assertTrue(status, status.contains("playlist=None"));
+    }
+}
@@ -0,0 +1,140 @@
+package com.djrapitops.nmplayer.control;
+
+import com.djrapitops.nmplayer.functionality.MusicPlayer;
+import com.djrapitops.nmplayer.functionality.PlayerCommands;
+import com.djrapitops.nmplayer.functionality.Track;
+import com.djrapitops.nmplayer.functionality.playback.NullPlaybackEngine;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Rsl1122
+ */
+public class ControlServerTest {
+
+    private MusicPlayer player;
+    private PlayerCommands commands;
+    private ControlServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        player = new MusicPlayer(new NullPlaybackEngine(false));
+        commands = new PlayerCommands(player);
+        server = new ControlServer(new ControlProtocol(commands, player), 0);
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+        socket.setSoTimeout(5000);
+        return socket;
+    }
+
+    private static void send(Socket socket, String text) throws IOException {
+        OutputStream out = socket.getOutputStream();
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static BufferedReader reader(Socket socket) throws IOException {
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testManyClients() throws IOException {
+        List<Socket> sockets = new ArrayList<>();
+        try {
+            for (int i = 0; i < 100; i++) {
+                sockets.add(connect());
+            }
+            for (Socket socket : sockets) {
+                send(socket, "status\n");
+            }
+            for (Socket socket : sockets) {
+                String reply = reader(socket).readLine();
+                assertTrue(reply, reply.startsWith(ControlProtocol.OK + " paused"));
+            }
+        } finally {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+    }
+
+    @Test
+    public void testPipelinedCommands() throws IOException {
+        try (Socket socket = connect()) {
+            send(socket, "volume 0.5\r\nbogus\nvolume -0.2\nqu");
+            send(socket, "it\n");
+            BufferedReader in = reader(socket);
+            assertEquals(ControlProtocol.OK, in.readLine());
+            assertTrue(in.readLine().startsWith(ControlProtocol.ERROR));
+            assertEquals(ControlProtocol.OK, in.readLine());
+            assertEquals(ControlProtocol.OK, in.readLine());
+            assertNull(in.readLine());
+        }
+        AtomicReference<Double> volume = new AtomicReference<>();
+        commands.submitAndWait(() -> volume.set(player.getVolume()));
+        assertEquals(0.3, volume.get(), 0.0001);
+    }
+
+    @Test
+    public void testSearchRepliesInOrder() throws IOException {
+        Track track = new Track("Arrival", "Dj Rapitops", "/tracks/Dj Rapitops - Arrival.mp3");
+        commands.submitAndWait(() -> player.getPlaylistManager().addTrackToPlaylist(track));
+        try (Socket socket = connect()) {
+            send(socket, "search arrival\nvolume 0.5\nenqueue zzzzzzzz\nquit\n");
+            BufferedReader in = reader(socket);
+            assertEquals("- " + track, in.readLine());
+            assertEquals(ControlProtocol.OK + " 1", in.readLine());
+            assertEquals(ControlProtocol.OK, in.readLine());
+            assertTrue(in.readLine().startsWith(ControlProtocol.ERROR));
+            assertEquals(ControlProtocol.OK, in.readLine());
+            assertNull(in.readLine());
+        }
+    }
+
+    @Test
+    public void testTooLongLine() throws IOException {
+        try (Socket socket = connect()) {
+            char[] line = new char[ControlServer.MAX_LINE_LENGTH + 1];
+            Arrays.fill(line, 'a');
+            send(socket, new String(line));
+            BufferedReader in = reader(socket);
+            assertTrue(in.readLine().startsWith(ControlProtocol.ERROR));
+            assertNull(in.readLine());
+        }
+    }
+
+    @Test
+    public void testGetPort() {
+        assertEquals(1234, ControlServer.getPort(new String[]{"--headless", "--control-port=1234"}, 5));
+        assertEquals(5, ControlServer.getPort(new String[]{"--headless"}, 5));
+        try {
+            ControlServer.getPort(new String[]{"--control-port=70000"}, 5);
+            fail("Port out of range was accepted");
+        } catch (IllegalArgumentException expected) {
+            // Expected
+        }
+    }
+}
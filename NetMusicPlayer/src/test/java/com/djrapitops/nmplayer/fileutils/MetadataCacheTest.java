@@ -0,0 +1,81 @@
+package com.djrapitops.nmplayer.fileutils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Rsl1122
+ */
+public class MetadataCacheTest {
+
+    private File cacheFile;
+    private File track;
+
+    @Before
+    public void setUp() throws IOException {
+        cacheFile = File.createTempFile("metadata", ".cache");
+        track = File.createTempFile("metadataTrack", ".wav");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(cacheFile.toPath());
+        Files.deleteIfExists(track.toPath());
+    }
+
+    @Test
+    public void testSaveAndLoad() {
+        MetadataCache cache = new MetadataCache(cacheFile);
+        String path = track.getAbsolutePath();
+        assertNull(cache.get(path, "loudness"));
+        cache.put(path, "loudness", "-12.5");
+        cache.put(path, "frames", "1=2");
+        cache.save();
+
+        MetadataCache loaded = new MetadataCache(cacheFile);
+        assertEquals("-12.5", loaded.get(path, "loudness"));
+        assertEquals("1=2", loaded.get(path, "frames"));
+        assertNull(loaded.get(path, "missing"));
+    }
+
+    @Test
+    public void testModifiedFileIsNotUsed() {
+        MetadataCache cache = new MetadataCache(cacheFile);
+        String path = track.getAbsolutePath();
+        cache.put(path, "loudness", "-12.5");
+        cache.put(path, "frames", "100");
+        assertTrue(track.setLastModified(track.lastModified() - 10000));
+        assertNull(cache.get(path, "loudness"));
+
+        cache.put(path, "loudness", "-8.0");
+        assertEquals("-8.0", cache.get(path, "loudness"));
+        assertNull(cache.get(path, "frames"));
+    }
+
+    @Test
+    public void testFailedSaveIsRetried() throws IOException {
+        File folder = new File(cacheFile.getParentFile(), "metadataCacheFolder" + System.nanoTime());
+        File folderCache = new File(folder, "metadata.cache");
+        try {
+            MetadataCache cache = new MetadataCache(folderCache);
+            String path = track.getAbsolutePath();
+            cache.put(path, "loudness", "-12.5");
+            cache.save();
+            assertFalse(folderCache.exists());
+
+            assertTrue(folder.mkdir());
+            cache.save();
+            assertEquals("-12.5", new MetadataCache(folderCache).get(path, "loudness"));
+        } finally {
+            Files.deleteIfExists(folderCache.toPath());
+            Files.deleteIfExists(folder.toPath());
+        }
+    }
+}
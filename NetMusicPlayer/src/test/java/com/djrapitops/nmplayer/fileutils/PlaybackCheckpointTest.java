@@ -0,0 +1,103 @@
+package com.djrapitops.nmplayer.fileutils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Rsl1122
+ */
+public class PlaybackCheckpointTest {
+
+    private File checkpointFile;
+
+    @Before
+    public void setUp() throws IOException {
+        checkpointFile = File.createTempFile("playback", ".checkpoint");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(checkpointFile.toPath());
+    }
+
+    @Test
+    public void testEmpty() {
+        PlaybackCheckpoint checkpoint = new PlaybackCheckpoint(checkpointFile);
+        assertNull(checkpoint.getPlaylist());
+        assertNull(checkpoint.getTrackPath());
+        assertEquals(0, checkpoint.getPosition());
+        assertFalse(checkpoint.wasPlaying());
+        assertEquals(0, checkpoint.getResumePoint("/music/a.mp3"));
+    }
+
+    @Test
+    public void testUpdateAndLoad() {
+        PlaybackCheckpoint checkpoint = new PlaybackCheckpoint(checkpointFile);
+        checkpoint.update("test", "/music/a.mp3", 1000, true);
+        checkpoint.update("test", "/music/ä.mp3", 61500, false);
+
+        PlaybackCheckpoint loaded = new PlaybackCheckpoint(checkpointFile);
+        assertEquals("test", loaded.getPlaylist());
+        assertEquals("/music/ä.mp3", loaded.getTrackPath());
+        assertEquals(61500, loaded.getPosition());
+        assertFalse(loaded.wasPlaying());
+    }
+
+    @Test
+    public void testFileSizeIsFixed() {
+        PlaybackCheckpoint checkpoint = new PlaybackCheckpoint(checkpointFile);
+        for (int i = 0; i < 1000; i++) {
+            checkpoint.update("test", "/music/" + i + ".mp3", i, true);
+        }
+        assertEquals(2 * PlaybackCheckpoint.RECORD_SIZE, checkpointFile.length());
+        assertEquals("/music/999.mp3", new PlaybackCheckpoint(checkpointFile).getTrackPath());
+    }
+
+    @Test
+    public void testCorruptRecordIsNotUsed() throws IOException {
+        PlaybackCheckpoint checkpoint = new PlaybackCheckpoint(checkpointFile);
+        checkpoint.update("test", "/music/a.mp3", 1000, true);
+        checkpoint.update("test", "/music/b.mp3", 2000, true);
+        // The second update is the first record of the file.
+        try (RandomAccessFile file = new RandomAccessFile(checkpointFile, "rw")) {
+            file.seek(100);
+            file.write(0xFF);
+        }
+
+        PlaybackCheckpoint loaded = new PlaybackCheckpoint(checkpointFile);
+        assertEquals("/music/a.mp3", loaded.getTrackPath());
+        assertEquals(1000, loaded.getPosition());
+    }
+
+    @Test
+    public void testResumePoints() {
+        PlaybackCheckpoint checkpoint = new PlaybackCheckpoint(checkpointFile);
+        checkpoint.setResumePoint("/music/a.mp3", 120000);
+        checkpoint.setResumePoint("/music/b.mp3", 5000);
+        checkpoint.clearResumePoint("/music/b.mp3");
+        checkpoint.update("test", "/music/a.mp3", 120000, true);
+
+        PlaybackCheckpoint loaded = new PlaybackCheckpoint(checkpointFile);
+        assertEquals(120000, loaded.getResumePoint("/music/a.mp3"));
+        assertEquals(0, loaded.getResumePoint("/music/b.mp3"));
+    }
+
+    @Test
+    public void testLeastRecentResumePointIsReplaced() {
+        PlaybackCheckpoint checkpoint = new PlaybackCheckpoint(checkpointFile);
+        for (int i = 0; i <= PlaybackCheckpoint.RESUME_SLOTS; i++) {
+            checkpoint.setResumePoint("/music/" + i + ".mp3", i + 1);
+        }
+        assertEquals(0, checkpoint.getResumePoint("/music/0.mp3"));
+        assertEquals(2, checkpoint.getResumePoint("/music/1.mp3"));
+        assertEquals(PlaybackCheckpoint.RESUME_SLOTS + 1, checkpoint.getResumePoint("/music/" + PlaybackCheckpoint.RESUME_SLOTS + ".mp3"));
+    }
+}
@@ -5,20 +5,35 @@
  */
 package com.djrapitops.nmplayer.fileutils;
 
+import com.djrapitops.nmplayer.functionality.PlaylistManager;
 import com.djrapitops.nmplayer.functionality.Track;
+import com.djrapitops.nmplayer.functionality.TrackSelection;
+import org.junit.AfterClass;
 import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static com.djrapitops.nmplayer.fileutils.PlaylistFileManager.getPlaylistFolder;
 import static org.junit.Assert.*;
 
 public class PlaylistFileManagerTest {
 
+    @AfterClass
+    public static void tearDownClass() throws IOException {
+        Files.deleteIfExists(new File("playlists.index").toPath());
+        // Removed only if no other journals were left in it.
+        new File("journal").delete();
+    }
+
     @Test
     public void testGetPlaylistFolder() {
         File expected = new File("playlists");
@@ -82,6 +97,19 @@ public class PlaylistFileManagerTest {
         Files.deleteIfExists(exceptionFolder.toPath());
     }
 
+    @Test
+    public void testGetKnownSmartPlaylists() throws IOException {
+        File smart = PlaylistFileManager.getSmartPlaylistFile("testsmart");
+        Files.write(smart.toPath(), Collections.singletonList("artist = Smart"));
+        try {
+            String knownPlaylists = PlaylistFileManager.getKnownPlaylists();
+            assertTrue(knownPlaylists, Arrays.asList(knownPlaylists.split(", ")).contains("Testsmart"));
+            assertFalse(knownPlaylists, knownPlaylists.contains(PlaylistFileManager.SMART_EXTENSION));
+        } finally {
+            Files.deleteIfExists(smart.toPath());
+        }
+    }
+
     @Test
     public void testGetKnownPlaylists() {
         String knownPlaylists = PlaylistFileManager.getKnownPlaylists();
@@ -145,4 +173,61 @@ public class PlaylistFileManagerTest {
             assertTrue("Didn't contain " + trackF.toString(), loaded.contains(trackF.getAbsolutePath()));
         }
     }
+
+    @Test
+    public void testRemoveFromAllPlaylistsAndRelocate() throws IOException {
+        String first = "testIndexFirst";
+        String second = "testIndexSecond";
+        List<String> paths = new ArrayList<>();
+        paths.add("/index/a.mp3");
+        paths.add("/index/b.mp3");
+        assertTrue(PlaylistFileManager.save(paths, first));
+        assertTrue(PlaylistFileManager.save(paths.subList(0, 1), second));
+        try {
+            Set<String> playlists = PlaylistIndex.getInstance().getPlaylists("/index/a.mp3");
+            assertEquals(new HashSet<>(Arrays.asList(first, second)), playlists);
+
+            assertEquals(playlists, PlaylistFileManager.relocate("/index/a.mp3", "/index/c.mp3"));
+            assertEquals(Arrays.asList("/index/c.mp3", "/index/b.mp3"), PlaylistFileManager.load(first));
+            assertTrue(PlaylistIndex.getInstance().getPlaylists("/index/a.mp3").isEmpty());
+
+            PlaylistFileManager.removeFromAllPlaylists("/index/c.mp3");
+            assertEquals(Arrays.asList("/index/b.mp3"), PlaylistFileManager.load(first));
+            assertTrue(PlaylistFileManager.load(second).isEmpty());
+            assertEquals(Collections.singleton(first), PlaylistIndex.getInstance().getPlaylists("/index/b.mp3"));
+        } finally {
+            Files.deleteIfExists(new File(getPlaylistFolder(), first + ".txt").toPath());
+            Files.deleteIfExists(new File(getPlaylistFolder(), second + ".txt").toPath());
+        }
+    }
+
+    @Test
+    public void testSaveEdits() throws IOException {
+        String name = "testJournal";
+        List<Track> tracks = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            tracks.add(new Track("Journal" + i, "Journal", "/journal/" + i + ".mp3"));
+        }
+        try {
+            assertTrue(PlaylistFileManager.saveTracksAsPlaylist(tracks, name));
+            PlaylistManager manager = new PlaylistManager(tracks);
+            TrackSelection selection = new TrackSelection();
+            selection.selectRange(10, 12);
+            manager.moveSelected(selection, 0);
+            manager.removeTrackFromPlaylist(tracks.get(30));
+            manager.addTrackToPlaylist(new Track("Journal new", "Journal", "/journal/new.mp3"));
+            manager.undo();
+            assertTrue(PlaylistFileManager.saveEdits(manager.takeEdits(), name));
+
+            List<String> expected = manager.getPlaylist().stream().map(Track::getFilePath).collect(Collectors.toList());
+            assertEquals(expected, PlaylistFileManager.load(name));
+            assertEquals(tracks.get(0).getFilePath(), PlaylistFileManager.load(name).get(3));
+            assertTrue(PlaylistIndex.getInstance().getPlaylists(tracks.get(30).getFilePath()).isEmpty());
+            assertTrue(PlaylistIndex.getInstance().getPlaylists("/journal/new.mp3").isEmpty());
+            assertEquals(Collections.singleton(name), PlaylistIndex.getInstance().getPlaylists(tracks.get(10).getFilePath()));
+        } finally {
+            Files.deleteIfExists(new File(getPlaylistFolder(), name + ".txt").toPath());
+            Files.deleteIfExists(new File("journal", name + ".journal").toPath());
+        }
+    }
 }
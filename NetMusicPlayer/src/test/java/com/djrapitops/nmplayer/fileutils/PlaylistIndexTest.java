@@ -0,0 +1,71 @@
+package com.djrapitops.nmplayer.fileutils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.djrapitops.nmplayer.fileutils.PlaylistFileManager.getPlaylistFolder;
+import static org.junit.Assert.*;
+
+/**
+ * @author Rsl1122
+ */
+public class PlaylistIndexTest {
+
+    private static final String NAME = "testIndexLog";
+
+    private File indexFile;
+    private long modified;
+
+    @Before
+    public void setUp() throws IOException {
+        indexFile = File.createTempFile("playlists", ".index");
+        assertTrue(PlaylistFileManager.save(Arrays.asList("/log/a.mp3", "/log/b.mp3", "/log/c.mp3"), NAME));
+        modified = PlaylistFileManager.getLastModified(NAME);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(indexFile.toPath());
+        Files.deleteIfExists(new File(getPlaylistFolder(), NAME + ".txt").toPath());
+        Files.deleteIfExists(new File("playlists.index").toPath());
+    }
+
+    @Test
+    public void testEditsAreAppended() throws IOException {
+        PlaylistIndex index = new PlaylistIndex(indexFile);
+        assertEquals(Collections.singleton(NAME), index.getPlaylists("/log/a.mp3"));
+        int written = FileUtility.lines(indexFile).size();
+
+        index.applyEdits(NAME, Collections.singletonList("/log/a.mp3"), Collections.singletonList("/log/d.mp3"), modified);
+        assertEquals(written + 4, FileUtility.lines(indexFile).size());
+
+        PlaylistIndex loaded = new PlaylistIndex(indexFile);
+        assertTrue(loaded.getPlaylists("/log/a.mp3").isEmpty());
+        assertEquals(Collections.singleton(NAME), loaded.getPlaylists("/log/b.mp3"));
+        assertEquals(Collections.singleton(NAME), loaded.getPlaylists("/log/d.mp3"));
+    }
+
+    @Test
+    public void testLogIsCompacted() throws IOException {
+        PlaylistIndex index = new PlaylistIndex(indexFile);
+        assertEquals(Collections.singleton(NAME), index.getPlaylists("/log/a.mp3"));
+        int written = FileUtility.lines(indexFile).size();
+
+        for (int i = 0; i < 100; i++) {
+            index.applyEdits(NAME, Collections.singletonList("/log/a.mp3"), Collections.emptyList(), modified);
+            index.applyEdits(NAME, Collections.emptyList(), Collections.singletonList("/log/a.mp3"), modified);
+        }
+        assertTrue(FileUtility.lines(indexFile).size() <= 2 * written);
+
+        PlaylistIndex loaded = new PlaylistIndex(indexFile);
+        assertEquals(Collections.singleton(NAME), loaded.getPlaylists("/log/a.mp3"));
+        assertEquals(Collections.singleton(NAME), loaded.getPlaylists("/log/c.mp3"));
+    }
+}
@@ -0,0 +1,103 @@
+package com.djrapitops.nmplayer.functionality;
+
+import com.djrapitops.nmplayer.functionality.playback.NullPlaybackEngine;
+import com.djrapitops.nmplayer.functionality.playback.PlaybackHandle;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Rsl1122
+ */
+public class CrossfadeTest {
+
+    @Test
+    public void testFade() throws InterruptedException {
+        VolumeHandle outgoing = new VolumeHandle();
+        VolumeHandle incoming = new VolumeHandle();
+        outgoing.volume = 0.5;
+        Crossfade fade = new Crossfade(new NullPlaybackEngine(false), outgoing, incoming, 400, () -> 0.5);
+        fade.start();
+        assertEquals(0.0, incoming.volume, 0.001);
+
+        Thread.sleep(200);
+        assertFalse(fade.isFinished());
+        assertTrue(outgoing.volume < 0.5);
+        assertTrue(incoming.volume > 0.0);
+        assertFalse(outgoing.stopped);
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!fade.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(fade.isFinished());
+        assertTrue(outgoing.stopped);
+        assertEquals(0.5, incoming.volume, 0.001);
+    }
+
+    @Test
+    public void testFinish() {
+        VolumeHandle outgoing = new VolumeHandle();
+        VolumeHandle incoming = new VolumeHandle();
+        Crossfade fade = new Crossfade(new NullPlaybackEngine(false), outgoing, incoming, 10000, () -> 0.75);
+        fade.start();
+        fade.finish();
+        assertTrue(fade.isFinished());
+        assertTrue(outgoing.stopped);
+        assertEquals(0.75, incoming.volume, 0.001);
+    }
+
+    private static class VolumeHandle implements PlaybackHandle {
+
+        private volatile double volume = 1.0;
+        private volatile boolean stopped;
+
+        @Override
+        public void play() {
+        }
+
+        @Override
+        public void pause() {
+        }
+
+        @Override
+        public void stop() {
+            stopped = true;
+        }
+
+        @Override
+        public void dispose() {
+        }
+
+        @Override
+        public void seek(double seconds) {
+        }
+
+        @Override
+        public double getCurrentTime() {
+            return 0;
+        }
+
+        @Override
+        public double getTotalDuration() {
+            return Double.NaN;
+        }
+
+        @Override
+        public void setVolume(double volume) {
+            this.volume = volume;
+        }
+
+        @Override
+        public void setOnEndOfMedia(Runnable task) {
+        }
+
+        @Override
+        public void setOnPlaying(Runnable task) {
+        }
+
+        @Override
+        public void setOnReady(Runnable task) {
+        }
+    }
+}
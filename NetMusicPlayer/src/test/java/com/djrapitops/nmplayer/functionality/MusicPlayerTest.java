@@ -44,7 +44,7 @@ public class MusicPlayerTest {
         mp.init();
         assertEquals("all", mp.getSelectedPlaylist());
         assertTrue(mp.getCurrentTrack() != null);
-        assertTrue(mp.getMediaPlayer() != null);
+        assertTrue(mp.getPlayback() != null);
         assertTrue(mp.getPlaylistManager() != null);
     }
 
@@ -171,8 +171,8 @@ public class MusicPlayerTest {
     }
 
     @Test
-    public void testGetMediaPlayer() {
-        assertNull(MusicPlayer.getInstance().getMediaPlayer());
+    public void testGetPlayback() {
+        assertNull(MusicPlayer.getInstance().getPlayback());
     }
 
     @Test
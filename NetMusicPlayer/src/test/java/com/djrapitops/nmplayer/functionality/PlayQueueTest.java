@@ -0,0 +1,63 @@
+package com.djrapitops.nmplayer.functionality;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Rsl1122
+ */
+public class PlayQueueTest {
+
+    @Test
+    public void testEnqueueOrder() {
+        PlayQueue q = new PlayQueue();
+        Track o1 = new Track("1", "2", "3");
+        Track o2 = new Track("4", "5", "6");
+        Track o3 = new Track("7", "8", "9");
+        q.enqueueLast(o1);
+        q.enqueueLast(o2);
+        q.enqueueNext(o3);
+        assertEquals(3, q.size());
+        assertEquals(o3, q.dequeue());
+        assertEquals(o1, q.dequeue());
+        assertEquals(o2, q.dequeue());
+        assertNull(q.dequeue());
+        assertTrue(q.isEmpty());
+    }
+
+    @Test
+    public void testGrowKeepsOrder() {
+        PlayQueue q = new PlayQueue();
+        Track[] tracks = new Track[100];
+        for (int i = 0; i < tracks.length; i++) {
+            tracks[i] = new Track("Queue" + i, "Artist", "queue" + i);
+        }
+        for (int i = 50; i < 100; i++) {
+            q.enqueueLast(tracks[i]);
+        }
+        for (int i = 49; i >= 0; i--) {
+            q.enqueueNext(tracks[i]);
+        }
+        assertEquals(100, q.size());
+        assertEquals(tracks[99], q.peek(99));
+        assertNull(q.peek(100));
+        List<Track> lookahead = q.lookahead(5);
+        assertEquals(5, lookahead.size());
+        assertEquals(tracks[4], lookahead.get(4));
+        for (Track track : tracks) {
+            assertEquals(track, q.dequeue());
+        }
+    }
+
+    @Test
+    public void testClear() {
+        PlayQueue q = new PlayQueue();
+        q.enqueueLast(new Track("1", "2", "3"));
+        q.clear();
+        assertTrue(q.isEmpty());
+        assertTrue(q.lookahead(3).isEmpty());
+    }
+}
@@ -0,0 +1,125 @@
+package com.djrapitops.nmplayer.functionality;
+
+import com.djrapitops.nmplayer.fileutils.PlaylistFileManager;
+import com.djrapitops.nmplayer.functionality.playback.NullPlaybackEngine;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.djrapitops.nmplayer.functionality.utilities.PlaylistAlgebra.Operation.UNION;
+import static org.junit.Assert.*;
+
+/**
+ * @author Rsl1122
+ */
+public class PlayerCommandsTest {
+
+    private MusicPlayer player;
+    private PlayerCommands commands;
+
+    @Before
+    public void setUp() {
+        player = new MusicPlayer(new NullPlaybackEngine(false));
+        commands = new PlayerCommands(player);
+    }
+
+    @Test
+    public void testCommandsRunInOrder() {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            int value = i;
+            commands.submit(() -> order.add(value));
+        }
+        commands.submitAndWait(() -> order.add(10));
+        assertEquals(11, order.size());
+        for (int i = 0; i <= 10; i++) {
+            assertEquals(i, (int) order.get(i));
+        }
+    }
+
+    @Test
+    public void testCoalesce() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        commands.submit(() -> {
+            try {
+                blocked.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        AtomicInteger runs = new AtomicInteger();
+        for (int i = 1; i <= 100; i++) {
+            commands.submit("test", runs::incrementAndGet);
+        }
+        commands.submit(runs::incrementAndGet);
+        commands.submit("test", runs::incrementAndGet);
+        blocked.countDown();
+        commands.submitAndWait(() -> {
+        });
+        assertEquals(3, runs.get());
+    }
+
+    @Test
+    public void testNewerSelectionCancelsOlder() {
+        CountDownLatch blocked = new CountDownLatch(1);
+        commands.submit(() -> {
+            try {
+                blocked.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CompletableFuture<Void> first = commands.selectPlaylist("all");
+        CompletableFuture<Void> second = commands.selectPlaylist("remove");
+        assertTrue(first.isCancelled());
+        blocked.countDown();
+        second.join();
+        AtomicReference<String> selected = new AtomicReference<>();
+        commands.submitAndWait(() -> selected.set(player.getSelectedPlaylist()));
+        assertEquals("remove", selected.get());
+    }
+
+    @Test
+    public void testStatePublished() throws InterruptedException {
+        CountDownLatch published = new CountDownLatch(1);
+        commands.addListener(state -> published.countDown());
+        for (int i = 1; i <= 10; i++) {
+            commands.setVolume(i / 10.0);
+        }
+        assertTrue(published.await(5, TimeUnit.SECONDS));
+        commands.submitAndWait(() -> {
+        });
+        assertEquals(1.0, commands.getState().getVolume(), 0.001);
+        assertEquals(1.0, player.getVolume(), 0.001);
+        assertFalse(commands.getState().isPlaying());
+    }
+
+    @Test
+    public void testCombinePlaylists() throws IOException, InterruptedException, ExecutionException, TimeoutException {
+        String[] names = {"testcombinefirst", "testcombinesecond", "testcombineresult"};
+        try {
+            assertTrue(PlaylistFileManager.save(Arrays.asList("/combine/a.mp3", "/combine/b.mp3"), names[0]));
+            assertTrue(PlaylistFileManager.save(Arrays.asList("/combine/b.mp3", "/combine/c.mp3"), names[1]));
+            commands.combinePlaylists(names[0], UNION, names[1], names[2]).get(5, TimeUnit.SECONDS);
+            assertEquals(Arrays.asList("/combine/a.mp3", "/combine/b.mp3", "/combine/c.mp3"), PlaylistFileManager.load(names[2]));
+        } finally {
+            for (String name : names) {
+                Files.deleteIfExists(new File(PlaylistFileManager.getPlaylistFolder(), name + ".txt").toPath());
+            }
+            Files.deleteIfExists(new File("playlists.index").toPath());
+        }
+    }
+}
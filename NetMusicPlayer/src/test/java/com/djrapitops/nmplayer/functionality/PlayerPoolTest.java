@@ -0,0 +1,60 @@
+package com.djrapitops.nmplayer.functionality;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Rsl1122
+ */
+public class PlayerPoolTest {
+
+    private final List<String> created = new ArrayList<>();
+    private final List<String> stopped = new ArrayList<>();
+    private final List<String> disposed = new ArrayList<>();
+
+    private PlayerPool<String> createPool() {
+        return new PlayerPool<>(track -> {
+            String player = track.getName() + "#" + created.size();
+            created.add(player);
+            return player;
+        }, stopped::add, disposed::add);
+    }
+
+    @Test
+    public void testNextAndPreviousAreReused() {
+        PlayerPool<String> pool = createPool();
+        Track a = new Track("PoolA", "Pool", "poolA");
+        Track b = new Track("PoolB", "Pool", "poolB");
+        Track c = new Track("PoolC", "Pool", "poolC");
+
+        String playerA = pool.activate(a);
+        pool.prepareNext(b);
+        assertEquals(PlayerPool.State.PREPARING, pool.getState(b));
+        pool.markReady(created.get(1));
+        assertEquals(PlayerPool.State.READY, pool.getState(b));
+
+        String playerB = pool.activate(b);
+        assertEquals(2, created.size());
+        assertEquals(PlayerPool.State.ACTIVE, pool.getState(b));
+        assertEquals(PlayerPool.State.READY, pool.getState(a));
+        assertTrue(stopped.contains(playerA));
+
+        assertEquals(playerA, pool.activate(a));
+        assertEquals(playerB, pool.activate(b));
+        assertEquals(2, created.size());
+        assertTrue(disposed.isEmpty());
+
+        pool.prepareNext(c);
+        pool.prepareNext(a);
+        assertEquals("Replaced next player should be disposed", 1, disposed.size());
+        assertEquals(PlayerPool.State.DISPOSED, pool.getState(c));
+
+        pool.clear();
+        assertEquals(3, disposed.size());
+        assertNull(pool.getCurrent());
+    }
+}
@@ -8,7 +8,13 @@ package com.djrapitops.nmplayer.functionality;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 
@@ -259,4 +265,212 @@ public class PlaylistManagerTest {
         m.setRandom(false);
         assertTrue(!m.isRandom());
     }
+
+    @Test
+    public void testSortedAdd() {
+        PlaylistManager m = new PlaylistManager();
+        m.setSorted(true);
+        Track o1 = new Track("1", "2", "3");
+        Track o2 = new Track("4", "5", "6");
+        Track o3 = new Track("7", "8", "9");
+        m.addTrackToPlaylist(o3);
+        m.addTrackToPlaylist(o1);
+        m.addTrackToPlaylist(o2);
+        assertEquals(0, m.getIndexOf(o1));
+        assertEquals(1, m.getIndexOf(o2));
+        assertEquals(2, m.getIndexOf(o3));
+    }
+
+    @Test
+    public void testNextTrackUsesQueue() {
+        PlaylistManager m = new PlaylistManager();
+        Track o1 = new Track("1", "2", "3");
+        Track o2 = new Track("4", "5", "6");
+        Track o3 = new Track("7", "8", "9");
+        m.addTrackToPlaylist(o1);
+        m.addTrackToPlaylist(o2);
+        m.setCurrentTrack(o1);
+        m.getQueue().enqueueLast(o3);
+        List<Track> upcoming = m.getUpcoming(3);
+        assertEquals(3, upcoming.size());
+        assertEquals(o3, upcoming.get(0));
+        assertEquals(o2, upcoming.get(1));
+        assertEquals(o1, upcoming.get(2));
+        assertEquals(o3, m.nextTrack());
+        assertEquals(o2, m.nextTrack());
+    }
+
+    @Test
+    public void testPlaylistIsSnapshot() {
+        PlaylistManager m = new PlaylistManager();
+        Track o1 = new Track("1", "2", "3");
+        Track o2 = new Track("4", "5", "6");
+        m.addTrackToPlaylist(o1);
+        List<Track> snapshot = m.getPlaylist();
+        m.addTrackToPlaylist(o2);
+        m.removeTrackFromPlaylist(o1);
+        assertEquals(1, snapshot.size());
+        assertEquals(o1, snapshot.get(0));
+        assertEquals(o2, m.getPlaylist().get(0));
+    }
+
+    @Test
+    public void testRemoveAndMoveSelected() {
+        PlaylistManager m = new PlaylistManager();
+        List<Track> tracks = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Track track = new Track("Bulk" + i, "Bulk", "bulk" + i);
+            tracks.add(track);
+            m.addTrackToPlaylist(track);
+        }
+        TrackSelection selection = new TrackSelection();
+        selection.selectRange(3, 4);
+        m.moveSelected(selection, 1);
+        assertEquals(Arrays.asList(tracks.get(0), tracks.get(3), tracks.get(4), tracks.get(1), tracks.get(2), tracks.get(5)),
+                m.getPlaylist());
+
+        selection.clear();
+        selection.select(0);
+        selection.select(5);
+        assertEquals(Arrays.asList(tracks.get(0), tracks.get(5)), m.getSelectedTracks(selection));
+        List<Track> removed = m.removeSelected(selection);
+        assertEquals(Arrays.asList(tracks.get(0), tracks.get(5)), removed);
+        assertEquals(Arrays.asList(tracks.get(3), tracks.get(4), tracks.get(1), tracks.get(2)), m.getPlaylist());
+    }
+
+    @Test
+    public void testUndoRedo() {
+        PlaylistManager m = new PlaylistManager();
+        List<Track> tracks = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            Track track = new Track("Undo" + i, "Undo", "undo" + i);
+            tracks.add(track);
+        }
+        m.setPlaylist(tracks);
+        assertFalse(m.canUndo());
+        TrackSelection selection = new TrackSelection();
+        selection.selectRange(0, 9997);
+        m.removeSelected(selection);
+        m.addTrackToPlaylist(tracks.get(0));
+        assertEquals(Arrays.asList(tracks.get(9998), tracks.get(9999), tracks.get(0)), m.getPlaylist());
+
+        assertTrue(m.undo());
+        assertTrue(m.undo());
+        assertEquals(tracks, m.getPlaylist());
+        assertFalse(m.undo());
+        assertTrue(m.redo());
+        assertEquals(Arrays.asList(tracks.get(9998), tracks.get(9999)), m.getPlaylist());
+
+        m.removeTrackFromPlaylist(tracks.get(9999));
+        assertFalse("Change after undo should clear redo", m.canRedo());
+        assertEquals(6, m.takeEdits().size());
+        assertTrue(m.takeEdits().isEmpty());
+    }
+
+    @Test
+    public void testShuffleCoversAddedTrack() {
+        PlaylistManager m = new PlaylistManager();
+        for (int i = 0; i < 8; i++) {
+            m.addTrackToPlaylist(new Track("t" + i, "shuffle", "/shuffle/t" + i));
+        }
+        m.setRandom(true);
+        Set<Track> played = new HashSet<>();
+        m.setCurrentTrack(m.selectTrack(0));
+        played.add(m.getCurrentTrack());
+        m.setCurrentTrack(m.nextTrack());
+        played.add(m.getCurrentTrack());
+        Track added = new Track("new", "shuffle", "/shuffle/new");
+        m.addTrackToPlaylist(added);
+        assertEquals(1, m.getCurrentTrackIndex());
+        for (int i = 0; i < 7; i++) {
+            Track upcoming = m.getUpcoming(1).get(0);
+            Track track = m.nextTrack();
+            assertEquals(upcoming, track);
+            assertEquals(played.size(), m.getIndexOf(track));
+            assertTrue("Repeated " + track, played.add(track));
+            m.setCurrentTrack(track);
+        }
+        assertTrue(played.contains(added));
+    }
+
+    @Test
+    public void testNoRepeatWhenShuffleStartsAgain() {
+        PlaylistManager m = new PlaylistManager();
+        for (int i = 0; i < 9; i++) {
+            m.addTrackToPlaylist(new Track("t" + i, "cycle", "/shuffleCycle/t" + i));
+        }
+        m.setRandom(true);
+        m.setCurrentTrack(m.selectTrack(0));
+        for (int i = 0; i < 500; i++) {
+            Track previous = m.getCurrentTrack();
+            Track track = m.nextTrack();
+            assertNotEquals("Repeated " + track + " after " + i + " tracks", previous, track);
+            m.setCurrentTrack(track);
+        }
+    }
+
+    @Test
+    public void testShuffleOrderSurvivesEdits() {
+        PlaylistManager m = new PlaylistManager();
+        List<Track> tracks = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            Track track = new Track("t" + i, "edit", "/shuffleEdit/t" + i);
+            tracks.add(track);
+            m.addTrackToPlaylist(track);
+        }
+        m.setRandom(true);
+        List<Track> played = new ArrayList<>();
+        m.setCurrentTrack(m.selectTrack(0));
+        played.add(m.getCurrentTrack());
+        for (int i = 0; i < 4; i++) {
+            m.setCurrentTrack(m.nextTrack());
+            played.add(m.getCurrentTrack());
+        }
+        List<Track> upcoming = m.getUpcoming(7);
+
+        Track removed = upcoming.remove(3);
+        m.removeTrackFromPlaylist(removed);
+        m.removeTrackFromPlaylist(played.remove(1));
+        m.addTrackToPlaylist(new Track("new", "edit", "/shuffleEdit/new"));
+        m.undo();
+        assertEquals(upcoming, m.getUpcoming(6));
+        assertEquals(played, m.getUpcoming(10).subList(6, 10));
+    }
+
+    @Test
+    public void testQueuedTrackKeepsPlaylistPosition() {
+        PlaylistManager m = new PlaylistManager();
+        List<Track> tracks = new ArrayList<>();
+        for (String name : Arrays.asList("a", "b", "c", "d", "e")) {
+            Track track = new Track(name, "anchor", "/anchor/" + name);
+            tracks.add(track);
+            m.addTrackToPlaylist(track);
+        }
+        Track queued = new Track("x", "anchor", "/anchor/x");
+        m.setCurrentTrack(tracks.get(2));
+        m.getQueue().enqueueLast(queued);
+        assertEquals(Arrays.asList(queued, tracks.get(3)), m.getUpcoming(2));
+        assertEquals(queued, m.nextTrack());
+        m.setCurrentTrack(queued);
+        m.setCurrentTrack(queued);
+        assertEquals(tracks.get(3), m.getUpcoming(1).get(0));
+        assertEquals(tracks.get(2), m.previousTrack());
+        assertEquals(tracks.get(3), m.nextTrack());
+        m.setCurrentTrack(tracks.get(3));
+        assertEquals(tracks.get(2), m.previousTrack());
+    }
+
+    @Test
+    public void testSearchWhileLocked() throws Exception {
+        PlaylistManager m = new PlaylistManager(Arrays.asList(new Track("Arrival", "Search", "/search/arrival"),
+                new Track("Evacuate", "Search", "/search/evacuate")));
+        assertEquals(1, m.search("arriv", 5).size());
+        Track added = new Track("Departure", "Search", "/search/departure");
+        m.addTrackToPlaylist(added);
+        synchronized (m) {
+            // Another thread holding the PlaylistManager, for example the player thread.
+            CompletableFuture<List<Track>> found = CompletableFuture.supplyAsync(() -> m.search("depart", 5));
+            assertEquals(Collections.singletonList(added), found.get(5, TimeUnit.SECONDS));
+        }
+    }
 }
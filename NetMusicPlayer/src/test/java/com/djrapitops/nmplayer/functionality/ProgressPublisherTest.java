@@ -0,0 +1,61 @@
+package com.djrapitops.nmplayer.functionality;
+
+import com.djrapitops.nmplayer.functionality.playback.NullPlaybackEngine;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Rsl1122
+ */
+public class ProgressPublisherTest {
+
+    private ProgressPublisher publisher;
+    private AtomicInteger updates;
+
+    @Before
+    public void setUp() {
+        publisher = new ProgressPublisher();
+        updates = new AtomicInteger();
+        publisher.setTarget(updates::incrementAndGet);
+        publisher.setEngine(new NullPlaybackEngine(false));
+        publisher.setRate(20);
+    }
+
+    @Test
+    public void testSamplesWhilePlaying() throws InterruptedException {
+        assertFalse(publisher.isSampling());
+        publisher.setPlaying(true);
+        assertTrue(publisher.isSampling());
+        Thread.sleep(500);
+        int sampled = updates.get();
+        assertTrue("Too few samples: " + sampled, sampled >= 3);
+        assertTrue("Too many samples: " + sampled, sampled <= 12);
+
+        publisher.setPlaying(false);
+        assertFalse(publisher.isSampling());
+        int afterPause = updates.get();
+        Thread.sleep(200);
+        assertEquals(afterPause, updates.get());
+    }
+
+    @Test
+    public void testHiddenDoesNotSample() throws InterruptedException {
+        publisher.setVisible(false);
+        publisher.setPlaying(true);
+        assertFalse(publisher.isSampling());
+        Thread.sleep(200);
+        assertEquals(0, updates.get());
+
+        publisher.setVisible(true);
+        assertTrue(publisher.isSampling());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRate() {
+        publisher.setRate(0);
+    }
+}
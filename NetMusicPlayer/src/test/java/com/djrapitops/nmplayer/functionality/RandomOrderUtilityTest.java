@@ -3,6 +3,7 @@ package com.djrapitops.nmplayer.functionality;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 import java.util.stream.Collectors;
 import static org.junit.Assert.*;
@@ -74,4 +75,94 @@ public class RandomOrderUtilityTest {
         List<Integer> unique = test.stream().distinct().collect(Collectors.toList());
         assertEquals(test.size(), unique.size());
     }
+
+    @Test
+    public void testOrderIndexOfIsInverse() {
+        RandomOrderUtility r = new RandomOrderUtility(1000, 42);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, r.getOrderIndexOf(r.getNewIndexFromOrder(i)));
+        }
+        assertEquals(-1, r.getOrderIndexOf(-1));
+        assertEquals(-1, r.getOrderIndexOf(1000));
+    }
+
+    @Test
+    public void testHugePlaylistIsLazy() {
+        int size = 5000000;
+        RandomOrderUtility r = new RandomOrderUtility(size, size - 1);
+        assertEquals(size - 1, r.getNewIndexFromOrder(0));
+        int last = r.getNewIndexFromOrder(size - 1);
+        assertEquals(size - 1, r.getOrderIndexOf(last));
+    }
+
+    @Test
+    public void testEditKeepsOrder() {
+        Random random = new Random(31);
+        List<Integer> playlist = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            playlist.add(i);
+        }
+        int next = playlist.size();
+        RandomOrderUtility r = new RandomOrderUtility(playlist.size(), 7);
+        int current = 10;
+        for (int step = 0; step < 40; step++) {
+            List<Integer> order = tracksInOrder(r, playlist);
+            int currentTrack = order.get(current);
+
+            List<Integer> removedPositions = new ArrayList<>();
+            for (int i = 0; i < playlist.size(); i++) {
+                if (playlist.get(i) != currentTrack && random.nextInt(10) == 0) {
+                    removedPositions.add(i);
+                }
+            }
+            List<Integer> edited = new ArrayList<>(playlist);
+            for (int i = removedPositions.size() - 1; i >= 0; i--) {
+                edited.remove((int) removedPositions.get(i));
+            }
+            int inserts = random.nextInt(6);
+            Set<Integer> insertedPositions = new HashSet<>();
+            while (insertedPositions.size() < inserts) {
+                insertedPositions.add(random.nextInt(edited.size() + inserts));
+            }
+            List<Integer> ascending = insertedPositions.stream().sorted().collect(Collectors.toList());
+            int[] insertedIds = new int[ascending.size()];
+            for (int i = 0; i < ascending.size(); i++) {
+                insertedIds[i] = next;
+                edited.add(ascending.get(i), next++);
+            }
+            PlaylistEdit edit = new PlaylistEdit(toArray(removedPositions), new int[removedPositions.size()], toArray(ascending), insertedIds);
+
+            RandomOrderUtility editedOrder = r.edit(edit, current);
+            List<Integer> editedTracks = tracksInOrder(editedOrder, edited);
+            assertEquals(edited.size(), new HashSet<>(editedTracks).size());
+            for (int i = 0; i < edited.size(); i++) {
+                assertEquals(i, editedOrder.getOrderIndexOf(editedOrder.getNewIndexFromOrder(i)));
+            }
+            List<Integer> kept = new ArrayList<>(order);
+            kept.retainAll(edited);
+            List<Integer> keptAfterEdit = new ArrayList<>(editedTracks);
+            keptAfterEdit.retainAll(playlist);
+            assertEquals("Order changed by an edit", kept, keptAfterEdit);
+            int currentSpot = editedTracks.indexOf(currentTrack);
+            for (int id : insertedIds) {
+                assertTrue("Inserted before the current track", editedTracks.indexOf(id) > currentSpot);
+            }
+
+            playlist = edited;
+            r = editedOrder;
+            current = Math.min(currentSpot + 1, playlist.size() - 1);
+        }
+    }
+
+    private static List<Integer> tracksInOrder(RandomOrderUtility r, List<Integer> playlist) {
+        List<Integer> tracks = new ArrayList<>();
+        for (int index : r.getIndexOrderList()) {
+            tracks.add(playlist.get(index));
+        }
+        return tracks;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
 }
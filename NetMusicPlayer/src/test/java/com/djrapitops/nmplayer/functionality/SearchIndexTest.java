@@ -0,0 +1,110 @@
+package com.djrapitops.nmplayer.functionality;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Rsl1122
+ */
+public class SearchIndexTest {
+
+    private SearchIndex index;
+    private Track arrival;
+    private Track evacuate;
+    private Track dejaVu;
+
+    @Before
+    public void setUp() {
+        index = new SearchIndex();
+        arrival = new Track("Arrival", "Dj Rapitops", "/tracks/Dj Rapitops - Arrival.mp3");
+        evacuate = new Track("Evacuate", "Dj Rapitops", "/tracks/Dj Rapitops - Evacuate.mp3");
+        dejaVu = new Track("Déjà Vu", "Beyoncé", "C:\\Music\\beyonce_deja_vu.mp3");
+        index.add(arrival);
+        index.add(evacuate);
+        index.add(dejaVu);
+    }
+
+    @Test
+    public void testSubstring() {
+        List<Track> result = index.search("rriv", 10);
+        assertEquals(1, result.size());
+        assertEquals(arrival, result.get(0));
+    }
+
+    @Test
+    public void testCaseAndAccentsIgnored() {
+        assertEquals(dejaVu, index.search("DEJA", 10).get(0));
+        assertEquals(dejaVu, index.search("beyoncé", 10).get(0));
+    }
+
+    @Test
+    public void testFileName() {
+        assertEquals(dejaVu, index.search("beyonce deja", 10).get(0));
+    }
+
+    @Test
+    public void testShortPrefix() {
+        List<Track> result = index.search("e", 10);
+        assertEquals(2, result.size());
+        assertEquals(evacuate, result.get(0));
+        assertEquals(dejaVu, result.get(1));
+    }
+
+    @Test
+    public void testShortSubstring() {
+        Track puzzle = new Track("Puzzle", "Someone", "/tracks/y.mp3");
+        index.add(puzzle);
+        assertEquals(Collections.singletonList(puzzle), index.search("zz", 10));
+        assertEquals(Collections.singletonList(puzzle), index.search("z", 10));
+        assertEquals(arrival, index.search("rr", 10).get(0));
+        index.remove(puzzle);
+        assertTrue(index.search("zz", 10).isEmpty());
+        assertTrue(index.search("q", 10).isEmpty());
+    }
+
+    @Test
+    public void testWordStartFirst() {
+        Track inside = new Track("Reevaluate", "Someone", "/tracks/x.mp3");
+        index.add(inside);
+        List<Track> result = index.search("eva", 10);
+        assertEquals(evacuate, result.get(0));
+        assertEquals(inside, result.get(1));
+    }
+
+    @Test
+    public void testLimit() {
+        assertEquals(1, index.search("dj", 1).size());
+    }
+
+    @Test
+    public void testRemove() {
+        index.remove(arrival);
+        assertTrue(index.search("arrival", 10).isEmpty());
+        assertEquals(2, index.size());
+        index.remove(evacuate);
+        assertTrue(index.search("evacuate", 10).isEmpty());
+        assertEquals(dejaVu, index.search("vu", 10).get(0));
+    }
+
+    @Test
+    public void testNoMatch() {
+        assertTrue(index.search("xyz", 10).isEmpty());
+        assertTrue(index.search("  ", 10).isEmpty());
+    }
+
+    @Test
+    public void testPlaylistManagerSearch() {
+        PlaylistManager manager = new PlaylistManager();
+        manager.addTrackToPlaylist(arrival);
+        assertEquals(arrival, manager.search("arr", 10).get(0));
+        manager.addTrackToPlaylist(evacuate);
+        assertEquals(evacuate, manager.search("evac", 10).get(0));
+        manager.removeTrackFromPlaylist(arrival);
+        assertTrue(manager.search("arr", 10).isEmpty());
+    }
+}
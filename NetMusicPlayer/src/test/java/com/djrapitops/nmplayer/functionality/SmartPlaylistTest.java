@@ -0,0 +1,43 @@
+package com.djrapitops.nmplayer.functionality;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Rsl1122
+ */
+public class SmartPlaylistTest {
+
+    @Test
+    public void testIncrementalMembership() {
+        TrackTable table = TrackTable.getInstance();
+        SmartPlaylist playlist = new SmartPlaylist(Arrays.asList(
+                SmartRule.parse("artist = Smart"),
+                SmartRule.parse("plays > 0")
+        ), 0);
+        Track played = new Track("B", "Smart", "/smart/b.mp3");
+        Track notPlayed = new Track("A", "Smart", "/smart/a.mp3");
+        Track otherArtist = new Track("C", "Other", "/smart/c.mp3");
+        for (Track track : Arrays.asList(played, notPlayed, otherArtist)) {
+            playlist.evaluate(table, track.getId());
+        }
+        assertTrue(playlist.getTracks(table, 0).isEmpty());
+
+        table.recordPlay(played.getId(), 1);
+        table.recordPlay(otherArtist.getId(), 1);
+        List<Track> tracks = playlist.getTracks(table, 0);
+        assertEquals(1, tracks.size());
+        assertEquals(played, tracks.get(0));
+
+        table.recordPlay(notPlayed.getId(), 1);
+        tracks = playlist.getTracks(table, 0);
+        assertEquals(Arrays.asList(notPlayed, played), tracks);
+
+        playlist.remove(played.getId());
+        assertEquals(Arrays.asList(notPlayed), playlist.getTracks(table, 0));
+    }
+}
@@ -0,0 +1,46 @@
+package com.djrapitops.nmplayer.functionality;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Rsl1122
+ */
+public class SmartRuleTest {
+
+    @Test
+    public void testTextRules() {
+        TrackTable table = TrackTable.getInstance();
+        int id = new Track("Déjà Vu", "Dj Rapitops", "/music/Dj Rapitops - Deja Vu.mp3").getId();
+        assertTrue(SmartRule.parse("artist = dj rapitops").matches(table, id, 0));
+        assertTrue(SmartRule.parse("name contains deja").matches(table, id, 0));
+        assertTrue(SmartRule.parse("artist != Someone").matches(table, id, 0));
+        assertFalse(SmartRule.parse("file contains arrival").matches(table, id, 0));
+    }
+
+    @Test
+    public void testNumberRules() {
+        TrackTable table = TrackTable.getInstance();
+        int id = new Track("Rules", "Numbers", "/music/rules.mp3").getId();
+        table.setDuration(id, 4 * 60 * 1000);
+        table.setAddedTime(id, 1000);
+        long day = 24L * 60L * 60L * 1000L;
+        assertTrue(SmartRule.parse("duration < 5m").matches(table, id, 0));
+        assertFalse(SmartRule.parse("duration > 300").matches(table, id, 0));
+        assertTrue(SmartRule.parse("added < 30d").matches(table, id, 1000 + day));
+        assertFalse(SmartRule.parse("added < 30d").matches(table, id, 1000 + 31 * day));
+        assertTrue(SmartRule.parse("added < 30d").isDynamic());
+        assertFalse(SmartRule.parse("duration < 5m").isDynamic());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRule() {
+        SmartRule.parse("name < 5");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownField() {
+        SmartRule.parse("genre = rock");
+    }
+}
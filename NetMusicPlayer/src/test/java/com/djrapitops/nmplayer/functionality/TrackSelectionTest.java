@@ -0,0 +1,41 @@
+package com.djrapitops.nmplayer.functionality;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Rsl1122
+ */
+public class TrackSelectionTest {
+
+    @Test
+    public void testExtendTo() {
+        TrackSelection selection = new TrackSelection();
+        selection.toggle(5);
+        selection.extendTo(2);
+        assertEquals(4, selection.size());
+        for (int i = 2; i <= 5; i++) {
+            assertTrue(selection.isSelected(i));
+        }
+        selection.toggle(3);
+        assertFalse(selection.isSelected(3));
+        assertEquals(4, selection.nextSelected(3));
+        selection.clear();
+        assertTrue(selection.isEmpty());
+    }
+
+    @Test
+    public void testCopy() {
+        TrackSelection selection = new TrackSelection();
+        selection.select(1);
+        selection.extendTo(3);
+        TrackSelection copy = new TrackSelection(selection);
+        selection.clear();
+        assertEquals(3, copy.size());
+        assertTrue(copy.isSelected(1));
+        copy.extendTo(5);
+        assertTrue(copy.isSelected(4));
+        assertTrue(selection.isEmpty());
+    }
+}
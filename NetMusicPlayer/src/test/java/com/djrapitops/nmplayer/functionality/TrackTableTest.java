@@ -0,0 +1,81 @@
+package com.djrapitops.nmplayer.functionality;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Rsl1122
+ */
+public class TrackTableTest {
+
+    @Test
+    public void testSameTrackSameId() {
+        TrackTable table = TrackTable.getInstance();
+        int id = table.register("TableName", "TableArtist", "/music/TableArtist - TableName.mp3");
+        assertEquals(id, table.register("TableName", "TableArtist", "/music/TableArtist - TableName.mp3"));
+        assertNotEquals(id, table.register("TableName", "TableArtist", "/other/TableArtist - TableName.mp3"));
+    }
+
+    @Test
+    public void testColumns() {
+        TrackTable table = TrackTable.getInstance();
+        int id = table.register("Name", "Artist", "C:\\Music\\Artist - Name.wav");
+        assertEquals("Name", table.getName(id));
+        assertEquals("Artist", table.getArtist(id));
+        assertEquals("C:\\Music\\Artist - Name.wav", table.getFilePath(id));
+        assertSame(table.getFilePath(id), table.getFilePath(id));
+        assertEquals("Artist - Name.wav", table.getFileName(id));
+        assertEquals(TrackTable.UNKNOWN_DURATION, table.getDuration(id));
+        table.setDuration(id, 1000);
+        assertEquals(1000, table.getDuration(id));
+    }
+
+    @Test
+    public void testTrackView() {
+        Track track = new Track("ViewName", "ViewArtist", "/music/view.mp3");
+        Track view = TrackTable.getInstance().getTrack(track.getId());
+        assertEquals(track, view);
+        assertEquals(track.hashCode(), view.hashCode());
+        assertEquals("ViewArtist - ViewName", view.toString());
+    }
+
+    @Test
+    public void testManyTracks() {
+        TrackTable table = TrackTable.getInstance();
+        int first = table.register("Many0", "ManyArtist", "/many/0.mp3");
+        for (int i = 1; i < 10000; i++) {
+            assertEquals(first + i, table.register("Many" + i, "ManyArtist", "/many/" + i + ".mp3"));
+        }
+        assertEquals("/many/5000.mp3", table.getFilePath(first + 5000));
+        assertEquals(first + 9999, table.register("Many9999", "ManyArtist", "/many/9999.mp3"));
+    }
+
+    @Test
+    public void testReadWhileRegistering() throws InterruptedException {
+        TrackTable table = TrackTable.getInstance();
+        int first = table.register("Concurrent0", "ConcurrentArtist", "/concurrent/0.mp3");
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            for (int i = 1; i < 50000; i++) {
+                table.register("Concurrent" + i, "ConcurrentArtist", "/concurrent/" + i + ".mp3");
+            }
+        });
+        writer.start();
+        try {
+            while (writer.isAlive()) {
+                int last = table.size() - 1;
+                String name = table.getName(last);
+                if (last > first && name.startsWith("Concurrent")) {
+                    assertEquals("/concurrent/" + name.substring(10) + ".mp3", table.getFilePath(last));
+                }
+            }
+        } catch (Throwable e) {
+            failure.set(e);
+        }
+        writer.join();
+        assertNull(failure.get());
+    }
+}
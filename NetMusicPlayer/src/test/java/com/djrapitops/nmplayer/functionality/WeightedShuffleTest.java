@@ -0,0 +1,79 @@
+package com.djrapitops.nmplayer.functionality;
+
+import com.djrapitops.nmplayer.functionality.utilities.IntVector;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Rsl1122
+ */
+public class WeightedShuffleTest {
+
+    private static int[] createTracks(String prefix, int amount) {
+        int[] ids = new int[amount];
+        for (int i = 0; i < amount; i++) {
+            ids[i] = new Track(prefix + i, "Weighted", prefix + i + ".mp3").getId();
+        }
+        return ids;
+    }
+
+    @Test
+    public void testMostPlayedIsDrawnMoreOften() {
+        int[] ids = createTracks("MostPlayed", 10);
+        TrackTable table = TrackTable.getInstance();
+        for (int i = 0; i < 9; i++) {
+            table.recordPlay(ids[0], 1L);
+        }
+        WeightedShuffle shuffle = new WeightedShuffle(IntVector.of(ids), ShuffleMode.MOST_PLAYED, 0, new Random(1));
+        int favourite = 0;
+        int draws = 19000;
+        for (int i = 0; i < draws; i++) {
+            if (shuffle.next() == ids[0]) {
+                favourite++;
+            }
+        }
+        // Weight 10 out of 19 in total.
+        assertEquals(10.0 / 19.0, (double) favourite / draws, 0.02);
+    }
+
+    @Test
+    public void testNoRepeatWindow() {
+        int[] ids = createTracks("Window", 6);
+        WeightedShuffle shuffle = new WeightedShuffle(IntVector.of(ids), ShuffleMode.LEAST_PLAYED, 5, new Random(2));
+        Set<Integer> lastFive = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            int id = shuffle.next();
+            assertTrue("Repeated within window", lastFive.add(id));
+            shuffle.played(id);
+        }
+        int id = shuffle.next();
+        assertFalse(lastFive.contains(id));
+    }
+
+    @Test
+    public void testPeekIsDrawnNext() {
+        int[] ids = createTracks("Peek", 20);
+        WeightedShuffle shuffle = new WeightedShuffle(IntVector.of(ids), ShuffleMode.NOT_RECENT, 3, new Random(3));
+        int first = shuffle.peek(0);
+        int second = shuffle.peek(1);
+        assertEquals(first, shuffle.next());
+        assertEquals(second, shuffle.next());
+    }
+
+    @Test
+    public void testRebuildUsesNewPlaylist() {
+        int[] ids = createTracks("Rebuild", 4);
+        WeightedShuffle shuffle = new WeightedShuffle(IntVector.of(ids), ShuffleMode.MOST_PLAYED, 0, new Random(4));
+        shuffle.update(IntVector.of(new int[]{ids[2]}));
+        shuffle.rebuild();
+        assertEquals(ids[2], shuffle.next());
+        shuffle.update(IntVector.EMPTY);
+        shuffle.rebuild();
+        assertEquals(-1, shuffle.next());
+    }
+}
@@ -0,0 +1,64 @@
+package com.djrapitops.nmplayer.functionality.loudness;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Rsl1122
+ */
+public class LoudnessMeterTest {
+
+    static float[] sine(float sampleRate, int channels, double seconds, double dbfs) {
+        int frames = (int) (sampleRate * seconds);
+        float[] samples = new float[frames * channels];
+        double amplitude = Math.pow(10, dbfs / 20);
+        for (int f = 0; f < frames; f++) {
+            float value = (float) (amplitude * Math.sin(2 * Math.PI * 1000 * f / sampleRate));
+            for (int c = 0; c < channels; c++) {
+                samples[f * channels + c] = value;
+            }
+        }
+        return samples;
+    }
+
+    @Test
+    public void testStereoSine() {
+        LoudnessMeter meter = new LoudnessMeter(48000, 2);
+        float[] samples = sine(48000, 2, 20, -23);
+        meter.process(samples, 0, samples.length / 2);
+        assertEquals(-23, meter.getIntegratedLoudness(), 0.1);
+    }
+
+    @Test
+    public void testSampleRate() {
+        LoudnessMeter meter = new LoudnessMeter(44100, 2);
+        float[] samples = sine(44100, 2, 10, -20);
+        meter.process(samples, 0, samples.length / 2);
+        assertEquals(-20, meter.getIntegratedLoudness(), 0.1);
+    }
+
+    @Test
+    public void testSilenceIsGated() {
+        LoudnessMeter meter = new LoudnessMeter(48000, 2);
+        float[] silence = new float[48000 * 2 * 10];
+        meter.process(silence, 0, silence.length / 2);
+        assertEquals(Double.NEGATIVE_INFINITY, meter.getIntegratedLoudness(), 0);
+
+        float[] samples = sine(48000, 2, 10, -23);
+        meter.process(samples, 0, samples.length / 2);
+        meter.process(silence, 0, silence.length / 2);
+        // Blocks that are partly silent are above the relative gate.
+        assertEquals(-23, meter.getIntegratedLoudness(), 0.2);
+    }
+
+    @Test
+    public void testQuietPartIsGated() {
+        LoudnessMeter meter = new LoudnessMeter(48000, 2);
+        float[] loud = sine(48000, 2, 10, -20);
+        float[] quiet = sine(48000, 2, 10, -40);
+        meter.process(loud, 0, loud.length / 2);
+        meter.process(quiet, 0, quiet.length / 2);
+        assertEquals(-20, meter.getIntegratedLoudness(), 0.1);
+    }
+}
@@ -0,0 +1,97 @@
+package com.djrapitops.nmplayer.functionality.loudness;
+
+import com.djrapitops.nmplayer.functionality.Track;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Rsl1122
+ */
+public class LoudnessScannerTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("loudnessScanner", ".wav");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws IOException {
+        Files.deleteIfExists(new File("metadata.cache").toPath());
+    }
+
+    private void writeWav(int formatTag, int bits, float[] samples) throws IOException {
+        int bytes = bits / 8;
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.writeBytes("RIFF");
+            out.writeInt(Integer.reverseBytes(36 + samples.length * bytes));
+            out.writeBytes("WAVEfmt ");
+            out.writeInt(Integer.reverseBytes(16));
+            out.writeShort(Short.reverseBytes((short) formatTag));
+            out.writeShort(Short.reverseBytes((short) 2));
+            out.writeInt(Integer.reverseBytes(48000));
+            out.writeInt(Integer.reverseBytes(48000 * 2 * bytes));
+            out.writeShort(Short.reverseBytes((short) (2 * bytes)));
+            out.writeShort(Short.reverseBytes((short) bits));
+            out.writeBytes("data");
+            out.writeInt(Integer.reverseBytes(samples.length * bytes));
+            for (float sample : samples) {
+                int value = formatTag == 3 ? Float.floatToIntBits(sample) : (int) (sample * ((1 << (bits - 1)) - 1));
+                for (int b = 0; b < bytes; b++) {
+                    out.write(value >> (8 * b));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAnalyzeWav() throws IOException {
+        float[] samples = LoudnessMeterTest.sine(48000, 2, 5, -23);
+        LoudnessScanner scanner = LoudnessScanner.getInstance();
+
+        writeWav(1, 16, samples);
+        assertEquals(-23, scanner.analyze(file), 0.1);
+        writeWav(1, 24, samples);
+        assertEquals(-23, scanner.analyze(file), 0.1);
+        writeWav(3, 32, samples);
+        assertEquals(-23, scanner.analyze(file), 0.1);
+    }
+
+    @Test
+    public void testScanStoresGain() throws IOException, InterruptedException {
+        writeWav(1, 16, LoudnessMeterTest.sine(48000, 2, 2, -28));
+        Track track = new Track("Loudness", "Scanner", file.getAbsolutePath());
+        LoudnessScanner scanner = LoudnessScanner.getInstance();
+        assertEquals(1.0, scanner.getGain(track), 0);
+
+        scanner.scan(Collections.singletonList(track));
+        long deadline = System.currentTimeMillis() + 10000;
+        while (Double.isNaN(scanner.getLoudness(track)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(-28, scanner.getLoudness(track), 0.1);
+        assertEquals(Math.pow(10, 10.0 / 20), scanner.getGain(track), 0.02);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetRateNotPositive() {
+        LoudnessScanner.getInstance().setRate(0);
+    }
+}
@@ -0,0 +1,119 @@
+package com.djrapitops.nmplayer.functionality.playback;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Rsl1122
+ */
+public class Mp3SeekIndexTest {
+
+    // MPEG-1 Layer III, 128 kbps, 44100 Hz, no CRC.
+    private static final int HEADER = 0xFFFB9000;
+    private static final int FRAME_LENGTH = 417;
+    private static final int FRAMES = 1000;
+    private static final int TAG_LENGTH = 10 + 20;
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("seekIndex", ".mp3");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    /**
+     * Writes an ID3v2 tag, frames with empty audio and an ID3v1 tag.
+     *
+     * @param paddedEvery Every n:th frame is one byte longer, 0 for none.
+     * @param garbageAt   Index of the frame that is preceded by junk bytes,
+     *                    -1 for none.
+     * @return Offsets of the frames.
+     */
+    private long[] writeMp3(int paddedEvery, int garbageAt) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(new byte[]{'I', 'D', '3', 4, 0, 0, 0, 0, 0, 20});
+        out.write(new byte[20]);
+        long[] offsets = new long[FRAMES];
+        for (int i = 0; i < FRAMES; i++) {
+            if (i == garbageAt) {
+                out.write(new byte[]{1, 2, 3, (byte) 0xFF, 0, 5, 6});
+            }
+            boolean padded = paddedEvery > 0 && i % paddedEvery == 0;
+            int header = padded ? HEADER | 0x200 : HEADER;
+            offsets[i] = out.size();
+            out.write(header >>> 24);
+            out.write(header >>> 16);
+            out.write(header >>> 8);
+            out.write(header);
+            out.write(new byte[FRAME_LENGTH - 4 + (padded ? 1 : 0)]);
+        }
+        out.write(new byte[]{'T', 'A', 'G'});
+        out.write(new byte[125]);
+        Files.write(file.toPath(), out.toByteArray());
+        return offsets;
+    }
+
+    @Test
+    public void testBuild() throws IOException {
+        long[] offsets = writeMp3(3, -1);
+        Mp3SeekIndex index = Mp3SeekIndex.build(file);
+        assertEquals(FRAMES, index.getFrameCount());
+        assertEquals(1152, index.getSamplesPerFrame());
+        assertEquals(44100, index.getSampleRate());
+        assertEquals(FRAMES * 1152 / 44100.0, index.getDuration(), 0.0001);
+        assertEquals(TAG_LENGTH, index.getOffset(0));
+
+        for (long sample : new long[]{0, 1151, 1152 * 3, 1152 * 100 + 7, 1152L * FRAMES - 1}) {
+            long frame = index.findFrame(sample);
+            long target = sample / 1152;
+            assertEquals(0, frame % Mp3SeekIndex.STEP);
+            assertTrue(frame <= Math.max(0, target - Mp3SeekIndex.PRIMING_FRAMES));
+            assertTrue(target - frame < Mp3SeekIndex.STEP + Mp3SeekIndex.PRIMING_FRAMES);
+            assertEquals(offsets[(int) frame], index.getOffset(frame));
+        }
+    }
+
+    @Test
+    public void testJunkSkipped() throws IOException {
+        long[] offsets = writeMp3(0, 64);
+        Mp3SeekIndex index = Mp3SeekIndex.build(file);
+        assertEquals(FRAMES, index.getFrameCount());
+        assertEquals(offsets[64], index.getOffset(64));
+        assertEquals(offsets[96], index.getOffset(96));
+    }
+
+    @Test
+    public void testEncodeAndCache() throws IOException {
+        writeMp3(2, -1);
+        Mp3SeekIndex built = Mp3SeekIndex.build(file);
+        Mp3SeekIndex decoded = Mp3SeekIndex.decode(built.encode());
+        assertEquals(built.getFrameCount(), decoded.getFrameCount());
+        assertEquals(built.getSampleRate(), decoded.getSampleRate());
+        for (long frame = 0; frame < FRAMES; frame += Mp3SeekIndex.STEP) {
+            assertEquals(built.getOffset(frame), decoded.getOffset(frame));
+        }
+
+        assertNull(Mp3SeekIndex.getCached(file));
+        Mp3SeekIndex.get(file);
+        assertNotNull(Mp3SeekIndex.getCached(file));
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotMp3() throws IOException {
+        Files.write(file.toPath(), new byte[4096]);
+        Mp3SeekIndex.build(file);
+    }
+}
@@ -0,0 +1,151 @@
+package com.djrapitops.nmplayer.functionality.playback;
+
+import com.djrapitops.nmplayer.fileutils.PlaybackCheckpoint;
+import com.djrapitops.nmplayer.fileutils.PlaylistFileManager;
+import com.djrapitops.nmplayer.functionality.MusicPlayer;
+import com.djrapitops.nmplayer.functionality.PlayerCommands;
+import com.djrapitops.nmplayer.functionality.Track;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Rsl1122
+ */
+public class NullPlaybackEngineTest {
+
+    private static final String RESUME_PLAYLIST = "testNullEngineResume";
+
+    private File first;
+    private File second;
+
+    @Before
+    public void setUp() throws IOException {
+        first = writeWav("nullEngineFirst", 1);
+        second = writeWav("nullEngineSecond", 1);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(first.toPath());
+        Files.deleteIfExists(second.toPath());
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws IOException {
+        Files.deleteIfExists(new File("playback.checkpoint").toPath());
+        Files.deleteIfExists(new File("playlists.index").toPath());
+    }
+
+    private static File writeWav(String name, int seconds) throws IOException {
+        File file = File.createTempFile(name, ".wav");
+        AudioFormat format = new AudioFormat(8000, 16, 1, true, false);
+        byte[] samples = new byte[8000 * 2 * seconds];
+        AudioInputStream stream = new AudioInputStream(new ByteArrayInputStream(samples), format, 8000 * seconds);
+        AudioSystem.write(stream, AudioFileFormat.Type.WAVE, file);
+        return file;
+    }
+
+    @Test
+    public void testPlaysToEnd() throws InterruptedException {
+        NullPlaybackEngine engine = new NullPlaybackEngine(false);
+        PlaybackHandle handle = engine.open(new Track("Null", "Engine", first.getAbsolutePath()));
+        CountDownLatch ended = new CountDownLatch(1);
+        handle.setOnEndOfMedia(ended::countDown);
+        assertEquals(1.0, handle.getTotalDuration(), 0.001);
+
+        handle.play();
+        assertTrue("Track did not end", ended.await(5, TimeUnit.SECONDS));
+        assertEquals(1.0, handle.getCurrentTime(), 0.001);
+
+        handle.stop();
+        assertEquals(0.0, handle.getCurrentTime(), 0.001);
+        handle.dispose();
+    }
+
+    @Test
+    public void testMusicPlayerWithoutJavaFx() throws InterruptedException {
+        MusicPlayer player = new MusicPlayer(new NullPlaybackEngine(false));
+        Track firstTrack = new Track("Null First", "Engine", first.getAbsolutePath());
+        Track secondTrack = new Track("Null Second", "Engine", second.getAbsolutePath());
+        player.getPlaylistManager().setPlaylist(Arrays.asList(firstTrack, secondTrack));
+        player.selectTrack(0);
+        player.play();
+        assertTrue(player.isPlaying());
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!secondTrack.equals(player.getCurrentTrack()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(secondTrack, player.getCurrentTrack());
+        player.stop();
+    }
+
+    @Test
+    public void testCrossfade() throws InterruptedException, IOException {
+        File longFirst = writeWav("nullEngineLongFirst", 2);
+        try {
+            MusicPlayer player = new MusicPlayer(new NullPlaybackEngine(true));
+            PlayerCommands commands = new PlayerCommands(player);
+            Track firstTrack = new Track("Null Long First", "Engine", longFirst.getAbsolutePath());
+            Track secondTrack = new Track("Null Second", "Engine", second.getAbsolutePath());
+            commands.submitAndWait(() -> {
+                player.setCrossfade(1000);
+                player.getPlaylistManager().setPlaylist(Arrays.asList(firstTrack, secondTrack));
+                player.selectTrack(0);
+            });
+            PlaybackHandle outgoing = player.getPlayback();
+            long start = System.currentTimeMillis();
+            commands.play();
+
+            while (!secondTrack.equals(player.getCurrentTrack()) && System.currentTimeMillis() - start < 5000) {
+                Thread.sleep(10);
+            }
+            assertEquals(secondTrack, player.getCurrentTrack());
+            assertTrue("Second track did not start before the first ended", System.currentTimeMillis() - start < 1800);
+            assertTrue(outgoing.getCurrentTime() > 0);
+            commands.submitAndWait(player::stop);
+        } finally {
+            Files.deleteIfExists(longFirst.toPath());
+        }
+    }
+
+    @Test
+    public void testInitKeepsCheckpointPosition() throws IOException {
+        File resumed = writeWav("nullEngineResume", 4);
+        File playlistFile = new File(PlaylistFileManager.getPlaylistFolder(), RESUME_PLAYLIST + ".txt");
+        try {
+            assertTrue(PlaylistFileManager.save(Collections.singletonList(resumed.getAbsolutePath()), RESUME_PLAYLIST));
+            PlaybackCheckpoint checkpoint = PlaybackCheckpoint.getInstance();
+            checkpoint.update(RESUME_PLAYLIST, resumed.getAbsolutePath(), 1000, false);
+
+            for (int i = 0; i < 2; i++) {
+                MusicPlayer player = new MusicPlayer(new NullPlaybackEngine(false));
+                player.init();
+                assertEquals(RESUME_PLAYLIST, player.getSelectedPlaylist());
+                assertEquals(0.25, player.getCurrentTrackProgress(), 0.01);
+                assertEquals(resumed.getAbsolutePath(), checkpoint.getTrackPath());
+                assertEquals(1000, checkpoint.getPosition());
+            }
+        } finally {
+            Files.deleteIfExists(playlistFile.toPath());
+            Files.deleteIfExists(resumed.toPath());
+        }
+    }
+}
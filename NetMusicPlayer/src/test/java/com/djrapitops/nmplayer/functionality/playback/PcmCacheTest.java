@@ -0,0 +1,154 @@
+package com.djrapitops.nmplayer.functionality.playback;
+
+import com.djrapitops.nmplayer.functionality.Track;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Rsl1122
+ */
+public class PcmCacheTest {
+
+    private static final int FRAMES = 8000;
+
+    private File first;
+    private File second;
+    private Track firstTrack;
+    private Track secondTrack;
+    private NullPlaybackEngine engine;
+
+    @Before
+    public void setUp() throws IOException {
+        first = writeWav("pcmCacheFirst");
+        second = writeWav("pcmCacheSecond");
+        firstTrack = new Track("Pcm First", "Cache", first.getAbsolutePath());
+        secondTrack = new Track("Pcm Second", "Cache", second.getAbsolutePath());
+        engine = new NullPlaybackEngine(false);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(first.toPath());
+        Files.deleteIfExists(second.toPath());
+    }
+
+    private static File writeWav(String name) throws IOException {
+        File file = File.createTempFile(name, ".wav");
+        AudioFormat format = new AudioFormat(8000, 16, 1, true, false);
+        byte[] samples = new byte[FRAMES * 2];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (byte) i;
+        }
+        AudioInputStream stream = new AudioInputStream(new ByteArrayInputStream(samples), format, FRAMES);
+        AudioSystem.write(stream, AudioFileFormat.Type.WAVE, file);
+        return file;
+    }
+
+    private static byte[] readAll(AudioInputStream stream) throws IOException {
+        byte[] bytes = new byte[FRAMES * 2];
+        int offset = 0;
+        int read;
+        while (offset < bytes.length && (read = stream.read(bytes, offset, bytes.length - offset)) > 0) {
+            offset += read;
+        }
+        assertEquals(-1, stream.read(new byte[2]));
+        stream.close();
+        return bytes;
+    }
+
+    @Test
+    public void testReplayIsHit() throws IOException {
+        PcmCache cache = new PcmCache(1024 * 1024, 1024 * 1024, true);
+        engine.setPcmCache(cache);
+        byte[] decoded = readAll(engine.openStream(firstTrack));
+
+        assertArrayEquals(decoded, readAll(engine.openCached(firstTrack)));
+        assertArrayEquals(decoded, readAll(engine.openCached(firstTrack)));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0.5, cache.getHitRate(), 0.001);
+        assertEquals(FRAMES * 2, cache.getMemoryUse());
+    }
+
+    @Test
+    public void testLeastRecentEvicted() throws IOException {
+        PcmCache cache = new PcmCache(FRAMES * 2 + 100, FRAMES * 2, false);
+        engine.setPcmCache(cache);
+        readAll(engine.openCached(firstTrack));
+        readAll(engine.openCached(secondTrack));
+        assertEquals(1, cache.size());
+        assertEquals(FRAMES * 2, cache.getMemoryUse());
+
+        readAll(engine.openCached(secondTrack));
+        readAll(engine.openCached(firstTrack));
+        assertEquals(1, cache.getHits());
+        assertEquals(3, cache.getMisses());
+    }
+
+    @Test
+    public void testLongTrackNotCached() throws IOException {
+        PcmCache cache = new PcmCache(1024 * 1024, FRAMES, false);
+        engine.setPcmCache(cache);
+        readAll(engine.openCached(firstTrack));
+        readAll(engine.openCached(firstTrack));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getMemoryUse());
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    public void testCachedWhenReadToEnd() throws IOException {
+        PcmCache cache = new PcmCache(1024 * 1024, 1024 * 1024, false);
+        engine.setPcmCache(cache);
+        byte[] decoded = readAll(engine.openStream(firstTrack));
+        AudioInputStream stream = engine.openCached(firstTrack);
+        assertEquals(0, cache.getMemoryUse());
+        assertEquals(100, stream.read(new byte[100]));
+        stream.close();
+        assertEquals(0, cache.size());
+
+        stream = engine.openCached(firstTrack);
+        assertEquals(FRAMES, stream.skip(FRAMES));
+        byte[] rest = new byte[FRAMES];
+        int offset = 0;
+        int read;
+        while ((read = stream.read(rest, offset, rest.length - offset)) > 0) {
+            offset += read;
+        }
+        stream.close();
+        assertEquals(FRAMES, offset);
+        assertEquals(1, cache.size());
+        assertArrayEquals(decoded, readAll(engine.openCached(firstTrack)));
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testHandlePlaysFromCache() throws InterruptedException {
+        PcmCache cache = new PcmCache(1024 * 1024, 1024 * 1024, false);
+        engine.setPcmCache(cache);
+        PlaybackHandle first = engine.open(firstTrack);
+        CountDownLatch ended = new CountDownLatch(1);
+        first.setOnEndOfMedia(ended::countDown);
+        first.play();
+        assertTrue("Track did not end", ended.await(5, TimeUnit.SECONDS));
+        first.dispose();
+        PlaybackHandle handle = engine.open(firstTrack);
+        assertEquals(1, cache.getHits());
+        assertEquals(1.0, handle.getTotalDuration(), 0.001);
+        handle.dispose();
+    }
+}
@@ -0,0 +1,81 @@
+package com.djrapitops.nmplayer.functionality.utilities;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Rsl1122
+ */
+public class IntVectorTest {
+
+    @Test
+    public void testMatchesArrayList() {
+        Random r = new Random(5);
+        List<Integer> expected = new ArrayList<>();
+        IntVector vector = IntVector.EMPTY;
+        for (int i = 0; i < 5000; i++) {
+            int op = r.nextInt(3);
+            if (op == 0 && !expected.isEmpty()) {
+                int index = r.nextInt(expected.size());
+                expected.remove(index);
+                vector = vector.removeAt(index);
+            } else if (op == 1) {
+                int index = r.nextInt(expected.size() + 1);
+                expected.add(index, i);
+                vector = vector.insert(index, i);
+            } else {
+                expected.add(i);
+                vector = vector.add(i);
+            }
+        }
+        assertEquals(expected.size(), vector.size());
+        int[] array = vector.toArray();
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals((int) expected.get(i), vector.get(i));
+            assertEquals((int) expected.get(i), array[i]);
+        }
+        assertEquals(expected.indexOf(4999), vector.indexOf(4999));
+    }
+
+    @Test
+    public void testOldVersionUnchanged() {
+        IntVector first = IntVector.of(new int[]{1, 2, 3});
+        IntVector second = first.removeAt(0).add(4).insert(0, 5);
+        assertArrayEquals(new int[]{1, 2, 3}, first.toArray());
+        assertArrayEquals(new int[]{5, 2, 3, 4}, second.toArray());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetOutOfBounds() {
+        IntVector.of(new int[]{1}).get(1);
+    }
+
+    @Test
+    public void testRemovePositions() {
+        int[] values = new int[100000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i;
+        }
+        IntVector vector = IntVector.of(values).insert(500, -1).removeAt(70000);
+        IntVector removed = vector.removePositions(i -> i % 3 == 0 || i >= 90000);
+        int[] expected = vector.toArray();
+        int size = 0;
+        for (int i = 0; i < expected.length; i++) {
+            if (i % 3 != 0 && i < 90000) {
+                expected[size++] = expected[i];
+            }
+        }
+        assertArrayEquals(Arrays.copyOf(expected, size), removed.toArray());
+        assertEquals(size, removed.size());
+        assertEquals(expected[size - 1], removed.get(size - 1));
+        assertEquals(100000, vector.size());
+        assertSame(vector, vector.removePositions(i -> false));
+        assertTrue(vector.removePositions(i -> true).isEmpty());
+    }
+}
@@ -0,0 +1,44 @@
+package com.djrapitops.nmplayer.functionality.utilities;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.djrapitops.nmplayer.functionality.utilities.PlaylistAlgebra.Operation.*;
+import static org.junit.Assert.*;
+
+/**
+ * @author Rsl1122
+ */
+public class PlaylistAlgebraTest {
+
+    private final List<String> first = Arrays.asList("c", "a", "b", "a");
+    private final List<String> second = Arrays.asList("d", "b", "c");
+
+    @Test
+    public void testUnion() {
+        assertEquals(Arrays.asList("c", "a", "b", "d"), PlaylistAlgebra.combine(first, UNION, second));
+    }
+
+    @Test
+    public void testIntersection() {
+        assertEquals(Arrays.asList("c", "b"), PlaylistAlgebra.combine(first, INTERSECTION, second));
+    }
+
+    @Test
+    public void testDifference() {
+        assertEquals(Arrays.asList("a"), PlaylistAlgebra.combine(first, DIFFERENCE, second));
+    }
+
+    @Test
+    public void testSymmetricDifference() {
+        assertEquals(Arrays.asList("a", "d"), PlaylistAlgebra.combine(first, SYMMETRIC_DIFFERENCE, second));
+    }
+
+    @Test
+    public void testFromSymbol() {
+        assertEquals(INTERSECTION, PlaylistAlgebra.Operation.fromSymbol('&'));
+        assertNull(PlaylistAlgebra.Operation.fromSymbol('*'));
+    }
+}
@@ -28,4 +28,9 @@ public class TextUtilsTest {
         assertEquals("Testuppercasefirst", TextUtils.uppercaseFirst("tEStUppercaseFIRST"));
     }
     
+    @Test
+    public void testNormalizeForSearch() {
+        assertEquals("beyonce deja vu", TextUtils.normalizeForSearch("BeyoncÉ_Déjà Vu"));
+    }
+
 }
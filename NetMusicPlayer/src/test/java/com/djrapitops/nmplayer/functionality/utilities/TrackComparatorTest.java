@@ -35,4 +35,41 @@ public class TrackComparatorTest {
         assertEquals(track3, trackList.get(2));
     }
     
+    @Test
+    public void testSort() {
+        List<Track> trackList = new ArrayList<>();
+        for (int i = 9999; i >= 0; i--) {
+            trackList.add(new Track(String.format("%05d", i), "Artist", "path" + i));
+        }
+        TrackComparator.sort(trackList);
+        for (int i = 0; i < trackList.size(); i++) {
+            assertEquals(String.format("%05d", i), trackList.get(i).getName());
+        }
+    }
+
+    @Test
+    public void testInsertSorted() {
+        List<Track> trackList = new ArrayList<>();
+        Track track1 = new Track("a", "a", "c");
+        Track track2 = new Track("a", "b", "c");
+        Track track3 = new Track("b", "b", "c");
+        TrackComparator.insertSorted(trackList, track3);
+        TrackComparator.insertSorted(trackList, track1);
+        TrackComparator.insertSorted(trackList, track2);
+        assertEquals(track1, trackList.get(0));
+        assertEquals(track2, trackList.get(1));
+        assertEquals(track3, trackList.get(2));
+    }
+
+    @Test
+    public void testCaseIsComparedAfterLetters() {
+        List<Track> trackList = new ArrayList<>();
+        Track upper = new Track("B", "Case", "c");
+        Track lower = new Track("a", "Case", "c");
+        TrackComparator.insertSorted(trackList, upper);
+        TrackComparator.insertSorted(trackList, lower);
+        assertEquals(lower, trackList.get(0));
+        assertEquals(upper, trackList.get(1));
+    }
+
 }